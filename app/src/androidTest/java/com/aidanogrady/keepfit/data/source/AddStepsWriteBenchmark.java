@@ -0,0 +1,144 @@
+package com.aidanogrady.keepfit.data.source;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.local.DbConnectionManager;
+import com.aidanogrady.keepfit.data.source.local.GoalsLocalDataSource;
+import com.aidanogrady.keepfit.data.source.local.HistoryLocalDataSource;
+import com.aidanogrady.keepfit.data.source.local.UpdatesLocalDataSource;
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the commits and time taken by the writes made when adding steps, first as independent
+ * autocommitted writes and then grouped through a UnitOfWork.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class AddStepsWriteBenchmark {
+    private static final String TAG = "AddStepsWriteBenchmark";
+
+    private static final int ENTRIES = 200;
+
+    private GoalsDataSource mGoals;
+
+    private HistoryDataSource mHistory;
+
+    private UpdatesDataSource mUpdates;
+
+    private DbConnectionManager mConnectionManager;
+
+    private Goal mGoal;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mGoals = GoalsLocalDataSource.getInstance(context);
+        mHistory = HistoryLocalDataSource.getInstance(context);
+        mUpdates = UpdatesLocalDataSource.getInstance(context);
+        mConnectionManager = DbConnectionManager.getInstance(context);
+        clear();
+
+        mGoal = new Goal("Benchmark", 1000, Unit.STEPS);
+        mGoals.insertGoal(mGoal);
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    public void autocommit() {
+        History history = new History(0, mGoal);
+        long start = System.nanoTime();
+        for (int i = 0; i < ENTRIES; i++) {
+            addSteps(history, i);
+        }
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        Log.i(TAG, "Autocommit: " + (ENTRIES * 3) + " commits, " + elapsed + " ms");
+    }
+
+    @Test
+    public void unitOfWorkPerEntry() {
+        Executor inline = Runnable::run;
+        UnitOfWork unitOfWork = new UnitOfWork(mConnectionManager,
+                new AppExecutors(inline, inline), 0);
+        History history = new History(0, mGoal);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ENTRIES; i++) {
+            unitOfWork.begin();
+            int time = i;
+            unitOfWork.enqueue(() -> addSteps(history, time));
+            unitOfWork.commit();
+        }
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(ENTRIES, unitOfWork.getCommitCount());
+        Log.i(TAG, "Unit of work per entry: " + unitOfWork.getCommitCount() + " commits, " +
+                elapsed + " ms");
+    }
+
+    @Test
+    public void unitOfWorkCoalesced() {
+        Executor inline = Runnable::run;
+        UnitOfWork unitOfWork = new UnitOfWork(mConnectionManager,
+                new AppExecutors(inline, inline), 0);
+        History history = new History(0, mGoal);
+
+        long start = System.nanoTime();
+        unitOfWork.begin();
+        for (int i = 0; i < ENTRIES; i++) {
+            int time = i;
+            unitOfWork.enqueue(() -> addSteps(history, time));
+        }
+        unitOfWork.commit();
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(1, unitOfWork.getCommitCount());
+        Log.i(TAG, "Unit of work coalesced: " + unitOfWork.getCommitCount() + " commits, " +
+                elapsed + " ms");
+    }
+
+    /**
+     * Makes the same three writes HomePresenter makes when steps are added.
+     *
+     * @param history the history steps are added to
+     * @param time the time of the update
+     */
+    private void addSteps(History history, int time) {
+        Update update = new Update(history.getDate(), time, 10, Unit.STEPS);
+        history.setDistance(history.getDistance() + 10);
+        mUpdates.insertUpdate(update);
+        mHistory.insertHistory(history);
+        mGoal.setLastAchieved(history.getDate());
+        mGoals.updateGoal(mGoal, mGoal.getId());
+    }
+
+    /**
+     * Removes all goals, history and updates.
+     */
+    private void clear() {
+        mGoals.deleteAllGoals();
+        mHistory.deleteAllHistory();
+        mUpdates.deleteAllUpdates();
+    }
+}
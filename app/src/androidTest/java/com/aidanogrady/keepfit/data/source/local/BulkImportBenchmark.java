@@ -0,0 +1,117 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.local.UpdatesPersistenceContract.UpdateEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the throughput of importing updates one row at a time against importing them through
+ * a single transaction with a reused compiled statement.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class BulkImportBenchmark {
+    private static final String TAG = "BulkImportBenchmark";
+
+    private static final int BULK_ROWS = 100000;
+
+    private static final int PER_ROW_ROWS = 2000;
+
+    private UpdatesLocalDataSource mUpdates;
+
+    private DbConnectionManager mConnectionManager;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mUpdates = UpdatesLocalDataSource.getInstance(context);
+        mConnectionManager = DbConnectionManager.getInstance(context);
+        mUpdates.deleteAllUpdates();
+    }
+
+    @After
+    public void tearDown() {
+        mUpdates.deleteAllUpdates();
+    }
+
+    @Test
+    public void perRow() {
+        List<Update> updates = createUpdates(PER_ROW_ROWS);
+
+        long start = System.nanoTime();
+        for (Update update : updates) {
+            mUpdates.insertUpdate(update);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(PER_ROW_ROWS, countUpdates());
+        log("Per row", PER_ROW_ROWS, elapsed);
+    }
+
+    @Test
+    public void bulk() {
+        List<Update> updates = createUpdates(BULK_ROWS);
+
+        long start = System.nanoTime();
+        mUpdates.insertUpdates(updates);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(BULK_ROWS, countUpdates());
+        log("Bulk", BULK_ROWS, elapsed);
+    }
+
+    /**
+     * Creates the given number of updates, five to a day.
+     *
+     * @param rows the number of updates to create
+     * @return the updates
+     */
+    private List<Update> createUpdates(int rows) {
+        List<Update> updates = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            updates.add(new Update(i / 5, i, 100, Unit.STEPS));
+        }
+        return updates;
+    }
+
+    /**
+     * Returns the number of rows in the updates table.
+     *
+     * @return update count
+     */
+    private long countUpdates() {
+        return DatabaseUtils.queryNumEntries(mConnectionManager.getDatabase(),
+                UpdateEntry.TABLE_NAME);
+    }
+
+    /**
+     * Logs the time taken and rows per second of an import.
+     *
+     * @param mode the import being measured
+     * @param rows the number of rows imported
+     * @param nanos the time taken in nanoseconds
+     */
+    private void log(String mode, int rows, long nanos) {
+        long rowsPerSecond = rows * 1000000000L / Math.max(nanos, 1);
+        Log.i(TAG, mode + ": " + rows + " rows, " + (nanos / 1000000) + " ms, " +
+                rowsPerSecond + " rows/s");
+    }
+}
@@ -0,0 +1,243 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.GoalsDataSource;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+import com.aidanogrady.keepfit.data.source.local.GoalsPersistenceContract.GoalEntry;
+import com.aidanogrady.keepfit.data.source.local.HistoryPersistenceContract.HistoryEntry;
+import com.aidanogrady.keepfit.data.source.local.UpdatesPersistenceContract.UpdateEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares loading all history with the data source's joined query against loading it row by row,
+ * looking up the goal of each row separately as the data source once did.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryLoadBenchmark {
+    private static final String TAG = "HistoryLoadBenchmark";
+
+    private static final int GOALS = 5;
+
+    private static final int UPDATES_PER_DAY = 3;
+
+    private KeepFitDbHelper mDbHelper;
+
+    private HistoryLocalDataSource mDataSource;
+
+    private GoalsLocalDataSource mGoalsDataSource;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mDbHelper = KeepFitDbHelper.getInstance(context);
+        mDataSource = HistoryLocalDataSource.getInstance(context);
+        mGoalsDataSource = GoalsLocalDataSource.getInstance(context);
+        clear();
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    public void oneYear() {
+        compare(365);
+    }
+
+    @Test
+    public void tenYears() {
+        compare(3650);
+    }
+
+    @Test
+    public void oneHundredYears() {
+        compare(36500);
+    }
+
+    /**
+     * Seeds the given number of days and logs the time taken by each loading mode.
+     *
+     * @param days the number of history rows to seed
+     */
+    private void compare(int days) {
+        seed(days);
+
+        long perRow = timePerRow(days);
+        long batched = time(days);
+
+        Log.i(TAG, days + " rows: per row " + perRow + " ms, batched " + batched + " ms");
+    }
+
+    /**
+     * Loads all history and returns the time taken in milliseconds.
+     *
+     * @param expected the number of history rows expected
+     * @return time taken
+     */
+    private long time(int expected) {
+        final int[] loaded = new int[1];
+        long start = System.nanoTime();
+        mDataSource.getHistory(new HistoryDataSource.LoadHistoryCallback() {
+            @Override
+            public void onHistoryLoaded(List<History> histories) {
+                loaded[0] = histories.size();
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                loaded[0] = 0;
+            }
+        });
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        assertEquals(expected, loaded[0]);
+        return elapsed;
+    }
+
+    /**
+     * Loads all history row by row and returns the time taken in milliseconds.
+     *
+     * @param expected the number of history rows expected
+     * @return time taken
+     */
+    private long timePerRow(int expected) {
+        long start = System.nanoTime();
+        int loaded = loadPerRow().size();
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        assertEquals(expected, loaded);
+        return elapsed;
+    }
+
+    /**
+     * Loads all history, looking up the goal of each row separately.
+     *
+     * @return all history, most recent first
+     */
+    private List<History> loadPerRow() {
+        List<History> histories = new ArrayList<>();
+        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+
+        String[] projection = {
+                HistoryEntry.COLUMN_NAME_DATE,
+                HistoryEntry.COLUMN_NAME_GOAL,
+                HistoryEntry.COLUMN_NAME_DISTANCE,
+                HistoryEntry.COLUMN_NAME_TOTAL_METRES,
+                HistoryEntry.COLUMN_NAME_UPDATE_COUNT
+        };
+
+        String orderBy = HistoryEntry.COLUMN_NAME_DATE + " DESC";
+        Cursor c = db.query(HistoryEntry.TABLE_NAME, projection, null, null, null, null, orderBy);
+        try {
+            while (c.moveToNext()) {
+                long date = c.getLong(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_DATE));
+                String goalId = c.getString(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_GOAL));
+                double dist =
+                        c.getDouble(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_DISTANCE));
+                double metres =
+                        c.getDouble(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_TOTAL_METRES));
+                int count =
+                        c.getInt(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_UPDATE_COUNT));
+                histories.add(History.summary(date, getGoal(goalId), dist, metres, count));
+            }
+        } finally {
+            c.close();
+        }
+        return histories;
+    }
+
+    /**
+     * Returns the goal with the given ID, including deleted goals.
+     *
+     * @param id the ID of the goal
+     * @return goal, or null if it does not exist
+     */
+    private Goal getGoal(String id) {
+        final Goal[] goal = new Goal[1];
+        mGoalsDataSource.getGoal(id, true, new GoalsDataSource.GetGoalCallback() {
+            @Override
+            public void onGoalLoaded(Goal loaded) {
+                goal[0] = loaded;
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                goal[0] = null;
+            }
+        });
+        return goal[0];
+    }
+
+    /**
+     * Inserts the given number of days of history, each with a few updates.
+     *
+     * @param days the number of days
+     */
+    private void seed(int days) {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < GOALS; i++) {
+                ContentValues values = new ContentValues();
+                values.put(GoalEntry.COLUMN_NAME_ID, "goal-" + i);
+                values.put(GoalEntry.COLUMN_NAME_NAME, "Goal " + i);
+                values.put(GoalEntry.COLUMN_NAME_DISTANCE, 1000 * (i + 1));
+                values.put(GoalEntry.COLUMN_NAME_UNIT, Unit.STEPS.ordinal());
+                values.put(GoalEntry.COLUMN_NAME_LAST_ACHIEVED, -1);
+                values.put(GoalEntry.COLUMN_NAME_DELETED, 0);
+                db.insert(GoalEntry.TABLE_NAME, null, values);
+            }
+
+            for (int day = 0; day < days; day++) {
+                ContentValues values = new ContentValues();
+                values.put(HistoryEntry.COLUMN_NAME_DATE, day);
+                values.put(HistoryEntry.COLUMN_NAME_GOAL, "goal-" + (day % GOALS));
+                values.put(HistoryEntry.COLUMN_NAME_DISTANCE, 300 * UPDATES_PER_DAY);
+                db.insert(HistoryEntry.TABLE_NAME, null, values);
+
+                for (int j = 0; j < UPDATES_PER_DAY; j++) {
+                    values = new ContentValues();
+                    values.put(UpdateEntry.COLUMN_NAME_DATE, day);
+                    values.put(UpdateEntry.COLUMN_NAME_TIME, 3600 * (j + 8));
+                    values.put(UpdateEntry.COLUMN_NAME_DISTANCE, 300);
+                    values.put(UpdateEntry.COLUMN_NAME_UNIT, Unit.STEPS.ordinal());
+                    db.insert(UpdateEntry.TABLE_NAME, null, values);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Removes all rows from every table.
+     */
+    private void clear() {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        db.delete(GoalEntry.TABLE_NAME, null, null);
+        db.delete(HistoryEntry.TABLE_NAME, null, null);
+        db.delete(UpdateEntry.TABLE_NAME, null, null);
+    }
+}
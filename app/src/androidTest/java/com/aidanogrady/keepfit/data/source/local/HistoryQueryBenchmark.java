@@ -0,0 +1,137 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times the filtered history queries of HistoryLocalDataSource, from the query builders to the
+ * History summaries. The database holds the given years of history.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryQueryBenchmark {
+    private static final String TAG = "HistoryQueryBenchmark";
+
+    private static final int PAGE_SIZE = 30;
+
+    private static final int UPDATES_PER_DAY = 8;
+
+    private static final int REPEATS = 20;
+
+    private SqliteStorageEngine mEngine;
+
+    private HistoryFilter mMonthFilter;
+
+    private HistoryFilter mCompletedFilter;
+
+    @Before
+    public void setUp() {
+        mEngine = SyntheticHistory.createEngine(InstrumentationRegistry.getTargetContext());
+        mMonthFilter = new HistoryFilter(SyntheticHistory.LAST_DATE - 30, Long.MAX_VALUE,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        mCompletedFilter = new HistoryFilter(Long.MIN_VALUE, Long.MAX_VALUE, 100,
+                Double.POSITIVE_INFINITY);
+        SyntheticHistory.clear(mEngine);
+    }
+
+    @After
+    public void tearDown() {
+        SyntheticHistory.clear(mEngine);
+    }
+
+    @Test
+    public void oneYear() {
+        compare(1);
+    }
+
+    @Test
+    public void fiveYears() {
+        compare(5);
+    }
+
+    /**
+     * Seeds the given years of history and logs the time taken by each query.
+     *
+     * @param years the years of history to seed
+     */
+    private void compare(int years) {
+        SyntheticHistory.fill(mEngine, years, UPDATES_PER_DAY);
+
+        int days = (int) (SyntheticHistory.LAST_DATE - SyntheticHistory.getFirstDate(years) + 1);
+        assertEquals(days, query(HistoryFilter.ALL, 0).size());
+        assertEquals(PAGE_SIZE, query(HistoryFilter.ALL, PAGE_SIZE).size());
+
+        long all = time(HistoryFilter.ALL, 0);
+        long firstPage = time(HistoryFilter.ALL, PAGE_SIZE);
+        long firstPageOfMonth = time(mMonthFilter, PAGE_SIZE);
+        long firstPageCompleted = time(mCompletedFilter, PAGE_SIZE);
+
+        Log.i(TAG, years + " years: all " + all + " us, first page " + firstPage +
+                " us, first page of month " + firstPageOfMonth +
+                " us, first page completed " + firstPageCompleted + " us");
+    }
+
+    /**
+     * Repeats the query of the given filter and returns the average time taken in microseconds.
+     *
+     * @param filter the filter history must match
+     * @param limit the maximum number of days, or 0 for no limit
+     * @return average time taken
+     */
+    private long time(HistoryFilter filter, int limit) {
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            query(filter, limit);
+        }
+        return (System.nanoTime() - start) / REPEATS / 1000;
+    }
+
+    /**
+     * Queries the history matched by the given filter.
+     *
+     * @param filter the filter history must match
+     * @param limit the maximum number of days, or 0 for no limit
+     * @return matched history
+     */
+    private List<History> query(HistoryFilter filter, int limit) {
+        HistoryCollector collector = new HistoryCollector();
+        mEngine.getHistory(filter, limit, collector);
+        return collector.mHistories;
+    }
+
+
+    /**
+     * Keeps the history given to it.
+     */
+    static class HistoryCollector implements HistoryDataSource.LoadHistoryCallback {
+        /**
+         * The history loaded, empty if none was.
+         */
+        List<History> mHistories = Collections.emptyList();
+
+        @Override
+        public void onHistoryLoaded(List<History> histories) {
+            mHistories = histories;
+        }
+
+        @Override
+        public void onDataNotAvailable() {}
+    }
+}
@@ -0,0 +1,142 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares reading the summary of a week and a month from the rollup tables against summing the
+ * days of the month from history, for growing lengths of history. Reading a rollup should take the
+ * same time whatever the length of the history.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryRollupBenchmark {
+    private static final String TAG = "HistoryRollupBenchmark";
+
+    private static final int UPDATES_PER_DAY = 1;
+
+    private static final int REPEATS = 100;
+
+    private SqliteStorageEngine mEngine;
+
+    private HistoryFilter mMonthFilter;
+
+    @Before
+    public void setUp() {
+        mEngine = SyntheticHistory.createEngine(InstrumentationRegistry.getTargetContext());
+        long date = SyntheticHistory.LAST_DATE;
+        mMonthFilter = new HistoryFilter(Period.MONTH.getStartDate(date),
+                Period.MONTH.getEndDate(date), Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+        SyntheticHistory.clear(mEngine);
+    }
+
+    @After
+    public void tearDown() {
+        SyntheticHistory.clear(mEngine);
+    }
+
+    @Test
+    public void oneYear() {
+        compare(1);
+    }
+
+    @Test
+    public void fiveYears() {
+        compare(5);
+    }
+
+    @Test
+    public void twentyYears() {
+        compare(20);
+    }
+
+    /**
+     * Seeds the given years of history and logs the time taken by each way of summarising it.
+     *
+     * @param years the years of history to seed
+     */
+    private void compare(int years) {
+        SyntheticHistory.fill(mEngine, years, UPDATES_PER_DAY);
+
+        double summed = sumMonth();
+        assertEquals(summed, rollup(Period.MONTH).getTotalMetres(), summed * 1e-9);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            rollup(Period.WEEK);
+        }
+        long week = (System.nanoTime() - start) / REPEATS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            rollup(Period.MONTH);
+        }
+        long month = (System.nanoTime() - start) / REPEATS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            sumMonth();
+        }
+        long monthSummed = (System.nanoTime() - start) / REPEATS / 1000;
+
+        Log.i(TAG, years + " years: week rollup " + week + " us, month rollup " + month +
+                " us, month summed from history " + monthSummed + " us");
+    }
+
+    /**
+     * Sums the total distance of the last month of history from its days, as a monthly view
+     * would without rollups.
+     *
+     * @return total metres of the month
+     */
+    private double sumMonth() {
+        HistoryQueryBenchmark.HistoryCollector collector =
+                new HistoryQueryBenchmark.HistoryCollector();
+        mEngine.getHistory(mMonthFilter, collector);
+        double metres = 0;
+        for (History history : collector.mHistories) {
+            metres += history.getTotalMetres();
+        }
+        return metres;
+    }
+
+    /**
+     * Reads the rollup of the given period containing the last day of history.
+     *
+     * @param period the period
+     * @return rollup of the period
+     */
+    private HistoryRollup rollup(Period period) {
+        HistoryRollup[] rollup = new HistoryRollup[1];
+        mEngine.getRollup(period, SyntheticHistory.LAST_DATE,
+                new HistoryDataSource.GetRollupCallback() {
+                    @Override
+                    public void onRollupLoaded(HistoryRollup loaded) {
+                        rollup[0] = loaded;
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {
+                        throw new IllegalStateException("No rollup of " + period);
+                    }
+                });
+        return rollup[0];
+    }
+}
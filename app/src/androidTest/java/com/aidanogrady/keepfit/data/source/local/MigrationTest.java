@@ -0,0 +1,139 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Migrates a large synthetic database from the base version to the current version, checking that
+ * no data is lost and logging the time taken by each step.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TAG = "MigrationTest";
+
+    private static final String DATABASE_NAME = "KeepFitMigrationTest.db";
+
+    private static final int DAYS = 36500;
+
+    private static final int UPDATES_PER_DAY = 5;
+
+    private Context mContext;
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+        File file = mContext.getDatabasePath(DATABASE_NAME);
+        file.getParentFile().mkdirs();
+        mDb = SQLiteDatabase.openOrCreateDatabase(file, null);
+        Migrations.createBaseSchema(mDb);
+        seed();
+    }
+
+    @After
+    public void tearDown() {
+        mDb.close();
+        mContext.deleteDatabase(DATABASE_NAME);
+        UnitsConverter.setSteps(UnitsConverter.DEFAULT_STEPS);
+    }
+
+    @Test
+    public void migrateBaseToLatestKeepsData() {
+        List<Migration> path = Migrations.findPath(Migrations.BASE_VERSION,
+                KeepFitDbHelper.DATABASE_VERSION);
+        assertNotNull(path);
+
+        // The steps per metre the user has set must not change what a migration writes
+        UnitsConverter.setSteps(2);
+        long[] durations = Migrations.apply(mDb, path);
+        long total = 0;
+        for (int i = 0; i < durations.length; i++) {
+            Log.i(TAG, path.get(i) + ": " + durations[i] + " ms");
+            total += durations[i];
+        }
+        Log.i(TAG, "Total: " + total + " ms for " + DAYS + " days");
+
+        assertEquals(DAYS, DatabaseUtils.queryNumEntries(mDb, "history"));
+        assertEquals(DAYS * UPDATES_PER_DAY, DatabaseUtils.queryNumEntries(mDb, "updates"));
+        assertEquals(1, DatabaseUtils.queryNumEntries(mDb, "goal"));
+        assertEquals(DAYS, DatabaseUtils.queryNumEntries(mDb, "history",
+                "update_count = " + UPDATES_PER_DAY + " AND total_metres > 0"));
+        assertEquals(1000 * UPDATES_PER_DAY / 1.5, Double.parseDouble(DatabaseUtils.stringForQuery(
+                mDb, "SELECT total_metres FROM history WHERE date = 0", null)), 1e-6);
+        // Every day is active and completes its goal, so each rollup table counts every day
+        for (String table : new String[] { "history_week", "history_month" }) {
+            assertEquals(DAYS, DatabaseUtils.longForQuery(mDb,
+                    "SELECT SUM(days_active) FROM " + table, null));
+            assertEquals(DAYS, DatabaseUtils.longForQuery(mDb,
+                    "SELECT SUM(days_completed) FROM " + table, null));
+        }
+        // The goal is completed every day, so both streaks run the length of the history
+        assertEquals(DAYS, DatabaseUtils.longForQuery(mDb,
+                "SELECT current_streak FROM goal WHERE uuid = 'goal'", null));
+        assertEquals(DAYS, DatabaseUtils.longForQuery(mDb,
+                "SELECT longest_streak FROM streak", null));
+        assertEquals(DAYS - 1, DatabaseUtils.longForQuery(mDb,
+                "SELECT last_achieved FROM goal", null));
+    }
+
+    /**
+     * Fills the base schema with a long history, using raw column names as the contracts describe
+     * the latest schema.
+     */
+    private void seed() {
+        mDb.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("uuid", "goal");
+            values.put("name", "Goal");
+            values.put("distance", 5000);
+            values.put("unit", 0);
+            values.put("last_achieved", -1);
+            values.put("deleted", 0);
+            mDb.insert("goal", null, values);
+
+            for (int day = 0; day < DAYS; day++) {
+                values = new ContentValues();
+                values.put("date", day);
+                values.put("goal", "goal");
+                values.put("distance", 1000 * UPDATES_PER_DAY);
+                mDb.insert("history", null, values);
+
+                for (int i = 0; i < UPDATES_PER_DAY; i++) {
+                    values = new ContentValues();
+                    values.put("date", day);
+                    values.put("time", 3600 * (i + 8));
+                    values.put("distance", 1000);
+                    values.put("unit", 0);
+                    mDb.insert("updates", null, values);
+                }
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+    }
+}
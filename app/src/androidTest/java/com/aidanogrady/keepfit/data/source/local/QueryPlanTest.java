@@ -0,0 +1,139 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.source.local.GoalsPersistenceContract.GoalEntry;
+import com.aidanogrady.keepfit.data.source.local.HistoryPersistenceContract.HistoryEntry;
+import com.aidanogrady.keepfit.data.source.local.UpdatesPersistenceContract.UpdateEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the hot queries of the local data sources are answered using an index rather than a
+ * full table scan.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() {
+        mDb = KeepFitDbHelper.getInstance(InstrumentationRegistry.getTargetContext())
+                .getReadableDatabase();
+    }
+
+    @Test
+    public void updatesForDateUsesIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, UpdateEntry.TABLE_NAME, null,
+                UpdatesLocalDataSource.SELECTION_DATE, null, null, null, null);
+        assertUsesIndex(sql, UpdateEntry.TABLE_NAME, "1");
+    }
+
+    @Test
+    public void historyForDateUsesIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, HistoryEntry.TABLE_NAME, null,
+                HistoryLocalDataSource.SELECTION_DATE, null, null, null, null);
+        assertUsesIndex(sql, HistoryEntry.TABLE_NAME, "1");
+    }
+
+    @Test
+    public void goalUsesIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, GoalEntry.TABLE_NAME, null,
+                GoalsLocalDataSource.SELECTION_ID, null, null, null, null);
+        assertUsesIndex(sql, GoalEntry.TABLE_NAME, "id");
+
+        sql = SQLiteQueryBuilder.buildQueryString(false, GoalEntry.TABLE_NAME, null,
+                GoalsLocalDataSource.SELECTION_ID_NOT_DELETED, null, null, null, null);
+        assertUsesIndex(sql, GoalEntry.TABLE_NAME, "id");
+    }
+
+    @Test
+    public void goalsUsesIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, GoalEntry.TABLE_NAME, null,
+                GoalsLocalDataSource.SELECTION_NOT_DELETED, null, null,
+                GoalEntry.COLUMN_NAME_NAME + " ASC", null);
+        assertUsesIndex(sql, GoalEntry.TABLE_NAME);
+    }
+
+    @Test
+    public void historyGoalJoinUsesIndex() {
+        assertUsesIndex(HistoryLocalDataSource.getHistoryWithGoalQuery(), GoalEntry.TABLE_NAME);
+    }
+
+    @Test
+    public void filteredHistoryUsesDateIndex() {
+        HistoryFilter filter = new HistoryFilter(17000, 17030, 50, Double.POSITIVE_INFINITY);
+        assertUsesIndex(HistoryLocalDataSource.getHistoryWithGoalQuery(filter),
+                HistoryEntry.TABLE_NAME, HistoryLocalDataSource.getFilterArgs(filter));
+    }
+
+    @Test
+    public void rollupUsesPrimaryKey() {
+        for (Period period : Period.values()) {
+            assertUsesIndex(HistoryRollupPersistenceContract.getRollupQuery(period),
+                    HistoryRollupPersistenceContract.getTableName(period), "17000");
+        }
+    }
+
+    @Test
+    public void rollupRefreshUsesDateIndex() {
+        for (Period period : Period.values()) {
+            assertUsesIndex(HistoryRollupPersistenceContract.getRefreshStatement(period),
+                    HistoryEntry.TABLE_NAME, "17000", "17030");
+        }
+    }
+
+    @Test
+    public void streakRebuildReadsDateIndexInOrder() {
+        assertUsesIndex(StreakPersistenceContract.getAchievedQuery(), HistoryEntry.TABLE_NAME);
+    }
+
+    @Test
+    public void updateTotalsUseDateIndex() {
+        assertUsesIndex(UpdatesPersistenceContract.getTotalsQuery(), UpdateEntry.TABLE_NAME,
+                "1", "7");
+    }
+
+    /**
+     * Asserts that every step of the given query's plan that reads the given table uses an index.
+     *
+     * @param sql the query
+     * @param table the table that must be read through an index
+     * @param args the query arguments
+     */
+    private void assertUsesIndex(String sql, String table, String... args) {
+        List<String> steps = new ArrayList<>();
+        Cursor c = mDb.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        int detailIndex = c.getColumnIndexOrThrow("detail");
+        while (c.moveToNext()) {
+            steps.add(c.getString(detailIndex));
+        }
+        c.close();
+
+        boolean found = false;
+        for (String step : steps) {
+            if (step.contains("TABLE " + table + " ") || step.endsWith("TABLE " + table)) {
+                found = true;
+                assertTrue(sql + " -> " + step, step.contains("INDEX") ||
+                        step.contains("PRIMARY KEY"));
+            }
+        }
+        assertTrue(sql + " -> " + steps, found);
+    }
+}
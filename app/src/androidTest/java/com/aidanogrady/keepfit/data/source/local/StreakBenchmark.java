@@ -0,0 +1,128 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.Streak;
+import com.aidanogrady.keepfit.data.source.GoalsDataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Compares reading the streak of any goal and of a single goal against rebuilding every streak
+ * from history, for decades of history. Reading a streak should take the same time whatever the
+ * length of the history, while the rebuild grows linearly with it.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class StreakBenchmark {
+    private static final String TAG = "StreakBenchmark";
+
+    private static final int UPDATES_PER_DAY = 1;
+
+    private static final int REPEATS = 100;
+
+    private static final int REBUILD_REPEATS = 5;
+
+    private SqliteStorageEngine mEngine;
+
+    @Before
+    public void setUp() {
+        mEngine = SyntheticHistory.createEngine(InstrumentationRegistry.getTargetContext());
+        SyntheticHistory.clear(mEngine);
+    }
+
+    @After
+    public void tearDown() {
+        SyntheticHistory.clear(mEngine);
+    }
+
+    @Test
+    public void oneYear() {
+        compare(1);
+    }
+
+    @Test
+    public void tenYears() {
+        compare(10);
+    }
+
+    @Test
+    public void fortyYears() {
+        compare(40);
+    }
+
+    /**
+     * Seeds the given years of history and logs the time taken to read and rebuild streaks.
+     *
+     * @param years the years of history to seed
+     */
+    private void compare(int years) {
+        String goalId = SyntheticHistory.fill(mEngine, years, UPDATES_PER_DAY).get(0).getId();
+        assertNotNull(streak());
+        assertNotNull(goalStreak(goalId));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            streak();
+        }
+        long streak = (System.nanoTime() - start) / REPEATS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            goalStreak(goalId);
+        }
+        long goalStreak = (System.nanoTime() - start) / REPEATS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REBUILD_REPEATS; i++) {
+            mEngine.rebuildStreaks();
+        }
+        long rebuild = (System.nanoTime() - start) / REBUILD_REPEATS / 1000;
+
+        Log.i(TAG, years + " years: streak " + streak + " us, goal streak " + goalStreak +
+                " us, rebuild " + rebuild + " us");
+    }
+
+    /**
+     * Reads the streak of any goal, as the home screen does when it is not cached.
+     *
+     * @return streak of any goal
+     */
+    private Streak streak() {
+        Streak[] streak = new Streak[1];
+        mEngine.getStreak(loaded -> streak[0] = loaded);
+        return streak[0];
+    }
+
+    /**
+     * Reads the streak of a single goal, which is loaded with the goal itself.
+     *
+     * @param goalId the ID of the goal
+     * @return streak of the goal
+     */
+    private Streak goalStreak(String goalId) {
+        Goal[] goal = new Goal[1];
+        mEngine.getGoal(goalId, false, new GoalsDataSource.GetGoalCallback() {
+            @Override
+            public void onGoalLoaded(Goal loaded) {
+                goal[0] = loaded;
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                throw new IllegalStateException("No goal " + goalId);
+            }
+        });
+        return goal[0].getStreak();
+    }
+}
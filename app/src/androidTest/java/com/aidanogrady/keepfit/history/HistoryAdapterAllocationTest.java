@@ -0,0 +1,92 @@
+package com.aidanogrady.keepfit.history;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.widget.FrameLayout;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that binding a row of the history list allocates nothing once its text is formatted.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryAdapterAllocationTest {
+    /**
+     * Fewer rows than a page, so the list has reached its end and never loads another page.
+     */
+    private static final int ROWS = PagedHistoryList.PAGE_SIZE - 1;
+
+    private static final int PASSES = 10;
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void onBindViewHolder_allocatesNothing() {
+        int[] allocations = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getTargetContext();
+            AppExecutors executors = new AppExecutors(Runnable::run, Runnable::run);
+            HistoryAdapter adapter = new HistoryAdapter(executors);
+            adapter.replaceData(new PagedHistoryList((beforeDate, limit, callback) ->
+                    callback.onDataNotAvailable(), createRows()));
+            HistoryAdapter.HistoryViewHolder holder =
+                    adapter.onCreateViewHolder(new FrameLayout(context), 0);
+
+            // Every TextView has shown every text once before counting
+            bindAll(adapter, holder);
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            for (int pass = 0; pass < PASSES; pass++) {
+                bindAll(adapter, holder);
+            }
+            Debug.stopAllocCounting();
+            allocations[0] = Debug.getThreadAllocCount();
+        });
+
+        assertEquals(0, allocations[0]);
+    }
+
+    /**
+     * Binds every row of the adapter to the given holder.
+     *
+     * @param adapter the adapter
+     * @param holder the holder rows are bound to
+     */
+    private static void bindAll(HistoryAdapter adapter, HistoryAdapter.HistoryViewHolder holder) {
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            adapter.onBindViewHolder(holder, position);
+        }
+    }
+
+    /**
+     * Creates the rows of a page of history, alternating days with and without a goal.
+     *
+     * @return rows
+     */
+    private static List<HistoryRowModel> createRows() {
+        Goal goal = new Goal("Walk", 10000, Unit.STEPS);
+        List<HistoryRowModel> rows = new ArrayList<>();
+        for (int day = ROWS; day > 0; day--) {
+            History history = new History(day, day % 2 == 0 ? goal : null);
+            history.setDistance(day * 100);
+            rows.add(HistoryRowModel.from(history));
+        }
+        return rows;
+    }
+}
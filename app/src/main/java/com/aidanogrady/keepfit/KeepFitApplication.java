@@ -4,12 +4,18 @@ import android.app.Application;
 import android.content.SharedPreferences;
 
 import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+import com.aidanogrady.keepfit.data.source.HistoryRepository;
 import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
+import com.aidanogrady.keepfit.data.source.StorageEngines;
+import com.aidanogrady.keepfit.data.source.local.SqliteStorageEngine;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.settings.MetricsEnabledListener;
 import com.aidanogrady.keepfit.settings.StepMetreChangeListener;
 import com.jakewharton.threetenabp.AndroidThreeTen;
 
 /**
- * The main application class, for configuration the Date/Time library and steps/metre conversion.
+ * The main application class, for configuration the Date/Time library, steps/metre conversion,
+ * metrics and the storage engine, and for releasing cached updates when memory is low.
  *
  * @author Aidan O'Grady
  * @since 0.6
@@ -21,8 +27,18 @@ public class KeepFitApplication extends Application {
         AndroidThreeTen.init(this);
 
         SharedPreferences.OnSharedPreferenceChangeListener[] listeners =
-                {new StepMetreChangeListener()};
+                {new StepMetreChangeListener(), new MetricsEnabledListener()};
         SharedPreferencesRepository.makeInstance(getApplicationContext(), listeners);
         UnitsConverter.setSteps(SharedPreferencesRepository.getStepsPerMetre());
+        Metrics.setEnabled(SharedPreferencesRepository.isMetricsEnabled());
+        StorageEngines.install(SqliteStorageEngine.create(this));
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            HistoryRepository.getInstance(this).releaseCachedUpdates();
+        }
     }
 }
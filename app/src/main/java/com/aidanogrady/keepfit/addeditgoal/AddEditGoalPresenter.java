@@ -7,6 +7,7 @@ import com.aidanogrady.keepfit.data.model.units.Unit;
 import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
 import com.aidanogrady.keepfit.data.source.GoalsDataSource;
 import com.aidanogrady.keepfit.data.source.GoalsRepository;
+import com.aidanogrady.keepfit.data.source.HistoryRepository;
 import com.google.common.base.Strings;
 
 import java.util.ArrayList;
@@ -26,6 +27,11 @@ class AddEditGoalPresenter implements AddEditGoalContract.Presenter,
      */
     private final GoalsDataSource mGoalsRepository;
 
+    /**
+     * The history repository, whose history of an edited goal is invalidated.
+     */
+    private final HistoryRepository mHistoryRepository;
+
     /**
      * The view for the add/edit goal view.
      */
@@ -46,6 +52,7 @@ class AddEditGoalPresenter implements AddEditGoalContract.Presenter,
      */
     AddEditGoalPresenter(Context context, AddEditGoalContract.View view, String goalId) {
         mGoalsRepository = GoalsRepository.getInstance(context);
+        mHistoryRepository = HistoryRepository.getInstance(context);
         mAddEditGoalView = view;
         mGoalId = goalId;
     }
@@ -121,25 +128,19 @@ class AddEditGoalPresenter implements AddEditGoalContract.Presenter,
      * @param unit the unit to be saved
      */
     private void createGoal(String name, double distance, Unit unit) {
-        List<String> names = new ArrayList<>();
         mGoalsRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
             @Override
             public void onGoalsLoaded(List<Goal> goals) {
+                List<String> names = new ArrayList<>();
                 goals.forEach(goal -> names.add(goal.getName()));
+                saveIfValid(names, name, distance, unit, null);
             }
 
             @Override
-            public void onDataNotAvailable() {}
+            public void onDataNotAvailable() {
+                saveIfValid(new ArrayList<>(), name, distance, unit, null);
+            }
         });
-
-        if (names.contains(name) && isNewGoal()) {
-            mAddEditGoalView.showNameExistsError();
-        } else if (Strings.isNullOrEmpty(name) || distance < 1) {
-            mAddEditGoalView.showEmptyGoalError();
-        } else {
-            mGoalsRepository.insertGoal(new Goal(name, distance, unit));
-            mAddEditGoalView.showGoalsList();
-        }
     }
 
     /**
@@ -154,23 +155,55 @@ class AddEditGoalPresenter implements AddEditGoalContract.Presenter,
             throw new RuntimeException("updateGoal() was called but task is new");
         }
 
-        List<String> names = new ArrayList<>();
         mGoalsRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
             @Override
             public void onGoalsLoaded(List<Goal> goals) {
-                goals.forEach(goal -> names.add(goal.getName()));
+                List<String> names = new ArrayList<>();
+                Goal existing = null;
+                for (Goal goal : goals) {
+                    names.add(goal.getName());
+                    if (goal.getId().equals(mGoalId)) {
+                        existing = goal;
+                    }
+                }
+                saveIfValid(names, name, distance, unit, existing);
             }
 
             @Override
-            public void onDataNotAvailable() {}
+            public void onDataNotAvailable() {
+                saveIfValid(new ArrayList<>(), name, distance, unit, null);
+            }
         });
+    }
 
+    /**
+     * Inserts or updates the goal if it is valid, otherwise shows the relevant error. Called once
+     * the names of the existing goals have been loaded.
+     *
+     * @param names the names of the existing goals
+     * @param name the name of the goal to be saved
+     * @param distance the distance of the goal to be saved
+     * @param unit the unit to be saved
+     * @param existing the goal being edited, whose streak is kept, or null if not loaded
+     */
+    private void saveIfValid(List<String> names, String name, double distance, Unit unit,
+                             Goal existing) {
         if (names.contains(name) && isNewGoal()) {
             mAddEditGoalView.showNameExistsError();
         } else if (Strings.isNullOrEmpty(name) || distance < 1) {
             mAddEditGoalView.showEmptyGoalError();
+        } else if (isNewGoal()) {
+            mGoalsRepository.insertGoal(new Goal(name, distance, unit));
+            mAddEditGoalView.showGoalsList();
         } else {
-            mGoalsRepository.updateGoal(new Goal(name, distance, unit), mGoalId);
+            Goal goal = new Goal(name, distance, unit);
+            if (existing != null) {
+                goal.setStreak(existing.getStreak());
+            }
+            mGoalsRepository.updateGoal(goal, mGoalId);
+            mHistoryRepository.invalidateHistoryWithGoal(mGoalId);
+            // The goal's streak is rebuilt with the history, so the cached goals are stale
+            mGoalsRepository.refreshGoals();
             mAddEditGoalView.showGoalsList();
         }
     }
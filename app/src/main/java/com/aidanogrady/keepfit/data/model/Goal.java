@@ -39,6 +39,16 @@ public class Goal {
      */
     private long mLastAchieved;
 
+    /**
+     * The number of consecutive days this goal was achieved ending on the day last achieved.
+     */
+    private int mCurrentStreak;
+
+    /**
+     * The greatest number of consecutive days this goal was ever achieved.
+     */
+    private int mLongestStreak;
+
 
     /**
      * Constructs a new Goal. Use this constructor for brand new goals.
@@ -59,11 +69,30 @@ public class Goal {
      * @param distance the distance required to achieve the new goal
      */
     public Goal(String id, String name, double distance, Unit unit, int lastAchieved) {
+        this(id, name, distance, unit, lastAchieved, 0, 0);
+    }
+
+    /**
+     * Constructs a new Goal with its streak. Use this constructor when loading a Goal that has
+     * been saved.
+     *
+     * @param id the id of the new goal
+     * @param name the name of the new goal
+     * @param distance the distance required to achieve the new goal
+     * @param unit the unit of distance of the new goal
+     * @param lastAchieved the day the goal was last achieved, or -1 if never achieved
+     * @param currentStreak the number of consecutive days achieved ending on the last day
+     * @param longestStreak the greatest number of consecutive days ever achieved
+     */
+    public Goal(String id, String name, double distance, Unit unit, long lastAchieved,
+                int currentStreak, int longestStreak) {
         this.mId = id;
         this.mName = name;
         this.mDistance = distance;
         this.mUnit = unit;
         this.mLastAchieved = lastAchieved;
+        this.mCurrentStreak = currentStreak;
+        this.mLongestStreak = longestStreak;
     }
 
 
@@ -119,6 +148,36 @@ public class Goal {
         this.mLastAchieved = date;
     }
 
+    /**
+     * Returns the streak of this goal, ending on the day it was last achieved.
+     *
+     * @return streak
+     */
+    public Streak getStreak() {
+        return new Streak(mLastAchieved, mCurrentStreak, mLongestStreak);
+    }
+
+    /**
+     * Sets the streak of this goal, along with the day it was last achieved.
+     *
+     * @param streak the new streak of this goal
+     */
+    public void setStreak(Streak streak) {
+        this.mLastAchieved = streak.getLastDate();
+        this.mCurrentStreak = streak.getCurrent();
+        this.mLongestStreak = streak.getLongest();
+    }
+
+    /**
+     * Returns a copy of this goal, which is not changed by later changes to this goal.
+     *
+     * @return copy of this goal
+     */
+    public Goal copy() {
+        return new Goal(mId, mName, mDistance, mUnit, mLastAchieved, mCurrentStreak,
+                mLongestStreak);
+    }
+
     @Override
     public String toString() {
         return mName + " (" + mDistance + " " + mUnit.toString() + ")";
@@ -1,5 +1,8 @@
 package com.aidanogrady.keepfit.data.model;
 
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,11 +29,26 @@ public class History {
      */
     private double mDistance;
 
+    /**
+     * The total distance of every update of this day in metres, independent of the goal's unit.
+     */
+    private double mTotalMetres;
+
+    /**
+     * The number of updates entered on this day.
+     */
+    private int mUpdateCount;
+
     /**
      * A list of updates entered on this date in history.
      */
     private List<Update> mUpdates;
 
+    /**
+     * Whether the updates of this day are held, or only its summary.
+     */
+    private boolean mUpdatesLoaded = true;
+
 
     /**
      * Constructs a new History object with no goal being worked towards.
@@ -52,16 +70,38 @@ public class History {
     }
 
     /**
-     * Constructs a new History object.
+     * Constructs a new History object, totalling the given updates.
      *
      * @param date the date of this day in history
      * @param goal the goal being achieved on this day
      * @param distance the distance achieved on this day
+     * @param updates the updates entered on this day
      */
     public History(long date, Goal goal, double distance, List<Update> updates) {
+        this(date, goal, distance, 0, 0, updates);
+        for (Update update : mUpdates) {
+            mTotalMetres += toMetres(update);
+        }
+        mUpdateCount = mUpdates.size();
+    }
+
+    /**
+     * Constructs a new History object with totals that have already been calculated.
+     *
+     * @param date the date of this day in history
+     * @param goal the goal being achieved on this day
+     * @param distance the distance achieved on this day
+     * @param totalMetres the total distance of this day in metres
+     * @param updateCount the number of updates entered on this day
+     * @param updates the updates entered on this day
+     */
+    public History(long date, Goal goal, double distance, double totalMetres, int updateCount,
+                   List<Update> updates) {
         this.mDate = date;
         this.mGoal = goal;
         this.mDistance = distance;
+        this.mTotalMetres = totalMetres;
+        this.mUpdateCount = updateCount;
         if (updates == null)
             mUpdates = new ArrayList<>();
         else
@@ -123,6 +163,34 @@ public class History {
         this.mDistance = distance;
     }
 
+    /**
+     * Returns the total distance of this day in metres.
+     *
+     * @return total metres
+     */
+    public double getTotalMetres() {
+        return mTotalMetres;
+    }
+
+    /**
+     * Returns the total distance of this day in the given unit.
+     *
+     * @param unit the unit the distance is returned in
+     * @return total distance in the given unit
+     */
+    public double getTotalDistance(Unit unit) {
+        return UnitsConverter.convert(unit, Unit.METRES, mTotalMetres);
+    }
+
+    /**
+     * Returns the number of updates entered on this day.
+     *
+     * @return update count
+     */
+    public int getUpdateCount() {
+        return mUpdateCount;
+    }
+
     /**
      * Returns the percentage of goal completion.
      *
@@ -136,7 +204,8 @@ public class History {
     }
 
     /**
-     * Returns the list of updates of this given day.
+     * Returns the list of updates of this given day. If only the summary is held the list is
+     * empty, so check isUpdatesLoaded() and resolve the updates with setUpdates() first.
      *
      * @return updates of this day.
      */
@@ -145,11 +214,85 @@ public class History {
     }
 
     /**
-     * Adds an update to this day.
+     * Sets the updates of a summary once they have been loaded. The totals are kept, as they
+     * already count every update of the day.
+     *
+     * @param updates every update of this day
+     */
+    public void setUpdates(List<Update> updates) {
+        mUpdates = new ArrayList<>(updates);
+        mUpdatesLoaded = true;
+    }
+
+    /**
+     * Returns whether the updates of this day are held. A summary without updates still has its
+     * totals and update count, and its updates are loaded through the UpdatesRepository.
+     *
+     * @return true if the updates are held
+     */
+    public boolean isUpdatesLoaded() {
+        return mUpdatesLoaded;
+    }
+
+    /**
+     * Returns a summary of this day without its updates. This history is left unchanged, as it
+     * may still be displayed.
+     *
+     * @return summary of this day
+     */
+    public History withoutUpdates() {
+        return summary(mDate, mGoal, mDistance, mTotalMetres, mUpdateCount);
+    }
+
+    /**
+     * Returns a copy of the summary of this day and its goal, for writing the day while this
+     * history may still be changed.
+     *
+     * @return snapshot of this day
+     */
+    public History snapshot() {
+        return summary(mDate, (mGoal != null) ? mGoal.copy() : null, mDistance, mTotalMetres,
+                mUpdateCount);
+    }
+
+    /**
+     * Returns the summary of a day without its updates.
+     *
+     * @param date the date of this day in history
+     * @param goal the goal being achieved on this day
+     * @param distance the distance achieved on this day
+     * @param totalMetres the total distance of this day in metres
+     * @param updateCount the number of updates entered on this day
+     * @return summary of the day
+     */
+    public static History summary(long date, Goal goal, double distance, double totalMetres,
+                                  int updateCount) {
+        History summary = new History(date, goal, distance, totalMetres, updateCount, null);
+        summary.mUpdatesLoaded = false;
+        return summary;
+    }
+
+    /**
+     * Adds an update to this day. A summary only counts the update in its totals, so resolve the
+     * updates first where they are shown.
      *
      * @param update the update to be added
      */
     public void addUpdate(Update update) {
-        mUpdates.add(update);
+        if (mUpdatesLoaded) {
+            mUpdates.add(update);
+        }
+        mTotalMetres += toMetres(update);
+        mUpdateCount++;
+    }
+
+    /**
+     * Returns the distance of the given update in metres.
+     *
+     * @param update the update being converted
+     * @return distance in metres
+     */
+    private static double toMetres(Update update) {
+        return UnitsConverter.convert(Unit.METRES, update.getUnit(), update.getDistance());
     }
 }
@@ -0,0 +1,163 @@
+package com.aidanogrady.keepfit.data.model;
+
+/**
+ * A HistoryFilter specifies which days of history are wanted: an inclusive range of dates and an
+ * inclusive range of goal completion percentages. Days without a goal have a percentage of -1, as
+ * given by History.getPercentage. The filter is immutable.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryFilter {
+    /**
+     * The filter matching all history.
+     */
+    public static final HistoryFilter ALL = new HistoryFilter(Long.MIN_VALUE, Long.MAX_VALUE,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /**
+     * The first date matched, as days since the epoch.
+     */
+    private final long mStartDate;
+
+    /**
+     * The last date matched, as days since the epoch.
+     */
+    private final long mEndDate;
+
+    /**
+     * The lowest percentage matched.
+     */
+    private final double mMinPercentage;
+
+    /**
+     * The highest percentage matched.
+     */
+    private final double mMaxPercentage;
+
+
+    /**
+     * Constructs a new HistoryFilter.
+     *
+     * @param startDate the first date matched, or Long.MIN_VALUE for no start
+     * @param endDate the last date matched, or Long.MAX_VALUE for no end
+     * @param minPercentage the lowest percentage matched, or negative infinity for no minimum
+     * @param maxPercentage the highest percentage matched, or positive infinity for no maximum
+     */
+    public HistoryFilter(long startDate, long endDate, double minPercentage,
+                         double maxPercentage) {
+        this.mStartDate = startDate;
+        this.mEndDate = endDate;
+        this.mMinPercentage = minPercentage;
+        this.mMaxPercentage = maxPercentage;
+    }
+
+
+    /**
+     * Returns the first date matched.
+     *
+     * @return start date
+     */
+    public long getStartDate() {
+        return mStartDate;
+    }
+
+    /**
+     * Returns the last date matched.
+     *
+     * @return end date
+     */
+    public long getEndDate() {
+        return mEndDate;
+    }
+
+    /**
+     * Returns the lowest percentage matched.
+     *
+     * @return minimum percentage
+     */
+    public double getMinPercentage() {
+        return mMinPercentage;
+    }
+
+    /**
+     * Returns the highest percentage matched.
+     *
+     * @return maximum percentage
+     */
+    public double getMaxPercentage() {
+        return mMaxPercentage;
+    }
+
+    /**
+     * Returns whether the filter limits the start date.
+     *
+     * @return true if there is a start date
+     */
+    public boolean hasStartDate() {
+        return mStartDate != Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns whether the filter limits the end date.
+     *
+     * @return true if there is an end date
+     */
+    public boolean hasEndDate() {
+        return mEndDate != Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns whether the filter limits the lowest percentage.
+     *
+     * @return true if there is a minimum percentage
+     */
+    public boolean hasMinPercentage() {
+        return mMinPercentage != Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Returns whether the filter limits the highest percentage.
+     *
+     * @return true if there is a maximum percentage
+     */
+    public boolean hasMaxPercentage() {
+        return mMaxPercentage != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns whether the filter matches all history.
+     *
+     * @return true if there are no limits
+     */
+    public boolean isUnfiltered() {
+        return !hasStartDate() && !hasEndDate() && !hasMinPercentage() && !hasMaxPercentage();
+    }
+
+    /**
+     * Returns a copy of this filter that only matches dates before the given date. Used to page
+     * through history by date.
+     *
+     * @param date the date matched history must be before
+     * @return the narrowed filter
+     */
+    public HistoryFilter before(long date) {
+        return new HistoryFilter(mStartDate, Math.min(mEndDate, date - 1), mMinPercentage,
+                mMaxPercentage);
+    }
+
+    /**
+     * Returns whether the given history is matched by this filter.
+     *
+     * @param history the history being checked
+     * @return true if matched
+     */
+    public boolean matches(History history) {
+        long date = history.getDate();
+        if (date < mStartDate || date > mEndDate) {
+            return false;
+        }
+        double percentage = history.getPercentage();
+        return percentage >= mMinPercentage && percentage <= mMaxPercentage;
+    }
+}
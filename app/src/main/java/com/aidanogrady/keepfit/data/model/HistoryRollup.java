@@ -0,0 +1,198 @@
+package com.aidanogrady.keepfit.data.model;
+
+import org.threeten.bp.LocalDate;
+
+/**
+ * A HistoryRollup summarises the history of a single ISO week or calendar month: the total
+ * distance walked, the number of days with any distance, the number of days a goal was completed
+ * and the best day. Rollups are kept up to date as history is written, so a summary is read
+ * without summing the days it covers. The rollup is immutable.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryRollup {
+    /**
+     * The periods history is rolled up by.
+     */
+    public enum Period {
+        /**
+         * An ISO week, Monday to Sunday.
+         */
+        WEEK {
+            @Override
+            public long getStartDate(long date) {
+                // The epoch was a Thursday, so Mondays are 3 days short of a multiple of 7
+                return date - ((date + 3) % 7 + 7) % 7;
+            }
+
+            @Override
+            public long getEndDate(long date) {
+                return getStartDate(date) + 6;
+            }
+        },
+
+        /**
+         * A calendar month.
+         */
+        MONTH {
+            @Override
+            public long getStartDate(long date) {
+                return LocalDate.ofEpochDay(date).withDayOfMonth(1).toEpochDay();
+            }
+
+            @Override
+            public long getEndDate(long date) {
+                LocalDate day = LocalDate.ofEpochDay(date);
+                return day.withDayOfMonth(day.lengthOfMonth()).toEpochDay();
+            }
+        };
+
+        /**
+         * Returns the first day of the period containing the given day.
+         *
+         * @param date the day, as days since the epoch
+         * @return first day of the period
+         */
+        public abstract long getStartDate(long date);
+
+        /**
+         * Returns the last day of the period containing the given day.
+         *
+         * @param date the day, as days since the epoch
+         * @return last day of the period
+         */
+        public abstract long getEndDate(long date);
+    }
+
+    /**
+     * The period rolled up.
+     */
+    private final Period mPeriod;
+
+    /**
+     * The first day of the period, as days since the epoch.
+     */
+    private final long mStartDate;
+
+    /**
+     * The total distance of the period in metres.
+     */
+    private final double mTotalMetres;
+
+    /**
+     * The number of days of the period with any distance.
+     */
+    private final int mDaysActive;
+
+    /**
+     * The number of days of the period their goal was completed.
+     */
+    private final int mDaysCompleted;
+
+    /**
+     * The day of the period with the greatest distance.
+     */
+    private final long mBestDate;
+
+    /**
+     * The distance of the best day in metres.
+     */
+    private final double mBestMetres;
+
+
+    /**
+     * Constructs a new HistoryRollup.
+     *
+     * @param period the period rolled up
+     * @param startDate the first day of the period
+     * @param totalMetres the total distance in metres
+     * @param daysActive the number of days with any distance
+     * @param daysCompleted the number of days their goal was completed
+     * @param bestDate the day with the greatest distance
+     * @param bestMetres the distance of the best day in metres
+     */
+    public HistoryRollup(Period period, long startDate, double totalMetres, int daysActive,
+                         int daysCompleted, long bestDate, double bestMetres) {
+        this.mPeriod = period;
+        this.mStartDate = startDate;
+        this.mTotalMetres = totalMetres;
+        this.mDaysActive = daysActive;
+        this.mDaysCompleted = daysCompleted;
+        this.mBestDate = bestDate;
+        this.mBestMetres = bestMetres;
+    }
+
+
+    /**
+     * Returns the period rolled up.
+     *
+     * @return period
+     */
+    public Period getPeriod() {
+        return mPeriod;
+    }
+
+    /**
+     * Returns the first day of the period.
+     *
+     * @return start date
+     */
+    public long getStartDate() {
+        return mStartDate;
+    }
+
+    /**
+     * Returns the last day of the period.
+     *
+     * @return end date
+     */
+    public long getEndDate() {
+        return mPeriod.getEndDate(mStartDate);
+    }
+
+    /**
+     * Returns the total distance of the period in metres.
+     *
+     * @return total metres
+     */
+    public double getTotalMetres() {
+        return mTotalMetres;
+    }
+
+    /**
+     * Returns the number of days of the period with any distance.
+     *
+     * @return days active
+     */
+    public int getDaysActive() {
+        return mDaysActive;
+    }
+
+    /**
+     * Returns the number of days of the period their goal was completed.
+     *
+     * @return days completed
+     */
+    public int getDaysCompleted() {
+        return mDaysCompleted;
+    }
+
+    /**
+     * Returns the day of the period with the greatest distance.
+     *
+     * @return best date
+     */
+    public long getBestDate() {
+        return mBestDate;
+    }
+
+    /**
+     * Returns the distance of the best day in metres.
+     *
+     * @return best metres
+     */
+    public double getBestMetres() {
+        return mBestMetres;
+    }
+}
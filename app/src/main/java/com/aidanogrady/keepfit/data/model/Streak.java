@@ -0,0 +1,126 @@
+package com.aidanogrady.keepfit.data.model;
+
+/**
+ * A Streak is a run of consecutive days a goal was achieved. It holds the last day achieved, the
+ * length of the run ending on that day and the longest run so far, which is all that is needed to
+ * extend it by another day. Streaks are kept for each goal and for any goal at all, and are
+ * extended as the goal is achieved rather than counted from the history. The streak is immutable.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class Streak {
+    /**
+     * The streak of a goal never achieved.
+     */
+    public static final Streak NONE = new Streak(-1, 0, 0);
+
+    /**
+     * The last day achieved, as days since the epoch, or -1 if never achieved.
+     */
+    private final long mLastDate;
+
+    /**
+     * The number of consecutive days achieved ending on the last day.
+     */
+    private final int mCurrent;
+
+    /**
+     * The greatest number of consecutive days ever achieved.
+     */
+    private final int mLongest;
+
+
+    /**
+     * Constructs a new Streak.
+     *
+     * @param lastDate the last day achieved, or -1 if never achieved
+     * @param current the number of consecutive days achieved ending on the last day
+     * @param longest the greatest number of consecutive days ever achieved
+     */
+    public Streak(long lastDate, int current, int longest) {
+        this.mLastDate = lastDate;
+        this.mCurrent = current;
+        this.mLongest = longest;
+    }
+
+
+    /**
+     * Returns the streak once the given day is achieved. A day following the last day continues
+     * the run, any later day starts a new one, and a day already counted changes nothing.
+     *
+     * @param date the day achieved, as days since the epoch
+     * @return extended streak
+     */
+    public Streak extend(long date) {
+        if (date <= mLastDate) {
+            return this;
+        }
+        int current = date == mLastDate + 1 ? mCurrent + 1 : 1;
+        return new Streak(date, current, Math.max(mLongest, current));
+    }
+
+    /**
+     * Returns the last day achieved.
+     *
+     * @return -1 if never achieved, else the last day achieved
+     */
+    public long getLastDate() {
+        return mLastDate;
+    }
+
+    /**
+     * Returns the number of consecutive days achieved ending on the last day, whether or not the
+     * run has since been broken.
+     *
+     * @return current run
+     */
+    public int getCurrent() {
+        return mCurrent;
+    }
+
+    /**
+     * Returns the number of consecutive days achieved up to the given day. The run is unbroken if
+     * it ended on the given day or the day before, as the given day may yet be achieved.
+     *
+     * @param today the day the streak is shown on
+     * @return current streak, or 0 if broken
+     */
+    public int getCurrent(long today) {
+        return mLastDate >= today - 1 ? mCurrent : 0;
+    }
+
+    /**
+     * Returns the greatest number of consecutive days ever achieved.
+     *
+     * @return longest streak
+     */
+    public int getLongest() {
+        return mLongest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Streak)) {
+            return false;
+        }
+        Streak streak = (Streak) o;
+        return mLastDate == streak.mLastDate && mCurrent == streak.mCurrent &&
+                mLongest == streak.mLongest;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (mLastDate ^ (mLastDate >>> 32));
+        result = 31 * result + mCurrent;
+        return 31 * result + mLongest;
+    }
+
+    @Override
+    public String toString() {
+        return "Streak(" + mLastDate + ", " + mCurrent + ", " + mLongest + ")";
+    }
+}
@@ -1,21 +1,16 @@
 package com.aidanogrady.keepfit.data.model.units;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * The UnitsConverter handles the conversion between different measures of units.
+ * The UnitsConverter handles the conversion between different measures of units. The factors are
+ * held in an immutable table that setSteps replaces as a whole, so conversions may run on any
+ * thread without locking and always use the factors of a single step length.
  *
  * @author Aidan O'Grady
  * @since 0.7
  */
 public class UnitsConverter {
-    /**
-     * The mapping of units to the base value of 1 metre. All conversions are done via metres for
-     * ease of use.
-     */
-    private static final Map<Unit, Double> UNITS;
-
     /**
      * The available units.
      */
@@ -46,22 +41,28 @@ public class UnitsConverter {
      */
     public static final double MILES = 1609.34;
 
+    /**
+     * The number of steps per metre used until setSteps is called, the same as the preference's
+     * default.
+     */
+    public static final double DEFAULT_STEPS = 1.5;
+
+    /**
+     * The table of factors currently used for conversions.
+     */
+    private static final AtomicReference<ConversionTable> TABLE = new AtomicReference<>();
+
 
     /*
-      Initialises the Units map.
+      Initialises the available units and the factors.
      */
     static {
-        UNITS = new HashMap<>();
-        UNITS.put(Unit.METRES, METRES);
-        UNITS.put(Unit.KILOMETRES, KILOMETRES);
-        UNITS.put(Unit.YARDS, YARDS);
-        UNITS.put(Unit.MILES, MILES);
-
         AVAILABLE_UNITS = Unit.values();
         AVAILABLE_UNIT_NAMES = new String[AVAILABLE_UNITS.length];
         for (int i = 0; i < AVAILABLE_UNIT_NAMES.length; i++) {
             AVAILABLE_UNIT_NAMES[i] = AVAILABLE_UNITS[i].name();
         }
+        TABLE.set(new ConversionTable(DEFAULT_STEPS));
     }
 
 
@@ -72,8 +73,16 @@ public class UnitsConverter {
      * @param steps the new mapping.
      */
     public static void setSteps(double steps) {
-        // The map is defined by metres per unit, but the user defines steps per metre, hence 1 /
-        UNITS.put(Unit.STEPS, 1 / steps);
+        TABLE.set(new ConversionTable(steps));
+    }
+
+    /**
+     * Returns the number of steps per metre conversions currently use.
+     *
+     * @return steps per metre
+     */
+    public static double getSteps() {
+        return TABLE.get().mSteps;
     }
 
     /**
@@ -85,7 +94,83 @@ public class UnitsConverter {
      * @return converted distance
      */
     public static double convert(Unit to, Unit from, double distance) {
-        double metres = distance * UNITS.get(from);
-        return metres / UNITS.get(to);
+        return distance * TABLE.get().getFactor(from, to);
+    }
+
+    /**
+     * Converts every distance of the given array from a source unit to a destination unit. The
+     * factor is looked up once, so the loop is a plain multiplication the compiler may vectorise.
+     * The input and output arrays may be the same array.
+     *
+     * @param in the distances being converted
+     * @param from the unit being converted from
+     * @param to the unit being converted to
+     * @param out the array the converted distances are written to, at the same indices
+     * @throws IllegalArgumentException if out is shorter than in
+     */
+    public static void convertAll(double[] in, Unit from, Unit to, double[] out) {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output holds " + out.length
+                    + " distances, but " + in.length + " are converted");
+        }
+        double factor = TABLE.get().getFactor(from, to);
+        for (int i = 0; i < in.length; i++) {
+            out[i] = in[i] * factor;
+        }
+    }
+
+
+    /**
+     * An immutable table of the factor between every pair of units for one step length. Its
+     * fields are final, so a table is fully visible to any thread that reads a reference to it.
+     */
+    private static final class ConversionTable {
+        /**
+         * The number of steps per metre the table was built for.
+         */
+        private final double mSteps;
+
+        /**
+         * The factors distances are multiplied by to convert them, indexed by the ordinal of the
+         * unit converted from times the number of units plus the ordinal of the unit converted to.
+         * All factors are derived via metres for ease of use.
+         */
+        private final double[] mFactors;
+
+        /**
+         * Builds the table of factors for the given number of steps per metre.
+         *
+         * @param steps the number of steps per metre
+         */
+        ConversionTable(double steps) {
+            double[] metres = new double[AVAILABLE_UNITS.length];
+            // The factors are defined by metres per unit, but the user defines steps per metre
+            metres[Unit.STEPS.ordinal()] = 1 / steps;
+            metres[Unit.METRES.ordinal()] = METRES;
+            metres[Unit.KILOMETRES.ordinal()] = KILOMETRES;
+            metres[Unit.YARDS.ordinal()] = YARDS;
+            metres[Unit.MILES.ordinal()] = MILES;
+
+            double[] factors = new double[metres.length * metres.length];
+            for (int from = 0; from < metres.length; from++) {
+                for (int to = 0; to < metres.length; to++) {
+                    factors[from * metres.length + to] =
+                            from == to ? 1 : metres[from] / metres[to];
+                }
+            }
+            this.mSteps = steps;
+            this.mFactors = factors;
+        }
+
+        /**
+         * Returns the factor a distance is multiplied by to convert it.
+         *
+         * @param from the unit being converted from
+         * @param to the unit being converted to
+         * @return factor
+         */
+        double getFactor(Unit from, Unit to) {
+            return mFactors[from.ordinal() * AVAILABLE_UNITS.length + to.ordinal()];
+        }
     }
 }
@@ -3,20 +3,36 @@ package com.aidanogrady.keepfit.data.source;
 import android.content.Context;
 
 import com.aidanogrady.keepfit.data.model.Goal;
-import com.aidanogrady.keepfit.data.source.local.GoalsLocalDataSource;
+import com.aidanogrady.keepfit.metrics.Counter;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.util.AppExecutors;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Concrete implementation to load goals from a data source and store them in a cache.
+ * Concrete implementation to load goals from a data source and store them in a cache. The data
+ * source is accessed on the disk executor and callbacks are delivered on the main thread, while
+ * the cache is only touched on the main thread. Writes go through the shared unit of work, and
+ * what was cached for a write is forgotten if the unit of work drops it.
  *
  * @author Aidan O'Grady
  * @since 0.2.3
  */
 public class GoalsRepository implements GoalsDataSource {
+    /**
+     * Counts the reads answered from the cache.
+     */
+    private static final Counter CACHE_HITS = Metrics.counter("GoalsRepository.cacheHits");
+
+    /**
+     * Counts the reads that went to the local data source.
+     */
+    private static final Counter CACHE_MISSES = Metrics.counter("GoalsRepository.cacheMisses");
+
     /**
      * Singleton instance of the goals repository.
      */
@@ -27,58 +43,114 @@ public class GoalsRepository implements GoalsDataSource {
      */
     private GoalsDataSource mGoalsLocalDataSource;
 
+    /**
+     * The executors the data source is accessed through.
+     */
+    private AppExecutors mAppExecutors;
+
+    /**
+     * The unit of work writes are committed through.
+     */
+    private UnitOfWork mUnitOfWork;
+
     /**
      * Cache of goals obtained from the database.
      */
     private Map<String, Goal> mCachedGoals;
 
     /**
-     * Flag for indicating cache is invalid, to force updates next time data is requested.
+     * Whether the cache holds every goal that has not been deleted, so it can answer for all goals.
+     * Single goals are cached as they are loaded and written without a full reload.
      */
-    private boolean mCacheIsDirty = false;
+    private boolean mCacheIsComplete = false;
 
 
     /**
      * Constructs a new GoalsRepository.
      *
-     * @param context the context creating the repository.
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
      */
-    private GoalsRepository(Context context) {
-        mGoalsLocalDataSource = GoalsLocalDataSource.getInstance(context);
+    private GoalsRepository(GoalsDataSource localDataSource, AppExecutors appExecutors,
+                            UnitOfWork unitOfWork) {
+        mGoalsLocalDataSource = new TimedGoalsDataSource(localDataSource);
+        mAppExecutors = appExecutors;
+        mUnitOfWork = unitOfWork;
     }
 
 
     /**
-     * Returns the singleton instance of the GoalsRepository.
+     * Returns the singleton instance of the GoalsRepository, reading and writing through the
+     * installed storage engine.
      *
      * @param context the context the repository is being loaded in.
      * @return singleton instance
      */
     public static GoalsRepository getInstance(Context context) {
+        return getInstance(StorageEngines.getInstance(context), AppExecutors.getInstance(),
+                UnitOfWork.getInstance(context));
+    }
+
+    /**
+     * Returns the singleton instance of the GoalsRepository, creating it with the given data
+     * source, executors and unit of work if it does not yet exist.
+     *
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
+     * @return singleton instance
+     */
+    public static GoalsRepository getInstance(GoalsDataSource localDataSource,
+                                              AppExecutors appExecutors, UnitOfWork unitOfWork) {
         if (sInstance == null) {
-            sInstance = new GoalsRepository(context);
+            sInstance = new GoalsRepository(localDataSource, appExecutors, unitOfWork);
         }
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    public static void destroyInstance() {
+        sInstance = null;
+    }
+
     @Override
     public void getGoals(final LoadGoalsCallback callback) {
-        if (mCachedGoals != null && !mCacheIsDirty) {
-            callback.onGoalsLoaded(new ArrayList<>(mCachedGoals.values()));
+        if (mCachedGoals != null && mCacheIsComplete) {
+            CACHE_HITS.increment();
+            List<Goal> goals = new ArrayList<>(mCachedGoals.values());
+            if (goals.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                // Matches the order the data source returns goals in
+                Collections.sort(goals, (a, b) -> a.getName().compareTo(b.getName()));
+                callback.onGoalsLoaded(goals);
+            }
             return;
         }
 
-        mGoalsLocalDataSource.getGoals(new LoadGoalsCallback() {
-            @Override
-            public void onGoalsLoaded(List<Goal> goals) {
-                refreshCache(goals);
-                callback.onGoalsLoaded(new ArrayList<>(mCachedGoals.values()));
-            }
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mGoalsLocalDataSource.getGoals(new LoadGoalsCallback() {
+                @Override
+                public void onGoalsLoaded(List<Goal> goals) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        refreshCache(goals);
+                        callback.onGoalsLoaded(goals);
+                    });
+                }
 
-            @Override
-            public void onDataNotAvailable() {
-                callback.onDataNotAvailable();
-            }
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(() -> {
+                        refreshCache(new ArrayList<>());
+                        callback.onDataNotAvailable();
+                    });
+                }
+            });
         });
     }
 
@@ -86,64 +158,101 @@ public class GoalsRepository implements GoalsDataSource {
     public void getGoal(String id, boolean deleted, final GetGoalCallback callback) {
         Goal cachedGoal = getGoalWithId(id);
         if (cachedGoal != null) {
+            CACHE_HITS.increment();
             callback.onGoalLoaded(cachedGoal);
             return;
         }
 
-        mGoalsLocalDataSource.getGoal(id, deleted, new GetGoalCallback() {
-            @Override
-            public void onGoalLoaded(Goal goal) {
-                if (mCachedGoals == null) {
-                    mCachedGoals = new LinkedHashMap<>();
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mGoalsLocalDataSource.getGoal(id, deleted, new GetGoalCallback() {
+                @Override
+                public void onGoalLoaded(Goal goal) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        // Deleted goals must not be returned with the others
+                        if (!deleted) {
+                            if (mCachedGoals == null) {
+                                mCachedGoals = new LinkedHashMap<>();
+                            }
+                            mCachedGoals.put(goal.getId(), goal);
+                        }
+                        callback.onGoalLoaded(goal);
+                    });
                 }
-                mCachedGoals.put(goal.getId(), goal);
-                callback.onGoalLoaded(goal);
-            }
 
-            @Override
-            public void onDataNotAvailable() {
-                callback.onDataNotAvailable();
-            }
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(callback::onDataNotAvailable);
+                }
+            });
         });
     }
 
     @Override
     public void insertGoal(Goal goal) {
-        mGoalsLocalDataSource.insertGoal(goal);
+        Goal snapshot = goal.copy();
         if (mCachedGoals == null) {
             mCachedGoals = new LinkedHashMap<>();
         }
         mCachedGoals.put(goal.getId(), goal);
+        mUnitOfWork.enqueue(() -> mGoalsLocalDataSource.insertGoal(snapshot),
+                () -> forgetGoal(snapshot.getId()));
     }
 
     @Override
     public void updateGoal(Goal goal, String oldId) {
-        mGoalsLocalDataSource.updateGoal(goal, oldId);
+        Goal snapshot = goal.copy();
         if (mCachedGoals == null) {
             mCachedGoals = new LinkedHashMap<>();
         }
-        mCachedGoals.remove(oldId);
-        mCachedGoals.put(goal.getId(), goal);
+        // The data source keeps the old ID, so the cache must too
+        Goal updated = goal;
+        if (!goal.getId().equals(oldId)) {
+            updated = new Goal(oldId, goal.getName(), goal.getDistance(), goal.getUnit(), -1);
+            updated.setStreak(goal.getStreak());
+        }
+        mCachedGoals.put(oldId, updated);
+        mUnitOfWork.enqueue(() -> mGoalsLocalDataSource.updateGoal(snapshot, oldId),
+                () -> forgetGoal(oldId));
     }
 
     @Override
     public void refreshGoals() {
-        mCacheIsDirty = true;
+        // Only needed when the goals have changed outside of this repository
+        mCacheIsComplete = false;
+        if (mCachedGoals != null) {
+            mCachedGoals.clear();
+        }
+    }
+
+    /**
+     * Invalidates the cached goal with the given ID, so it is read again next time.
+     *
+     * @param id the ID of the goal being invalidated
+     */
+    public void invalidateGoal(String id) {
+        if (mCachedGoals != null && mCachedGoals.remove(id) != null) {
+            mCacheIsComplete = false;
+        }
     }
 
     @Override
     public void deleteAllGoals() {
-        mGoalsLocalDataSource.deleteAllGoals();
         if (mCachedGoals == null) {
             mCachedGoals = new LinkedHashMap<>();
         }
         mCachedGoals.clear();
+        mCacheIsComplete = true;
+        mUnitOfWork.enqueue(mGoalsLocalDataSource::deleteAllGoals, this::refreshGoals);
     }
 
     @Override
     public void deleteGoal(String id) {
-        mGoalsLocalDataSource.deleteGoal(id);
-        mCachedGoals.remove(id);
+        if (mCachedGoals != null) {
+            mCachedGoals.remove(id);
+        }
+        mUnitOfWork.enqueue(() -> mGoalsLocalDataSource.deleteGoal(id), () -> forgetGoal(id));
     }
 
     /**
@@ -160,7 +269,20 @@ public class GoalsRepository implements GoalsDataSource {
         for (Goal goal : goals) {
             mCachedGoals.put(goal.getId(), goal);
         }
-        mCacheIsDirty = false;
+        mCacheIsComplete = true;
+    }
+
+    /**
+     * Forgets the cached goal with the given ID after a write to it was dropped. The goal may or
+     * may not exist, so the cache is no longer complete.
+     *
+     * @param id the ID of the goal
+     */
+    private void forgetGoal(String id) {
+        if (mCachedGoals != null) {
+            mCachedGoals.remove(id);
+        }
+        mCacheIsComplete = false;
     }
 
     /**
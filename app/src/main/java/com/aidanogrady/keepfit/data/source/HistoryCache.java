@@ -0,0 +1,441 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A least recently used cache of history keyed by epoch day and bounded by weight. Each day weighs
+ * one for its summary plus one for every update it holds. When the cache is over its capacity the
+ * updates of the least recently used days are released first, leaving their summaries, and only
+ * then are whole days evicted. The days are also indexed by date, so pages of history are read
+ * from the cache without sorting it.
+ *
+ * The cache is not thread safe and is only accessed on the main thread by the HistoryRepository.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryCache {
+    /**
+     * The default maximum weight of the cache.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The cached history in access order, least recently used first.
+     */
+    private final LinkedHashMap<Long, Node> mEntries;
+
+    /**
+     * The same cached history in date order.
+     */
+    private final NavigableMap<Long, Node> mByDate = new TreeMap<>();
+
+    /**
+     * The maximum total weight of the cached history.
+     */
+    private final int mCapacity;
+
+    /**
+     * The current total weight of the cached history.
+     */
+    private int mWeight;
+
+    /**
+     * Whether every day of history is cached, so the cache can answer for all history.
+     */
+    private boolean mComplete;
+
+    /**
+     * The number of lookups answered by the cache.
+     */
+    private long mHitCount;
+
+    /**
+     * The number of lookups not answered by the cache.
+     */
+    private long mMissCount;
+
+    /**
+     * The number of days evicted from the cache.
+     */
+    private long mEvictionCount;
+
+    /**
+     * The number of days whose updates were released to save space.
+     */
+    private long mReleaseCount;
+
+
+    /**
+     * Constructs a new HistoryCache.
+     *
+     * @param capacity the maximum total weight of the cached history
+     */
+    public HistoryCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        mEntries = new LinkedHashMap<>(16, 0.75f, true);
+        mCapacity = capacity;
+    }
+
+
+    /**
+     * Returns the history of the given day, counting a hit or a miss.
+     *
+     * @param date the day being searched for
+     * @return history if cached, otherwise null
+     */
+    public History get(long date) {
+        Node node = mEntries.get(date);
+        if (node != null) {
+            mHitCount++;
+            return node.history;
+        }
+        mMissCount++;
+        return null;
+    }
+
+    /**
+     * Returns the history of the given day with its updates, counting a hit or a miss. A day whose
+     * updates have been released counts as a miss.
+     *
+     * @param date the day being searched for
+     * @return history with updates if cached, otherwise null
+     */
+    public History getWithUpdates(long date) {
+        Node node = mEntries.get(date);
+        if (node != null && node.history.isUpdatesLoaded()) {
+            mHitCount++;
+            return node.history;
+        }
+        mMissCount++;
+        return null;
+    }
+
+    /**
+     * Adds the given history to the cache, replacing any history of the same day, then trims the
+     * cache to its capacity.
+     *
+     * @param history the history being cached
+     */
+    public void put(History history) {
+        Node node = new Node(history);
+        Node previous = mEntries.put(history.getDate(), node);
+        mByDate.put(history.getDate(), node);
+        if (previous != null) {
+            mWeight -= previous.weight;
+        }
+        mWeight += node.weight;
+        trimToCapacity();
+    }
+
+    /**
+     * Removes the history of the given day.
+     *
+     * @param date the day being removed
+     */
+    public void remove(long date) {
+        Node previous = mEntries.remove(date);
+        mByDate.remove(date);
+        if (previous != null) {
+            mWeight -= previous.weight;
+        }
+    }
+
+    /**
+     * Removes the history of the given day because it may be stale. Unlike a deletion the day may
+     * still exist, so the cache is no longer complete.
+     *
+     * @param date the day being invalidated
+     */
+    public void invalidate(long date) {
+        if (mEntries.containsKey(date)) {
+            remove(date);
+            mComplete = false;
+        }
+    }
+
+    /**
+     * Removes the history of every day in the given range because it may be stale. The cache is no
+     * longer complete if any day was removed.
+     *
+     * @param start the first day being removed
+     * @param end the last day being removed
+     */
+    public void removeRange(long start, long end) {
+        if (start > end) {
+            return;
+        }
+        Iterator<Node> iterator = mByDate.subMap(start, true, end, true).values().iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            iterator.remove();
+            mEntries.remove(node.date);
+            mWeight -= node.weight;
+            mComplete = false;
+        }
+    }
+
+    /**
+     * Removes the history of every day attempting the goal with the given ID because it may be
+     * stale. The cache is no longer complete if any day was removed.
+     *
+     * @param goalId the ID of the goal
+     */
+    public void removeGoal(String goalId) {
+        Iterator<Node> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            Goal goal = node.history.getGoal();
+            if (goal != null && goalId.equals(goal.getId())) {
+                iterator.remove();
+                mByDate.remove(node.date);
+                mWeight -= node.weight;
+                mComplete = false;
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of the cache with the given history, which is all history. The cache
+     * is complete unless the history did not fit.
+     *
+     * @param histories every day of history
+     */
+    public void replaceAll(List<History> histories) {
+        clear();
+        mComplete = true;
+        for (History history : histories) {
+            put(history);
+        }
+    }
+
+    /**
+     * Removes all history from the cache.
+     */
+    public void clear() {
+        mEntries.clear();
+        mByDate.clear();
+        mWeight = 0;
+        mComplete = false;
+    }
+
+    /**
+     * Releases the updates of every cached day, keeping only their summaries.
+     */
+    public void releaseUpdates() {
+        for (Node node : mEntries.values()) {
+            releaseUpdates(node);
+        }
+    }
+
+    /**
+     * Returns whether the cache holds every day of history.
+     *
+     * @return true if complete
+     */
+    public boolean isComplete() {
+        return mComplete;
+    }
+
+    /**
+     * Sets whether the cache holds every day of history, such as after all history is deleted.
+     *
+     * @param complete whether the cache is complete
+     */
+    public void setComplete(boolean complete) {
+        mComplete = complete;
+    }
+
+    /**
+     * Returns all cached history, most recent first, without changing the access order.
+     *
+     * @return cached history
+     */
+    public List<History> getAll() {
+        List<History> histories = new ArrayList<>(mByDate.size());
+        for (Node node : mByDate.descendingMap().values()) {
+            histories.add(node.history);
+        }
+        return histories;
+    }
+
+    /**
+     * Returns up to the given number of cached days matched by the given filter, most recent
+     * first, without changing the access order. Only the days within the filter's dates are
+     * visited, so a page costs the same however much history is cached before it.
+     *
+     * @param filter the filter days must match
+     * @param limit the maximum number of days returned
+     * @return matched history
+     */
+    public List<History> getPage(HistoryFilter filter, int limit) {
+        List<History> histories = new ArrayList<>();
+        if (limit <= 0 || filter.getStartDate() > filter.getEndDate()) {
+            return histories;
+        }
+        NavigableMap<Long, Node> days = mByDate.subMap(filter.getStartDate(), true,
+                filter.getEndDate(), true);
+        for (Node node : days.descendingMap().values()) {
+            if (filter.matches(node.history)) {
+                histories.add(node.history);
+                if (histories.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return histories;
+    }
+
+    /**
+     * Returns the number of cached days.
+     *
+     * @return size
+     */
+    public int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the current total weight of the cached history.
+     *
+     * @return weight
+     */
+    public int getWeight() {
+        return mWeight;
+    }
+
+    /**
+     * Returns the maximum total weight of the cached history.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of lookups answered by the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of lookups not answered by the cache.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the number of days evicted from the cache.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Returns the number of days whose updates were released to save space.
+     *
+     * @return release count
+     */
+    public long getReleaseCount() {
+        return mReleaseCount;
+    }
+
+    /**
+     * Brings the cache within its capacity, first by releasing the updates of the least recently
+     * used days and then by evicting them.
+     */
+    private void trimToCapacity() {
+        if (mWeight <= mCapacity) {
+            return;
+        }
+
+        // Every node weighs one once only summaries remain, so there are no updates to release
+        if (mWeight > mEntries.size()) {
+            for (Node node : mEntries.values()) {
+                if (mWeight <= mCapacity) {
+                    return;
+                }
+                releaseUpdates(node);
+            }
+        }
+
+        Iterator<Node> iterator = mEntries.values().iterator();
+        while (mWeight > mCapacity && iterator.hasNext()) {
+            Node node = iterator.next();
+            iterator.remove();
+            mByDate.remove(node.date);
+            mWeight -= node.weight;
+            mEvictionCount++;
+            mComplete = false;
+        }
+    }
+
+    /**
+     * Replaces the history of the given node with a summary without updates.
+     *
+     * @param node the cache node
+     */
+    private void releaseUpdates(Node node) {
+        if (node.history.isUpdatesLoaded() && !node.history.getUpdates().isEmpty()) {
+            node.history = node.history.withoutUpdates();
+            mWeight -= node.weight - 1;
+            node.weight = 1;
+            mReleaseCount++;
+        }
+    }
+
+
+    /**
+     * A cached day of history with the weight it was added with, since the history itself may
+     * gain updates after it is cached.
+     */
+    private static class Node {
+        /**
+         * The day the history was cached under.
+         */
+        final long date;
+
+        /**
+         * The cached history.
+         */
+        History history;
+
+        /**
+         * The weight of the history when it was cached: one for the summary and one for each
+         * update held.
+         */
+        int weight;
+
+        /**
+         * Constructs a new Node, weighing the given history. A summary is weighed without loading
+         * its updates.
+         *
+         * @param history the history being cached
+         */
+        Node(History history) {
+            this.date = history.getDate();
+            this.history = history;
+            this.weight = history.isUpdatesLoaded() ? 1 + history.getUpdates().size() : 1;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.aidanogrady.keepfit.data.source;
 
 import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.data.model.Streak;
 
 import java.util.List;
 
 /**
- * Interface for accessing history data.
+ * Interface for accessing history data. History is loaded as summaries without their updates, so
+ * History.isUpdatesLoaded is false until the updates read from the UpdatesDataSource are given to
+ * History.setUpdates.
  *
  * @author Aidan O'Grady
  * @since 0.2
@@ -29,6 +34,22 @@ public interface HistoryDataSource extends DataSource {
         void onDataNotAvailable();
     }
 
+    /**
+     * Interface for the callback when a rollup is loaded or is unavailable.
+     */
+    interface GetRollupCallback {
+        void onRollupLoaded(HistoryRollup rollup);
+
+        void onDataNotAvailable();
+    }
+
+    /**
+     * Interface for the callback when the streak is loaded.
+     */
+    interface GetStreakCallback {
+        void onStreakLoaded(Streak streak);
+    }
+
 
     /**
      * Gets all history from the data source..
@@ -37,6 +58,24 @@ public interface HistoryDataSource extends DataSource {
      */
     void getHistory(LoadHistoryCallback callback);
 
+    /**
+     * Gets the history matched by the given filter from the data source, most recent first.
+     *
+     * @param filter the filter history must match
+     * @param callback the callback to enact when history is retrieved.
+     */
+    void getHistory(HistoryFilter filter, LoadHistoryCallback callback);
+
+    /**
+     * Gets at most the given number of days of history matched by the given filter, most recent
+     * first.
+     *
+     * @param filter the filter history must match
+     * @param limit the maximum number of days loaded
+     * @param callback the callback to enact when history is retrieved.
+     */
+    void getHistory(HistoryFilter filter, int limit, LoadHistoryCallback callback);
+
     /**
      * Gets the history with the given ID and enacts the given callback.
      *
@@ -45,6 +84,43 @@ public interface HistoryDataSource extends DataSource {
      */
     void getHistory(long date, GetHistoryCallback callback);
 
+    /**
+     * Gets the rollup of the week or month containing the given day. Rollups are kept up to date
+     * as history is written, so the time taken does not grow with the length of the history.
+     *
+     * @param period the period rolled up
+     * @param date a day of the period
+     * @param callback the callback to enact when the rollup is retrieved
+     */
+    void getRollup(HistoryRollup.Period period, long date, GetRollupCallback callback);
+
+    /**
+     * Rebuilds every rollup from the history, such as after the distance of a goal is changed.
+     */
+    void rebuildRollups();
+
+    /**
+     * Gets the streak of consecutive days any goal was achieved. The streak is extended as goals
+     * are achieved, so the time taken does not grow with the length of the history.
+     *
+     * @param callback the callback to enact when the streak is retrieved
+     */
+    void getStreak(GetStreakCallback callback);
+
+    /**
+     * Extends the streak of consecutive days any goal was achieved by the given day. Days already
+     * counted leave the streak unchanged.
+     *
+     * @param date the day a goal was achieved
+     */
+    void extendStreak(long date);
+
+    /**
+     * Rebuilds the streak of every goal and of any goal from the history in a single pass, such
+     * as after the distance of a goal is changed.
+     */
+    void rebuildStreaks();
+
     /**
      * Inserts this history to the data source.
      *
@@ -52,6 +128,13 @@ public interface HistoryDataSource extends DataSource {
      */
     void insertHistory(History history);
 
+    /**
+     * Inserts all of the given history to the data source in a single transaction.
+     *
+     * @param histories the history to be inserted.
+     */
+    void insertHistories(List<History> histories);
+
     /**
      * Refreshes the data source.
      */
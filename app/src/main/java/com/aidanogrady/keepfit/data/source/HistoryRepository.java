@@ -3,20 +3,36 @@ package com.aidanogrady.keepfit.data.source;
 import android.content.Context;
 
 import com.aidanogrady.keepfit.data.model.History;
-import com.aidanogrady.keepfit.data.source.local.HistoryLocalDataSource;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.data.model.Streak;
+import com.aidanogrady.keepfit.metrics.Counter;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.util.AppExecutors;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Concrete implementation to load history from a data source and store them in a cache.
+ * Concrete implementation to load history from a data source and store them in a cache. The data
+ * source is accessed on the disk executor and callbacks are delivered on the main thread, while
+ * the cache is only touched on the main thread. Writes go through the shared unit of work, and
+ * what was cached for a write is forgotten if the unit of work drops it.
  *
  * @author Aidan O'Grady
  * @since 0.2.3
  */
 public class HistoryRepository implements HistoryDataSource {
+    /**
+     * Counts the reads answered from the cache.
+     */
+    private static final Counter CACHE_HITS = Metrics.counter("HistoryRepository.cacheHits");
+
+    /**
+     * Counts the reads that went to the local data source.
+     */
+    private static final Counter CACHE_MISSES = Metrics.counter("HistoryRepository.cacheMisses");
+
     /**
      * Singleton instance of the history repository.
      */
@@ -28,143 +44,411 @@ public class HistoryRepository implements HistoryDataSource {
     private HistoryDataSource mHistoryLocalDataSource;
 
     /**
-     * Cache of History obtained from the database.
+     * The executors the data source is accessed through.
      */
-    private Map<Long, History> mCachedHistory;
+    private AppExecutors mAppExecutors;
 
     /**
-     * Flag for indicating cache is invalid, to force updates next time data is requested.
+     * The unit of work writes are committed through.
      */
-    private boolean mCacheIsDirty = false;
+    private UnitOfWork mUnitOfWork;
+
+    /**
+     * Bounded cache of History obtained from the database, keyed by date.
+     */
+    private HistoryCache mCache;
+
+    /**
+     * The streak of any goal, null until it is first loaded.
+     */
+    private Streak mCachedStreak;
 
 
     /**
      * Constructs a new HistoryRepository.
      *
-     * @param context the context creating the repository.
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
+     * @param cache the cache history is kept in
      */
-    private HistoryRepository(Context context) {
-        mHistoryLocalDataSource = HistoryLocalDataSource.getInstance(context);
+    private HistoryRepository(HistoryDataSource localDataSource, AppExecutors appExecutors,
+                              UnitOfWork unitOfWork, HistoryCache cache) {
+        mHistoryLocalDataSource = new TimedHistoryDataSource(localDataSource);
+        mAppExecutors = appExecutors;
+        mUnitOfWork = unitOfWork;
+        mCache = cache;
     }
 
 
     /**
-     * Returns the singleton instance of the HistoryRepository.
+     * Returns the singleton instance of the HistoryRepository, reading and writing through the
+     * installed storage engine. History is loaded as summaries, whose updates are loaded through
+     * the UpdatesRepository where they are needed.
      *
      * @param context the context the repository is being loaded in.
      * @return singleton instance
      */
     public static HistoryRepository getInstance(Context context) {
+        return getInstance(StorageEngines.getInstance(context), AppExecutors.getInstance(),
+                UnitOfWork.getInstance(context));
+    }
+
+    /**
+     * Returns the singleton instance of the HistoryRepository, creating it with the given data
+     * source, executors and unit of work if it does not yet exist.
+     *
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
+     * @return singleton instance
+     */
+    public static HistoryRepository getInstance(HistoryDataSource localDataSource,
+                                                AppExecutors appExecutors, UnitOfWork unitOfWork) {
+        return getInstance(localDataSource, appExecutors, unitOfWork,
+                new HistoryCache(HistoryCache.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Returns the singleton instance of the HistoryRepository, creating it with the given data
+     * source, executors, unit of work and cache if it does not yet exist.
+     *
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
+     * @param cache the cache history is kept in
+     * @return singleton instance
+     */
+    public static HistoryRepository getInstance(HistoryDataSource localDataSource,
+                                                AppExecutors appExecutors, UnitOfWork unitOfWork,
+                                                HistoryCache cache) {
         if (sInstance == null) {
-            sInstance = new HistoryRepository(context);
+            sInstance = new HistoryRepository(localDataSource, appExecutors, unitOfWork, cache);
         }
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    public static void destroyInstance() {
+        sInstance = null;
+    }
+
     @Override
     public void getHistory(final LoadHistoryCallback callback) {
-        if (mCachedHistory != null && !mCacheIsDirty) {
-            callback.onHistoryLoaded(new ArrayList<>(mCachedHistory.values()));
+        if (mCache.isComplete()) {
+            CACHE_HITS.increment();
+            List<History> histories = mCache.getAll();
+            if (histories.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                callback.onHistoryLoaded(histories);
+            }
             return;
         }
 
-        mHistoryLocalDataSource.getHistory(new LoadHistoryCallback() {
-            @Override
-            public void onHistoryLoaded(List<History> histories) {
-                refreshCache(histories);
-                callback.onHistoryLoaded(new ArrayList<>(mCachedHistory.values()));
-            }
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mHistoryLocalDataSource.getHistory(new LoadHistoryCallback() {
+                @Override
+                public void onHistoryLoaded(List<History> histories) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        refreshCache(histories);
+                        callback.onHistoryLoaded(histories);
+                    });
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(() -> {
+                        refreshCache(new ArrayList<>());
+                        callback.onDataNotAvailable();
+                    });
+                }
+            });
+        });
 
-            @Override
-            public void onDataNotAvailable() {
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, final LoadHistoryCallback callback) {
+        if (mCache.isComplete()) {
+            CACHE_HITS.increment();
+            List<History> histories = mCache.getPage(filter, Integer.MAX_VALUE);
+            if (histories.isEmpty()) {
                 callback.onDataNotAvailable();
+            } else {
+                callback.onHistoryLoaded(histories);
             }
+            return;
+        }
+
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mHistoryLocalDataSource.getHistory(filter, new LoadHistoryCallback() {
+                @Override
+                public void onHistoryLoaded(List<History> histories) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        for (History history : histories) {
+                            mCache.put(history);
+                        }
+                        callback.onHistoryLoaded(histories);
+                    });
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(callback::onDataNotAvailable);
+                }
+            });
         });
+    }
 
+    @Override
+    public void getHistory(HistoryFilter filter, int limit, final LoadHistoryCallback callback) {
+        if (mCache.isComplete()) {
+            CACHE_HITS.increment();
+            List<History> histories = mCache.getPage(filter, limit);
+            if (histories.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                callback.onHistoryLoaded(histories);
+            }
+            return;
+        }
+
+        CACHE_MISSES.increment();
+        // Pages are not cached, as the pages a list holds are already bounded
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mHistoryLocalDataSource.getHistory(filter, limit, new LoadHistoryCallback() {
+                @Override
+                public void onHistoryLoaded(List<History> histories) {
+                    mAppExecutors.mainThread().execute(() -> callback.onHistoryLoaded(histories));
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(callback::onDataNotAvailable);
+                }
+            });
+        });
     }
 
     @Override
     public void getHistory(long date, final GetHistoryCallback callback) {
-        History history = getHistoryWithDate(date);
+        // A cached summary will do, as its updates are loaded when they are needed
+        History history = mCache.get(date);
         if (history != null) {
+            CACHE_HITS.increment();
             callback.onHistoryLoaded(history);
             return;
         }
 
-        mHistoryLocalDataSource.getHistory(date, new GetHistoryCallback() {
-            @Override
-            public void onHistoryLoaded(History history) {
-                if (mCachedHistory == null) {
-                    mCachedHistory = new LinkedHashMap<>();
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mHistoryLocalDataSource.getHistory(date, new GetHistoryCallback() {
+                @Override
+                public void onHistoryLoaded(History history) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        mCache.put(history);
+                        callback.onHistoryLoaded(history);
+                    });
                 }
-                mCachedHistory.put(history.getDate(), history);
-                callback.onHistoryLoaded(history);
-            }
 
-            @Override
-            public void onDataNotAvailable() {
-                callback.onDataNotAvailable();
-            }
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(callback::onDataNotAvailable);
+                }
+            });
+        });
+    }
+
+    @Override
+    public void getRollup(HistoryRollup.Period period, long date,
+                          final GetRollupCallback callback) {
+        // Rollups are not cached, as reading one is a single primary key lookup
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mHistoryLocalDataSource.getRollup(period, date, new GetRollupCallback() {
+                @Override
+                public void onRollupLoaded(HistoryRollup rollup) {
+                    mAppExecutors.mainThread().execute(() -> callback.onRollupLoaded(rollup));
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(callback::onDataNotAvailable);
+                }
+            });
         });
     }
 
+    @Override
+    public void rebuildRollups() {
+        mUnitOfWork.enqueue(mHistoryLocalDataSource::rebuildRollups);
+    }
+
+    @Override
+    public void getStreak(final GetStreakCallback callback) {
+        if (mCachedStreak != null) {
+            CACHE_HITS.increment();
+            callback.onStreakLoaded(mCachedStreak);
+            return;
+        }
+
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mHistoryLocalDataSource.getStreak(streak ->
+                    mAppExecutors.mainThread().execute(() -> {
+                        mCachedStreak = streak;
+                        callback.onStreakLoaded(streak);
+                    }));
+        });
+    }
+
+    @Override
+    public void extendStreak(long date) {
+        if (mCachedStreak != null) {
+            mCachedStreak = mCachedStreak.extend(date);
+        }
+        mUnitOfWork.enqueue(() -> mHistoryLocalDataSource.extendStreak(date),
+                this::forgetStreak);
+    }
+
+    @Override
+    public void rebuildStreaks() {
+        mCachedStreak = null;
+        mUnitOfWork.enqueue(mHistoryLocalDataSource::rebuildStreaks, this::forgetStreak);
+    }
+
     @Override
     public void insertHistory(History history) {
-        mHistoryLocalDataSource.insertHistory(history);
-        if (mCachedHistory == null) {
-            mCachedHistory = new LinkedHashMap<>();
+        History snapshot = history.snapshot();
+        mCache.put(history);
+        mUnitOfWork.enqueue(() -> mHistoryLocalDataSource.insertHistory(snapshot),
+                () -> forgetHistory(snapshot.getDate()));
+    }
+
+    @Override
+    public void insertHistories(List<History> histories) {
+        List<History> snapshots = new ArrayList<>(histories.size());
+        for (History history : histories) {
+            snapshots.add(history.snapshot());
         }
-        mCachedHistory.put(history.getDate(), history);
+        for (History history : histories) {
+            mCache.put(history);
+        }
+        mUnitOfWork.enqueue(() -> mHistoryLocalDataSource.insertHistories(snapshots), () -> {
+            for (History snapshot : snapshots) {
+                forgetHistory(snapshot.getDate());
+            }
+        });
     }
 
     @Override
     public void refreshHistory() {
-        mCacheIsDirty = true;
+        // Only needed when the history has changed outside of this repository
+        mCache.clear();
+    }
+
+    /**
+     * Invalidates the cached history of the given day, so it is read again next time.
+     *
+     * @param date the day being invalidated
+     */
+    public void invalidateHistory(long date) {
+        mCache.invalidate(date);
+    }
+
+    /**
+     * Invalidates the cached history of every day in the given range, so they are read again next
+     * time.
+     *
+     * @param start the first day being invalidated
+     * @param end the last day being invalidated
+     */
+    public void invalidateHistory(long start, long end) {
+        mCache.removeRange(start, end);
+    }
+
+    /**
+     * Invalidates the cached history of every day attempting the given goal, such as after the
+     * goal is edited. The rollups and streaks are rebuilt, as the days the goal was completed may
+     * have changed.
+     *
+     * @param goalId the ID of the goal
+     */
+    public void invalidateHistoryWithGoal(String goalId) {
+        mCache.removeGoal(goalId);
+        rebuildRollups();
+        rebuildStreaks();
     }
 
     @Override
     public void deleteAllHistory() {
-        mHistoryLocalDataSource.deleteAllHistory();
-        if (mCachedHistory == null) {
-            mCachedHistory = new LinkedHashMap<>();
-        }
-        mCachedHistory.clear();
+        mCache.clear();
+        mCache.setComplete(true);
+        mCachedStreak = Streak.NONE;
+        mUnitOfWork.enqueue(mHistoryLocalDataSource::deleteAllHistory, () -> {
+            mCache.clear();
+            forgetStreak();
+        });
     }
 
     @Override
     public void deleteHistory(long date) {
-        mHistoryLocalDataSource.deleteHistory(date);
-        mCachedHistory.remove(date);
+        mCache.remove(date);
+        mUnitOfWork.enqueue(() -> mHistoryLocalDataSource.deleteHistory(date),
+                () -> forgetHistory(date));
     }
 
     /**
-     * Refreshes the cache.
+     * Returns the cache history is kept in, for inspecting its counters.
      *
-     * @param histories the history to refresh cache with.
+     * @return history cache
      */
-    private void refreshCache(List<History> histories) {
-        if (mCachedHistory == null) {
-            mCachedHistory = new LinkedHashMap<>();
-        }
-        mCachedHistory.clear();
+    public HistoryCache getCache() {
+        return mCache;
+    }
 
-        for (History history : histories) {
-            mCachedHistory.put(history.getDate(), history);
-        }
-        mCacheIsDirty = false;
+    /**
+     * Releases the updates held by the cache, keeping the history summaries. Called when memory is
+     * low.
+     */
+    public void releaseCachedUpdates() {
+        mCache.releaseUpdates();
     }
 
     /**
-     * Returns the history with the given date from the cache.
+     * Forgets the cached history of the given day after a write to it was dropped. The day may or
+     * may not exist, so the cache is no longer complete.
      *
-     * @param date the date being searched for
-     * @return history if it is found in cache, otherwise null
-     */
-    private History getHistoryWithDate(long date) {
-        if (mCachedHistory == null || mCachedHistory.isEmpty()) {
-            return null;
-        } else {
-            return mCachedHistory.get(date);
-        }
+     * @param date the day of the history
+     */
+    private void forgetHistory(long date) {
+        mCache.remove(date);
+        mCache.setComplete(false);
+    }
+
+    /**
+     * Forgets the cached streak after a write to it was dropped, so it is read again next time.
+     */
+    private void forgetStreak() {
+        mCachedStreak = null;
+    }
+
+    /**
+     * Refreshes the cache.
+     *
+     * @param histories the history to refresh cache with.
+     */
+    private void refreshCache(List<History> histories) {
+        mCache.replaceAll(histories);
     }
 }
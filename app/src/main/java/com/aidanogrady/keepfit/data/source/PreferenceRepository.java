@@ -48,6 +48,20 @@ public interface PreferenceRepository {
      */
     long getTestDate();
 
+    /**
+     * Returns true if metrics are recorded.
+     *
+     * @return true if enabled, otherwise false
+     */
+    boolean getIsMetricsEnabled();
+
+    /**
+     * Returns true if updates are appended to the update journal.
+     *
+     * @return true if enabled, otherwise false
+     */
+    boolean getIsUpdateJournalEnabled();
+
     /**
      * Returns the exchange from steps to metres.
      *
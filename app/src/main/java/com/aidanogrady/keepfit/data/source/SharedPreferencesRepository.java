@@ -110,6 +110,24 @@ public class SharedPreferencesRepository implements PreferenceRepository {
         return sInstance.getTestDate();
     }
 
+    /**
+     * Returns true if metrics are recorded.
+     *
+     * @return true if enabled, otherwise false
+     */
+    public static boolean isMetricsEnabled() {
+        return sInstance.getIsMetricsEnabled();
+    }
+
+    /**
+     * Returns true if updates are appended to the update journal.
+     *
+     * @return true if enabled, otherwise false
+     */
+    public static boolean isUpdateJournalEnabled() {
+        return sInstance.getIsUpdateJournalEnabled();
+    }
+
     /**
      * Returns the steps/metre conversion.
      *
@@ -198,6 +216,16 @@ public class SharedPreferencesRepository implements PreferenceRepository {
         return mSharedPreferences.getLong("testModeDate", LocalDate.now().toEpochDay());
     }
 
+    @Override
+    public boolean getIsMetricsEnabled() {
+        return mSharedPreferences.getBoolean("metricsEnabled", false);
+    }
+
+    @Override
+    public boolean getIsUpdateJournalEnabled() {
+        return mSharedPreferences.getBoolean("updateJournalEnabled", false);
+    }
+
     @Override
     public Unit getCurrentHistoryDisplayUnit() {
         String value = mSharedPreferences.getString("historyDisplayUnit", "DEFAULT");
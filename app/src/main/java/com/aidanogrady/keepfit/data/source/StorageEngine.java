@@ -0,0 +1,17 @@
+package com.aidanogrady.keepfit.data.source;
+
+/**
+ * A StorageEngine stores the goals, history and updates of the app, and runs work against them in
+ * a single transaction. The repositories read and write through the engine installed in
+ * StorageEngines when the app starts, so the SQLite database can be swapped for another store,
+ * such as the in-memory engine presenter tests and benchmarks run on.
+ *
+ * Engines answer on the calling thread. They are only called on the disk executor, one call at a
+ * time, except by tests that run every executor on a single thread.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public interface StorageEngine extends GoalsDataSource, HistoryDataSource, UpdatesDataSource,
+        TransactionRunner {
+}
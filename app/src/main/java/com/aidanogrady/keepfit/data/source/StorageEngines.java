@@ -0,0 +1,57 @@
+package com.aidanogrady.keepfit.data.source;
+
+import android.content.Context;
+
+import com.aidanogrady.keepfit.data.source.local.SqliteStorageEngine;
+
+/**
+ * The StorageEngines hold the StorageEngine the repositories and unit of work are created with.
+ * An engine is installed when the app starts, before any repository is created; if none is, the
+ * local SQLite database is used.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class StorageEngines {
+    /**
+     * The installed engine, or null if none has been installed yet.
+     */
+    private static StorageEngine sEngine;
+
+
+    /**
+     * Private construct to prevent accidental instantiating of the registry class.
+     */
+    private StorageEngines() {}
+
+
+    /**
+     * Installs the given engine. Repositories already created keep the engine they were created
+     * with, so this must be called before any is.
+     *
+     * @param engine the engine to install
+     */
+    public static synchronized void install(StorageEngine engine) {
+        sEngine = engine;
+    }
+
+    /**
+     * Returns the installed engine, installing the SQLite engine if there is none.
+     *
+     * @param context the context the engine is being requested in
+     * @return installed engine
+     */
+    public static synchronized StorageEngine getInstance(Context context) {
+        if (sEngine == null) {
+            sEngine = SqliteStorageEngine.create(context);
+        }
+        return sEngine;
+    }
+
+    /**
+     * Removes the installed engine, so the next call to getInstance installs the SQLite engine.
+     */
+    public static synchronized void destroyInstance() {
+        sEngine = null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.metrics.Timer;
+
+/**
+ * A GoalsDataSource timing every call made to another. The local data source answers on the
+ * calling thread, so each timer covers the query and the callback it makes.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class TimedGoalsDataSource implements GoalsDataSource {
+    private static final Timer GET_GOALS = Metrics.timer("GoalsDataSource.getGoals");
+
+    private static final Timer GET_GOAL = Metrics.timer("GoalsDataSource.getGoal");
+
+    private static final Timer INSERT_GOAL = Metrics.timer("GoalsDataSource.insertGoal");
+
+    private static final Timer UPDATE_GOAL = Metrics.timer("GoalsDataSource.updateGoal");
+
+    private static final Timer DELETE_GOAL = Metrics.timer("GoalsDataSource.deleteGoal");
+
+    private static final Timer REFRESH_GOALS = Metrics.timer("GoalsDataSource.refreshGoals");
+
+    private static final Timer DELETE_ALL_GOALS = Metrics.timer("GoalsDataSource.deleteAllGoals");
+
+    /**
+     * The data source timed.
+     */
+    private final GoalsDataSource mDataSource;
+
+
+    /**
+     * Constructs a new TimedGoalsDataSource.
+     *
+     * @param dataSource the data source timed
+     */
+    TimedGoalsDataSource(GoalsDataSource dataSource) {
+        this.mDataSource = dataSource;
+    }
+
+
+    @Override
+    public void getGoals(LoadGoalsCallback callback) {
+        long start = GET_GOALS.start();
+        mDataSource.getGoals(callback);
+        GET_GOALS.stop(start);
+    }
+
+    @Override
+    public void getGoal(String id, boolean deleted, GetGoalCallback callback) {
+        long start = GET_GOAL.start();
+        mDataSource.getGoal(id, deleted, callback);
+        GET_GOAL.stop(start);
+    }
+
+    @Override
+    public void insertGoal(Goal goal) {
+        long start = INSERT_GOAL.start();
+        mDataSource.insertGoal(goal);
+        INSERT_GOAL.stop(start);
+    }
+
+    @Override
+    public void updateGoal(Goal goal, String oldId) {
+        long start = UPDATE_GOAL.start();
+        mDataSource.updateGoal(goal, oldId);
+        UPDATE_GOAL.stop(start);
+    }
+
+    @Override
+    public void refreshGoals() {
+        long start = REFRESH_GOALS.start();
+        mDataSource.refreshGoals();
+        REFRESH_GOALS.stop(start);
+    }
+
+    @Override
+    public void deleteAllGoals() {
+        long start = DELETE_ALL_GOALS.start();
+        mDataSource.deleteAllGoals();
+        DELETE_ALL_GOALS.stop(start);
+    }
+
+    @Override
+    public void deleteGoal(String id) {
+        long start = DELETE_GOAL.start();
+        mDataSource.deleteGoal(id);
+        DELETE_GOAL.stop(start);
+    }
+}
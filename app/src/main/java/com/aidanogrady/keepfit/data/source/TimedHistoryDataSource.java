@@ -0,0 +1,168 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.metrics.Timer;
+
+import java.util.List;
+
+/**
+ * A HistoryDataSource timing every call made to another. The local data source answers on the
+ * calling thread, so each timer covers the query and the callback it makes.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class TimedHistoryDataSource implements HistoryDataSource {
+    private static final Timer GET_ALL = Metrics.timer("HistoryDataSource.getHistory");
+
+    private static final Timer GET_FILTERED =
+            Metrics.timer("HistoryDataSource.getHistory(filter)");
+
+    private static final Timer GET_PAGE =
+            Metrics.timer("HistoryDataSource.getHistory(filter,limit)");
+
+    private static final Timer GET_DAY = Metrics.timer("HistoryDataSource.getHistory(date)");
+
+    private static final Timer GET_ROLLUP = Metrics.timer("HistoryDataSource.getRollup");
+
+    private static final Timer REBUILD_ROLLUPS =
+            Metrics.timer("HistoryDataSource.rebuildRollups");
+
+    private static final Timer GET_STREAK = Metrics.timer("HistoryDataSource.getStreak");
+
+    private static final Timer EXTEND_STREAK = Metrics.timer("HistoryDataSource.extendStreak");
+
+    private static final Timer REBUILD_STREAKS =
+            Metrics.timer("HistoryDataSource.rebuildStreaks");
+
+    private static final Timer INSERT_HISTORY =
+            Metrics.timer("HistoryDataSource.insertHistory");
+
+    private static final Timer INSERT_HISTORIES =
+            Metrics.timer("HistoryDataSource.insertHistories");
+
+    private static final Timer DELETE_HISTORY =
+            Metrics.timer("HistoryDataSource.deleteHistory");
+
+    private static final Timer REFRESH_HISTORY = Metrics.timer("HistoryDataSource.refreshHistory");
+
+    private static final Timer DELETE_ALL_HISTORY =
+            Metrics.timer("HistoryDataSource.deleteAllHistory");
+
+    /**
+     * The data source timed.
+     */
+    private final HistoryDataSource mDataSource;
+
+
+    /**
+     * Constructs a new TimedHistoryDataSource.
+     *
+     * @param dataSource the data source timed
+     */
+    TimedHistoryDataSource(HistoryDataSource dataSource) {
+        this.mDataSource = dataSource;
+    }
+
+
+    @Override
+    public void getHistory(LoadHistoryCallback callback) {
+        long start = GET_ALL.start();
+        mDataSource.getHistory(callback);
+        GET_ALL.stop(start);
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, LoadHistoryCallback callback) {
+        long start = GET_FILTERED.start();
+        mDataSource.getHistory(filter, callback);
+        GET_FILTERED.stop(start);
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, int limit, LoadHistoryCallback callback) {
+        long start = GET_PAGE.start();
+        mDataSource.getHistory(filter, limit, callback);
+        GET_PAGE.stop(start);
+    }
+
+    @Override
+    public void getHistory(long date, GetHistoryCallback callback) {
+        long start = GET_DAY.start();
+        mDataSource.getHistory(date, callback);
+        GET_DAY.stop(start);
+    }
+
+    @Override
+    public void getRollup(HistoryRollup.Period period, long date, GetRollupCallback callback) {
+        long start = GET_ROLLUP.start();
+        mDataSource.getRollup(period, date, callback);
+        GET_ROLLUP.stop(start);
+    }
+
+    @Override
+    public void rebuildRollups() {
+        long start = REBUILD_ROLLUPS.start();
+        mDataSource.rebuildRollups();
+        REBUILD_ROLLUPS.stop(start);
+    }
+
+    @Override
+    public void getStreak(GetStreakCallback callback) {
+        long start = GET_STREAK.start();
+        mDataSource.getStreak(callback);
+        GET_STREAK.stop(start);
+    }
+
+    @Override
+    public void extendStreak(long date) {
+        long start = EXTEND_STREAK.start();
+        mDataSource.extendStreak(date);
+        EXTEND_STREAK.stop(start);
+    }
+
+    @Override
+    public void rebuildStreaks() {
+        long start = REBUILD_STREAKS.start();
+        mDataSource.rebuildStreaks();
+        REBUILD_STREAKS.stop(start);
+    }
+
+    @Override
+    public void insertHistory(History history) {
+        long start = INSERT_HISTORY.start();
+        mDataSource.insertHistory(history);
+        INSERT_HISTORY.stop(start);
+    }
+
+    @Override
+    public void insertHistories(List<History> histories) {
+        long start = INSERT_HISTORIES.start();
+        mDataSource.insertHistories(histories);
+        INSERT_HISTORIES.stop(start);
+    }
+
+    @Override
+    public void refreshHistory() {
+        long start = REFRESH_HISTORY.start();
+        mDataSource.refreshHistory();
+        REFRESH_HISTORY.stop(start);
+    }
+
+    @Override
+    public void deleteAllHistory() {
+        long start = DELETE_ALL_HISTORY.start();
+        mDataSource.deleteAllHistory();
+        DELETE_ALL_HISTORY.stop(start);
+    }
+
+    @Override
+    public void deleteHistory(long date) {
+        long start = DELETE_HISTORY.start();
+        mDataSource.deleteHistory(date);
+        DELETE_HISTORY.stop(start);
+    }
+}
@@ -0,0 +1,80 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.metrics.Timer;
+
+import java.util.List;
+
+/**
+ * An UpdatesDataSource timing every call made to another. The local data source answers on the
+ * calling thread, so each timer covers the query and the callback it makes.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class TimedUpdatesDataSource implements UpdatesDataSource {
+    private static final Timer GET_UPDATES = Metrics.timer("UpdatesDataSource.getUpdates");
+
+    private static final Timer GET_UPDATES_FOR_DATE =
+            Metrics.timer("UpdatesDataSource.getUpdatesForDate");
+
+    private static final Timer INSERT_UPDATE = Metrics.timer("UpdatesDataSource.insertUpdate");
+
+    private static final Timer INSERT_UPDATES =
+            Metrics.timer("UpdatesDataSource.insertUpdates");
+
+    private static final Timer DELETE_ALL_UPDATES =
+            Metrics.timer("UpdatesDataSource.deleteAllUpdates");
+
+    /**
+     * The data source timed.
+     */
+    private final UpdatesDataSource mDataSource;
+
+
+    /**
+     * Constructs a new TimedUpdatesDataSource.
+     *
+     * @param dataSource the data source timed
+     */
+    TimedUpdatesDataSource(UpdatesDataSource dataSource) {
+        this.mDataSource = dataSource;
+    }
+
+
+    @Override
+    public void getUpdates(LoadUpdatesCallback callback) {
+        long start = GET_UPDATES.start();
+        mDataSource.getUpdates(callback);
+        GET_UPDATES.stop(start);
+    }
+
+    @Override
+    public void getUpdatesForDate(long date, LoadUpdatesCallback callback) {
+        long start = GET_UPDATES_FOR_DATE.start();
+        mDataSource.getUpdatesForDate(date, callback);
+        GET_UPDATES_FOR_DATE.stop(start);
+    }
+
+    @Override
+    public void insertUpdate(Update update) {
+        long start = INSERT_UPDATE.start();
+        mDataSource.insertUpdate(update);
+        INSERT_UPDATE.stop(start);
+    }
+
+    @Override
+    public void insertUpdates(List<Update> updates) {
+        long start = INSERT_UPDATES.start();
+        mDataSource.insertUpdates(updates);
+        INSERT_UPDATES.stop(start);
+    }
+
+    @Override
+    public void deleteAllUpdates() {
+        long start = DELETE_ALL_UPDATES.start();
+        mDataSource.deleteAllUpdates();
+        DELETE_ALL_UPDATES.stop(start);
+    }
+}
@@ -0,0 +1,16 @@
+package com.aidanogrady.keepfit.data.source;
+
+/**
+ * Interface for running work against a data source within a single transaction.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public interface TransactionRunner {
+    /**
+     * Runs the given work in a single transaction. If the work throws, nothing it wrote is kept.
+     *
+     * @param work the work to be run
+     */
+    void runInTransaction(Runnable work);
+}
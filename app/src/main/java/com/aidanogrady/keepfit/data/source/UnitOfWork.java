@@ -0,0 +1,403 @@
+package com.aidanogrady.keepfit.data.source;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The UnitOfWork collects writes from the repositories and commits them to the data source
+ * together in a single transaction on the disk executor. Writes made between begin() and commit()
+ * are always committed together, and writes arriving within the coalescing window of each other
+ * share a commit as well.
+ *
+ * Reads must call flush() on the disk executor first, so they see every write made before them.
+ *
+ * If a commit fails, each unit of work and each write made outside one is committed again in its
+ * own transaction, so one failing write does not lose the others. Those that fail again are
+ * dropped and reported to the FailureListener, and the callback each dropped write was enqueued
+ * with is run on the main thread so the repository can forget what it cached for the write.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class UnitOfWork {
+    /**
+     * Listener for writes that could not be committed.
+     */
+    public interface FailureListener {
+        /**
+         * Called on the disk executor when a write, or a unit of work, could not be committed
+         * and has been dropped.
+         *
+         * @param e the exception the write threw
+         */
+        void onWriteFailed(RuntimeException e);
+    }
+
+    /**
+     * The tag of the log failed writes are written to.
+     */
+    private static final String TAG = "UnitOfWork";
+
+    /**
+     * The time pending writes are held for so that rapid successive writes share a commit.
+     */
+    private static final long COALESCE_WINDOW_MS = 250;
+
+    /**
+     * Singleton instance shared by the repositories.
+     */
+    private static UnitOfWork sInstance;
+
+    /**
+     * The runner each batch of writes is committed through.
+     */
+    private final TransactionRunner mTransactionRunner;
+
+    /**
+     * The executors the writes are run on.
+     */
+    private final AppExecutors mAppExecutors;
+
+    /**
+     * The coalescing window in milliseconds, 0 to commit as soon as possible.
+     */
+    private final long mWindowMillis;
+
+    /**
+     * Timer for delaying commits by the coalescing window, null if there is no window.
+     */
+    private final ScheduledExecutorService mTimer;
+
+    /**
+     * The writes that have not been committed yet. Each is either a single write or a whole unit
+     * of work, and is committed or dropped as a whole.
+     */
+    private List<PendingWrite> mPending = new ArrayList<>();
+
+    /**
+     * The writes of the open unit of work.
+     */
+    private List<PendingWrite> mUnit = new ArrayList<>();
+
+    /**
+     * The listener told of writes that could not be committed.
+     */
+    private FailureListener mFailureListener = e -> Log.e(TAG, "Dropped a failed write", e);
+
+    /**
+     * The number of begin() calls without a matching commit().
+     */
+    private int mDepth;
+
+    /**
+     * Whether a commit of the pending writes has been scheduled.
+     */
+    private boolean mFlushScheduled;
+
+    /**
+     * The number of batches of writes committed together.
+     */
+    private long mCommitCount;
+
+    /**
+     * The number of writes, or units of work, committed on their own after their batch failed.
+     */
+    private long mRetryCount;
+
+    /**
+     * The number of writes committed, counting each write of a unit of work.
+     */
+    private long mWriteCount;
+
+    /**
+     * The total time spent committing, in nanoseconds.
+     */
+    private long mCommitNanos;
+
+    /**
+     * The number of writes, or units of work, dropped after failing to commit.
+     */
+    private long mFailureCount;
+
+
+    /**
+     * Constructs a new UnitOfWork.
+     *
+     * @param transactionRunner the runner writes are committed through
+     * @param appExecutors the executors the writes are run on
+     * @param windowMillis the coalescing window, 0 to commit as soon as possible
+     */
+    public UnitOfWork(TransactionRunner transactionRunner, AppExecutors appExecutors,
+                      long windowMillis) {
+        mTransactionRunner = transactionRunner;
+        mAppExecutors = appExecutors;
+        mWindowMillis = windowMillis;
+        mTimer = (windowMillis > 0) ? Executors.newSingleThreadScheduledExecutor(r -> {
+            // The timer only delays commits, so it must not keep the process alive
+            Thread thread = new Thread(r, TAG);
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+
+    /**
+     * Returns the singleton UnitOfWork, committing to the installed storage engine.
+     *
+     * @param context the context the unit of work is being requested in
+     * @return singleton instance
+     */
+    public static synchronized UnitOfWork getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new UnitOfWork(StorageEngines.getInstance(context),
+                    AppExecutors.getInstance(), COALESCE_WINDOW_MS);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Begins a unit of work. Every write enqueued until the matching commit() is committed in the
+     * same transaction. Units of work may be nested.
+     */
+    public synchronized void begin() {
+        mDepth++;
+    }
+
+    /**
+     * Ends a unit of work. Once the outermost unit ends its writes are scheduled to be committed.
+     */
+    public synchronized void commit() {
+        if (mDepth == 0) {
+            throw new IllegalStateException("commit() was called without begin()");
+        }
+        mDepth--;
+        if (mDepth == 0 && !mUnit.isEmpty()) {
+            List<PendingWrite> unit = mUnit;
+            mUnit = new ArrayList<>();
+            mPending.add(new PendingWrite(() -> {
+                for (PendingWrite write : unit) {
+                    write.mWrite.run();
+                }
+            }, () -> {
+                for (PendingWrite write : unit) {
+                    write.mOnDropped.run();
+                }
+            }, unit.size()));
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Sets the listener told of writes that could not be committed, which by default logs them.
+     *
+     * @param listener the listener
+     */
+    public synchronized void setFailureListener(FailureListener listener) {
+        mFailureListener = listener;
+    }
+
+    /**
+     * Enqueues a write to the data source.
+     *
+     * @param write the write to be made
+     */
+    public void enqueue(Runnable write) {
+        enqueue(write, () -> {});
+    }
+
+    /**
+     * Enqueues a write to the data source, with a callback run on the main thread if the write is
+     * dropped. Repositories update their caches as a write is enqueued, so the callback should
+     * forget whatever was cached for the write.
+     *
+     * @param write the write to be made
+     * @param onDropped the callback run if the write is dropped
+     */
+    public synchronized void enqueue(Runnable write, Runnable onDropped) {
+        PendingWrite pending = new PendingWrite(write, onDropped, 1);
+        if (mDepth > 0) {
+            mUnit.add(pending);
+        } else {
+            mPending.add(pending);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Commits every pending write outside of an open unit of work in a single transaction. Must
+     * be called on the disk executor.
+     */
+    public void flush() {
+        List<PendingWrite> writes;
+        synchronized (this) {
+            mFlushScheduled = false;
+            if (mPending.isEmpty()) {
+                return;
+            }
+            writes = mPending;
+            mPending = new ArrayList<>();
+        }
+
+        long start = System.nanoTime();
+        boolean committed;
+        try {
+            mTransactionRunner.runInTransaction(() -> {
+                for (PendingWrite write : writes) {
+                    write.mWrite.run();
+                }
+            });
+            committed = true;
+        } catch (RuntimeException e) {
+            committed = false;
+        }
+
+        if (committed) {
+            int writeCount = 0;
+            for (PendingWrite write : writes) {
+                writeCount += write.mWriteCount;
+            }
+            synchronized (this) {
+                mCommitCount++;
+                mWriteCount += writeCount;
+                mCommitNanos += System.nanoTime() - start;
+            }
+        } else {
+            retrySeparately(writes);
+            synchronized (this) {
+                mCommitNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of batches of writes committed together. Batches that failed are not
+     * counted, nor are the writes committed again on their own after them.
+     *
+     * @return commit count
+     */
+    public synchronized long getCommitCount() {
+        return mCommitCount;
+    }
+
+    /**
+     * Returns the number of writes, or units of work, committed on their own after their batch
+     * failed.
+     *
+     * @return retry count
+     */
+    public synchronized long getRetryCount() {
+        return mRetryCount;
+    }
+
+    /**
+     * Returns the number of writes committed, whether with their batch or on their own. Dropped
+     * writes are not counted.
+     *
+     * @return write count
+     */
+    public synchronized long getWriteCount() {
+        return mWriteCount;
+    }
+
+    /**
+     * Returns the total time spent committing, in nanoseconds.
+     *
+     * @return commit time
+     */
+    public synchronized long getCommitNanos() {
+        return mCommitNanos;
+    }
+
+    /**
+     * Returns the number of writes, or units of work, dropped after failing to commit.
+     *
+     * @return failure count
+     */
+    public synchronized long getFailureCount() {
+        return mFailureCount;
+    }
+
+    /**
+     * Commits each of the given writes in its own transaction after the transaction of all of
+     * them was rolled back, dropping and reporting those that fail again.
+     *
+     * @param writes the writes rolled back
+     */
+    private void retrySeparately(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            try {
+                mTransactionRunner.runInTransaction(write.mWrite);
+                synchronized (this) {
+                    mRetryCount++;
+                    mWriteCount += write.mWriteCount;
+                }
+            } catch (RuntimeException e) {
+                FailureListener listener;
+                synchronized (this) {
+                    mFailureCount++;
+                    listener = mFailureListener;
+                }
+                listener.onWriteFailed(e);
+                mAppExecutors.mainThread().execute(write.mOnDropped);
+            }
+        }
+    }
+
+    /**
+     * Schedules the pending writes to be committed, unless a commit is already scheduled.
+     */
+    private void scheduleFlush() {
+        if (mFlushScheduled) {
+            return;
+        }
+        mFlushScheduled = true;
+        if (mTimer == null) {
+            mAppExecutors.diskIO().execute(this::flush);
+        } else {
+            mTimer.schedule(() -> mAppExecutors.diskIO().execute(this::flush),
+                    mWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * A write waiting to be committed, which is either a single write or a whole unit of work.
+     */
+    private static final class PendingWrite {
+        /**
+         * The write, run inside a transaction.
+         */
+        final Runnable mWrite;
+
+        /**
+         * The callback run on the main thread if the write is dropped.
+         */
+        final Runnable mOnDropped;
+
+        /**
+         * The number of writes made, more than one for a unit of work.
+         */
+        final int mWriteCount;
+
+        /**
+         * Constructs a new PendingWrite.
+         *
+         * @param write the write
+         * @param onDropped the callback run if the write is dropped
+         * @param writeCount the number of writes made
+         */
+        PendingWrite(Runnable write, Runnable onDropped, int writeCount) {
+            mWrite = write;
+            mOnDropped = onDropped;
+            mWriteCount = writeCount;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A cache of updates stored by column rather than by object: the epoch days in a sorted long[],
+ * the times in a long[], the distances in a double[] and the unit ordinals in a byte[]. Each
+ * update costs 25 bytes instead of an Update object, its boxed date key and the entry of a map,
+ * and the updates of any range of days are found by binary search. Times are kept as given, so
+ * imported updates whose times are not seconds of the day are cached unchanged.
+ *
+ * Updates are handed out as flyweight views reading the columns they were found in. Entries are
+ * never moved or overwritten in place: appending writes past every entry a view can see, and any
+ * other change copies the columns first, so views stay valid however the cache changes.
+ *
+ * The cache is not thread safe and is only accessed on the main thread by the UpdatesRepository.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class UpdatesCache {
+    /**
+     * The default initial capacity of the cache, a few days of updates.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The units by ordinal, as stored in the unit column.
+     */
+    private static final Unit[] UNITS = Unit.values();
+
+    /**
+     * The initial capacity of the cache, used again once it is cleared.
+     */
+    private final int mInitialCapacity;
+
+    /**
+     * The columns holding the cached updates, sorted by date.
+     */
+    private Columns mColumns;
+
+    /**
+     * The number of cached updates.
+     */
+    private int mSize;
+
+
+    /**
+     * Constructs a new UpdatesCache.
+     *
+     * @param capacity the number of updates held before the columns grow
+     */
+    public UpdatesCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        mInitialCapacity = capacity;
+        mColumns = new Columns(capacity);
+    }
+
+
+    /**
+     * Adds the given update after every cached update of the same day.
+     *
+     * @param update the update to cache
+     */
+    public void add(Update update) {
+        add(update.getDate(), update.getTime(), update.getDistance(), update.getUnit());
+    }
+
+    /**
+     * Adds an update with the given values after every cached update of the same day. Adding to
+     * the last day cached is done in place unless the columns are full.
+     *
+     * @param date the date of the update, as days since the epoch
+     * @param time the time of the update, as seconds of the day
+     * @param distance the distance of the update
+     * @param unit the unit of the distance
+     */
+    public void add(long date, long time, double distance, Unit unit) {
+        int index = search(date, true);
+        if (index == mSize && mSize < mColumns.capacity()) {
+            mColumns.set(index, date, time, distance, unit);
+        } else {
+            Columns columns = new Columns(grow(mSize + 1));
+            columns.copy(mColumns, 0, 0, index);
+            columns.set(index, date, time, distance, unit);
+            columns.copy(mColumns, index, index + 1, mSize - index);
+            mColumns = columns;
+        }
+        mSize++;
+    }
+
+    /**
+     * Adds all of the given updates, each after every cached update of the same day.
+     *
+     * @param updates the updates to cache
+     */
+    public void addAll(List<Update> updates) {
+        merge(mSize, mSize, sortByDate(updates));
+    }
+
+    /**
+     * Replaces the cached updates of the given day with the given updates.
+     *
+     * @param date the day being replaced, as days since the epoch
+     * @param updates every update of that day
+     */
+    public void replaceDate(long date, List<Update> updates) {
+        merge(search(date, false), search(date, true), sortByDate(updates));
+    }
+
+    /**
+     * Replaces every cached update with the given updates.
+     *
+     * @param updates the updates to cache
+     */
+    public void replaceAll(List<Update> updates) {
+        mColumns = new Columns(Math.max(mInitialCapacity, updates.size()));
+        mSize = 0;
+        addAll(updates);
+    }
+
+    /**
+     * Removes the cached updates of the given day.
+     *
+     * @param date the day being removed, as days since the epoch
+     */
+    public void removeDate(long date) {
+        merge(search(date, false), search(date, true), Collections.<Update>emptyList());
+    }
+
+    /**
+     * Removes every cached update.
+     */
+    public void clear() {
+        mColumns = new Columns(mInitialCapacity);
+        mSize = 0;
+    }
+
+    /**
+     * Returns the cached updates of the given day, in the order they were added.
+     *
+     * @param date the day, as days since the epoch
+     * @return updates of the day, empty if there are none
+     */
+    public List<Update> get(long date) {
+        return getRange(date, date);
+    }
+
+    /**
+     * Returns the cached updates of every day in the given range, oldest first, found by binary
+     * search.
+     *
+     * @param start the first day, as days since the epoch
+     * @param end the last day, as days since the epoch
+     * @return updates of the range, empty if there are none
+     */
+    public List<Update> getRange(long start, long end) {
+        return views(search(start, false), search(end, true));
+    }
+
+    /**
+     * Returns every cached update, oldest first.
+     *
+     * @return cached updates
+     */
+    public List<Update> getAll() {
+        return views(0, mSize);
+    }
+
+    /**
+     * Returns the number of cached updates.
+     *
+     * @return size
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns whether there are no cached updates.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns the number of updates the columns hold before they grow.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return mColumns.capacity();
+    }
+
+    /**
+     * Finds the position of the given day in the sorted date column.
+     *
+     * @param date the day searched for
+     * @param after true for the index after the last update of the day, false for the index of
+     *              the first
+     * @return index of the day
+     */
+    private int search(long date, boolean after) {
+        long[] dates = mColumns.mDates;
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] < date || (after && dates[mid] == date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces the cached updates between the given indexes with the given updates, merged in by
+     * date after the cached updates of the same day. Appends are made in place if they fit, while
+     * anything else is written to new columns.
+     *
+     * @param from the first index removed
+     * @param to the index after the last removed
+     * @param sorted the updates added, sorted by date
+     */
+    private void merge(int from, int to, List<Update> sorted) {
+        int count = sorted.size();
+        if (from == to && count == 0) {
+            return;
+        }
+        if (from == mSize && mSize + count <= mColumns.capacity() &&
+                (count == 0 || mSize == 0 ||
+                        mColumns.mDates[mSize - 1] <= sorted.get(0).getDate())) {
+            for (Update update : sorted) {
+                mColumns.set(mSize++, update.getDate(), update.getTime(),
+                        update.getDistance(), update.getUnit());
+            }
+            return;
+        }
+
+        int size = mSize - (to - from) + count;
+        Columns columns = new Columns(grow(size));
+        int read = 0;
+        int added = 0;
+        int write = 0;
+        while (read < mSize || added < count) {
+            if (read == from && from < to) {
+                read = to;
+                continue;
+            }
+            if (added == count ||
+                    (read < mSize && mColumns.mDates[read] <= sorted.get(added).getDate())) {
+                columns.copy(mColumns, read++, write++, 1);
+            } else {
+                Update update = sorted.get(added++);
+                columns.set(write++, update.getDate(), update.getTime(),
+                        update.getDistance(), update.getUnit());
+            }
+        }
+        mColumns = columns;
+        mSize = size;
+    }
+
+    /**
+     * Returns the capacity of new columns holding the given number of updates, doubling the
+     * current capacity when it is too small.
+     *
+     * @param size the number of updates held
+     * @return new capacity
+     */
+    private int grow(int size) {
+        int capacity = mColumns.capacity();
+        return size <= capacity ? capacity : Math.max(size, capacity * 2);
+    }
+
+    /**
+     * Returns views of the updates between the given indexes.
+     *
+     * @param from the first index
+     * @param to the index after the last
+     * @return update views
+     */
+    private List<Update> views(int from, int to) {
+        List<Update> updates = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            updates.add(new View(mColumns, i));
+        }
+        return updates;
+    }
+
+    /**
+     * Returns the given updates sorted by date, keeping the order of updates of the same day.
+     *
+     * @param updates the updates
+     * @return sorted updates
+     */
+    private static List<Update> sortByDate(List<Update> updates) {
+        List<Update> sorted = new ArrayList<>(updates);
+        Collections.sort(sorted, (a, b) -> Long.compare(a.getDate(), b.getDate()));
+        return sorted;
+    }
+
+
+    /**
+     * The columns of cached updates, each indexed by the position of the update.
+     */
+    private static final class Columns {
+        final long[] mDates;
+
+        final long[] mTimes;
+
+        final double[] mDistances;
+
+        final byte[] mUnits;
+
+        Columns(int capacity) {
+            mDates = new long[capacity];
+            mTimes = new long[capacity];
+            mDistances = new double[capacity];
+            mUnits = new byte[capacity];
+        }
+
+        int capacity() {
+            return mDates.length;
+        }
+
+        void set(int index, long date, long time, double distance, Unit unit) {
+            mDates[index] = date;
+            mTimes[index] = time;
+            mDistances[index] = distance;
+            mUnits[index] = (byte) unit.ordinal();
+        }
+
+        void copy(Columns source, int sourceIndex, int index, int length) {
+            System.arraycopy(source.mDates, sourceIndex, mDates, index, length);
+            System.arraycopy(source.mTimes, sourceIndex, mTimes, index, length);
+            System.arraycopy(source.mDistances, sourceIndex, mDistances, index, length);
+            System.arraycopy(source.mUnits, sourceIndex, mUnits, index, length);
+        }
+    }
+
+    /**
+     * A flyweight update reading its values from the columns it was found in, so handing out an
+     * update copies none of them.
+     */
+    private static final class View extends Update {
+        private final Columns mColumns;
+
+        private final int mIndex;
+
+        View(Columns columns, int index) {
+            super(0, 0, 0, null);
+            mColumns = columns;
+            mIndex = index;
+        }
+
+        @Override
+        public long getDate() {
+            return mColumns.mDates[mIndex];
+        }
+
+        @Override
+        public long getTime() {
+            return mColumns.mTimes[mIndex];
+        }
+
+        @Override
+        public double getDistance() {
+            return mColumns.mDistances[mIndex];
+        }
+
+        @Override
+        public Unit getUnit() {
+            return UNITS[mColumns.mUnits[mIndex]];
+        }
+    }
+}
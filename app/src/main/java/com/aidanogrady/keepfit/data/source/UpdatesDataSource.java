@@ -52,6 +52,15 @@ public interface UpdatesDataSource extends DataSource {
      */
     void insertUpdate(Update update);
 
+    /**
+     * Inserts all of the given updates into the database in a single transaction. As updates
+     * imported in bulk are written without the history of their days, the total metres and update
+     * count of each day's history are set again from all of its updates in the same transaction.
+     *
+     * @param updates the updates to be added
+     */
+    void insertUpdates(List<Update> updates);
+
     /**
      * Removes all updates from the data source.
      */
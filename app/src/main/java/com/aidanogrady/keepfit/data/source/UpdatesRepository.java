@@ -3,20 +3,35 @@ package com.aidanogrady.keepfit.data.source;
 import android.content.Context;
 
 import com.aidanogrady.keepfit.data.model.Update;
-import com.aidanogrady.keepfit.data.source.local.UpdatesLocalDataSource;
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
+import com.aidanogrady.keepfit.metrics.Counter;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.util.AppExecutors;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Concrete implementation to load updates from a data source and store them in a cache.
+ * Concrete implementation to load updates from a data source and store them in a cache. The data
+ * source is accessed on the disk executor and callbacks are delivered on the main thread, while
+ * the cache is only touched on the main thread. Writes go through the shared unit of work, and
+ * what was cached for a write is forgotten if the unit of work drops it.
  *
  * @author Aidan O'Grady
  * @since 0.2.3
  */
 public class UpdatesRepository implements UpdatesDataSource {
+    /**
+     * Counts the reads answered from the cache.
+     */
+    private static final Counter CACHE_HITS = Metrics.counter("UpdatesRepository.cacheHits");
+
+    /**
+     * Counts the reads that went to the local data source.
+     */
+    private static final Counter CACHE_MISSES = Metrics.counter("UpdatesRepository.cacheMisses");
+
     /**
      * Singleton instance of the Updates repository.
      */
@@ -25,61 +40,118 @@ public class UpdatesRepository implements UpdatesDataSource {
     /**
      * The local data source.
      */
-    private UpdatesLocalDataSource mUpdatesLocalDataSource;
+    private UpdatesDataSource mUpdatesLocalDataSource;
+
+    /**
+     * The executors the data source is accessed through.
+     */
+    private AppExecutors mAppExecutors;
 
     /**
-     * Cache of Updates obtained from the database.
+     * The unit of work writes are committed through.
      */
-    private Multimap<Long, Update> mCachedUpdates;
+    private UnitOfWork mUnitOfWork;
 
     /**
-     * Flag for indicating cache is invalid, to force updates next time data is requested.
+     * Cache of Updates obtained from the database, stored by column.
      */
-    private boolean mCacheIsDirty = false;
+    private final UpdatesCache mCachedUpdates = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+
+    /**
+     * The dates whose updates have all been loaded into the cache.
+     */
+    private Set<Long> mCachedDates = new HashSet<>();
+
+    /**
+     * Whether the cache holds every update, so it can answer for all updates and every date.
+     */
+    private boolean mCacheIsComplete = false;
 
 
     /**
      * Constructs a new UpdatesRepository.
      *
-     * @param context the context creating the repository.
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
      */
-    private UpdatesRepository(Context context) {
-        mUpdatesLocalDataSource = UpdatesLocalDataSource.getInstance(context);
+    private UpdatesRepository(UpdatesDataSource localDataSource, AppExecutors appExecutors,
+                              UnitOfWork unitOfWork) {
+        mUpdatesLocalDataSource = new TimedUpdatesDataSource(localDataSource);
+        mAppExecutors = appExecutors;
+        mUnitOfWork = unitOfWork;
     }
 
 
     /**
-     * Returns the singleton instance of the UpdatesRepository.
+     * Returns the singleton instance of the UpdatesRepository, reading and writing through the
+     * installed storage engine.
      *
      * @param context the context the repository is being loaded in.
      * @return singleton instance
      */
     public static UpdatesRepository getInstance(Context context) {
+        return getInstance(StorageEngines.getInstance(context), AppExecutors.getInstance(),
+                UnitOfWork.getInstance(context));
+    }
+
+    /**
+     * Returns the singleton instance of the UpdatesRepository, creating it with the given data
+     * source, executors and unit of work if it does not yet exist.
+     *
+     * @param localDataSource the local data source
+     * @param appExecutors the executors to access the data source through
+     * @param unitOfWork the unit of work writes are committed through
+     * @return singleton instance
+     */
+    public static UpdatesRepository getInstance(UpdatesDataSource localDataSource,
+                                                AppExecutors appExecutors, UnitOfWork unitOfWork) {
         if (sInstance == null) {
-            sInstance = new UpdatesRepository(context);
+            sInstance = new UpdatesRepository(localDataSource, appExecutors, unitOfWork);
         }
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    public static void destroyInstance() {
+        sInstance = null;
+    }
+
 
     @Override
     public void getUpdates(final LoadUpdatesCallback callback) {
-        if (mCachedUpdates != null && !mCacheIsDirty) {
-            callback.onUpdatesLoaded(new ArrayList<>(mCachedUpdates.values()));
+        if (mCacheIsComplete) {
+            CACHE_HITS.increment();
+            if (mCachedUpdates.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                callback.onUpdatesLoaded(mCachedUpdates.getAll());
+            }
             return;
         }
 
-        mUpdatesLocalDataSource.getUpdates(new LoadUpdatesCallback() {
-            @Override
-            public void onUpdatesLoaded(List<Update> updates) {
-                refreshCache(updates);
-                callback.onUpdatesLoaded(new ArrayList<>(mCachedUpdates.values()));
-            }
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mUpdatesLocalDataSource.getUpdates(new LoadUpdatesCallback() {
+                @Override
+                public void onUpdatesLoaded(List<Update> updates) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        refreshCache(updates);
+                        callback.onUpdatesLoaded(mCachedUpdates.getAll());
+                    });
+                }
 
-            @Override
-            public void onDataNotAvailable() {
-                callback.onDataNotAvailable();
-            }
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(() -> {
+                        refreshCache(new ArrayList<>());
+                        callback.onDataNotAvailable();
+                    });
+                }
+            });
         });
     }
 
@@ -87,43 +159,104 @@ public class UpdatesRepository implements UpdatesDataSource {
     public void getUpdatesForDate(final long date, final LoadUpdatesCallback callback) {
         List<Update> updates = getUpdatesWithDate(date);
         if (updates != null) {
-            callback.onUpdatesLoaded(updates);
+            CACHE_HITS.increment();
+            if (updates.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                callback.onUpdatesLoaded(updates);
+            }
             return;
         }
 
-        mUpdatesLocalDataSource.getUpdatesForDate(date, new LoadUpdatesCallback() {
-            @Override
-            public void onUpdatesLoaded(List<Update> updates) {
-                if (mCachedUpdates == null) {
-                    mCachedUpdates = LinkedHashMultimap.create();
+        CACHE_MISSES.increment();
+        mAppExecutors.diskIO().execute(() -> {
+            mUnitOfWork.flush();
+            mUpdatesLocalDataSource.getUpdatesForDate(date, new LoadUpdatesCallback() {
+                @Override
+                public void onUpdatesLoaded(List<Update> updates) {
+                    mAppExecutors.mainThread().execute(() -> {
+                        cacheDate(date, updates);
+                        callback.onUpdatesLoaded(updates);
+                    });
                 }
-                mCachedUpdates.putAll(date, updates);
-                callback.onUpdatesLoaded(updates);
-            }
 
-            @Override
-            public void onDataNotAvailable() {
-                callback.onDataNotAvailable();
-            }
+                @Override
+                public void onDataNotAvailable() {
+                    mAppExecutors.mainThread().execute(() -> {
+                        cacheDate(date, new ArrayList<>());
+                        callback.onDataNotAvailable();
+                    });
+                }
+            });
         });
     }
 
     @Override
     public void insertUpdate(Update update) {
-        mUpdatesLocalDataSource.insertUpdate(update);
-        if (mCachedUpdates == null) {
-            mCachedUpdates = LinkedHashMultimap.create();
-        }
-        mCachedUpdates.put(update.getDate(), update);
+        mCachedUpdates.add(update);
+        mUnitOfWork.enqueue(() -> mUpdatesLocalDataSource.insertUpdate(update),
+                () -> invalidateUpdates(update.getDate()));
+    }
+
+    /**
+     * Inserts the given updates in a single write. The data source sets the totals of the history
+     * of their days in the same transaction, but history the HistoryRepository has cached is left
+     * as it is, so importers should invalidate the history of the days imported.
+     *
+     * @param updates the updates to be added
+     */
+    @Override
+    public void insertUpdates(List<Update> updates) {
+        List<Update> copy = new ArrayList<>(updates);
+        mCachedUpdates.addAll(copy);
+        mUnitOfWork.enqueue(() -> mUpdatesLocalDataSource.insertUpdates(copy), () -> {
+            for (Update update : copy) {
+                invalidateUpdates(update.getDate());
+            }
+        });
     }
 
     @Override
     public void deleteAllUpdates() {
-        mUpdatesLocalDataSource.deleteAllUpdates();
-        if (mCachedUpdates == null) {
-            mCachedUpdates = LinkedHashMultimap.create();
-        }
         mCachedUpdates.clear();
+        mCachedDates.clear();
+        mCacheIsComplete = true;
+        mUnitOfWork.enqueue(mUpdatesLocalDataSource::deleteAllUpdates, () -> {
+            mCachedUpdates.clear();
+            mCachedDates.clear();
+            mCacheIsComplete = false;
+        });
+    }
+
+    /**
+     * Invalidates the cached updates of the given date, so they are read again next time.
+     *
+     * @param date the date being invalidated
+     */
+    public void invalidateUpdates(long date) {
+        mCachedUpdates.removeDate(date);
+        mCachedDates.remove(date);
+        mCacheIsComplete = false;
+    }
+
+    /**
+     * Returns the cache updates are kept in, for inspecting its size.
+     *
+     * @return updates cache
+     */
+    public UpdatesCache getCache() {
+        return mCachedUpdates;
+    }
+
+    /**
+     * Caches the updates of a single date, replacing any updates of that date already cached.
+     *
+     * @param date the date of the updates
+     * @param updates every update of that date
+     */
+    private void cacheDate(long date, List<Update> updates) {
+        mCachedUpdates.replaceDate(date, updates);
+        mCachedDates.add(date);
     }
 
     /**
@@ -132,29 +265,22 @@ public class UpdatesRepository implements UpdatesDataSource {
      * @param updates the updates to refresh cache with.
      */
     private void refreshCache(List<Update> updates) {
-        if (mCachedUpdates == null) {
-            mCachedUpdates = LinkedHashMultimap.create();
-        }
-        mCachedUpdates.clear();
-
-        for (Update update : updates) {
-            mCachedUpdates.put(update.getDate(), update);
-        }
+        mCachedUpdates.replaceAll(updates);
+        mCachedDates.clear();
+        mCacheIsComplete = true;
     }
 
     /**
-     * Returns the update with the given date from the cache.
+     * Returns the updates with the given date from the cache.
      *
      * @param date the being searched for
-     * @return update if it is found in cache, otherwise null
+     * @return updates if the date is cached, otherwise null
      */
     private List<Update> getUpdatesWithDate(long date) {
-        if (mCachedUpdates == null || mCachedUpdates.isEmpty()) {
+        if (!(mCacheIsComplete || mCachedDates.contains(date))) {
             return null;
         } else {
-            List<Update> updates = new ArrayList<>();
-            updates.addAll(mCachedUpdates.get(date));
-            return updates;
+            return mCachedUpdates.get(date);
         }
     }
 }
@@ -0,0 +1,210 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteTransactionListener;
+
+import com.aidanogrady.keepfit.data.source.TransactionRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The DbConnectionManager holds the single connection to the local database that is shared by all
+ * local data sources for the lifetime of the process. Data sources must not close the database
+ * they are given. Work can be grouped into a single transaction on the shared connection, and
+ * work outside the database, such as appending to the update journal, can be put off until that
+ * transaction commits.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class DbConnectionManager implements TransactionRunner {
+    /**
+     * The singleton instance of the connection manager.
+     */
+    private static DbConnectionManager sInstance;
+
+    /**
+     * The db helper.
+     */
+    private final KeepFitDbHelper mDbHelper;
+
+    /**
+     * The open connection, or null if none has been opened yet.
+     */
+    private SQLiteDatabase mDatabase;
+
+    /**
+     * The work to run once the outermost transaction begun by runInTransaction on each thread
+     * commits, null on threads without one.
+     */
+    private final ThreadLocal<List<Runnable>> mAfterCommit = new ThreadLocal<>();
+
+    /**
+     * The number of times a connection has been opened.
+     */
+    private int mOpenCount;
+
+    /**
+     * The number of times a connection has been closed.
+     */
+    private int mCloseCount;
+
+
+    /**
+     * Constructs a new DbConnectionManager. The constructor is private to ensure singleton is
+     * used.
+     *
+     * @param context the context the manager is being created in
+     */
+    private DbConnectionManager(Context context) {
+        mDbHelper = KeepFitDbHelper.getInstance(context);
+    }
+
+
+    /**
+     * Returns the singleton instance of the DbConnectionManager.
+     *
+     * @param context the context the manager is being requested in
+     * @return the singleton instance
+     */
+    public static synchronized DbConnectionManager getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DbConnectionManager(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Closes the shared connection and destroys the singleton instance and its db helper, so the
+     * next call to getInstance opens the database again.
+     */
+    public static synchronized void destroyInstance() {
+        if (sInstance != null) {
+            sInstance.close();
+            sInstance = null;
+        }
+        KeepFitDbHelper.destroyInstance();
+    }
+
+    /**
+     * Returns the shared connection, opening it if required. The connection is writable and uses
+     * write-ahead logging, so reads from other threads are not blocked by writes.
+     *
+     * @return the shared connection
+     */
+    synchronized SQLiteDatabase getDatabase() {
+        if (mDatabase == null || !mDatabase.isOpen()) {
+            mDatabase = mDbHelper.getWritableDatabase();
+            mOpenCount++;
+        }
+        return mDatabase;
+    }
+
+    @Override
+    public void runInTransaction(Runnable work) {
+        SQLiteDatabase db = getDatabase();
+        if (mAfterCommit.get() != null) {
+            // Nested, so the work is only kept if the outermost transaction commits
+            db.beginTransaction();
+            try {
+                work.run();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return;
+        }
+
+        List<Runnable> afterCommit = new ArrayList<>();
+        CommitListener listener = new CommitListener();
+        mAfterCommit.set(afterCommit);
+        try {
+            db.beginTransactionWithListener(listener);
+            try {
+                work.run();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            mAfterCommit.remove();
+        }
+        // A nested transaction that failed rolls this one back without throwing
+        if (listener.mCommitted) {
+            for (Runnable action : afterCommit) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Runs the given work once the transaction open on this thread through runInTransaction
+     * commits, in the order given, or never if it is rolled back. The work is run straight away if
+     * no such transaction is open.
+     *
+     * @param action the work to run after the commit
+     */
+    void runAfterCommit(Runnable action) {
+        List<Runnable> afterCommit = mAfterCommit.get();
+        if (afterCommit != null) {
+            afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Closes the shared connection if it is open. The next request reopens it.
+     */
+    public synchronized void close() {
+        if (mDatabase != null && mDatabase.isOpen()) {
+            mDbHelper.close();
+            mCloseCount++;
+        }
+        mDatabase = null;
+    }
+
+    /**
+     * Returns the number of times a connection has been opened.
+     *
+     * @return open count
+     */
+    public synchronized int getOpenCount() {
+        return mOpenCount;
+    }
+
+    /**
+     * Returns the number of times a connection has been closed.
+     *
+     * @return close count
+     */
+    public synchronized int getCloseCount() {
+        return mCloseCount;
+    }
+
+
+    /**
+     * Records whether the outermost transaction is about to commit rather than roll back.
+     */
+    private static final class CommitListener implements SQLiteTransactionListener {
+        /**
+         * Whether the transaction was committed.
+         */
+        boolean mCommitted;
+
+        @Override
+        public void onBegin() {
+        }
+
+        @Override
+        public void onCommit() {
+            mCommitted = true;
+        }
+
+        @Override
+        public void onRollback() {
+        }
+    }
+}
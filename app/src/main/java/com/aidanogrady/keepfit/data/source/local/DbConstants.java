@@ -36,4 +36,9 @@ class DbConstants {
      * String denoting that th column is unique.
      */
     static final String UNIQUE = " UNIQUE";
+
+    /**
+     * String denoting that the column is never null and starts at zero.
+     */
+    static final String DEFAULT_ZERO = " NOT NULL DEFAULT 0";
 }
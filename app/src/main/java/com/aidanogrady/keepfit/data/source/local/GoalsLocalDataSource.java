@@ -26,9 +26,38 @@ public class GoalsLocalDataSource implements GoalsDataSource {
     private static GoalsLocalDataSource sInstance;
 
     /**
-     * The db helper.
+     * Selection of the goal with a given ID.
      */
-    private KeepFitDbHelper mDbHelper;
+    static final String SELECTION_ID = GoalEntry.COLUMN_NAME_ID + " = ?";
+
+    /**
+     * Selection of the goal with a given ID that has not been deleted.
+     */
+    static final String SELECTION_ID_NOT_DELETED =
+            SELECTION_ID + " AND " + GoalEntry.COLUMN_NAME_DELETED + " = 0";
+
+    /**
+     * Selection of all goals that have not been deleted.
+     */
+    static final String SELECTION_NOT_DELETED = GoalEntry.COLUMN_NAME_DELETED + " = 0";
+
+    /**
+     * The columns of a goal, as read by readGoal.
+     */
+    static final String[] COLUMNS = {
+            GoalEntry.COLUMN_NAME_ID,
+            GoalEntry.COLUMN_NAME_NAME,
+            GoalEntry.COLUMN_NAME_DISTANCE,
+            GoalEntry.COLUMN_NAME_UNIT,
+            GoalEntry.COLUMN_NAME_LAST_ACHIEVED,
+            GoalEntry.COLUMN_NAME_CURRENT_STREAK,
+            GoalEntry.COLUMN_NAME_LONGEST_STREAK
+    };
+
+    /**
+     * The shared connection manager.
+     */
+    private DbConnectionManager mConnectionManager;
 
     /**
      * The units enum.
@@ -43,7 +72,7 @@ public class GoalsLocalDataSource implements GoalsDataSource {
      * @param context the context the source is being created in
      */
     private GoalsLocalDataSource(Context context) {
-        mDbHelper = KeepFitDbHelper.getInstance(context);
+        mConnectionManager = DbConnectionManager.getInstance(context);
         mUnits = Unit.values();
     }
 
@@ -61,40 +90,31 @@ public class GoalsLocalDataSource implements GoalsDataSource {
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    public static void destroyInstance() {
+        sInstance = null;
+    }
+
     @Override
     public void getGoals(LoadGoalsCallback callback) {
         List<Goal> goals = new ArrayList<>();
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
-
-        String[] projection = {
-                GoalEntry.COLUMN_NAME_ID,
-                GoalEntry.COLUMN_NAME_NAME,
-                GoalEntry.COLUMN_NAME_DISTANCE,
-                GoalEntry.COLUMN_NAME_UNIT,
-                GoalEntry.COLUMN_NAME_LAST_ACHIEVED,
-                GoalEntry.COLUMN_NAME_DELETED
-        };
-
-        String selection = GoalEntry.COLUMN_NAME_DELETED + " = 0";
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+
+        String selection = SELECTION_NOT_DELETED;
         String orderBy = GoalEntry.COLUMN_NAME_NAME + " ASC";
 
-        Cursor c = db.query(GoalEntry.TABLE_NAME, projection, selection, null, null, null, orderBy);
+        Cursor c = db.query(GoalEntry.TABLE_NAME, COLUMNS, selection, null, null, null, orderBy);
         if (c != null && c.getCount() > 0) {
             while (c.moveToNext()) {
-                String goalId = c.getString(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_ID));
-                String name = c.getString(c.getColumnIndex(GoalEntry.COLUMN_NAME_NAME));
-                double dist = c.getDouble(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_DISTANCE));
-                Unit unit = mUnits[c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_UNIT))];
-                int last = c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_LAST_ACHIEVED));
-                Goal goal = new Goal(goalId, name, dist, unit, last);
-                goals.add(goal);
+                goals.add(readGoal(c, mUnits));
             }
         }
 
         if (c != null) {
             c.close();
         }
-        db.close();
 
         if (goals.isEmpty()) {
             callback.onDataNotAvailable();
@@ -106,39 +126,21 @@ public class GoalsLocalDataSource implements GoalsDataSource {
 
     @Override
     public void getGoal(String id, boolean deleted, GetGoalCallback callback) {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
-
-        String[] projection = {
-                GoalEntry.COLUMN_NAME_ID,
-                GoalEntry.COLUMN_NAME_NAME,
-                GoalEntry.COLUMN_NAME_DISTANCE,
-                GoalEntry.COLUMN_NAME_UNIT,
-                GoalEntry.COLUMN_NAME_LAST_ACHIEVED
-        };
-
-        String selection = null;
-        String[] args = null;
-        if (deleted) {
-            selection = GoalEntry.COLUMN_NAME_ID + " LIKE ?";
-            args = new String[] {id};
-        }
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
-        Cursor c = db.query(GoalEntry.TABLE_NAME, projection, selection, args, null, null, null);
+        String selection = deleted ? SELECTION_ID : SELECTION_ID_NOT_DELETED;
+        String[] args = { id };
+
+        Cursor c = db.query(GoalEntry.TABLE_NAME, COLUMNS, selection, args, null, null, null);
         Goal goal = null;
         if (c != null && c.getCount() > 0) {
             c.moveToFirst();
-            String goalId = c.getString(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_ID));
-            String name = c.getString(c.getColumnIndex(GoalEntry.COLUMN_NAME_NAME));
-            int distance = c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_DISTANCE));
-            Unit unit = mUnits[c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_UNIT))];
-            int last = c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_LAST_ACHIEVED));
-            goal = new Goal(goalId, name, distance, unit, last);
+            goal = readGoal(c, mUnits);
         }
 
         if (c != null) {
             c.close();
         }
-        db.close();
 
         if (goal == null) {
             callback.onDataNotAvailable();
@@ -150,7 +152,7 @@ public class GoalsLocalDataSource implements GoalsDataSource {
 
     @Override
     public void insertGoal(Goal goal) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
         ContentValues values = new ContentValues();
         values.put(GoalEntry.COLUMN_NAME_ID, goal.getId());
@@ -158,24 +160,27 @@ public class GoalsLocalDataSource implements GoalsDataSource {
         values.put(GoalEntry.COLUMN_NAME_DISTANCE, goal.getDistance());
         values.put(GoalEntry.COLUMN_NAME_UNIT, goal.getUnit().ordinal());
         values.put(GoalEntry.COLUMN_NAME_LAST_ACHIEVED, goal.getLastAchieved());
+        values.put(GoalEntry.COLUMN_NAME_CURRENT_STREAK, goal.getStreak().getCurrent());
+        values.put(GoalEntry.COLUMN_NAME_LONGEST_STREAK, goal.getStreak().getLongest());
         values.put(GoalEntry.COLUMN_NAME_DELETED, "0");
 
         db.insertOrThrow(GoalEntry.TABLE_NAME, null, values);
-        db.close();
     }
 
     @Override
     public void updateGoal(Goal goal, String oldId) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
         ContentValues values = new ContentValues();
         values.put(GoalEntry.COLUMN_NAME_NAME, goal.getName());
         values.put(GoalEntry.COLUMN_NAME_DISTANCE, goal.getDistance());
         values.put(GoalEntry.COLUMN_NAME_UNIT, goal.getUnit().ordinal());
         values.put(GoalEntry.COLUMN_NAME_LAST_ACHIEVED, goal.getLastAchieved());
+        values.put(GoalEntry.COLUMN_NAME_CURRENT_STREAK, goal.getStreak().getCurrent());
+        values.put(GoalEntry.COLUMN_NAME_LONGEST_STREAK, goal.getStreak().getLongest());
         values.put(GoalEntry.COLUMN_NAME_DELETED, "0");
 
-        String where = GoalEntry.COLUMN_NAME_ID + " LIKE ?";
+        String where = SELECTION_ID;
         String[] whereArgs = { oldId };
         db.update(GoalEntry.TABLE_NAME, values, where, whereArgs);
     }
@@ -187,20 +192,37 @@ public class GoalsLocalDataSource implements GoalsDataSource {
 
     @Override
     public void deleteAllGoals() {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
         db.delete(GoalEntry.TABLE_NAME, null, null);
-        db.close();
     }
 
     @Override
     public void deleteGoal(String id) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
         ContentValues values = new ContentValues();
         values.put(GoalEntry.COLUMN_NAME_DELETED, "1");
 
-        String where = GoalEntry.COLUMN_NAME_ID + " LIKE ?";
+        String where = SELECTION_ID;
         String[] whereArgs = { id };
         db.update(GoalEntry.TABLE_NAME, values, where, whereArgs);
     }
+
+    /**
+     * Reads the goal at the current position of the given cursor, which must project COLUMNS.
+     *
+     * @param c the cursor positioned on a goal
+     * @param units the units by ordinal
+     * @return goal
+     */
+    static Goal readGoal(Cursor c, Unit[] units) {
+        String goalId = c.getString(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_ID));
+        String name = c.getString(c.getColumnIndex(GoalEntry.COLUMN_NAME_NAME));
+        double dist = c.getDouble(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_DISTANCE));
+        Unit unit = units[c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_UNIT))];
+        long last = c.getLong(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_LAST_ACHIEVED));
+        int current = c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_CURRENT_STREAK));
+        int longest = c.getInt(c.getColumnIndexOrThrow(GoalEntry.COLUMN_NAME_LONGEST_STREAK));
+        return new Goal(goalId, name, dist, unit, last, current, longest);
+    }
 }
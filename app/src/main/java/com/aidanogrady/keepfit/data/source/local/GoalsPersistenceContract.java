@@ -22,7 +22,10 @@ class GoalsPersistenceContract {
         static final String COLUMN_NAME_DISTANCE = "distance";
         static final String COLUMN_NAME_UNIT = "unit";
         static final String COLUMN_NAME_LAST_ACHIEVED = "last_achieved";
+        static final String COLUMN_NAME_CURRENT_STREAK = "current_streak";
+        static final String COLUMN_NAME_LONGEST_STREAK = "longest_streak";
         static final String COLUMN_NAME_DELETED = "deleted";
+        static final String INDEX_NAME_DELETED_NAME = "goal_deleted_name_idx";
     }
 
 
@@ -45,9 +48,29 @@ class GoalsPersistenceContract {
                 DbConstants.SEP +
                 GoalEntry.COLUMN_NAME_LAST_ACHIEVED + DbConstants.INTEGER_TYPE +
                 DbConstants.SEP +
+                GoalEntry.COLUMN_NAME_CURRENT_STREAK + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                GoalEntry.COLUMN_NAME_LONGEST_STREAK + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
                 GoalEntry.COLUMN_NAME_DELETED + DbConstants.INTEGER_TYPE + " )";
     }
 
+    /**
+     * Returns the string that forms the creation of the index on goals that have not been deleted,
+     * ordered by name. The uuid column needs no index of its own as it is unique.
+     *
+     * @return create deleted and name index statement
+     */
+    static String getCreateDeletedNameIndex() {
+        return "CREATE INDEX IF NOT EXISTS " + GoalEntry.INDEX_NAME_DELETED_NAME + " ON " +
+                GoalEntry.TABLE_NAME + " (" +
+                GoalEntry.COLUMN_NAME_DELETED +
+                DbConstants.SEP +
+                GoalEntry.COLUMN_NAME_NAME + " )";
+    }
+
     /**
      * Returns the string that forms the drop table statement for the Goal table.
      *
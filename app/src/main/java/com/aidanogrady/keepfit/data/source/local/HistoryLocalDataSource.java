@@ -4,20 +4,36 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
 
 import com.aidanogrady.keepfit.data.model.Goal;
 import com.aidanogrady.keepfit.data.model.History;
-import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.model.Streak;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
 import com.aidanogrady.keepfit.data.source.GoalsDataSource;
 import com.aidanogrady.keepfit.data.source.HistoryDataSource;
-import com.aidanogrady.keepfit.data.source.UpdatesDataSource;
+import com.aidanogrady.keepfit.data.source.local.GoalsPersistenceContract.GoalEntry;
 import com.aidanogrady.keepfit.data.source.local.HistoryPersistenceContract.HistoryEntry;
+import com.aidanogrady.keepfit.data.source.local.StreakPersistenceContract.StreakEntry;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Concrete implementation of the HistoryDataSource as a local SQLite Database.
+ * Concrete implementation of the HistoryDataSource as a local SQLite Database. History is loaded
+ * as summaries without reading the updates table; the repository resolves the updates of a day
+ * when they are first needed. The weekly and monthly rollups of a day are recomputed in the same
+ * transaction as every write of that day, while streaks are extended as goals are achieved.
  *
  * @author Aidan O'Grady
  * @since 0.2.2
@@ -28,20 +44,33 @@ public class HistoryLocalDataSource implements HistoryDataSource {
      */
     private static HistoryLocalDataSource sInstance;
 
+    /**
+     * Selection of the history with a given date.
+     */
+    static final String SELECTION_DATE = HistoryEntry.COLUMN_NAME_DATE + " = ?";
+
+    /**
+     * The percentage of goal completion of a history row joined with its goal, -1 if it has no
+     * goal as in History.getPercentage.
+     */
+    static final String PERCENTAGE = "(CASE WHEN g." + GoalEntry.COLUMN_NAME_ID +
+            " IS NULL THEN -1 ELSE h." + HistoryEntry.COLUMN_NAME_DISTANCE + " * 100.0 / g." +
+            GoalEntry.COLUMN_NAME_DISTANCE + " END)";
+
     /**
      * The data source for goals.
      */
     private GoalsDataSource mGoalsDataSource;
 
     /**
-     * The data source for updates, used to retrieve updates of a given day.
+     * The shared connection manager.
      */
-    private UpdatesDataSource mUpdatesDataSource;
+    private DbConnectionManager mConnectionManager;
 
     /**
-     * The db helper.
+     * The units enum.
      */
-    private KeepFitDbHelper mDbHelper;
+    private Unit[] mUnits;
 
 
     /**
@@ -51,9 +80,9 @@ public class HistoryLocalDataSource implements HistoryDataSource {
      * @param context the context the source is being created in
      */
     private HistoryLocalDataSource(Context context) {
-        mDbHelper = KeepFitDbHelper.getInstance(context);
+        mConnectionManager = DbConnectionManager.getInstance(context);
         mGoalsDataSource = GoalsLocalDataSource.getInstance(context);
-        mUpdatesDataSource = UpdatesLocalDataSource.getInstance(context);
+        mUnits = Unit.values();
     }
 
 
@@ -69,37 +98,40 @@ public class HistoryLocalDataSource implements HistoryDataSource {
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    public static void destroyInstance() {
+        sInstance = null;
+    }
+
     @Override
     public void getHistory(LoadHistoryCallback callback) {
-        List<History> histories = new ArrayList<>();
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
-
-        String[] projection = {
-                HistoryEntry.COLUMN_NAME_DATE,
-                HistoryEntry.COLUMN_NAME_GOAL,
-                HistoryEntry.COLUMN_NAME_DISTANCE
-        };
+        List<History> histories = queryHistoryWithGoal(HistoryFilter.ALL, 0);
 
-        String orderBy = HistoryEntry.COLUMN_NAME_DATE + " DESC";
-        Cursor c = db.query(HistoryEntry.TABLE_NAME, projection, null, null, null, null, orderBy);
-        if (c != null && c.getCount() > 0) {
-            while (c.moveToNext()) {
+        if (histories.isEmpty()) {
+            callback.onDataNotAvailable();
+        }
+        else {
+            callback.onHistoryLoaded(histories);
+        }
+    }
 
-                String goalId = c.getString(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_GOAL));
-                int date = c.getInt(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_DATE));
-                int steps = c.getInt(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_DISTANCE));
-                Goal goal = getGoalWithId(goalId);
-                List<Update> updates = getUpdatesWithDate(date);
+    @Override
+    public void getHistory(HistoryFilter filter, LoadHistoryCallback callback) {
+        List<History> histories = queryHistoryWithGoal(filter, 0);
 
-                History history = new History(date, goal, steps, updates);
-                histories.add(history);
-            }
+        if (histories.isEmpty()) {
+            callback.onDataNotAvailable();
         }
-
-        if (c != null) {
-            c.close();
+        else {
+            callback.onHistoryLoaded(histories);
         }
-        db.close();
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, int limit, LoadHistoryCallback callback) {
+        List<History> histories = queryHistoryWithGoal(filter, limit);
 
         if (histories.isEmpty()) {
             callback.onDataNotAvailable();
@@ -111,15 +143,17 @@ public class HistoryLocalDataSource implements HistoryDataSource {
 
     @Override
     public void getHistory(long date, GetHistoryCallback callback) {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
         String[] projection = {
                 HistoryEntry.COLUMN_NAME_DATE,
                 HistoryEntry.COLUMN_NAME_GOAL,
-                HistoryEntry.COLUMN_NAME_DISTANCE
+                HistoryEntry.COLUMN_NAME_DISTANCE,
+                HistoryEntry.COLUMN_NAME_TOTAL_METRES,
+                HistoryEntry.COLUMN_NAME_UPDATE_COUNT
         };
 
-        String selection = HistoryEntry.COLUMN_NAME_DATE + " LIKE ?";
+        String selection = SELECTION_DATE;
         String[] selectionArgs = { String.valueOf(date) };
 
         Cursor c = db.query(
@@ -130,17 +164,17 @@ public class HistoryLocalDataSource implements HistoryDataSource {
             c.moveToFirst();
             String goalId = c.getString(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_GOAL));
             Goal goal = getGoalWithId(goalId);
-            int date_ = c.getInt(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_DATE));
             double dist = c.getDouble(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_DISTANCE));
-            List<Update> updates = getUpdatesWithDate(date_);
+            double metres =
+                    c.getDouble(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_TOTAL_METRES));
+            int count = c.getInt(c.getColumnIndexOrThrow(HistoryEntry.COLUMN_NAME_UPDATE_COUNT));
 
-            history = new History(date, goal, dist, updates);
+            history = History.summary(date, goal, dist, metres, count);
         }
 
         if (c != null) {
             c.close();
         }
-        db.close();
 
         if (history == null) {
             callback.onDataNotAvailable();
@@ -150,16 +184,129 @@ public class HistoryLocalDataSource implements HistoryDataSource {
         }
     }
 
+    @Override
+    public void getRollup(Period period, long date, GetRollupCallback callback) {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+
+        long startDate = period.getStartDate(date);
+        String sql = HistoryRollupPersistenceContract.getRollupQuery(period);
+        String[] selectionArgs = { String.valueOf(startDate) };
+        Cursor c = db.rawQuery(sql, selectionArgs);
+
+        HistoryRollup rollup = null;
+        if (c != null) {
+            rollup = readRollup(c, period, startDate);
+            c.close();
+        }
+
+        if (rollup == null) {
+            callback.onDataNotAvailable();
+        }
+        else {
+            callback.onRollupLoaded(rollup);
+        }
+    }
+
+    @Override
+    public void rebuildRollups() {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+
+        db.beginTransaction();
+        try {
+            rebuildRollups(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void getStreak(GetStreakCallback callback) {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        callback.onStreakLoaded(readStreak(db));
+    }
+
+    @Override
+    public void extendStreak(long date) {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+
+        db.beginTransaction();
+        try {
+            Streak streak = readStreak(db);
+            Streak extended = streak.extend(date);
+            if (extended != streak) {
+                writeStreak(db, extended);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void rebuildStreaks() {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+
+        db.beginTransaction();
+        try {
+            rebuildStreaks(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     @Override
     public void insertHistory(History history) {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
         ContentValues values = new ContentValues();
         values.put(HistoryEntry.COLUMN_NAME_DATE, history.getDate());
         values.put(HistoryEntry.COLUMN_NAME_GOAL, history.getGoal().getId());
         values.put(HistoryEntry.COLUMN_NAME_DISTANCE, history.getDistance());
+        values.put(HistoryEntry.COLUMN_NAME_TOTAL_METRES, history.getTotalMetres());
+        values.put(HistoryEntry.COLUMN_NAME_UPDATE_COUNT, history.getUpdateCount());
+
+        db.beginTransaction();
+        try {
+            db.replace(HistoryEntry.TABLE_NAME, null, values);
+            refreshRollups(db, Collections.singletonList(history.getDate()));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
 
-        db.replace(HistoryEntry.TABLE_NAME, null, values);
+    @Override
+    public void insertHistories(List<History> histories) {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        String sql = HistoryPersistenceContract.getInsertStatement();
+        SQLiteStatement statement = db.compileStatement(sql);
+
+        List<Long> dates = new ArrayList<>(histories.size());
+        db.beginTransaction();
+        try {
+            for (History history : histories) {
+                dates.add(history.getDate());
+                statement.clearBindings();
+                statement.bindLong(1, history.getDate());
+                Goal goal = history.getGoal();
+                if (goal != null) {
+                    statement.bindString(2, goal.getId());
+                } else {
+                    statement.bindNull(2);
+                }
+                statement.bindDouble(3, history.getDistance());
+                statement.bindDouble(4, history.getTotalMetres());
+                statement.bindLong(5, history.getUpdateCount());
+                statement.executeInsert();
+            }
+            refreshRollups(db, dates);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
     }
 
     @Override
@@ -169,18 +316,416 @@ public class HistoryLocalDataSource implements HistoryDataSource {
 
     @Override
     public void deleteAllHistory() {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
-        db.delete(HistoryEntry.TABLE_NAME, null, null);
-        db.close();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(HistoryEntry.TABLE_NAME, null, null);
+            for (Period period : Period.values()) {
+                db.delete(HistoryRollupPersistenceContract.getTableName(period), null, null);
+            }
+            db.delete(StreakEntry.TABLE_NAME, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
     }
 
     @Override
     public void deleteHistory(long date) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
-        String selection = HistoryEntry.COLUMN_NAME_DATE + " LIKE ?";
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        String selection = SELECTION_DATE;
         String[] selectionArgs = { String.valueOf(date) };
-        db.delete(HistoryEntry.TABLE_NAME, selection, selectionArgs);
-        db.close();
+
+        db.beginTransaction();
+        try {
+            db.delete(HistoryEntry.TABLE_NAME, selection, selectionArgs);
+            refreshRollups(db, Collections.singletonList(date));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes every rollup and computes them again in a single pass over the history table. Must
+     * be called inside a transaction.
+     *
+     * @param db the database holding the history
+     */
+    static void rebuildRollups(SQLiteDatabase db) {
+        for (Period period : Period.values()) {
+            db.delete(HistoryRollupPersistenceContract.getTableName(period), null, null);
+            db.execSQL(HistoryRollupPersistenceContract.getRebuildStatement(period));
+        }
+    }
+
+    /**
+     * Computes the streak of every goal and of any goal again in a single pass over the days a
+     * goal was achieved, oldest first. Must be called inside a transaction.
+     *
+     * @param db the database holding the history
+     */
+    static void rebuildStreaks(SQLiteDatabase db) {
+        Map<String, Streak> goalStreaks = new HashMap<>();
+        Streak streak;
+        Cursor c = db.rawQuery(StreakPersistenceContract.getAchievedQuery(), null);
+        try {
+            streak = countStreaks(c, goalStreaks);
+        } finally {
+            c.close();
+        }
+
+        db.execSQL(StreakPersistenceContract.getResetGoalsStatement());
+        SQLiteStatement update =
+                db.compileStatement(StreakPersistenceContract.getUpdateGoalStatement());
+        try {
+            for (Map.Entry<String, Streak> entry : goalStreaks.entrySet()) {
+                Streak goalStreak = entry.getValue();
+                update.bindLong(1, goalStreak.getLastDate());
+                update.bindLong(2, goalStreak.getCurrent());
+                update.bindLong(3, goalStreak.getLongest());
+                update.bindString(4, entry.getKey());
+                update.executeUpdateDelete();
+            }
+        } finally {
+            update.close();
+        }
+        writeStreak(db, streak);
+    }
+
+    /**
+     * Reads the streak of any goal, which is a single primary key lookup.
+     *
+     * @param db the database holding the streak
+     * @return streak, or Streak.NONE if no goal was ever achieved
+     */
+    private static Streak readStreak(SQLiteDatabase db) {
+        Streak streak = Streak.NONE;
+        Cursor c = db.rawQuery(StreakPersistenceContract.getStreakQuery(), null);
+        if (c != null) {
+            streak = readStreak(c);
+            c.close();
+        }
+        return streak;
+    }
+
+    /**
+     * Reads the streak of any goal from the given cursor over getStreakQuery.
+     *
+     * @param c the cursor over the streak
+     * @return streak, or Streak.NONE if no goal was ever achieved
+     */
+    static Streak readStreak(Cursor c) {
+        if (c.moveToFirst()) {
+            return new Streak(c.getLong(0), c.getInt(1), c.getInt(2));
+        }
+        return Streak.NONE;
+    }
+
+    /**
+     * Counts the streaks of every goal and of any goal from the given cursor over the days a goal
+     * was achieved, oldest first, as selected by getAchievedQuery.
+     *
+     * @param c the cursor over the days achieved
+     * @param goalStreaks the map the streak of each goal is put in, by goal ID
+     * @return streak of any goal
+     */
+    static Streak countStreaks(Cursor c, Map<String, Streak> goalStreaks) {
+        Streak streak = Streak.NONE;
+        while (c.moveToNext()) {
+            long date = c.getLong(0);
+            String goalId = c.getString(1);
+            Streak goalStreak = goalStreaks.get(goalId);
+            if (goalStreak == null) {
+                goalStreak = Streak.NONE;
+            }
+            goalStreaks.put(goalId, goalStreak.extend(date));
+            streak = streak.extend(date);
+        }
+        return streak;
+    }
+
+    /**
+     * Reads the rollup from the given cursor over getRollupQuery.
+     *
+     * @param c the cursor over the rollup
+     * @param period the period of the rollup
+     * @param startDate the first day of the period
+     * @return rollup, or null if the period has no history
+     */
+    static HistoryRollup readRollup(Cursor c, Period period, long startDate) {
+        if (c.moveToFirst()) {
+            return new HistoryRollup(period, startDate, c.getDouble(0), c.getInt(1), c.getInt(2),
+                    c.getLong(4), c.getDouble(3));
+        }
+        return null;
+    }
+
+    /**
+     * Saves the streak of any goal.
+     *
+     * @param db the database holding the streak
+     * @param streak the streak saved
+     */
+    private static void writeStreak(SQLiteDatabase db, Streak streak) {
+        SQLiteStatement replace =
+                db.compileStatement(StreakPersistenceContract.getReplaceStatement());
+        try {
+            replace.bindLong(1, streak.getLastDate());
+            replace.bindLong(2, streak.getCurrent());
+            replace.bindLong(3, streak.getLongest());
+            replace.execute();
+        } finally {
+            replace.close();
+        }
+    }
+
+    /**
+     * Sets the total metres and update count of the history of each given day from the updates
+     * of that day, then refreshes the rollups of the days. Used when updates are written without
+     * the history of their day, so the totals and rollups never fall behind. Days without history
+     * are left without it. Must be called inside a transaction.
+     *
+     * @param db the database holding the history
+     * @param dates the days updates were written on
+     */
+    static void refreshTotals(SQLiteDatabase db, List<Long> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+        Set<Long> days = new HashSet<>(dates);
+        String[] args = {
+                Long.toString(Collections.min(days)), Long.toString(Collections.max(days))};
+
+        // The updates are summed per date and unit by SQLite over the range of the days written,
+        // so only one row per unit of each day is read back and converted to metres
+        Unit[] units = Unit.values();
+        List<Long> updated = new ArrayList<>();
+        String sql = HistoryPersistenceContract.getUpdateTotalsStatement();
+        SQLiteStatement statement = db.compileStatement(sql);
+        Cursor c = db.rawQuery(UpdatesPersistenceContract.getTotalsQuery(), args);
+        try {
+            long date = 0;
+            double metres = 0;
+            int count = 0;
+            while (c.moveToNext()) {
+                if (count > 0 && c.getLong(0) != date) {
+                    updateTotals(statement, date, metres, count, updated);
+                    metres = 0;
+                    count = 0;
+                }
+                date = c.getLong(0);
+                if (days.contains(date)) {
+                    metres += UnitsConverter.convert(Unit.METRES, units[c.getInt(1)],
+                            c.getDouble(2));
+                    count += c.getInt(3);
+                }
+            }
+            if (count > 0) {
+                updateTotals(statement, date, metres, count, updated);
+            }
+        } finally {
+            c.close();
+            statement.close();
+        }
+        refreshRollups(db, updated);
+    }
+
+    /**
+     * Sets the total metres and update count of a single day, if it has history.
+     *
+     * @param statement the compiled update totals statement
+     * @param date the day being updated
+     * @param metres the total metres of the day
+     * @param count the number of updates of the day
+     * @param updated the days with history updated, which the day is added to
+     */
+    private static void updateTotals(SQLiteStatement statement, long date, double metres,
+                                     int count, List<Long> updated) {
+        statement.clearBindings();
+        statement.bindDouble(1, metres);
+        statement.bindLong(2, count);
+        statement.bindLong(3, date);
+        if (statement.executeUpdateDelete() > 0) {
+            updated.add(date);
+        }
+    }
+
+    /**
+     * Computes the rollups of every period containing one of the given days again from the days
+     * of that period alone, found through the index on the history date, so the cost of a write
+     * is bounded by the length of a month whatever the length of the history. Must be called
+     * inside a transaction.
+     *
+     * @param db the database holding the history
+     * @param dates the days written
+     */
+    private static void refreshRollups(SQLiteDatabase db, List<Long> dates) {
+        for (Period period : Period.values()) {
+            String deleteSql = HistoryRollupPersistenceContract.getDeleteStatement(period);
+            String refreshSql = HistoryRollupPersistenceContract.getRefreshStatement(period);
+            SQLiteStatement delete = db.compileStatement(deleteSql);
+            SQLiteStatement refresh = db.compileStatement(refreshSql);
+            try {
+                Set<Long> refreshed = new HashSet<>();
+                for (long date : dates) {
+                    long startDate = period.getStartDate(date);
+                    if (!refreshed.add(startDate)) {
+                        continue;
+                    }
+                    delete.bindLong(1, startDate);
+                    delete.executeUpdateDelete();
+                    refresh.bindLong(1, startDate);
+                    refresh.bindLong(2, period.getEndDate(date));
+                    refresh.execute();
+                }
+            } finally {
+                delete.close();
+                refresh.close();
+            }
+        }
+    }
+
+    /**
+     * Queries the history matched by the given filter joined with its goal, building each goal
+     * once.
+     *
+     * @param filter the filter history must match
+     * @param limit the maximum number of days, or 0 for no limit
+     * @return matched history summaries, most recent first
+     */
+    private List<History> queryHistoryWithGoal(HistoryFilter filter, int limit) {
+        List<History> histories = new ArrayList<>();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+
+        String sql = getHistoryWithGoalQuery(filter);
+        if (limit > 0) {
+            sql += " LIMIT " + limit;
+        }
+        Cursor c = db.rawQuery(sql, getFilterArgs(filter));
+        if (c != null) {
+            histories = readHistoryWithGoal(c, mUnits);
+            c.close();
+        }
+
+        return histories;
+    }
+
+    /**
+     * Reads every history summary from the given cursor over getHistoryWithGoalQuery, building
+     * each goal once.
+     *
+     * @param c the cursor over history joined with its goal
+     * @param units the units by ordinal
+     * @return history summaries, in the order of the cursor
+     */
+    static List<History> readHistoryWithGoal(Cursor c, Unit[] units) {
+        List<History> histories = new ArrayList<>();
+        Map<String, Goal> goals = new HashMap<>();
+        while (c.moveToNext()) {
+            long date = c.getLong(0);
+            double dist = c.getDouble(1);
+            double metres = c.getDouble(2);
+            int count = c.getInt(3);
+
+            Goal goal = null;
+            String goalId = c.getString(4);
+            if (goalId != null) {
+                goal = goals.get(goalId);
+                if (goal == null) {
+                    String name = c.getString(5);
+                    double goalDist = c.getDouble(6);
+                    Unit unit = units[c.getInt(7)];
+                    long last = c.getLong(8);
+                    int current = c.getInt(9);
+                    int longest = c.getInt(10);
+                    goal = new Goal(goalId, name, goalDist, unit, last, current, longest);
+                    goals.put(goalId, goal);
+                }
+            }
+
+            histories.add(History.summary(date, goal, dist, metres, count));
+        }
+        return histories;
+    }
+
+    /**
+     * Returns the query selecting every history row left joined with its goal, most recent first.
+     * The columns are, in order: date, distance, total metres, update count, goal id, goal name,
+     * goal distance, goal unit, goal last achieved, goal current streak and goal longest streak.
+     *
+     * @return history with goal query
+     */
+    static String getHistoryWithGoalQuery() {
+        return getHistoryWithGoalQuery(HistoryFilter.ALL);
+    }
+
+    /**
+     * Returns the query selecting the history rows matched by the given filter, left joined with
+     * their goal, most recent first. The columns are as getHistoryWithGoalQuery(), and the
+     * arguments are given by getFilterArgs. The dates are matched through the index on the
+     * history date before the percentages are checked.
+     *
+     * @param filter the filter history must match
+     * @return filtered history with goal query
+     */
+    static String getHistoryWithGoalQuery(HistoryFilter filter) {
+        List<String> clauses = new ArrayList<>();
+        if (filter.hasStartDate()) {
+            clauses.add("h." + HistoryEntry.COLUMN_NAME_DATE + " >= ?");
+        }
+        if (filter.hasEndDate()) {
+            clauses.add("h." + HistoryEntry.COLUMN_NAME_DATE + " <= ?");
+        }
+        // Arguments are bound as text, so they are cast to compare with the computed percentage
+        if (filter.hasMinPercentage()) {
+            clauses.add(PERCENTAGE + " >= CAST(? AS REAL)");
+        }
+        if (filter.hasMaxPercentage()) {
+            clauses.add(PERCENTAGE + " <= CAST(? AS REAL)");
+        }
+        String where = clauses.isEmpty() ? "" : " WHERE " + TextUtils.join(" AND ", clauses);
+
+        return "SELECT " +
+                "h." + HistoryEntry.COLUMN_NAME_DATE + DbConstants.SEP +
+                "h." + HistoryEntry.COLUMN_NAME_DISTANCE + DbConstants.SEP +
+                "h." + HistoryEntry.COLUMN_NAME_TOTAL_METRES + DbConstants.SEP +
+                "h." + HistoryEntry.COLUMN_NAME_UPDATE_COUNT + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_ID + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_NAME + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_DISTANCE + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_UNIT + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_LAST_ACHIEVED + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_CURRENT_STREAK + DbConstants.SEP +
+                "g." + GoalEntry.COLUMN_NAME_LONGEST_STREAK +
+                " FROM " + HistoryEntry.TABLE_NAME + " h" +
+                " LEFT JOIN " + GoalEntry.TABLE_NAME + " g" +
+                " ON h." + HistoryEntry.COLUMN_NAME_GOAL + " = g." + GoalEntry.COLUMN_NAME_ID +
+                where +
+                " ORDER BY h." + HistoryEntry.COLUMN_NAME_DATE + " DESC";
+    }
+
+    /**
+     * Returns the arguments of getHistoryWithGoalQuery for the given filter.
+     *
+     * @param filter the filter history must match
+     * @return query arguments
+     */
+    static String[] getFilterArgs(HistoryFilter filter) {
+        List<String> args = new ArrayList<>();
+        if (filter.hasStartDate()) {
+            args.add(String.valueOf(filter.getStartDate()));
+        }
+        if (filter.hasEndDate()) {
+            args.add(String.valueOf(filter.getEndDate()));
+        }
+        if (filter.hasMinPercentage()) {
+            args.add(String.valueOf(filter.getMinPercentage()));
+        }
+        if (filter.hasMaxPercentage()) {
+            args.add(String.valueOf(filter.getMaxPercentage()));
+        }
+        return args.toArray(new String[args.size()]);
     }
 
     /**
@@ -205,26 +750,4 @@ public class HistoryLocalDataSource implements HistoryDataSource {
 
         return goals[0];
     }
-
-    /**
-     * Returns a list of updates from the given date.
-     *
-     * @param date the date being searched for
-     * @return list of updates with that date, empty list if none exist
-     */
-    private List<Update> getUpdatesWithDate(long date) {
-        final List<Update> fUpdates = new ArrayList<>();
-        mUpdatesDataSource.getUpdatesForDate(date, new UpdatesDataSource.LoadUpdatesCallback() {
-            @Override
-            public void onUpdatesLoaded(List<Update> updates) {
-                fUpdates.addAll(updates);
-            }
-
-            @Override
-            public void onDataNotAvailable() {
-                fUpdates.clear();
-            }
-        });
-        return fUpdates;
-    }
 }
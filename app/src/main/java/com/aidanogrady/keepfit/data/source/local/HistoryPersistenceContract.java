@@ -20,6 +20,8 @@ class HistoryPersistenceContract {
         static final String COLUMN_NAME_DATE = "date";
         static final String COLUMN_NAME_GOAL = "goal";
         static final String COLUMN_NAME_DISTANCE = "distance";
+        static final String COLUMN_NAME_TOTAL_METRES = "total_metres";
+        static final String COLUMN_NAME_UPDATE_COUNT = "update_count";
     }
 
 
@@ -36,7 +38,46 @@ class HistoryPersistenceContract {
                 DbConstants.SEP +
                 HistoryEntry.COLUMN_NAME_GOAL + DbConstants.TEXT_TYPE +
                 DbConstants.SEP +
-                HistoryEntry.COLUMN_NAME_DISTANCE + DbConstants.REAL_TYPE + " )";
+                HistoryEntry.COLUMN_NAME_DISTANCE + DbConstants.REAL_TYPE +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_TOTAL_METRES + DbConstants.REAL_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_UPDATE_COUNT + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO + " )";
+    }
+
+    /**
+     * Returns the statement inserting or replacing the history of a single day. The arguments are,
+     * in order, the date, goal, distance, total metres and update count.
+     *
+     * @return insert history statement
+     */
+    static String getInsertStatement() {
+        return "INSERT OR REPLACE INTO " + HistoryEntry.TABLE_NAME + " (" +
+                HistoryEntry.COLUMN_NAME_DATE +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_GOAL +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_DISTANCE +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_TOTAL_METRES +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_UPDATE_COUNT + " ) VALUES (?, ?, ?, ?, ?)";
+    }
+
+    /**
+     * Returns the statement setting the total metres and update count of a single day. The
+     * arguments are, in order, the total metres, update count and date.
+     *
+     * @return update totals statement
+     */
+    static String getUpdateTotalsStatement() {
+        return "UPDATE " + HistoryEntry.TABLE_NAME + " SET " +
+                HistoryEntry.COLUMN_NAME_TOTAL_METRES + " = ?" +
+                DbConstants.SEP +
+                HistoryEntry.COLUMN_NAME_UPDATE_COUNT + " = ? WHERE " +
+                HistoryEntry.COLUMN_NAME_DATE + " = ?";
     }
 
     /**
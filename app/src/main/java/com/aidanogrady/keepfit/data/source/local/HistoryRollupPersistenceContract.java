@@ -0,0 +1,188 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.source.local.GoalsPersistenceContract.GoalEntry;
+import com.aidanogrady.keepfit.data.source.local.HistoryPersistenceContract.HistoryEntry;
+
+/**
+ * The contract used for the db to save the weekly and monthly rollups of history locally. Each
+ * period has its own table keyed by the first day of the period, and the rows are computed from
+ * the history table by the statements given here.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class HistoryRollupPersistenceContract {
+    /**
+     * Private construct to prevent accidental instantiating of the contract class.
+     */
+    private HistoryRollupPersistenceContract() {}
+
+
+    static abstract class RollupEntry {
+        static final String TABLE_NAME_WEEK = "history_week";
+        static final String TABLE_NAME_MONTH = "history_month";
+        static final String COLUMN_NAME_START_DATE = "start_date";
+        static final String COLUMN_NAME_TOTAL_METRES = "total_metres";
+        static final String COLUMN_NAME_DAYS_ACTIVE = "days_active";
+        static final String COLUMN_NAME_DAYS_COMPLETED = "days_completed";
+        static final String COLUMN_NAME_BEST_METRES = "best_metres";
+        static final String COLUMN_NAME_BEST_DATE = "best_date";
+    }
+
+
+    /**
+     * Returns the name of the table holding the rollups of the given period.
+     *
+     * @param period the period
+     * @return table name
+     */
+    static String getTableName(Period period) {
+        return period == Period.WEEK ? RollupEntry.TABLE_NAME_WEEK : RollupEntry.TABLE_NAME_MONTH;
+    }
+
+    /**
+     * Returns the string that forms the creation of the rollup table of the given period. The
+     * start date is the primary key, so a rollup is read straight from the table's b-tree.
+     *
+     * @param period the period
+     * @return create rollup table statement
+     */
+    static String getCreateTable(Period period) {
+        return "CREATE TABLE " + getTableName(period) + " (" +
+                RollupEntry.COLUMN_NAME_START_DATE + DbConstants.INTEGER_TYPE + " PRIMARY KEY" +
+                DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_TOTAL_METRES + DbConstants.REAL_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_DAYS_ACTIVE + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_DAYS_COMPLETED + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_BEST_METRES + DbConstants.REAL_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_BEST_DATE + DbConstants.INTEGER_TYPE + " )";
+    }
+
+    /**
+     * Returns the statement computing the rollups of the given period from history, one row per
+     * period with any history. The best date is the date of the row with the greatest total, as
+     * SQLite takes bare columns from the row chosen by MAX.
+     *
+     * @param period the period
+     * @param where the clause restricting the history rolled up, or an empty string for all
+     * @return insert rollups statement
+     */
+    private static String getInsertSelect(Period period, String where) {
+        String start = period == Period.WEEK ? getWeekStart() : getMonthStart();
+        return "INSERT OR REPLACE INTO " + getTableName(period) + " (" +
+                RollupEntry.COLUMN_NAME_START_DATE + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_TOTAL_METRES + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_DAYS_ACTIVE + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_DAYS_COMPLETED + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_BEST_METRES + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_BEST_DATE + " ) " +
+                "SELECT " + start + " AS period" + DbConstants.SEP +
+                "SUM(h." + HistoryEntry.COLUMN_NAME_TOTAL_METRES + ")" + DbConstants.SEP +
+                "SUM(h." + HistoryEntry.COLUMN_NAME_TOTAL_METRES + " > 0)" + DbConstants.SEP +
+                "SUM(" + HistoryLocalDataSource.PERCENTAGE + " >= 100)" + DbConstants.SEP +
+                "MAX(h." + HistoryEntry.COLUMN_NAME_TOTAL_METRES + ")" + DbConstants.SEP +
+                "h." + HistoryEntry.COLUMN_NAME_DATE +
+                " FROM " + HistoryEntry.TABLE_NAME + " h" +
+                " LEFT JOIN " + GoalEntry.TABLE_NAME + " g" +
+                " ON h." + HistoryEntry.COLUMN_NAME_GOAL + " = g." + GoalEntry.COLUMN_NAME_ID +
+                where +
+                " GROUP BY period";
+    }
+
+    /**
+     * Returns the statement computing every rollup of the given period in a single pass over the
+     * history table.
+     *
+     * @param period the period
+     * @return rebuild rollups statement
+     */
+    static String getRebuildStatement(Period period) {
+        return getInsertSelect(period, "");
+    }
+
+    /**
+     * Returns the statement computing the rollup of a single period from its days of history,
+     * found through the index on the history date. The arguments are, in order, the first and
+     * last day of the period. Nothing is inserted if the period has no history.
+     *
+     * @param period the period
+     * @return refresh rollup statement
+     */
+    static String getRefreshStatement(Period period) {
+        return getInsertSelect(period, " WHERE h." + HistoryEntry.COLUMN_NAME_DATE +
+                " BETWEEN ? AND ?");
+    }
+
+    /**
+     * Returns the statement deleting the rollup of a single period. The argument is the first day
+     * of the period.
+     *
+     * @param period the period
+     * @return delete rollup statement
+     */
+    static String getDeleteStatement(Period period) {
+        return "DELETE FROM " + getTableName(period) + " WHERE " +
+                RollupEntry.COLUMN_NAME_START_DATE + " = ?";
+    }
+
+    /**
+     * Returns the query selecting the rollup of a single period. The argument is the first day of
+     * the period, and the columns are, in order: total metres, days active, days completed, best
+     * metres and best date.
+     *
+     * @param period the period
+     * @return rollup query
+     */
+    static String getRollupQuery(Period period) {
+        return "SELECT " +
+                RollupEntry.COLUMN_NAME_TOTAL_METRES + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_DAYS_ACTIVE + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_DAYS_COMPLETED + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_BEST_METRES + DbConstants.SEP +
+                RollupEntry.COLUMN_NAME_BEST_DATE +
+                " FROM " + getTableName(period) +
+                " WHERE " + RollupEntry.COLUMN_NAME_START_DATE + " = ?";
+    }
+
+    /**
+     * Returns the expression giving the Monday starting the ISO week of a history row, as
+     * HistoryRollup.Period.WEEK computes it.
+     *
+     * @return week start expression
+     */
+    private static String getWeekStart() {
+        String date = "h." + HistoryEntry.COLUMN_NAME_DATE;
+        return "(" + date + " - ((" + date + " + 3) % 7 + 7) % 7)";
+    }
+
+    /**
+     * Returns the expression giving the first day of the month of a history row, as
+     * HistoryRollup.Period.MONTH computes it. Julian day 2440587.5 is the epoch.
+     *
+     * @return month start expression
+     */
+    private static String getMonthStart() {
+        return "CAST(julianday(h." + HistoryEntry.COLUMN_NAME_DATE + " * 86400, 'unixepoch', " +
+                "'start of month') - 2440587.5 AS INTEGER)";
+    }
+
+    /**
+     * Returns the string that forms the drop table statement for the rollup table of the given
+     * period.
+     *
+     * @param period the period
+     * @return drop rollup table statement
+     */
+    static String getDropTable(Period period) {
+        return "DROP TABLE IF EXISTS " + getTableName(period);
+    }
+}
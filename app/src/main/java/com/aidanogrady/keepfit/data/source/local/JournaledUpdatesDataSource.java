@@ -0,0 +1,458 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.source.UpdatesDataSource;
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Concrete implementation of the UpdatesDataSource that appends updates to a memory-mapped
+ * UpdateJournal instead of writing them to the updates table, and compacts the journal into the
+ * table in batches. Reads return the updates in the table followed by those still in the journal.
+ *
+ * Compaction inserts the journal's records, the totals of their days' history and the number of
+ * records compacted in one SQLite transaction, then starts a new generation of the journal. If the
+ * process dies in between, the recorded count tells the journal, when it is next opened, which of
+ * its records are already in the table, so none are lost or stored twice. Compaction runs on the
+ * disk executor once a quarter of the journal is used, when it is full and whenever the journal is
+ * opened. The records are copied out of the journal under the data source's lock, but committed
+ * without it, so updates can still be read and appended while the transaction runs.
+ *
+ * The journal is not part of the transaction a unit of work writes in, so updates inserted inside
+ * a transaction are only appended once it commits, and are never appended if it is rolled back. A
+ * batch that is rolled back and retried one write at a time therefore appends each update once.
+ * Deleting every update likewise only empties the journal once the table's rows are gone.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class JournaledUpdatesDataSource implements UpdatesDataSource {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = "JournaledUpdates";
+
+    /**
+     * The name of the journal file, in the app's files directory.
+     */
+    static final String FILE_NAME = "updates.journal";
+
+    /**
+     * The number of records the journal holds, a 2 MiB file.
+     */
+    static final int CAPACITY = 64 * 1024;
+
+    /**
+     * The number of records in the journal that starts a compaction.
+     */
+    static final int COMPACTION_THRESHOLD = CAPACITY / 4;
+
+    /**
+     * Singleton instance of the data source.
+     */
+    private static JournaledUpdatesDataSource sInstance;
+
+    /**
+     * The data source of the updates table, which the journal is compacted into.
+     */
+    private final UpdatesLocalDataSource mLocalDataSource;
+
+    /**
+     * The shared connection manager.
+     */
+    private final DbConnectionManager mConnectionManager;
+
+    /**
+     * The executor compaction is run on.
+     */
+    private final Executor mCompactionExecutor;
+
+    /**
+     * The journal file.
+     */
+    private final File mFile;
+
+    /**
+     * The journal, or null until it is first used.
+     */
+    private UpdateJournal mJournal;
+
+    /**
+     * The number of records at the start of the journal that are already in the updates table.
+     */
+    private int mCompacted;
+
+    /**
+     * Whether a compaction has been submitted and not yet run.
+     */
+    private boolean mCompactionScheduled;
+
+    /**
+     * Whether a compaction was put off as it ran inside a transaction, so it is scheduled again
+     * when the data source is next used.
+     */
+    private boolean mCompactionDeferred;
+
+    /**
+     * Whether a compaction is committing the records copied from the journal, so another does not
+     * copy the same records.
+     */
+    private boolean mCompacting;
+
+    /**
+     * Whether the journal has been closed, so compactions still waiting are dropped.
+     */
+    private boolean mClosed;
+
+
+    /**
+     * Constructs a new JournaledUpdatesDataSource. The constructor is private to ensure singleton
+     * is used. The journal is not opened until first used on the disk executor.
+     *
+     * @param context the context the source is being created in
+     */
+    private JournaledUpdatesDataSource(Context context) {
+        mLocalDataSource = UpdatesLocalDataSource.getInstance(context);
+        mConnectionManager = DbConnectionManager.getInstance(context);
+        mCompactionExecutor = AppExecutors.getInstance().diskIO();
+        mFile = getJournalFile(context);
+    }
+
+
+    /**
+     * Returns the singleton instance of the JournaledUpdatesDataSource.
+     *
+     * @param context the context the source instance is being requested in
+     * @return the singleton instance
+     */
+    public static synchronized JournaledUpdatesDataSource getInstance(Context context) {
+        if (sInstance == null)
+            sInstance = new JournaledUpdatesDataSource(context);
+        return sInstance;
+    }
+
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one. The
+     * journal is closed, keeping any records not yet compacted for when it is next opened.
+     */
+    public static synchronized void destroyInstance() {
+        if (sInstance != null) {
+            sInstance.close();
+            sInstance = null;
+        }
+    }
+
+    /**
+     * Returns whether a journal is left in the given context, holding updates that may not yet have
+     * been compacted.
+     *
+     * @param context the context
+     * @return true if a journal file exists
+     */
+    public static boolean hasJournal(Context context) {
+        return getJournalFile(context).exists();
+    }
+
+    /**
+     * Compacts any journal left in the given context into the updates table and deletes it, for
+     * when the journal is no longer used. Run on the disk executor before any other update is read.
+     * If the journal cannot be compacted or deleted the failure is logged, and the journal is left
+     * to be drained again the next time the storage engine is created.
+     *
+     * @param context the context
+     */
+    public static void drain(Context context) {
+        JournaledUpdatesDataSource source = getInstance(context);
+        source.mCompactionExecutor.execute(() -> {
+            if (!hasJournal(context)) {
+                return;
+            }
+            try {
+                source.compact();
+                if (source.isCompactionDeferred()) {
+                    // The journal cannot be deleted before it is compacted
+                    return;
+                }
+                destroyInstance();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not compact the update journal, retrying on next start", e);
+                return;
+            }
+            if (!getJournalFile(context).delete()) {
+                Log.w(TAG, "Could not delete the update journal, retrying on next start");
+            }
+        });
+    }
+
+    @Override
+    public synchronized void getUpdates(LoadUpdatesCallback callback) {
+        List<Update> updates = new ArrayList<>();
+        mLocalDataSource.getUpdates(collect(updates));
+        updates.addAll(journal().read(mCompacted));
+        deliver(updates, callback);
+        compactIfRequired();
+    }
+
+    @Override
+    public synchronized void getUpdatesForDate(long date, LoadUpdatesCallback callback) {
+        List<Update> updates = new ArrayList<>();
+        mLocalDataSource.getUpdatesForDate(date, collect(updates));
+        updates.addAll(journal().readDate(mCompacted, date));
+        deliver(updates, callback);
+        compactIfRequired();
+    }
+
+    @Override
+    public void insertUpdate(Update update) {
+        mConnectionManager.runAfterCommit(() -> append(Collections.singletonList(update)));
+    }
+
+    @Override
+    public void insertUpdates(List<Update> updates) {
+        List<Update> copy = new ArrayList<>(updates);
+        mConnectionManager.runAfterCommit(() -> append(copy));
+    }
+
+    @Override
+    public void deleteAllUpdates() {
+        mLocalDataSource.deleteAllUpdates();
+        mConnectionManager.runAfterCommit(this::resetJournal);
+    }
+
+    /**
+     * Compacts the journal into the updates table. Compaction is put off if a transaction is open,
+     * as the journal must not be emptied before the records compacted are committed. It is not
+     * scheduled again straight away, which would run it again inside the same transaction on a
+     * direct executor, but the next time the data source is used.
+     *
+     * The records are copied under the lock and committed without it. The journal is only emptied
+     * if nothing was appended meanwhile. Otherwise the records committed are marked as compacted,
+     * and the rest are left for the next compaction.
+     */
+    public void compact() {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        UpdateJournal journal;
+        int generation;
+        int size;
+        List<Update> updates;
+        synchronized (this) {
+            mCompactionScheduled = false;
+            mCompactionDeferred = false;
+            if (mClosed || mCompacting) {
+                return;
+            }
+            journal = journal();
+            if (journal.size() == 0) {
+                return;
+            }
+            if (db.inTransaction()) {
+                mCompactionDeferred = true;
+                return;
+            }
+            generation = journal.getGeneration();
+            size = journal.size();
+            updates = journal.read(mCompacted);
+            mCompacting = true;
+        }
+
+        boolean committed = false;
+        try {
+            String sql = UpdateJournalPersistenceContract.getReplaceStatement();
+            SQLiteStatement statement = db.compileStatement(sql);
+            db.beginTransaction();
+            try {
+                mLocalDataSource.insertUpdates(updates);
+                statement.bindLong(1, generation);
+                statement.bindLong(2, size);
+                statement.executeInsert();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                statement.close();
+            }
+            committed = true;
+        } finally {
+            synchronized (this) {
+                mCompacting = false;
+                // The journal may have been emptied or closed while the records were committed
+                if (committed && !mClosed && journal.getGeneration() == generation) {
+                    if (journal.size() == size) {
+                        resetJournal();
+                    } else {
+                        mCompacted = size;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the last compaction was put off, as it ran inside a transaction.
+     *
+     * @return true if deferred
+     */
+    private synchronized boolean isCompactionDeferred() {
+        return mCompactionDeferred;
+    }
+
+    /**
+     * Appends the given updates to the journal, once any transaction they were inserted in has
+     * committed. Updates that do not fit are written to the updates table instead.
+     *
+     * @param updates the updates to be appended
+     */
+    private synchronized void append(List<Update> updates) {
+        UpdateJournal journal = journal();
+        for (int i = 0; i < updates.size(); i++) {
+            if (!journal.append(updates.get(i))) {
+                mLocalDataSource.insertUpdates(updates.subList(i, updates.size()));
+                break;
+            }
+        }
+        compactIfRequired();
+    }
+
+    /**
+     * Returns the journal, opening it and recovering its records if required. Records already
+     * compacted by a compaction that was interrupted before the journal was emptied are skipped,
+     * and a compaction is scheduled for the rest.
+     *
+     * @return the journal
+     */
+    private synchronized UpdateJournal journal() {
+        if (mJournal == null) {
+            try {
+                mJournal = UpdateJournal.open(mFile, CAPACITY);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open the update journal", e);
+            }
+            mCompacted = Math.min(readCompacted(mJournal.getGeneration()), mJournal.size());
+            if (mJournal.size() > 0) {
+                scheduleCompaction();
+            }
+        }
+        return mJournal;
+    }
+
+    /**
+     * Returns the number of records of the given generation of the journal already compacted.
+     *
+     * @param generation the generation of the journal
+     * @return records compacted, 0 if none
+     */
+    private int readCompacted(int generation) {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        Cursor c = db.rawQuery(UpdateJournalPersistenceContract.getCompactionQuery(), null);
+        try {
+            if (c.moveToFirst() && c.getInt(0) == generation) {
+                return c.getInt(1);
+            }
+            return 0;
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * Schedules a compaction once enough records are in the journal, or if one was put off.
+     */
+    private void compactIfRequired() {
+        UpdateJournal journal = journal();
+        if (mCompactionDeferred || journal.size() - mCompacted >= COMPACTION_THRESHOLD ||
+                journal.size() == journal.getCapacity()) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * Submits a compaction to the disk executor unless one is already waiting.
+     */
+    private void scheduleCompaction() {
+        if (!mCompactionScheduled) {
+            mCompactionScheduled = true;
+            mCompactionExecutor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Empties the journal.
+     */
+    private synchronized void resetJournal() {
+        try {
+            journal().reset();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not reset the update journal", e);
+        }
+        mCompacted = 0;
+    }
+
+    /**
+     * Closes the journal if it is open.
+     */
+    private synchronized void close() {
+        mClosed = true;
+        if (mJournal != null) {
+            try {
+                mJournal.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not close the update journal", e);
+            }
+            mJournal = null;
+        }
+    }
+
+    /**
+     * Returns the journal file of the given context.
+     *
+     * @param context the context
+     * @return journal file
+     */
+    private static File getJournalFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * Returns a callback adding the updates loaded to the given list.
+     *
+     * @param updates the list updates are added to
+     * @return collecting callback
+     */
+    private static LoadUpdatesCallback collect(List<Update> updates) {
+        return new LoadUpdatesCallback() {
+            @Override
+            public void onUpdatesLoaded(List<Update> loaded) {
+                updates.addAll(loaded);
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+            }
+        };
+    }
+
+    /**
+     * Delivers the given updates to the callback.
+     *
+     * @param updates the updates loaded
+     * @param callback the callback
+     */
+    private static void deliver(List<Update> updates, LoadUpdatesCallback callback) {
+        if (updates.isEmpty()) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onUpdatesLoaded(updates);
+        }
+    }
+}
@@ -4,6 +4,10 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+
+import java.util.List;
+
 /**
  * The KeepFitDbHelper defines the management of the local SQLite database maintained in the device
  * storage. The creation of, upgrading of and deletion of tables is defined here.
@@ -15,7 +19,7 @@ class KeepFitDbHelper extends SQLiteOpenHelper {
     /**
      * The current version of the database.
      */
-    private static final int DATABASE_VERSION = 2;
+    static final int DATABASE_VERSION = 7;
 
     /**
      * The name of the database.
@@ -51,25 +55,72 @@ class KeepFitDbHelper extends SQLiteOpenHelper {
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    static void destroyInstance() {
+        sInstance = null;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Write-ahead logging lets reads on other threads run while a write is in progress
+        db.enableWriteAheadLogging();
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(GoalsPersistenceContract.getCreateTable());
         db.execSQL(HistoryPersistenceContract.getCreateTable());
         db.execSQL(UpdatesPersistenceContract.getCreateTable());
+        for (Period period : Period.values()) {
+            db.execSQL(HistoryRollupPersistenceContract.getCreateTable(period));
+        }
+        db.execSQL(StreakPersistenceContract.getCreateTable());
+        db.execSQL(UpdateJournalPersistenceContract.getCreateTable());
+        createIndexes(db);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        if (oldVersion != newVersion) {
-            db.execSQL(GoalsPersistenceContract.getDropTable());
-            db.execSQL(HistoryPersistenceContract.getDropTable());
-            db.execSQL(UpdatesPersistenceContract.getDropTable());
-            onCreate(db);
+        List<Migration> path = Migrations.findPath(oldVersion, newVersion);
+        if (path != null) {
+            Migrations.apply(db, path);
+        } else {
+            recreate(db);
         }
     }
 
     @Override
     public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        onUpgrade(db, oldVersion, newVersion);
+        recreate(db);
+    }
+
+    /**
+     * Drops every table and creates them again at the current version. Only used when no
+     * migration path exists, as all data is lost.
+     *
+     * @param db the database to recreate
+     */
+    private void recreate(SQLiteDatabase db) {
+        db.execSQL(GoalsPersistenceContract.getDropTable());
+        db.execSQL(HistoryPersistenceContract.getDropTable());
+        db.execSQL(UpdatesPersistenceContract.getDropTable());
+        for (Period period : Period.values()) {
+            db.execSQL(HistoryRollupPersistenceContract.getDropTable(period));
+        }
+        db.execSQL(StreakPersistenceContract.getDropTable());
+        db.execSQL(UpdateJournalPersistenceContract.getDropTable());
+        onCreate(db);
+    }
+
+    /**
+     * Creates the secondary indexes used by the local data sources.
+     *
+     * @param db the database to create the indexes in
+     */
+    private void createIndexes(SQLiteDatabase db) {
+        db.execSQL(GoalsPersistenceContract.getCreateDeletedNameIndex());
+        db.execSQL(UpdatesPersistenceContract.getCreateDateIndex());
     }
 }
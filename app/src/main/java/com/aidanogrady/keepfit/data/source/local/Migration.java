@@ -0,0 +1,47 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * A Migration is a single step upgrading the local database from one version to the next. Steps
+ * must preserve existing data.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+abstract class Migration {
+    /**
+     * The version this migration upgrades from.
+     */
+    final int startVersion;
+
+    /**
+     * The version this migration upgrades to.
+     */
+    final int endVersion;
+
+
+    /**
+     * Constructs a new Migration.
+     *
+     * @param startVersion the version being upgraded from
+     * @param endVersion the version being upgraded to
+     */
+    Migration(int startVersion, int endVersion) {
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+
+    /**
+     * Applies this migration to the given database. This is always called inside a transaction.
+     *
+     * @param db the database being upgraded
+     */
+    abstract void migrate(SQLiteDatabase db);
+
+    @Override
+    public String toString() {
+        return "Migration " + startVersion + " -> " + endVersion;
+    }
+}
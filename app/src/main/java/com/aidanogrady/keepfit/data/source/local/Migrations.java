@@ -0,0 +1,332 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The registry of all migrations of the local database, in order. Versions older than the base
+ * version have no migration path and are recreated from scratch. Each migration holds the SQL of
+ * its own step rather than building it from the contracts, which describe the latest schema, so a
+ * step always does the same thing however the schema later changes.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class Migrations {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = "Migrations";
+
+    /**
+     * The oldest version that can be migrated without losing data.
+     */
+    static final int BASE_VERSION = 2;
+
+    /**
+     * The number of metres per unit of an update at version 4, indexed by the unit stored. Steps
+     * are converted at the default 1.5 steps per metre, as the preference cannot be read here.
+     */
+    private static final double[] METRES_PER_UNIT = { 1 / 1.5, 1, 1000, 0.9144, 1609.34 };
+
+    /**
+     * Adds the secondary indexes on goals and updates.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS goal_deleted_name_idx ON goal " +
+                    "(deleted,name )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS updates_date_idx ON updates " +
+                    "(date,time,distance,unit )");
+        }
+    };
+
+    /**
+     * Adds the daily total in metres and update count to history, backfilled from the updates.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE history ADD COLUMN total_metres REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE history ADD COLUMN update_count INTEGER NOT NULL DEFAULT 0");
+            backfillHistoryTotals(db);
+        }
+    };
+
+    /**
+     * Adds the weekly and monthly rollups of history, built from the existing history.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            for (String table : new String[] { "history_week", "history_month" }) {
+                db.execSQL("CREATE TABLE " + table + " (start_date INTEGER PRIMARY KEY," +
+                        "total_metres REAL NOT NULL DEFAULT 0," +
+                        "days_active INTEGER NOT NULL DEFAULT 0," +
+                        "days_completed INTEGER NOT NULL DEFAULT 0," +
+                        "best_metres REAL NOT NULL DEFAULT 0,best_date INTEGER )");
+            }
+            buildRollups(db, "history_week", "(h.date - ((h.date + 3) % 7 + 7) % 7)");
+            buildRollups(db, "history_month", "CAST(julianday(h.date * 86400, 'unixepoch', " +
+                    "'start of month') - 2440587.5 AS INTEGER)");
+        }
+    };
+
+    /**
+     * Adds the streaks of each goal and of any goal, built from the existing history.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE goal ADD COLUMN current_streak INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE goal ADD COLUMN longest_streak INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE TABLE streak (_id INTEGER PRIMARY KEY,last_date INTEGER," +
+                    "current_streak INTEGER NOT NULL DEFAULT 0," +
+                    "longest_streak INTEGER NOT NULL DEFAULT 0 )");
+            buildStreaks(db);
+        }
+    };
+
+    /**
+     * Adds the table recording how much of the update journal has been compacted.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE update_journal (_id INTEGER PRIMARY KEY," +
+                    "generation INTEGER NOT NULL DEFAULT 0," +
+                    "compacted INTEGER NOT NULL DEFAULT 0 )");
+        }
+    };
+
+    /**
+     * Every migration, ordered by start version.
+     */
+    private static final Migration[] MIGRATIONS = {
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7
+    };
+
+
+    /**
+     * Private construct to prevent accidental instantiating of the registry class.
+     */
+    private Migrations() {}
+
+
+    /**
+     * Returns the ordered migrations leading from one version to another.
+     *
+     * @param oldVersion the version being upgraded from
+     * @param newVersion the version being upgraded to
+     * @return the migrations to apply, or null if there is no complete path
+     */
+    static List<Migration> findPath(int oldVersion, int newVersion) {
+        if (oldVersion < BASE_VERSION || oldVersion > newVersion) {
+            return null;
+        }
+
+        List<Migration> path = new ArrayList<>();
+        int version = oldVersion;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.startVersion == version && migration.endVersion <= newVersion) {
+                path.add(migration);
+                version = migration.endVersion;
+            }
+        }
+        return (version == newVersion) ? path : null;
+    }
+
+    /**
+     * Applies the given migrations in order, each in its own transaction. If a migration fails its
+     * transaction is rolled back and the exception is rethrown, leaving the database version
+     * unchanged.
+     *
+     * @param db the database being upgraded
+     * @param path the migrations to apply
+     * @return the time taken by each migration in milliseconds
+     */
+    static long[] apply(SQLiteDatabase db, List<Migration> path) {
+        long[] durations = new long[path.size()];
+        for (int i = 0; i < path.size(); i++) {
+            Migration migration = path.get(i);
+            long start = System.nanoTime();
+            db.beginTransaction();
+            try {
+                migration.migrate(db);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            durations[i] = (System.nanoTime() - start) / 1000000;
+            Log.i(TAG, migration + " took " + durations[i] + " ms");
+        }
+        return durations;
+    }
+
+    /**
+     * Sets the total metres and update count of every history row from its updates. The updates
+     * are summed per date and unit by SQLite, so only one row per unit of each day is read back and
+     * converted to metres by the factors fixed for this step.
+     *
+     * @param db the database being upgraded
+     */
+    private static void backfillHistoryTotals(SQLiteDatabase db) {
+        SQLiteStatement statement = db.compileStatement(
+                "UPDATE history SET total_metres = ?, update_count = ? WHERE date = ?");
+        Cursor c = db.rawQuery("SELECT date, unit, SUM(distance), COUNT(*) FROM updates " +
+                "GROUP BY date, unit ORDER BY date", null);
+        try {
+            long date = 0;
+            double metres = 0;
+            int count = 0;
+            boolean pending = false;
+            while (c.moveToNext()) {
+                if (pending && c.getLong(0) != date) {
+                    updateTotals(statement, date, metres, count);
+                    metres = 0;
+                    count = 0;
+                }
+                date = c.getLong(0);
+                metres += c.getDouble(2) * METRES_PER_UNIT[c.getInt(1)];
+                count += c.getInt(3);
+                pending = true;
+            }
+            if (pending) {
+                updateTotals(statement, date, metres, count);
+            }
+        } finally {
+            c.close();
+            statement.close();
+        }
+    }
+
+    /**
+     * Executes the compiled history totals update for a single day.
+     *
+     * @param statement the compiled update statement
+     * @param date the day being updated
+     * @param metres the total metres of the day
+     * @param count the number of updates of the day
+     */
+    private static void updateTotals(SQLiteStatement statement, long date, double metres,
+                                     int count) {
+        statement.clearBindings();
+        statement.bindDouble(1, metres);
+        statement.bindLong(2, count);
+        statement.bindLong(3, date);
+        statement.executeUpdateDelete();
+    }
+
+    /**
+     * Fills a new rollup table from the history in a single pass, one row per period with any
+     * history. A day is completed once its distance reaches the goal, and the best date is the
+     * date of the row with the greatest total, as SQLite takes bare columns from the row chosen by
+     * MAX.
+     *
+     * @param db the database being upgraded
+     * @param table the rollup table being filled
+     * @param start the expression giving the first day of the period of a history row
+     */
+    private static void buildRollups(SQLiteDatabase db, String table, String start) {
+        db.execSQL("INSERT INTO " + table + " (start_date,total_metres,days_active," +
+                "days_completed,best_metres,best_date ) " +
+                "SELECT " + start + " AS period,SUM(h.total_metres),SUM(h.total_metres > 0)," +
+                "SUM(CASE WHEN g.uuid IS NULL THEN -1 " +
+                "ELSE h.distance * 100.0 / g.distance END >= 100)," +
+                "MAX(h.total_metres),h.date " +
+                "FROM history h LEFT JOIN goal g ON h.goal = g.uuid GROUP BY period");
+    }
+
+    /**
+     * Sets the streak of every goal and of any goal in a single pass over the days a goal was
+     * achieved, oldest first. Each streak is held as its last day, current run and longest run.
+     * The day each goal was last achieved is only moved forward, so a later day already saved is
+     * kept.
+     *
+     * @param db the database being upgraded
+     */
+    private static void buildStreaks(SQLiteDatabase db) {
+        Map<String, long[]> goalStreaks = new HashMap<>();
+        long[] streak = { -1, 0, 0 };
+        Cursor c = db.rawQuery("SELECT h.date,h.goal FROM history h " +
+                "JOIN goal g ON h.goal = g.uuid WHERE h.distance >= g.distance " +
+                "ORDER BY h.date", null);
+        try {
+            while (c.moveToNext()) {
+                long date = c.getLong(0);
+                long[] goalStreak = goalStreaks.get(c.getString(1));
+                if (goalStreak == null) {
+                    goalStreak = new long[] { -1, 0, 0 };
+                    goalStreaks.put(c.getString(1), goalStreak);
+                }
+                extendStreak(goalStreak, date);
+                extendStreak(streak, date);
+            }
+        } finally {
+            c.close();
+        }
+
+        SQLiteStatement update = db.compileStatement("UPDATE goal SET " +
+                "last_achieved = MAX(COALESCE(last_achieved, -1), ?)," +
+                "current_streak = ?,longest_streak = ? WHERE uuid = ?");
+        try {
+            for (Map.Entry<String, long[]> entry : goalStreaks.entrySet()) {
+                long[] goalStreak = entry.getValue();
+                update.bindLong(1, goalStreak[0]);
+                update.bindLong(2, goalStreak[1]);
+                update.bindLong(3, goalStreak[2]);
+                update.bindString(4, entry.getKey());
+                update.executeUpdateDelete();
+            }
+        } finally {
+            update.close();
+        }
+        db.execSQL("INSERT OR REPLACE INTO streak (_id,last_date,current_streak," +
+                "longest_streak ) VALUES ( 0, ?, ?, ? )",
+                new Object[] { streak[0], streak[1], streak[2] });
+    }
+
+    /**
+     * Extends a streak by a day achieved. The run continues if the day follows the last day, and
+     * starts again otherwise. Days no later than the last day are ignored.
+     *
+     * @param streak the last day, current run and longest run, changed in place
+     * @param date the day achieved
+     */
+    private static void extendStreak(long[] streak, long date) {
+        if (date <= streak[0]) {
+            return;
+        }
+        streak[1] = (date == streak[0] + 1) ? streak[1] + 1 : 1;
+        streak[2] = Math.max(streak[2], streak[1]);
+        streak[0] = date;
+    }
+
+    /**
+     * Creates the schema exactly as it was at the base version. Used to build databases that the
+     * migrations can be tested and timed against.
+     *
+     * @param db the empty database to create the schema in
+     */
+    static void createBaseSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE goal (_id INTEGER PRIMARY KEY AUTOINCREMENT, uuid TEXT UNIQUE, " +
+                "name TEXT, distance REAL, unit INTEGER, last_achieved INTEGER, deleted INTEGER )");
+        db.execSQL("CREATE TABLE history (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "date INTEGER UNIQUE, goal TEXT, distance REAL )");
+        db.execSQL("CREATE TABLE updates (_id INTEGER PRIMARY KEY AUTOINCREMENT, date INTEGER, " +
+                "time INTEGER, distance REAL, unit INTEGER )");
+        db.setVersion(BASE_VERSION);
+    }
+}
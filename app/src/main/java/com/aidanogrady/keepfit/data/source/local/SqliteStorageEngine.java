@@ -0,0 +1,224 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import android.content.Context;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.source.GoalsDataSource;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
+import com.aidanogrady.keepfit.data.source.StorageEngine;
+import com.aidanogrady.keepfit.data.source.TransactionRunner;
+import com.aidanogrady.keepfit.data.source.UpdatesDataSource;
+
+import java.util.List;
+
+/**
+ * The StorageEngine of the local SQLite database, passing each call to the local data source of
+ * goals, history or updates, and running transactions on the shared connection.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class SqliteStorageEngine implements StorageEngine {
+    /**
+     * The data source of goals.
+     */
+    private final GoalsDataSource mGoalsDataSource;
+
+    /**
+     * The data source of history.
+     */
+    private final HistoryDataSource mHistoryDataSource;
+
+    /**
+     * The data source of updates.
+     */
+    private final UpdatesDataSource mUpdatesDataSource;
+
+    /**
+     * Runs transactions on the database.
+     */
+    private final TransactionRunner mTransactionRunner;
+
+
+    /**
+     * Constructs a new SqliteStorageEngine.
+     *
+     * @param goalsDataSource the data source of goals
+     * @param historyDataSource the data source of history
+     * @param updatesDataSource the data source of updates
+     * @param transactionRunner runs transactions on the database
+     */
+    public SqliteStorageEngine(GoalsDataSource goalsDataSource,
+                               HistoryDataSource historyDataSource,
+                               UpdatesDataSource updatesDataSource,
+                               TransactionRunner transactionRunner) {
+        mGoalsDataSource = goalsDataSource;
+        mHistoryDataSource = historyDataSource;
+        mUpdatesDataSource = updatesDataSource;
+        mTransactionRunner = transactionRunner;
+    }
+
+
+    /**
+     * Creates the engine of the local database. Updates are appended to the update journal if it
+     * is enabled, and otherwise written straight to the database, after any journal left from when
+     * it was enabled has been drained.
+     *
+     * @param context the context the engine is being created in
+     * @return SQLite engine
+     */
+    public static SqliteStorageEngine create(Context context) {
+        UpdatesDataSource updatesDataSource;
+        if (SharedPreferencesRepository.isUpdateJournalEnabled()) {
+            updatesDataSource = JournaledUpdatesDataSource.getInstance(context);
+        } else {
+            if (JournaledUpdatesDataSource.hasJournal(context)) {
+                JournaledUpdatesDataSource.drain(context);
+            }
+            updatesDataSource = UpdatesLocalDataSource.getInstance(context);
+        }
+        return new SqliteStorageEngine(GoalsLocalDataSource.getInstance(context),
+                HistoryLocalDataSource.getInstance(context), updatesDataSource,
+                DbConnectionManager.getInstance(context));
+    }
+
+    @Override
+    public void runInTransaction(Runnable work) {
+        mTransactionRunner.runInTransaction(work);
+    }
+
+    @Override
+    public void getGoals(LoadGoalsCallback callback) {
+        mGoalsDataSource.getGoals(callback);
+    }
+
+    @Override
+    public void getGoal(String id, boolean deleted, GetGoalCallback callback) {
+        mGoalsDataSource.getGoal(id, deleted, callback);
+    }
+
+    @Override
+    public void insertGoal(Goal goal) {
+        mGoalsDataSource.insertGoal(goal);
+    }
+
+    @Override
+    public void updateGoal(Goal goal, String oldId) {
+        mGoalsDataSource.updateGoal(goal, oldId);
+    }
+
+    @Override
+    public void refreshGoals() {
+        mGoalsDataSource.refreshGoals();
+    }
+
+    @Override
+    public void deleteAllGoals() {
+        mGoalsDataSource.deleteAllGoals();
+    }
+
+    @Override
+    public void deleteGoal(String id) {
+        mGoalsDataSource.deleteGoal(id);
+    }
+
+    @Override
+    public void getHistory(LoadHistoryCallback callback) {
+        mHistoryDataSource.getHistory(callback);
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, LoadHistoryCallback callback) {
+        mHistoryDataSource.getHistory(filter, callback);
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, int limit, LoadHistoryCallback callback) {
+        mHistoryDataSource.getHistory(filter, limit, callback);
+    }
+
+    @Override
+    public void getHistory(long date, GetHistoryCallback callback) {
+        mHistoryDataSource.getHistory(date, callback);
+    }
+
+    @Override
+    public void getRollup(Period period, long date, GetRollupCallback callback) {
+        mHistoryDataSource.getRollup(period, date, callback);
+    }
+
+    @Override
+    public void rebuildRollups() {
+        mHistoryDataSource.rebuildRollups();
+    }
+
+    @Override
+    public void getStreak(GetStreakCallback callback) {
+        mHistoryDataSource.getStreak(callback);
+    }
+
+    @Override
+    public void extendStreak(long date) {
+        mHistoryDataSource.extendStreak(date);
+    }
+
+    @Override
+    public void rebuildStreaks() {
+        mHistoryDataSource.rebuildStreaks();
+    }
+
+    @Override
+    public void insertHistory(History history) {
+        mHistoryDataSource.insertHistory(history);
+    }
+
+    @Override
+    public void insertHistories(List<History> histories) {
+        mHistoryDataSource.insertHistories(histories);
+    }
+
+    @Override
+    public void refreshHistory() {
+        mHistoryDataSource.refreshHistory();
+    }
+
+    @Override
+    public void deleteAllHistory() {
+        mHistoryDataSource.deleteAllHistory();
+    }
+
+    @Override
+    public void deleteHistory(long date) {
+        mHistoryDataSource.deleteHistory(date);
+    }
+
+    @Override
+    public void getUpdates(LoadUpdatesCallback callback) {
+        mUpdatesDataSource.getUpdates(callback);
+    }
+
+    @Override
+    public void getUpdatesForDate(long date, LoadUpdatesCallback callback) {
+        mUpdatesDataSource.getUpdatesForDate(date, callback);
+    }
+
+    @Override
+    public void insertUpdate(Update update) {
+        mUpdatesDataSource.insertUpdate(update);
+    }
+
+    @Override
+    public void insertUpdates(List<Update> updates) {
+        mUpdatesDataSource.insertUpdates(updates);
+    }
+
+    @Override
+    public void deleteAllUpdates() {
+        mUpdatesDataSource.deleteAllUpdates();
+    }
+}
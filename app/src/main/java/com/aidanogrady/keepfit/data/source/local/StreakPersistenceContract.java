@@ -0,0 +1,134 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import com.aidanogrady.keepfit.data.source.local.GoalsPersistenceContract.GoalEntry;
+import com.aidanogrady.keepfit.data.source.local.HistoryPersistenceContract.HistoryEntry;
+
+/**
+ * The contract used for the db to save the streak of days any goal was achieved locally. The table
+ * holds a single row, which is extended as goals are achieved. The streak of each goal is kept in
+ * the goal table itself.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class StreakPersistenceContract {
+    /**
+     * Private construct to prevent accidental instantiating of the contract class.
+     */
+    private StreakPersistenceContract() {}
+
+
+    static abstract class StreakEntry {
+        static final String TABLE_NAME = "streak";
+        static final String COLUMN_NAME_ID = "_id";
+        static final String COLUMN_NAME_LAST_DATE = "last_date";
+        static final String COLUMN_NAME_CURRENT = "current_streak";
+        static final String COLUMN_NAME_LONGEST = "longest_streak";
+        static final String ROW_ID = "0";
+    }
+
+
+    /**
+     * Returns the string that forms the creation of the Streak table.
+     *
+     * @return create streak table statement
+     */
+    static String getCreateTable() {
+        return "CREATE TABLE " + StreakEntry.TABLE_NAME + " (" +
+                StreakEntry.COLUMN_NAME_ID + DbConstants.INTEGER_TYPE + " PRIMARY KEY" +
+                DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_LAST_DATE + DbConstants.INTEGER_TYPE +
+                DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_CURRENT + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_LONGEST + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO + " )";
+    }
+
+    /**
+     * Returns the query selecting the streak. The columns are, in order: last date, current and
+     * longest.
+     *
+     * @return streak query
+     */
+    static String getStreakQuery() {
+        return "SELECT " +
+                StreakEntry.COLUMN_NAME_LAST_DATE + DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_CURRENT + DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_LONGEST +
+                " FROM " + StreakEntry.TABLE_NAME +
+                " WHERE " + StreakEntry.COLUMN_NAME_ID + " = " + StreakEntry.ROW_ID;
+    }
+
+    /**
+     * Returns the statement saving the streak. The arguments are, in order: last date, current and
+     * longest.
+     *
+     * @return replace streak statement
+     */
+    static String getReplaceStatement() {
+        return "INSERT OR REPLACE INTO " + StreakEntry.TABLE_NAME + " (" +
+                StreakEntry.COLUMN_NAME_ID + DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_LAST_DATE + DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_CURRENT + DbConstants.SEP +
+                StreakEntry.COLUMN_NAME_LONGEST + " ) " +
+                "VALUES ( " + StreakEntry.ROW_ID + ", ?, ?, ? )";
+    }
+
+    /**
+     * Returns the query selecting every day a goal was achieved, oldest first, read through the
+     * unique index on the history date. A goal is achieved once the distance reaches it, as for the
+     * days completed of a rollup. The columns are, in order: date and goal ID.
+     *
+     * @return achieved days query
+     */
+    static String getAchievedQuery() {
+        return "SELECT h." + HistoryEntry.COLUMN_NAME_DATE + DbConstants.SEP +
+                "h." + HistoryEntry.COLUMN_NAME_GOAL +
+                " FROM " + HistoryEntry.TABLE_NAME + " h" +
+                " JOIN " + GoalEntry.TABLE_NAME + " g" +
+                " ON h." + HistoryEntry.COLUMN_NAME_GOAL + " = g." + GoalEntry.COLUMN_NAME_ID +
+                " WHERE h." + HistoryEntry.COLUMN_NAME_DISTANCE + " >= g." +
+                GoalEntry.COLUMN_NAME_DISTANCE +
+                " ORDER BY h." + HistoryEntry.COLUMN_NAME_DATE;
+    }
+
+    /**
+     * Returns the statement resetting the streak of every goal, before their streaks are rebuilt.
+     * The day each goal was last achieved is kept, as it may be later than any day left in the
+     * history, such as when the history was pruned or imported without its distance.
+     *
+     * @return reset goal streaks statement
+     */
+    static String getResetGoalsStatement() {
+        return "UPDATE " + GoalEntry.TABLE_NAME + " SET " +
+                GoalEntry.COLUMN_NAME_CURRENT_STREAK + " = 0" + DbConstants.SEP +
+                GoalEntry.COLUMN_NAME_LONGEST_STREAK + " = 0";
+    }
+
+    /**
+     * Returns the statement saving the streak of a single goal. The day last achieved is only
+     * moved forward, so a later day already saved is kept. The arguments are, in order: last date,
+     * current, longest and goal ID.
+     *
+     * @return update goal streak statement
+     */
+    static String getUpdateGoalStatement() {
+        return "UPDATE " + GoalEntry.TABLE_NAME + " SET " +
+                GoalEntry.COLUMN_NAME_LAST_ACHIEVED + " = MAX(COALESCE(" +
+                GoalEntry.COLUMN_NAME_LAST_ACHIEVED + ", -1), ?)" + DbConstants.SEP +
+                GoalEntry.COLUMN_NAME_CURRENT_STREAK + " = ?" + DbConstants.SEP +
+                GoalEntry.COLUMN_NAME_LONGEST_STREAK + " = ?" +
+                " WHERE " + GoalEntry.COLUMN_NAME_ID + " = ?";
+    }
+
+    /**
+     * Returns the string that forms the drop table statement for the Streak table.
+     *
+     * @return drop streak table statement
+     */
+    static String getDropTable() {
+        return "DROP TABLE IF EXISTS " + StreakEntry.TABLE_NAME;
+    }
+}
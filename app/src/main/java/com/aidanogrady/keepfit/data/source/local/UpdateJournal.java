@@ -0,0 +1,354 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of updates in a memory-mapped file. Every record is 32 bytes: the date, the
+ * distance, the time as seconds of the day, the generation of the journal, the unit ordinal and a
+ * CRC32 of the rest of the record. Appending copies a record into the mapping, with no system call
+ * or sync, so a record survives the process dying as soon as append returns.
+ *
+ * The journal is emptied by starting a new generation in the header rather than erasing records.
+ * On opening, records are read from the start until one is torn, fails its checksum or belongs to
+ * an earlier generation, and appending continues from there.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class UpdateJournal implements Closeable {
+    /**
+     * The size of the header, in bytes.
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * The size of every record, in bytes.
+     */
+    static final int RECORD_SIZE = 32;
+
+    /**
+     * Marks a file as an update journal, "KFJ1".
+     */
+    private static final int MAGIC = 0x4b464a31;
+
+    /**
+     * The version of the record layout.
+     */
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int GENERATION_OFFSET = 8;
+
+    private static final int DATE_OFFSET = 0;
+    private static final int DISTANCE_OFFSET = 8;
+    private static final int TIME_OFFSET = 16;
+    private static final int RECORD_GENERATION_OFFSET = 20;
+    private static final int UNIT_OFFSET = 24;
+    private static final int CHECKSUM_OFFSET = 28;
+
+    /**
+     * The units by ordinal, as stored in records.
+     */
+    private static final Unit[] UNITS = Unit.values();
+
+    /**
+     * The channel of the journal file, kept open while the journal is.
+     */
+    private final FileChannel mChannel;
+
+    /**
+     * The mapping of the whole journal file.
+     */
+    private final MappedByteBuffer mBuffer;
+
+    /**
+     * The number of records the file holds.
+     */
+    private final int mCapacity;
+
+    /**
+     * A record being written or checked, before it is copied into or after it is copied out of
+     * the mapping.
+     */
+    private final ByteBuffer mRecord = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * Computes the checksum of records.
+     */
+    private final CRC32 mChecksum = new CRC32();
+
+    /**
+     * The current generation, which every valid record carries.
+     */
+    private int mGeneration;
+
+    /**
+     * The number of valid records.
+     */
+    private int mSize;
+
+
+    /**
+     * Constructs a new UpdateJournal over the given mapping, recovering its valid records.
+     *
+     * @param channel the channel of the journal file
+     * @param buffer the mapping of the journal file
+     * @param capacity the number of records the mapping holds
+     */
+    private UpdateJournal(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        mChannel = channel;
+        mBuffer = buffer;
+        mCapacity = capacity;
+        if (mBuffer.getInt(MAGIC_OFFSET) == MAGIC && mBuffer.getInt(VERSION_OFFSET) == VERSION) {
+            mGeneration = mBuffer.getInt(GENERATION_OFFSET);
+        } else {
+            initialise();
+        }
+        while (mSize < mCapacity && isValid(mSize)) {
+            mSize++;
+        }
+    }
+
+
+    /**
+     * Opens the journal in the given file, creating it if it does not exist. The file is grown to
+     * hold the given number of records, but never shrunk, so no records are lost when the capacity
+     * is lowered.
+     *
+     * @param file the journal file
+     * @param capacity the number of records held before appends fail
+     * @return the opened journal
+     * @throws IOException if the file could not be opened or mapped
+     */
+    static UpdateJournal open(File file, int capacity) throws IOException {
+        long existing = (file.length() - HEADER_SIZE) / RECORD_SIZE;
+        int records = (int) Math.min(Math.max(capacity, existing),
+                (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE);
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) records * RECORD_SIZE);
+            return new UpdateJournal(channel, buffer, records);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the given update.
+     *
+     * @param update the update
+     * @return true if appended, false if the journal is full
+     */
+    synchronized boolean append(Update update) {
+        return append(update.getDate(), toSecondOfDay(update.getTime()), update.getDistance(),
+                update.getUnit());
+    }
+
+    /**
+     * Appends an update with the given values.
+     *
+     * @param date the date of the update, as days since the epoch
+     * @param time the time of the update, as seconds of the day
+     * @param distance the distance of the update
+     * @param unit the unit of the distance
+     * @return true if appended, false if the journal is full
+     */
+    synchronized boolean append(long date, int time, double distance, Unit unit) {
+        if (mSize == mCapacity) {
+            return false;
+        }
+        mRecord.clear();
+        mRecord.putLong(DATE_OFFSET, date);
+        mRecord.putDouble(DISTANCE_OFFSET, distance);
+        mRecord.putInt(TIME_OFFSET, time);
+        mRecord.putInt(RECORD_GENERATION_OFFSET, mGeneration);
+        mRecord.putInt(UNIT_OFFSET, unit.ordinal() << 24);
+        mRecord.putInt(CHECKSUM_OFFSET, checksum());
+
+        mBuffer.position(position(mSize));
+        mBuffer.put(mRecord);
+        mSize++;
+        return true;
+    }
+
+    /**
+     * Returns the records from the given index, oldest first.
+     *
+     * @param from the index of the first record
+     * @return updates
+     */
+    synchronized List<Update> read(int from) {
+        List<Update> updates = new ArrayList<>(Math.max(0, mSize - from));
+        for (int i = from; i < mSize; i++) {
+            updates.add(readRecord(position(i)));
+        }
+        return updates;
+    }
+
+    /**
+     * Returns the records of the given day from the given index, oldest first.
+     *
+     * @param from the index of the first record
+     * @param date the day, as days since the epoch
+     * @return updates of the day
+     */
+    synchronized List<Update> readDate(int from, long date) {
+        List<Update> updates = new ArrayList<>();
+        for (int i = from; i < mSize; i++) {
+            int position = position(i);
+            if (mBuffer.getLong(position + DATE_OFFSET) == date) {
+                updates.add(readRecord(position));
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Empties the journal by starting a new generation, which is synced to the file before any
+     * record of it can be appended.
+     *
+     * @throws IOException if the header could not be synced
+     */
+    synchronized void reset() throws IOException {
+        mGeneration++;
+        mBuffer.putInt(GENERATION_OFFSET, mGeneration);
+        mSize = 0;
+        sync();
+    }
+
+    /**
+     * Syncs the records appended to the file, so they also survive the device losing power.
+     *
+     * @throws IOException if the file could not be synced
+     */
+    synchronized void sync() throws IOException {
+        mBuffer.force();
+        mChannel.force(false);
+    }
+
+    /**
+     * Returns the number of records in the journal.
+     *
+     * @return size
+     */
+    synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the number of records the journal holds before appends fail.
+     *
+     * @return capacity
+     */
+    int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the current generation of the journal.
+     *
+     * @return generation
+     */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mChannel.close();
+    }
+
+    /**
+     * Writes a new header at the first generation, clearing any records left by a file that is
+     * not a journal of this version.
+     */
+    private void initialise() {
+        for (int i = HEADER_SIZE; i < mBuffer.capacity(); i += 8) {
+            if (mBuffer.getLong(i) != 0) {
+                mBuffer.putLong(i, 0);
+            }
+        }
+        mGeneration = 1;
+        mBuffer.putInt(GENERATION_OFFSET, mGeneration);
+        mBuffer.putInt(VERSION_OFFSET, VERSION);
+        mBuffer.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    /**
+     * Returns whether the record at the given index was fully written in the current generation.
+     *
+     * @param index the index of the record
+     * @return true if valid
+     */
+    private boolean isValid(int index) {
+        mRecord.clear();
+        mBuffer.position(position(index));
+        mBuffer.get(mRecord.array());
+        return mRecord.getInt(RECORD_GENERATION_OFFSET) == mGeneration &&
+                mRecord.getInt(CHECKSUM_OFFSET) == checksum() &&
+                (mRecord.get(UNIT_OFFSET) & 0xff) < UNITS.length;
+    }
+
+    /**
+     * Reads the record at the given position as an update.
+     *
+     * @param position the position of the record
+     * @return update
+     */
+    private Update readRecord(int position) {
+        return new Update(
+                mBuffer.getLong(position + DATE_OFFSET),
+                mBuffer.getInt(position + TIME_OFFSET),
+                mBuffer.getDouble(position + DISTANCE_OFFSET),
+                UNITS[mBuffer.get(position + UNIT_OFFSET) & 0xff]);
+    }
+
+    /**
+     * Returns the checksum of every field of the record being written or checked.
+     *
+     * @return checksum
+     */
+    private int checksum() {
+        mChecksum.reset();
+        mChecksum.update(mRecord.array(), 0, CHECKSUM_OFFSET);
+        return (int) mChecksum.getValue();
+    }
+
+    /**
+     * Returns the position of the record at the given index in the file.
+     *
+     * @param index the index of the record
+     * @return position in bytes
+     */
+    private static int position(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Converts the time of an update to the int stored in a record.
+     *
+     * @param time the time of an update, as seconds of the day
+     * @return time as an int
+     */
+    private static int toSecondOfDay(long time) {
+        if (time != (int) time) {
+            throw new IllegalArgumentException("Time is not a second of the day: " + time);
+        }
+        return (int) time;
+    }
+}
@@ -0,0 +1,79 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+/**
+ * The contract used for the db to record how much of the update journal has been compacted into
+ * the updates table. The table holds a single row, written in the same transaction as the updates
+ * it describes, so the journal can tell after a crash which of its records are already stored.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class UpdateJournalPersistenceContract {
+    /**
+     * Private construct to prevent accidental instantiating of the contract class.
+     */
+    private UpdateJournalPersistenceContract() {}
+
+
+    static abstract class JournalEntry {
+        static final String TABLE_NAME = "update_journal";
+        static final String COLUMN_NAME_ID = "_id";
+        static final String COLUMN_NAME_GENERATION = "generation";
+        static final String COLUMN_NAME_COMPACTED = "compacted";
+        static final String ROW_ID = "0";
+    }
+
+
+    /**
+     * Returns the string that forms the creation of the UpdateJournal table.
+     *
+     * @return create update journal table statement
+     */
+    static String getCreateTable() {
+        return "CREATE TABLE " + JournalEntry.TABLE_NAME + " (" +
+                JournalEntry.COLUMN_NAME_ID + DbConstants.INTEGER_TYPE + " PRIMARY KEY" +
+                DbConstants.SEP +
+                JournalEntry.COLUMN_NAME_GENERATION + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO +
+                DbConstants.SEP +
+                JournalEntry.COLUMN_NAME_COMPACTED + DbConstants.INTEGER_TYPE +
+                DbConstants.DEFAULT_ZERO + " )";
+    }
+
+    /**
+     * Returns the query selecting the last compaction. The columns are, in order: generation of the
+     * journal compacted and the number of its records compacted.
+     *
+     * @return compaction query
+     */
+    static String getCompactionQuery() {
+        return "SELECT " +
+                JournalEntry.COLUMN_NAME_GENERATION + DbConstants.SEP +
+                JournalEntry.COLUMN_NAME_COMPACTED +
+                " FROM " + JournalEntry.TABLE_NAME +
+                " WHERE " + JournalEntry.COLUMN_NAME_ID + " = " + JournalEntry.ROW_ID;
+    }
+
+    /**
+     * Returns the statement saving a compaction. The arguments are, in order: generation of the
+     * journal compacted and the number of its records compacted.
+     *
+     * @return replace compaction statement
+     */
+    static String getReplaceStatement() {
+        return "INSERT OR REPLACE INTO " + JournalEntry.TABLE_NAME + " (" +
+                JournalEntry.COLUMN_NAME_ID + DbConstants.SEP +
+                JournalEntry.COLUMN_NAME_GENERATION + DbConstants.SEP +
+                JournalEntry.COLUMN_NAME_COMPACTED + " ) " +
+                "VALUES ( " + JournalEntry.ROW_ID + ", ?, ? )";
+    }
+
+    /**
+     * Returns the string that forms the drop table statement for the UpdateJournal table.
+     *
+     * @return drop update journal table statement
+     */
+    static String getDropTable() {
+        return "DROP TABLE IF EXISTS " + JournalEntry.TABLE_NAME;
+    }
+}
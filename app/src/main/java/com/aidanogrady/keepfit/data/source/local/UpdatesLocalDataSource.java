@@ -4,6 +4,7 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.aidanogrady.keepfit.data.model.Update;
 import com.aidanogrady.keepfit.data.model.units.Unit;
@@ -26,9 +27,24 @@ public class UpdatesLocalDataSource implements UpdatesDataSource {
     private static UpdatesLocalDataSource sInstance;
 
     /**
-     * The db helper.
+     * Selection of the updates with a given date.
      */
-    private KeepFitDbHelper mDbHelper;
+    static final String SELECTION_DATE = UpdateEntry.COLUMN_NAME_DATE + " = ?";
+
+    /**
+     * The columns of an update, as read by readUpdate.
+     */
+    static final String[] COLUMNS = {
+            UpdateEntry.COLUMN_NAME_DATE,
+            UpdateEntry.COLUMN_NAME_TIME,
+            UpdateEntry.COLUMN_NAME_DISTANCE,
+            UpdateEntry.COLUMN_NAME_UNIT
+    };
+
+    /**
+     * The shared connection manager.
+     */
+    private DbConnectionManager mConnectionManager;
 
     /**
      * The units enum.
@@ -43,7 +59,7 @@ public class UpdatesLocalDataSource implements UpdatesDataSource {
      * @param context the context the source is being created in
      */
     private UpdatesLocalDataSource(Context context) {
-        mDbHelper = KeepFitDbHelper.getInstance(context);
+        mConnectionManager = DbConnectionManager.getInstance(context);
         mUnits = Unit.values();
     }
 
@@ -60,34 +76,27 @@ public class UpdatesLocalDataSource implements UpdatesDataSource {
         return sInstance;
     }
 
+    /**
+     * Destroys the singleton instance, so the next call to getInstance creates a new one.
+     */
+    public static void destroyInstance() {
+        sInstance = null;
+    }
+
     @Override
     public void getUpdates(LoadUpdatesCallback callback) {
         List<Update> updates = new ArrayList<>();
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
-
-        String[] projection = {
-                UpdateEntry.COLUMN_NAME_DATE,
-                UpdateEntry.COLUMN_NAME_TIME,
-                UpdateEntry.COLUMN_NAME_DISTANCE,
-                UpdateEntry.COLUMN_NAME_UNIT
-        };
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
-        Cursor c = db.query(UpdateEntry.TABLE_NAME, projection, null, null, null, null, null);
+        Cursor c = db.query(UpdateEntry.TABLE_NAME, COLUMNS, null, null, null, null, null);
         if (c != null && c.getCount() > 0) {
             while (c.moveToNext()) {
-                int date_ = c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_DATE));
-                long time = c.getLong(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_TIME));
-                int steps = c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_DISTANCE));
-                Unit unit = mUnits[c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_UNIT))];
-
-                Update update = new Update(date_, time, steps, unit);
-                updates.add(update);
+                updates.add(readUpdate(c, mUnits));
             }
         }
 
         if (c != null)
             c.close();
-        db.close();
 
         if (updates.isEmpty()) {
             callback.onDataNotAvailable();
@@ -100,36 +109,22 @@ public class UpdatesLocalDataSource implements UpdatesDataSource {
     @Override
     public void getUpdatesForDate(long date, LoadUpdatesCallback callback) {
         List<Update> updates = new ArrayList<>();
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
-        String[] projection = {
-                UpdateEntry.COLUMN_NAME_DATE,
-                UpdateEntry.COLUMN_NAME_TIME,
-                UpdateEntry.COLUMN_NAME_DISTANCE,
-                UpdateEntry.COLUMN_NAME_UNIT
-        };
-
-        String selection = UpdateEntry.COLUMN_NAME_DATE + " LIKE ?";
+        String selection = SELECTION_DATE;
         String[] selectionArgs = { String.valueOf(date) };
 
         Cursor c = db.query(
-                UpdateEntry.TABLE_NAME, projection, selection, selectionArgs, null, null, null);
+                UpdateEntry.TABLE_NAME, COLUMNS, selection, selectionArgs, null, null, null);
         if (c != null && c.getCount() > 0) {
             while (c.moveToNext()) {
-                int date_ = c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_DATE));
-                long time = c.getLong(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_TIME));
-                int steps = c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_DISTANCE));
-                Unit unit = mUnits[c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_UNIT))];
-
-                Update update = new Update(date_, time, steps, unit);
-                updates.add(update);
+                updates.add(readUpdate(c, mUnits));
             }
         }
 
         if (c != null) {
             c.close();
         }
-        db.close();
 
         if (updates.isEmpty()) {
             callback.onDataNotAvailable();
@@ -141,7 +136,7 @@ public class UpdatesLocalDataSource implements UpdatesDataSource {
 
     @Override
     public void insertUpdate(Update update) {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
 
         ContentValues values = new ContentValues();
         values.put(UpdateEntry.COLUMN_NAME_DATE, update.getDate());
@@ -152,10 +147,50 @@ public class UpdatesLocalDataSource implements UpdatesDataSource {
         db.replace(UpdateEntry.TABLE_NAME, null, values);
     }
 
+    @Override
+    public void insertUpdates(List<Update> updates) {
+        SQLiteDatabase db = mConnectionManager.getDatabase();
+        String sql = UpdatesPersistenceContract.getInsertStatement();
+        SQLiteStatement statement = db.compileStatement(sql);
+
+        List<Long> dates = new ArrayList<>(updates.size());
+        db.beginTransaction();
+        try {
+            for (Update update : updates) {
+                dates.add(update.getDate());
+                statement.clearBindings();
+                statement.bindLong(1, update.getDate());
+                statement.bindLong(2, update.getTime());
+                statement.bindDouble(3, update.getDistance());
+                statement.bindLong(4, update.getUnit().ordinal());
+                statement.executeInsert();
+            }
+            HistoryLocalDataSource.refreshTotals(db, dates);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
     @Override
     public void deleteAllUpdates() {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        SQLiteDatabase db = mConnectionManager.getDatabase();
         db.delete(UpdateEntry.TABLE_NAME, null, null);
-        db.close();
+    }
+
+    /**
+     * Reads the update at the current position of the given cursor, which must project COLUMNS.
+     *
+     * @param c the cursor positioned on an update
+     * @param units the units by ordinal
+     * @return update
+     */
+    static Update readUpdate(Cursor c, Unit[] units) {
+        int date = c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_DATE));
+        long time = c.getLong(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_TIME));
+        int steps = c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_DISTANCE));
+        Unit unit = units[c.getInt(c.getColumnIndexOrThrow(UpdateEntry.COLUMN_NAME_UNIT))];
+        return new Update(date, time, steps, unit);
     }
 }
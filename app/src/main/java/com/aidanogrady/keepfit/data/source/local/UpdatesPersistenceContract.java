@@ -21,6 +21,7 @@ class UpdatesPersistenceContract {
         static final String COLUMN_NAME_TIME = "time";
         static final String COLUMN_NAME_DISTANCE = "distance";
         static final String COLUMN_NAME_UNIT = "unit";
+        static final String INDEX_NAME_DATE = "updates_date_idx";
     }
 
 
@@ -43,6 +44,60 @@ class UpdatesPersistenceContract {
 
     }
 
+    /**
+     * Returns the statement inserting or replacing a single update. The arguments are, in order,
+     * the date, time, distance and unit.
+     *
+     * @return insert update statement
+     */
+    static String getInsertStatement() {
+        return "INSERT OR REPLACE INTO " + UpdateEntry.TABLE_NAME + " (" +
+                UpdateEntry.COLUMN_NAME_DATE +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_TIME +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_DISTANCE +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_UNIT + " ) VALUES (?, ?, ?, ?)";
+    }
+
+    /**
+     * Returns the string that forms the creation of the index on update dates. The index covers
+     * every column read when loading the updates of a day, so those loads never touch the table.
+     *
+     * @return create date index statement
+     */
+    static String getCreateDateIndex() {
+        return "CREATE INDEX IF NOT EXISTS " + UpdateEntry.INDEX_NAME_DATE + " ON " +
+                UpdateEntry.TABLE_NAME + " (" +
+                UpdateEntry.COLUMN_NAME_DATE +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_TIME +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_DISTANCE +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_UNIT + " )";
+    }
+
+    /**
+     * Returns the query summing the distance and counting the updates of each day and unit in a
+     * range of days, ordered by day. The arguments are the first and last dates of the range.
+     *
+     * @return totals query
+     */
+    static String getTotalsQuery() {
+        return "SELECT " + UpdateEntry.COLUMN_NAME_DATE +
+                DbConstants.SEP +
+                UpdateEntry.COLUMN_NAME_UNIT +
+                DbConstants.SEP +
+                "SUM(" + UpdateEntry.COLUMN_NAME_DISTANCE + ")" +
+                DbConstants.SEP +
+                "COUNT(*) FROM " + UpdateEntry.TABLE_NAME + " WHERE " +
+                UpdateEntry.COLUMN_NAME_DATE + " BETWEEN ? AND ? GROUP BY " +
+                UpdateEntry.COLUMN_NAME_DATE + DbConstants.SEP + UpdateEntry.COLUMN_NAME_UNIT +
+                " ORDER BY " + UpdateEntry.COLUMN_NAME_DATE;
+    }
+
     /**
      * Returns the string that forms the drop table statement for the update table.
      *
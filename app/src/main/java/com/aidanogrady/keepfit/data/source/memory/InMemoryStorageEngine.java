@@ -0,0 +1,617 @@
+package com.aidanogrady.keepfit.data.source.memory;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.model.Streak;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+import com.aidanogrady.keepfit.data.source.StorageEngine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A StorageEngine holding everything in maps on the heap, which runs on the plain JVM without
+ * SQLite or Android, so presenter tests and benchmarks can run thousands of scenarios a second.
+ * It answers every query as the SQLite engine does: goals by name, history most recent first
+ * joined with its goal, rollups refreshed on each write of history and streaks rebuilt from the
+ * days a goal was achieved. Nothing is kept once the engine is released.
+ *
+ * Goals and updates are copied as they are stored and read, so callers never share them. Every
+ * change made inside runInTransaction records how to undo it, and the changes are undone in
+ * reverse if the work throws.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+    /**
+     * The goals by ID.
+     */
+    private final Map<String, Goal> mGoals = new HashMap<>();
+
+    /**
+     * The IDs of the goals that have been deleted, which history still refers to.
+     */
+    private final Set<String> mDeletedGoals = new HashSet<>();
+
+    /**
+     * The history of each day, by date.
+     */
+    private final NavigableMap<Long, Day> mHistory = new TreeMap<>();
+
+    /**
+     * The rollups of each period, by their first day.
+     */
+    private final Map<Period, Map<Long, HistoryRollup>> mRollups = new EnumMap<>(Period.class);
+
+    /**
+     * The updates of each day, by date, in the order they were inserted.
+     */
+    private final NavigableMap<Long, List<Update>> mUpdates = new TreeMap<>();
+
+    /**
+     * The streak of any goal.
+     */
+    private Streak mStreak = Streak.NONE;
+
+    /**
+     * The changes made by the transaction being run, or null outside a transaction.
+     */
+    private List<Runnable> mUndoLog;
+
+
+    /**
+     * Constructs a new, empty InMemoryStorageEngine.
+     */
+    public InMemoryStorageEngine() {
+        for (Period period : Period.values()) {
+            mRollups.put(period, new HashMap<>());
+        }
+    }
+
+
+    /**
+     * Runs the given work in a single transaction. Work run inside another transaction is part of
+     * the outermost one.
+     *
+     * @param work the work to be run
+     */
+    @Override
+    public synchronized void runInTransaction(Runnable work) {
+        if (mUndoLog != null) {
+            work.run();
+            return;
+        }
+
+        mUndoLog = new ArrayList<>();
+        try {
+            work.run();
+        } catch (RuntimeException | Error e) {
+            for (int i = mUndoLog.size() - 1; i >= 0; i--) {
+                mUndoLog.get(i).run();
+            }
+            throw e;
+        } finally {
+            mUndoLog = null;
+        }
+    }
+
+    @Override
+    public synchronized void getGoals(LoadGoalsCallback callback) {
+        List<Goal> goals = new ArrayList<>();
+        for (Goal goal : mGoals.values()) {
+            if (!mDeletedGoals.contains(goal.getId())) {
+                goals.add(copy(goal));
+            }
+        }
+        Collections.sort(goals, (a, b) -> a.getName().compareTo(b.getName()));
+
+        if (goals.isEmpty()) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onGoalsLoaded(goals);
+        }
+    }
+
+    @Override
+    public synchronized void getGoal(String id, boolean deleted, GetGoalCallback callback) {
+        Goal goal = mGoals.get(id);
+        if (goal == null || (!deleted && mDeletedGoals.contains(id))) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onGoalLoaded(copy(goal));
+        }
+    }
+
+    @Override
+    public synchronized void insertGoal(Goal goal) {
+        if (mGoals.containsKey(goal.getId())) {
+            throw new IllegalArgumentException("Goal already exists: " + goal.getId());
+        }
+        put(mGoals, goal.getId(), copy(goal));
+    }
+
+    @Override
+    public synchronized void updateGoal(Goal goal, String oldId) {
+        if (!mGoals.containsKey(oldId)) {
+            return;
+        }
+        // As in the goal table, the goal keeps its ID
+        Goal updated = new Goal(oldId, goal.getName(), goal.getDistance(), goal.getUnit(),
+                goal.getLastAchieved(), goal.getStreak().getCurrent(),
+                goal.getStreak().getLongest());
+        put(mGoals, oldId, updated);
+        remove(mDeletedGoals, oldId);
+    }
+
+    @Override
+    public void refreshGoals() {
+        // Logic handled by repository
+    }
+
+    @Override
+    public synchronized void deleteAllGoals() {
+        clear(mGoals);
+        clear(mDeletedGoals);
+    }
+
+    @Override
+    public synchronized void deleteGoal(String id) {
+        if (mGoals.containsKey(id)) {
+            add(mDeletedGoals, id);
+        }
+    }
+
+    @Override
+    public void getHistory(LoadHistoryCallback callback) {
+        getHistory(HistoryFilter.ALL, 0, callback);
+    }
+
+    @Override
+    public void getHistory(HistoryFilter filter, LoadHistoryCallback callback) {
+        getHistory(filter, 0, callback);
+    }
+
+    @Override
+    public synchronized void getHistory(HistoryFilter filter, int limit,
+                                        LoadHistoryCallback callback) {
+        List<History> histories = new ArrayList<>();
+        if (filter.getStartDate() > filter.getEndDate()) {
+            callback.onDataNotAvailable();
+            return;
+        }
+        NavigableMap<Long, Day> days = mHistory.subMap(filter.getStartDate(), true,
+                filter.getEndDate(), true).descendingMap();
+        for (Map.Entry<Long, Day> entry : days.entrySet()) {
+            History history = summary(entry.getKey(), entry.getValue());
+            if (filter.matches(history)) {
+                histories.add(history);
+                if (histories.size() == limit) {
+                    break;
+                }
+            }
+        }
+
+        if (histories.isEmpty()) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onHistoryLoaded(histories);
+        }
+    }
+
+    @Override
+    public synchronized void getHistory(long date, GetHistoryCallback callback) {
+        Day day = mHistory.get(date);
+        if (day == null) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onHistoryLoaded(summary(date, day));
+        }
+    }
+
+    @Override
+    public synchronized void getRollup(Period period, long date, GetRollupCallback callback) {
+        HistoryRollup rollup = mRollups.get(period).get(period.getStartDate(date));
+        if (rollup == null) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onRollupLoaded(rollup);
+        }
+    }
+
+    @Override
+    public synchronized void rebuildRollups() {
+        for (Period period : Period.values()) {
+            clear(mRollups.get(period));
+        }
+        refreshRollups(mHistory.keySet());
+    }
+
+    @Override
+    public synchronized void getStreak(GetStreakCallback callback) {
+        callback.onStreakLoaded(mStreak);
+    }
+
+    @Override
+    public synchronized void extendStreak(long date) {
+        setStreak(mStreak.extend(date));
+    }
+
+    @Override
+    public synchronized void rebuildStreaks() {
+        Map<String, Streak> goalStreaks = new HashMap<>();
+        Streak streak = Streak.NONE;
+        for (Map.Entry<Long, Day> entry : mHistory.entrySet()) {
+            Day day = entry.getValue();
+            Goal goal = (day.mGoalId != null) ? mGoals.get(day.mGoalId) : null;
+            if (goal == null || day.mDistance < goal.getDistance()) {
+                continue;
+            }
+            long date = entry.getKey();
+            Streak goalStreak = goalStreaks.get(goal.getId());
+            if (goalStreak == null) {
+                goalStreak = Streak.NONE;
+            }
+            goalStreaks.put(goal.getId(), goalStreak.extend(date));
+            streak = streak.extend(date);
+        }
+
+        for (Goal goal : new ArrayList<>(mGoals.values())) {
+            Streak goalStreak = goalStreaks.get(goal.getId());
+            if (goalStreak == null) {
+                goalStreak = Streak.NONE;
+            }
+            // As in the goal table, a later day last achieved than the history shows is kept
+            long lastAchieved = Math.max(goal.getLastAchieved(), goalStreak.getLastDate());
+            Goal updated = copy(goal);
+            updated.setStreak(new Streak(lastAchieved, goalStreak.getCurrent(),
+                    goalStreak.getLongest()));
+            put(mGoals, goal.getId(), updated);
+        }
+        setStreak(streak);
+    }
+
+    @Override
+    public synchronized void insertHistory(History history) {
+        put(mHistory, history.getDate(), new Day(history));
+        refreshRollups(Collections.singletonList(history.getDate()));
+    }
+
+    @Override
+    public synchronized void insertHistories(List<History> histories) {
+        List<Long> dates = new ArrayList<>(histories.size());
+        for (History history : histories) {
+            put(mHistory, history.getDate(), new Day(history));
+            dates.add(history.getDate());
+        }
+        refreshRollups(dates);
+    }
+
+    @Override
+    public void refreshHistory() {
+        // No need to do anything, Repository handles this.
+    }
+
+    @Override
+    public synchronized void deleteAllHistory() {
+        clear(mHistory);
+        for (Period period : Period.values()) {
+            clear(mRollups.get(period));
+        }
+        setStreak(Streak.NONE);
+    }
+
+    @Override
+    public synchronized void deleteHistory(long date) {
+        if (mHistory.containsKey(date)) {
+            put(mHistory, date, null);
+        }
+        refreshRollups(Collections.singletonList(date));
+    }
+
+    @Override
+    public synchronized void getUpdates(LoadUpdatesCallback callback) {
+        List<Update> updates = new ArrayList<>();
+        for (List<Update> day : mUpdates.values()) {
+            for (Update update : day) {
+                updates.add(copy(update));
+            }
+        }
+        deliver(updates, callback);
+    }
+
+    @Override
+    public synchronized void getUpdatesForDate(long date, LoadUpdatesCallback callback) {
+        List<Update> updates = new ArrayList<>();
+        List<Update> day = mUpdates.get(date);
+        if (day != null) {
+            for (Update update : day) {
+                updates.add(copy(update));
+            }
+        }
+        deliver(updates, callback);
+    }
+
+    @Override
+    public synchronized void insertUpdate(Update update) {
+        List<Update> day = mUpdates.get(update.getDate());
+        if (day == null) {
+            day = new ArrayList<>();
+            put(mUpdates, update.getDate(), day);
+        }
+        day.add(copy(update));
+        List<Update> inserted = day;
+        record(() -> inserted.remove(inserted.size() - 1));
+    }
+
+    @Override
+    public synchronized void insertUpdates(List<Update> updates) {
+        Set<Long> dates = new HashSet<>();
+        for (Update update : updates) {
+            insertUpdate(update);
+            dates.add(update.getDate());
+        }
+
+        // As in the SQLite engine, the totals of each day's history follow its updates
+        for (long date : dates) {
+            Day day = mHistory.get(date);
+            if (day == null) {
+                continue;
+            }
+            double metres = 0;
+            List<Update> dayUpdates = mUpdates.get(date);
+            for (Update update : dayUpdates) {
+                metres += UnitsConverter.convert(Unit.METRES, update.getUnit(),
+                        update.getDistance());
+            }
+            put(mHistory, date, new Day(day.mGoalId, day.mDistance, metres, dayUpdates.size()));
+        }
+        refreshRollups(dates);
+    }
+
+    @Override
+    public synchronized void deleteAllUpdates() {
+        clear(mUpdates);
+    }
+
+    /**
+     * Computes the rollups of every period containing one of the given days again from the days
+     * of that period, as the SQLite engine does on each write of history.
+     *
+     * @param dates the days written
+     */
+    private void refreshRollups(Iterable<Long> dates) {
+        for (Period period : Period.values()) {
+            Map<Long, HistoryRollup> rollups = mRollups.get(period);
+            Set<Long> refreshed = new HashSet<>();
+            for (long date : dates) {
+                long startDate = period.getStartDate(date);
+                if (refreshed.add(startDate)) {
+                    put(rollups, startDate, rollup(period, startDate));
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the rollup of the period starting on the given day. The best day is the first with
+     * the greatest total, and a day is completed once its distance reaches its goal.
+     *
+     * @param period the period
+     * @param startDate the first day of the period
+     * @return rollup, or null if the period has no history
+     */
+    private HistoryRollup rollup(Period period, long startDate) {
+        NavigableMap<Long, Day> days = mHistory.subMap(startDate, true,
+                period.getEndDate(startDate), true);
+        if (days.isEmpty()) {
+            return null;
+        }
+
+        double totalMetres = 0;
+        int daysActive = 0;
+        int daysCompleted = 0;
+        long bestDate = days.firstKey();
+        double bestMetres = days.firstEntry().getValue().mTotalMetres;
+        for (Map.Entry<Long, Day> entry : days.entrySet()) {
+            Day day = entry.getValue();
+            totalMetres += day.mTotalMetres;
+            if (day.mTotalMetres > 0) {
+                daysActive++;
+            }
+            if (summary(entry.getKey(), day).getPercentage() >= 100) {
+                daysCompleted++;
+            }
+            if (day.mTotalMetres > bestMetres) {
+                bestDate = entry.getKey();
+                bestMetres = day.mTotalMetres;
+            }
+        }
+        return new HistoryRollup(period, startDate, totalMetres, daysActive, daysCompleted,
+                bestDate, bestMetres);
+    }
+
+    /**
+     * Returns the summary of the given day joined with its goal, whether or not the goal has been
+     * deleted.
+     *
+     * @param date the date of the day
+     * @param day the day
+     * @return history summary
+     */
+    private History summary(long date, Day day) {
+        Goal goal = (day.mGoalId != null) ? mGoals.get(day.mGoalId) : null;
+        return History.summary(date, (goal != null) ? copy(goal) : null, day.mDistance,
+                day.mTotalMetres, day.mUpdateCount);
+    }
+
+    /**
+     * Sets the streak of any goal.
+     *
+     * @param streak the streak
+     */
+    private void setStreak(Streak streak) {
+        Streak previous = mStreak;
+        mStreak = streak;
+        record(() -> mStreak = previous);
+    }
+
+    /**
+     * Records how to undo a change if a transaction is being run.
+     *
+     * @param undo the work undoing the change
+     */
+    private void record(Runnable undo) {
+        if (mUndoLog != null) {
+            mUndoLog.add(undo);
+        }
+    }
+
+    /**
+     * Maps the given key to the given value, or removes it if the value is null.
+     *
+     * @param map the map changed
+     * @param key the key
+     * @param value the value, or null to remove the key
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private <K, V> void put(Map<K, V> map, K key, V value) {
+        boolean existed = map.containsKey(key);
+        V previous = (value != null) ? map.put(key, value) : map.remove(key);
+        record(() -> {
+            if (existed) {
+                map.put(key, previous);
+            } else {
+                map.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Removes every entry of the given map.
+     *
+     * @param map the map cleared
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private <K, V> void clear(Map<K, V> map) {
+        Map<K, V> previous = new HashMap<>(map);
+        map.clear();
+        record(() -> map.putAll(previous));
+    }
+
+    /**
+     * Adds the given element to the set.
+     *
+     * @param set the set changed
+     * @param element the element
+     * @param <E> the type of the element
+     */
+    private <E> void add(Set<E> set, E element) {
+        if (set.add(element)) {
+            record(() -> set.remove(element));
+        }
+    }
+
+    /**
+     * Removes the given element from the set.
+     *
+     * @param set the set changed
+     * @param element the element
+     * @param <E> the type of the element
+     */
+    private <E> void remove(Set<E> set, E element) {
+        if (set.remove(element)) {
+            record(() -> set.add(element));
+        }
+    }
+
+    /**
+     * Removes every element of the given set.
+     *
+     * @param set the set cleared
+     * @param <E> the type of the elements
+     */
+    private <E> void clear(Set<E> set) {
+        Set<E> previous = new HashSet<>(set);
+        set.clear();
+        record(() -> set.addAll(previous));
+    }
+
+    /**
+     * Returns a copy of the given goal.
+     *
+     * @param goal the goal
+     * @return copy
+     */
+    private static Goal copy(Goal goal) {
+        return new Goal(goal.getId(), goal.getName(), goal.getDistance(), goal.getUnit(),
+                goal.getLastAchieved(), goal.getStreak().getCurrent(),
+                goal.getStreak().getLongest());
+    }
+
+    /**
+     * Returns a copy of the given update.
+     *
+     * @param update the update
+     * @return copy
+     */
+    private static Update copy(Update update) {
+        return new Update(update.getDate(), update.getTime(), update.getDistance(),
+                update.getUnit());
+    }
+
+    /**
+     * Delivers the given updates to the callback.
+     *
+     * @param updates the updates loaded
+     * @param callback the callback
+     */
+    private static void deliver(List<Update> updates, LoadUpdatesCallback callback) {
+        if (updates.isEmpty()) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onUpdatesLoaded(updates);
+        }
+    }
+
+
+    /**
+     * The stored summary of a day of history, which refers to its goal by ID.
+     */
+    private static final class Day {
+        final String mGoalId;
+
+        final double mDistance;
+
+        final double mTotalMetres;
+
+        final int mUpdateCount;
+
+        Day(History history) {
+            this((history.getGoal() != null) ? history.getGoal().getId() : null,
+                    history.getDistance(), history.getTotalMetres(), history.getUpdateCount());
+        }
+
+        Day(String goalId, double distance, double totalMetres, int updateCount) {
+            mGoalId = goalId;
+            mDistance = distance;
+            mTotalMetres = totalMetres;
+            mUpdateCount = updateCount;
+        }
+    }
+}
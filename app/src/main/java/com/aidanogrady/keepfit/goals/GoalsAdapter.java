@@ -9,13 +9,18 @@ import android.widget.TextView;
 
 import com.aidanogrady.keepfit.R;
 import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.util.AppExecutors;
+import com.aidanogrady.keepfit.util.ListDiffer;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.UUID;
 
 /**
  * The GoalsAdapter adapts the RecyclerView for displaying Goals, handling the refreshing of the
- * view when changes are made.
+ * view when changes are made. Only the goals that changed are bound again, each goal keeping a
+ * stable ID derived from its UUID.
  *
  * @author Aidan O'Grady
  * @since 0.9
@@ -24,7 +29,7 @@ class GoalsAdapter extends RecyclerView.Adapter<GoalsAdapter.GoalsViewHolder> {
     /**
      * The list of goals to be displayed.
      */
-    private List<Goal> mGoals;
+    private final ListDiffer<Goal> mGoals;
 
     /**
      * The listener for when a goal is clicked.
@@ -33,34 +38,53 @@ class GoalsAdapter extends RecyclerView.Adapter<GoalsAdapter.GoalsViewHolder> {
 
 
     /**
-     * Constructs a new GoalsAdapter with the given list of goals.
+     * Constructs a new GoalsAdapter, with no goals until replaceData is called.
      *
-     * @param goals the goals to be adapted
      * @param listener the listener
+     * @param appExecutors the executors changes to the list are diffed through
      */
-    GoalsAdapter(List<Goal> goals, GoalsFragment.GoalItemListener listener) {
-        setList(goals);
+    GoalsAdapter(GoalsFragment.GoalItemListener listener, AppExecutors appExecutors) {
+        this.mGoals = new ListDiffer<>(this, new ListDiffer.ItemCallback<Goal>() {
+            @Override
+            public long getItemId(Goal goal) {
+                return getGoalItemId(goal.getId());
+            }
+
+            @Override
+            public Object getContents(Goal goal) {
+                return Arrays.asList(goal.getName(), goal.getLastAchieved(), goal.getDistance(),
+                        goal.getUnit());
+            }
+        }, appExecutors);
         this.mGoalItemListener = listener;
+        setHasStableIds(true);
     }
 
 
     /**
-     * Replaces the current list of goals with the given list of goals.
+     * Replaces the current list of goals with the given list of goals, notifying only the goals
+     * that changed.
      *
      * @param goals the list of goals to replace existing
      */
     void replaceData(List<Goal> goals) {
-        setList(goals);
+        if (goals != null) {
+            mGoals.submitList(goals);
+        }
     }
 
     /**
-     * Sets the list of goals to the given list of goals.
+     * Returns the stable item ID of the goal with the given ID, folding its UUID into 64 bits.
      *
-     * @param goals list of goals
+     * @param goalId the ID of the goal
+     * @return item ID
      */
-    private void setList(List<Goal> goals) {
-        if (goals != null) {
-            mGoals = goals;
+    private static long getGoalItemId(String goalId) {
+        try {
+            UUID uuid = UUID.fromString(goalId);
+            return uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        } catch (IllegalArgumentException e) {
+            return goalId.hashCode();
         }
     }
 
@@ -106,6 +130,11 @@ class GoalsAdapter extends RecyclerView.Adapter<GoalsAdapter.GoalsViewHolder> {
         return mGoals.size();
     }
 
+    @Override
+    public long getItemId(int position) {
+        return mGoals.getItemId(position);
+    }
+
 
     /**
      * The ViewHolder for a singular goal.
@@ -16,8 +16,8 @@ import com.aidanogrady.keepfit.R;
 import com.aidanogrady.keepfit.addeditgoal.AddEditGoalActivity;
 import com.aidanogrady.keepfit.data.model.Goal;
 import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
+import com.aidanogrady.keepfit.util.AppExecutors;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -63,7 +63,7 @@ public class GoalsFragment extends Fragment implements GoalsContract.View {
         super.onCreate(savedInstanceState);
 
         GoalItemListener mGoalItemListener = new ActiveGoalItemListener();
-        mAdapter = new GoalsAdapter(new ArrayList<>(), mGoalItemListener);
+        mAdapter = new GoalsAdapter(mGoalItemListener, AppExecutors.getInstance());
     }
 
     @Override
@@ -90,14 +90,14 @@ public class GoalsFragment extends Fragment implements GoalsContract.View {
     @Override
     public void onResume() {
         super.onResume();
-        mPresenter.loadGoals(true);
+        mPresenter.loadGoals(false);
     }
 
     @Override
     public void setUserVisibleHint(boolean isVisibleToUser) {
         super.setUserVisibleHint(isVisibleToUser);
         if (isVisibleToUser) {
-            mPresenter.loadGoals(true);
+            mPresenter.loadGoals(false);
         }
     }
 
@@ -109,7 +109,6 @@ public class GoalsFragment extends Fragment implements GoalsContract.View {
     @Override
     public void showGoals(List<Goal> goals) {
         mAdapter.replaceData(goals);
-        mAdapter.notifyDataSetChanged();
         mGoalsView.setVisibility(View.VISIBLE);
         mNoGoalsView.setVisibility(View.GONE);
     }
@@ -6,6 +6,8 @@ import com.aidanogrady.keepfit.data.model.Goal;
 import com.aidanogrady.keepfit.data.source.GoalsDataSource;
 import com.aidanogrady.keepfit.data.source.GoalsRepository;
 import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.metrics.Timer;
 
 import java.util.List;
 
@@ -16,6 +18,11 @@ import java.util.List;
  * @since 0.3
  */
 public class GoalsPresenter implements GoalsContract.Presenter {
+    /**
+     * Times loading the goals, until they are ready to be shown.
+     */
+    private static final Timer LOAD_GOALS = Metrics.timer("GoalsPresenter.loadGoals");
+
     /**
      * The goals repository to retrieve goals from.
      */
@@ -36,11 +43,12 @@ public class GoalsPresenter implements GoalsContract.Presenter {
 
     @Override
     public void start() {
-        loadGoals(true);
+        loadGoals(false);
     }
 
     @Override
     public void loadGoals(boolean forceUpdate) {
+        long start = LOAD_GOALS.start();
         if (forceUpdate) {
             mGoalsRepository.refreshGoals();
         }
@@ -48,6 +56,7 @@ public class GoalsPresenter implements GoalsContract.Presenter {
         mGoalsRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
             @Override
             public void onGoalsLoaded(List<Goal> goals) {
+                LOAD_GOALS.stop(start);
                 if (goals.isEmpty()) {
                     mGoalsView.showNoGoals();
                 } else {
@@ -57,6 +66,7 @@ public class GoalsPresenter implements GoalsContract.Presenter {
 
             @Override
             public void onDataNotAvailable() {
+                LOAD_GOALS.stop(start);
                 if (mGoalsView.isActive()) {
                     mGoalsView.showLoadingGoalsError();
                 }
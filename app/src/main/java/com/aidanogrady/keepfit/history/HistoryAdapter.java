@@ -1,6 +1,7 @@
 package com.aidanogrady.keepfit.history;
 
 import android.content.Context;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,55 +11,142 @@ import android.widget.Filterable;
 import android.widget.TextView;
 
 import com.aidanogrady.keepfit.R;
-import com.aidanogrady.keepfit.data.model.Goal;
-import com.aidanogrady.keepfit.data.model.History;
 import com.aidanogrady.keepfit.history.HistoryAdapter.HistoryViewHolder;
-
-import org.threeten.bp.LocalDate;
-
-import java.util.List;
-import java.util.Locale;
+import com.aidanogrady.keepfit.util.AppExecutors;
+import com.aidanogrady.keepfit.util.ListSnapshot;
 
 /**
- * The Adapter for the list of history items.
+ * The Adapter for the list of history items. Each day keeps a stable ID from its date, and when
+ * the list is replaced only the days that changed are bound again.
  *
  * @author Aidan O'Grady
  * @since 0.9
  */
 class HistoryAdapter extends RecyclerView.Adapter<HistoryViewHolder> implements Filterable {
     /**
-     * The list of history to be displayed.
+     * The paged list of history to be displayed, or null if there is none yet.
+     */
+    private PagedHistoryList mHistory;
+
+    /**
+     * The number of items the RecyclerView has been notified of. Changes to the list are posted
+     * so they are never notified during a layout, so the list may be ahead of this count.
+     */
+    private int mItemCount;
+
+    /**
+     * The executors changes to the list are posted and diffed through.
+     */
+    private final AppExecutors mAppExecutors;
+
+    /**
+     * Incremented for every list replacing the current one, so a diff finished after a newer list
+     * was given is dropped.
      */
-    private List<History> mHistory;
+    private int mGeneration;
+
+    /**
+     * Notifies the RecyclerView of changes to the list once the current layout has finished.
+     */
+    private final PagedHistoryList.Listener mListener = new PagedHistoryList.Listener() {
+        @Override
+        public void onItemRangeInserted(int start, int count) {
+            PagedHistoryList history = mHistory;
+            mAppExecutors.mainThread().execute(() -> {
+                if (history == mHistory) {
+                    mItemCount += count;
+                    notifyItemRangeInserted(start, count);
+                }
+            });
+        }
+
+        @Override
+        public void onItemRangeChanged(int start, int count) {
+            PagedHistoryList history = mHistory;
+            mAppExecutors.mainThread().execute(() -> {
+                if (history == mHistory) {
+                    notifyItemRangeChanged(start, count);
+                }
+            });
+        }
+    };
 
 
     /**
-     * Constricts a mew HistoryAdapter for the given list of history.
+     * Constricts a mew HistoryAdapter, with no history until replaceData is called.
      *
-     * @param history the history to be adapted
+     * @param appExecutors the executors changes to the list are posted and diffed through
      */
-    HistoryAdapter(List<History> history) {
-        setList(history);
+    HistoryAdapter(AppExecutors appExecutors) {
+        mAppExecutors = appExecutors;
+        setHasStableIds(true);
     }
 
     /**
-     * Replaces the current list of history with the given list of history.
+     * Replaces the current list of history with the given paged list of history. The rows shown
+     * are diffed against the new list on the disk executor and only the days that changed are
+     * notified. If the current list grew while the diff was calculated, every row is notified.
      *
-     * @param history the list of history to replace existing
+     * @param history the paged list of history to replace existing
      */
-    void replaceData(List<History> history) {
-        setList(history);
+    void replaceData(PagedHistoryList history) {
+        int generation = ++mGeneration;
+        if (mHistory == null || mItemCount == 0) {
+            setHistory(history);
+            notifyDataSetChanged();
+            return;
+        }
+
+        PagedHistoryList oldHistory = mHistory;
+        ListSnapshot oldSnapshot = snapshot(oldHistory, mItemCount);
+        ListSnapshot newSnapshot = snapshot(history, history.size());
+        mAppExecutors.diskIO().execute(() -> {
+            DiffUtil.DiffResult result = ListSnapshot.diff(oldSnapshot, newSnapshot);
+            mAppExecutors.mainThread().execute(() -> {
+                if (generation != mGeneration) {
+                    return;
+                }
+                boolean unchanged = mHistory == oldHistory && mItemCount == oldSnapshot.size();
+                setHistory(history);
+                if (unchanged) {
+                    result.dispatchUpdatesTo(this);
+                } else {
+                    notifyDataSetChanged();
+                }
+            });
+        });
     }
 
     /**
-     * Sets the list of history to the given list of history.
+     * Sets the paged list of history shown, moving the listener to it.
      *
-     * @param history list of history
+     * @param history the paged list of history
      */
-    private void setList(List<History> history) {
-        if (history != null) {
-            mHistory = history;
+    private void setHistory(PagedHistoryList history) {
+        if (mHistory != null) {
+            mHistory.setListener(null);
         }
+        mHistory = history;
+        mItemCount = history.size();
+        history.setListener(mListener);
+    }
+
+    /**
+     * Takes a snapshot of the first rows of the given list. Rows whose page has been released
+     * have no contents, so they are always bound again.
+     *
+     * @param history the paged list of history
+     * @param count the number of rows
+     * @return snapshot of the rows
+     */
+    private static ListSnapshot snapshot(PagedHistoryList history, int count) {
+        long[] ids = new long[count];
+        Object[] contents = new Object[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = history.getDate(i);
+            contents[i] = history.get(i);
+        }
+        return new ListSnapshot(ids, contents);
     }
 
     @Override
@@ -71,34 +159,39 @@ class HistoryAdapter extends RecyclerView.Adapter<HistoryViewHolder> implements
 
     @Override
     public void onBindViewHolder(HistoryViewHolder holder, int position) {
-        History history = mHistory.get(position);
-        Goal goal = history.getGoal();
-
-        LocalDate localDate = LocalDate.ofEpochDay(history.getDate());
-        holder.dateTextView.setText(localDate.toString());
-
-        if (goal != null) {
-            holder.iconTextView.setText(Character.toString(goal.getName().charAt(0)));
-            holder.goalTextView.setText(goal.getName());
-
-            holder.stepsTextView.setText(String.format(Locale.getDefault(), "%.2f / %.2f %s",
-                    history.getDistance(),
-                    goal.getDistance(),
-                    goal.getUnit().toString()));
+        mHistory.loadAround(position);
+        HistoryRowModel row = mHistory.get(position);
+        if (row == null) {
+            // The page is being loaded again, the row is bound once it has been
+            holder.iconTextView.setText("");
+            holder.dateTextView.setText("");
+            holder.goalTextView.setText("");
+            holder.stepsTextView.setText("");
+            holder.percentageTextView.setText("");
+            return;
+        }
 
-            holder.percentageTextView.setText(String.format(Locale.getDefault(), "%.2f %%",
-                    history.getDistance() * 100 / goal.getDistance()));
+        // Everything is formatted by the row model, so binding allocates nothing
+        holder.iconTextView.setText(row.getIconText());
+        holder.dateTextView.setText(row.getDateText());
+        String goalText = row.getGoalText();
+        if (goalText != null) {
+            holder.goalTextView.setText(goalText);
         } else {
-            holder.goalTextView.setText(R.string.goal_not_found);
-            holder.percentageTextView.setText("?? %");
-            holder.stepsTextView.setText(String.format(Locale.getDefault(), "%.2f",
-                    history.getDistance()));
+            holder.goalTextView.setText(holder.goalNotFoundText);
         }
+        holder.stepsTextView.setText(row.getProgressText());
+        holder.percentageTextView.setText(row.getPercentageText());
     }
 
     @Override
     public int getItemCount() {
-        return mHistory.size();
+        return mItemCount;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mHistory.getDate(position);
     }
 
     @Override
@@ -136,6 +229,11 @@ class HistoryAdapter extends RecyclerView.Adapter<HistoryViewHolder> implements
          */
         TextView percentageTextView;
 
+        /**
+         * The text shown in place of the goal name for a day without a goal, loaded once.
+         */
+        final CharSequence goalNotFoundText;
+
         /**
          * Constricts a new HistoryViewHolder.
          *
@@ -148,6 +246,7 @@ class HistoryAdapter extends RecyclerView.Adapter<HistoryViewHolder> implements
             goalTextView = (TextView) itemView.findViewById(R.id.history_goal);
             stepsTextView = (TextView) itemView.findViewById(R.id.history_steps);
             percentageTextView = (TextView) itemView.findViewById(R.id.history_percentage);
+            goalNotFoundText = itemView.getContext().getText(R.string.goal_not_found);
         }
     }
 }
@@ -2,9 +2,6 @@ package com.aidanogrady.keepfit.history;
 
 import com.aidanogrady.keepfit.base.BasePresenter;
 import com.aidanogrady.keepfit.base.BaseView;
-import com.aidanogrady.keepfit.data.model.History;
-
-import java.util.List;
 
 /**
  * The HistoryContract defines a specification between view and presenter of the app history.
@@ -18,11 +15,11 @@ class HistoryContract {
      */
     interface View extends BaseView<Presenter> {
         /**
-         * Shows the given list of history.
+         * Shows the given paged list of history.
          *
          * @param history the history to be shown
          */
-        void showHistory(List<History> history);
+        void showHistory(PagedHistoryList history);
 
         /**
          * Shows the history filter.
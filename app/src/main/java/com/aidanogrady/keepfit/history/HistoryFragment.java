@@ -16,11 +16,8 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.aidanogrady.keepfit.R;
-import com.aidanogrady.keepfit.data.model.History;
 import com.aidanogrady.keepfit.filters.history.HistoryFilterActivity;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.aidanogrady.keepfit.util.AppExecutors;
 
 /**
  * Displays the history stored in the data source to the user. The history cannot be modified from
@@ -73,7 +70,7 @@ public class HistoryFragment extends Fragment implements HistoryContract.View {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mAdapter = new HistoryAdapter(new ArrayList<>());
+        mAdapter = new HistoryAdapter(AppExecutors.getInstance());
         setHasOptionsMenu(true);
     }
 
@@ -115,14 +112,14 @@ public class HistoryFragment extends Fragment implements HistoryContract.View {
     @Override
     public void onResume() {
         super.onResume();
-        mPresenter.loadHistory(true);
+        mPresenter.loadHistory(false);
     }
 
     @Override
     public void setUserVisibleHint(boolean isVisibleToUser) {
         super.setUserVisibleHint(isVisibleToUser);
         if (isVisibleToUser) {
-            mPresenter.loadHistory(true);
+            mPresenter.loadHistory(false);
         }
     }
 
@@ -132,9 +129,8 @@ public class HistoryFragment extends Fragment implements HistoryContract.View {
     }
 
     @Override
-    public void showHistory(List<History> history) {
+    public void showHistory(PagedHistoryList history) {
         mAdapter.replaceData(history);
-        mAdapter.notifyDataSetChanged();
         mHistoryView.setVisibility(View.VISIBLE);
         mNoHistoryView.setVisibility(View.GONE);
     }
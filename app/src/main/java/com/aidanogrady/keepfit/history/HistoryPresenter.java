@@ -4,14 +4,16 @@ import android.content.Context;
 
 import com.aidanogrady.keepfit.data.model.Goal;
 import com.aidanogrady.keepfit.data.model.History;
-import com.aidanogrady.keepfit.data.model.HistoryDateFilter;
-import com.aidanogrady.keepfit.data.model.HistoryGoalFilter;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
 import com.aidanogrady.keepfit.data.model.units.Unit;
 import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
 import com.aidanogrady.keepfit.data.source.HistoryDataSource;
 import com.aidanogrady.keepfit.data.source.HistoryRepository;
 import com.aidanogrady.keepfit.data.source.PreferenceRepository;
 import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.metrics.Timer;
+import com.aidanogrady.keepfit.util.AppExecutors;
 
 import org.threeten.bp.LocalDate;
 
@@ -26,11 +28,21 @@ import java.util.List;
  * @since 0.4
  */
 public class HistoryPresenter implements HistoryContract.Presenter {
+    /**
+     * Times loading the first page of history, until its rows are ready to be shown.
+     */
+    private static final Timer LOAD_HISTORY = Metrics.timer("HistoryPresenter.loadHistory");
+
     /**
      * The history repository to retrieve history from.
      */
     private final HistoryRepository mHistoryRepository;
 
+    /**
+     * The executors the rows of the list are built through.
+     */
+    private final AppExecutors mAppExecutors;
+
     /**
      * The goals view.
      */
@@ -38,7 +50,20 @@ public class HistoryPresenter implements HistoryContract.Presenter {
 
 
     public HistoryPresenter(Context context, HistoryContract.View historyView) {
-        this.mHistoryRepository = HistoryRepository.getInstance(context);
+        this(HistoryRepository.getInstance(context), AppExecutors.getInstance(), historyView);
+    }
+
+    /**
+     * Constructs a new HistoryPresenter with the given repository and executors.
+     *
+     * @param historyRepository the history repository
+     * @param appExecutors the executors the rows of the list are built through
+     * @param historyView the history view
+     */
+    HistoryPresenter(HistoryRepository historyRepository, AppExecutors appExecutors,
+                     HistoryContract.View historyView) {
+        this.mHistoryRepository = historyRepository;
+        this.mAppExecutors = appExecutors;
         this.mHistoryView = historyView;
         this.mHistoryView.setPresenter(this);
     }
@@ -46,150 +71,147 @@ public class HistoryPresenter implements HistoryContract.Presenter {
 
     @Override
     public void start() {
-        loadHistory(true);
+        loadHistory(false);
     }
 
     @Override
     public void loadHistory(boolean forceUpdate) {
+        long start = LOAD_HISTORY.start();
         if (forceUpdate) {
             mHistoryRepository.refreshHistory();
         }
 
-        mHistoryRepository.getHistory(new HistoryDataSource.LoadHistoryCallback() {
+        HistoryFilter filter = createFilter();
+        PagedHistoryList.PageLoader loader = (beforeDate, limit, callback) ->
+                mHistoryRepository.getHistory(filter.before(beforeDate), limit,
+                        new HistoryDataSource.LoadHistoryCallback() {
+                            @Override
+                            public void onHistoryLoaded(List<History> histories) {
+                                loadRows(histories, callback);
+                            }
+
+                            @Override
+                            public void onDataNotAvailable() {
+                                callback.onDataNotAvailable();
+                            }
+                        });
+
+        PagedHistoryList.PageCallback firstPageCallback = new PagedHistoryList.PageCallback() {
             @Override
-            public void onHistoryLoaded(List<History> histories) {
-                histories = getFilteredHistory(histories);
-                if (histories.isEmpty()) {
-                    mHistoryView.showNoHistory();
-                } else {
-                    mHistoryView.showHistory(histories);
-                }
+            public void onPageLoaded(List<HistoryRowModel> rows) {
+                LOAD_HISTORY.stop(start);
+                mHistoryView.showHistory(new PagedHistoryList(loader, rows));
             }
 
             @Override
             public void onDataNotAvailable() {
+                LOAD_HISTORY.stop(start);
                 mHistoryView.showNoHistory();
-                if (mHistoryView.isActive()) {
+                // No history matching a filter is not an error
+                if (mHistoryView.isActive() && filter.isUnfiltered()) {
                     mHistoryView.showLoadingHistoryError();
                 }
             }
-        });
+        };
+
+        // Only the first page is loaded here, the list loads the rest as it is scrolled
+        loader.loadPage(Long.MAX_VALUE, PagedHistoryList.PAGE_SIZE, firstPageCallback);
     }
 
     /**
-     * Returns the filtered list of history given.
+     * Builds the rows of the given history on the disk executor, converted to the display unit if
+     * one is set, and gives them to the callback on the main thread. Every row is formatted here
+     * so that binding them allocates nothing.
      *
-     * @param histories the history list to be filtered
-     * @return the filtered list
+     * @param histories the history of the page
+     * @param callback the callback given the rows
      */
-    private List<History> getFilteredHistory(List<History> histories) {
-        histories = filterGoal(histories);
-        histories = filterDate(histories);
-
-        // Handle unit conversion
+    private void loadRows(List<History> histories, PagedHistoryList.PageCallback callback) {
         Unit unit = SharedPreferencesRepository.getHistoryDisplayUnit();
-        if (unit != null) {
-            histories.stream()
-                    .forEachOrdered(history -> history = convertHistory(history, unit));
-        }
-        return histories;
+        mAppExecutors.diskIO().execute(() -> {
+            List<HistoryRowModel> rows = new ArrayList<>(histories.size());
+            for (History history : histories) {
+                if (unit != null) {
+                    history = convertHistory(history, unit);
+                }
+                rows.add(HistoryRowModel.from(history));
+            }
+            mAppExecutors.mainThread().execute(() -> callback.onPageLoaded(rows));
+        });
     }
 
     /**
-     * Converts the given history object to be a certain unit.
+     * Returns a copy of the given history converted to be a certain unit. The history itself is
+     * left unchanged, as it is shared with the repository's cache. Package-private so the
+     * benchmarks can run the same conversion.
+     *
+     * The distance is converted from the goal's unit, in which it is stored, as rows imported
+     * without their updates have no total in metres. A day without a goal has no unit for its
+     * distance, so its total is shown once it has one.
      *
      * @param history the history being converted
      * @param unit the unit to convert to
      * @return converted history
      */
-    private History convertHistory(History history, Unit unit) {
+    static History convertHistory(History history, Unit unit) {
         Goal goal = history.getGoal();
 
-        double distance = UnitsConverter.convert(unit, goal.getUnit(), history.getDistance());
-        history.setDistance(distance);
-
-        double target = UnitsConverter.convert(unit, goal.getUnit(), goal.getDistance());
-        Goal convertedGoal = new Goal(goal.getName(), target, unit);
-        history.setGoal(convertedGoal);
+        Goal convertedGoal = null;
+        double distance = history.getDistance();
+        if (goal != null) {
+            double target = UnitsConverter.convert(unit, goal.getUnit(), goal.getDistance());
+            convertedGoal = new Goal(goal.getName(), target, unit);
+            distance = UnitsConverter.convert(unit, goal.getUnit(), distance);
+        } else if (history.getUpdateCount() > 0) {
+            distance = history.getTotalDistance(unit);
+        }
 
-        return history;
+        // The list only shows summaries, so the updates are not loaded for the copy
+        return History.summary(history.getDate(), convertedGoal, distance,
+                history.getTotalMetres(), history.getUpdateCount());
     }
 
     /**
-     * Filters the given list of history based on the current goal filter set.
+     * Returns the filter specified by the current goal and date filters set.
      *
-     * @param histories the history to be filtered
-     * @return the filtered list
+     * @return the history filter
      */
-    private List<History> filterGoal(List<History> histories) {
-        List<History> filteredList = new ArrayList<>();
-
-        HistoryGoalFilter filter = SharedPreferencesRepository.getHistoryGoalFilter();
-        double progress = SharedPreferencesRepository.getHistoryGoalProgressFilter();
-
-        switch (filter) {
+    private HistoryFilter createFilter() {
+        long start = Long.MIN_VALUE;
+        long end = Long.MAX_VALUE;
+        LocalDate now = LocalDate.now();
+        switch (SharedPreferencesRepository.getHistoryDateFilter()) {
             case NONE:
-                filteredList.addAll(histories);
                 break;
-            case COMPLETED:
-                histories.stream()
-                        .filter(history -> history.getPercentage() >= 100)
-                        .forEachOrdered(filteredList::add);
+            case WEEK:
+                start = now.minusDays(7).toEpochDay();
                 break;
-            case BELOW:
-                histories.stream()
-                        .filter(history -> history.getPercentage() <= progress)
-                        .forEachOrdered(filteredList::add);
+            case MONTH:
+                start = now.withDayOfMonth(1).toEpochDay();
                 break;
-            case ABOVE:
-                histories.stream()
-                        .filter(history -> history.getPercentage() >= progress)
-                        .forEachOrdered(filteredList::add);
+            case CUSTOM:
+                start = SharedPreferencesRepository.getHistoryStartDateFilter();
+                end = SharedPreferencesRepository.getHistoryEndDateFilter();
                 break;
         }
-        return filteredList;
-    }
-
-    /**
-     * Filters the given list of history based on the current date filter set.
-     *
-     * @param histories the history to be filtered
-     * @return the filtered list
-     */
-    private List<History> filterDate(List<History> histories) {
-        List<History> filteredList = new ArrayList<>();
-
-        LocalDate now = LocalDate.now();
-        HistoryDateFilter filter = SharedPreferencesRepository.getHistoryDateFilter();
 
-        long start;
-        switch (filter) {
+        double min = Double.NEGATIVE_INFINITY;
+        double max = Double.POSITIVE_INFINITY;
+        double progress = SharedPreferencesRepository.getHistoryGoalProgressFilter();
+        switch (SharedPreferencesRepository.getHistoryGoalFilter()) {
             case NONE:
-                filteredList.addAll(histories);
                 break;
-            case WEEK:
-                LocalDate weekAgo = now.minusDays(7);
-                start = weekAgo.toEpochDay();
-                histories.stream()
-                        .filter(history -> (start - history.getDate()) < 7)
-                        .forEachOrdered(filteredList::add);
+            case COMPLETED:
+                min = 100;
                 break;
-            case MONTH:
-                start = now.minusDays(now.getDayOfMonth()).toEpochDay();
-                histories.stream()
-                        .filter(history -> history.getDate() > start)
-                        .forEachOrdered(filteredList::add);
+            case BELOW:
+                max = progress;
                 break;
-            case CUSTOM:
-                start = SharedPreferencesRepository.getHistoryStartDateFilter();
-                long end = SharedPreferencesRepository.getHistoryEndDateFilter();
-                histories.stream()
-                        .filter(history -> history.getDate() >= start)
-                        .filter(history -> history.getDate() <= end)
-                        .forEachOrdered(filteredList::add);
+            case ABOVE:
+                min = progress;
                 break;
         }
-        return filteredList;
+        return new HistoryFilter(start, end, min, max);
     }
 
     @Override
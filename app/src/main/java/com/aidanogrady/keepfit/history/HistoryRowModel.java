@@ -0,0 +1,183 @@
+package com.aidanogrady.keepfit.history;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.Locale;
+
+/**
+ * The text shown by a single row of the history list, formatted once when the list is loaded so
+ * that binding a row is only a handful of setText calls and allocates nothing. Row models are
+ * immutable and built off the main thread.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class HistoryRowModel {
+    /**
+     * The text shown as the percentage of a day without a goal.
+     */
+    static final String UNKNOWN_PERCENTAGE = "?? %";
+
+    /**
+     * The date of the day, as days since the epoch.
+     */
+    private final long mDate;
+
+    /**
+     * The first letter of the goal's name, shown as the icon.
+     */
+    private final String mIconText;
+
+    /**
+     * The formatted date of the day.
+     */
+    private final String mDateText;
+
+    /**
+     * The name of the goal, or null if the day has no goal.
+     */
+    private final String mGoalText;
+
+    /**
+     * The distance achieved, with the goal's distance and unit if the day has a goal.
+     */
+    private final String mProgressText;
+
+    /**
+     * The percentage of the goal achieved.
+     */
+    private final String mPercentageText;
+
+
+    /**
+     * Constructs a new HistoryRowModel.
+     *
+     * @param date the date of the day
+     * @param iconText the text shown as the icon
+     * @param dateText the formatted date
+     * @param goalText the name of the goal, or null if there is none
+     * @param progressText the formatted progress
+     * @param percentageText the formatted percentage
+     */
+    HistoryRowModel(long date, String iconText, String dateText, String goalText,
+                    String progressText, String percentageText) {
+        this.mDate = date;
+        this.mIconText = iconText;
+        this.mDateText = dateText;
+        this.mGoalText = goalText;
+        this.mProgressText = progressText;
+        this.mPercentageText = percentageText;
+    }
+
+
+    /**
+     * Formats the row of the given day of history in the default locale.
+     *
+     * @param history the day of history
+     * @return row model of the day
+     */
+    static HistoryRowModel from(History history) {
+        Locale locale = Locale.getDefault();
+        long date = history.getDate();
+        String dateText = LocalDate.ofEpochDay(date).toString();
+
+        Goal goal = history.getGoal();
+        if (goal == null) {
+            String progressText = String.format(locale, "%.2f", history.getDistance());
+            return new HistoryRowModel(date, "", dateText, null, progressText,
+                    UNKNOWN_PERCENTAGE);
+        }
+
+        String name = goal.getName();
+        String progressText = String.format(locale, "%.2f / %.2f %s", history.getDistance(),
+                goal.getDistance(), goal.getUnit().toString());
+        String percentageText = String.format(locale, "%.2f %%",
+                history.getDistance() * 100 / goal.getDistance());
+        String iconText = name.isEmpty() ? "" : name.substring(0, 1);
+        return new HistoryRowModel(date, iconText, dateText, name, progressText, percentageText);
+    }
+
+    /**
+     * Returns the date of the day.
+     *
+     * @return date
+     */
+    long getDate() {
+        return mDate;
+    }
+
+    /**
+     * Returns the text shown as the icon.
+     *
+     * @return icon text
+     */
+    String getIconText() {
+        return mIconText;
+    }
+
+    /**
+     * Returns the formatted date.
+     *
+     * @return date text
+     */
+    String getDateText() {
+        return mDateText;
+    }
+
+    /**
+     * Returns the name of the goal.
+     *
+     * @return goal text, or null if the day has no goal
+     */
+    String getGoalText() {
+        return mGoalText;
+    }
+
+    /**
+     * Returns the formatted progress.
+     *
+     * @return progress text
+     */
+    String getProgressText() {
+        return mProgressText;
+    }
+
+    /**
+     * Returns the formatted percentage.
+     *
+     * @return percentage text
+     */
+    String getPercentageText() {
+        return mPercentageText;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HistoryRowModel other = (HistoryRowModel) o;
+        return mDate == other.mDate &&
+                mIconText.equals(other.mIconText) &&
+                mDateText.equals(other.mDateText) &&
+                (mGoalText == null ? other.mGoalText == null : mGoalText.equals(other.mGoalText)) &&
+                mProgressText.equals(other.mProgressText) &&
+                mPercentageText.equals(other.mPercentageText);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (mDate ^ (mDate >>> 32));
+        result = 31 * result + mDateText.hashCode();
+        result = 31 * result + (mGoalText == null ? 0 : mGoalText.hashCode());
+        result = 31 * result + mProgressText.hashCode();
+        result = 31 * result + mPercentageText.hashCode();
+        return result;
+    }
+}
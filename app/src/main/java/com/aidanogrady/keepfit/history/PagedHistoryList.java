@@ -0,0 +1,321 @@
+package com.aidanogrady.keepfit.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of history rows loaded in pages, most recent first. Each page is keyed by the date its
+ * history must be before, so the next page starts where the last ended. Pages are prefetched as
+ * the list is scrolled towards its end, and pages far from the scroll position are released and
+ * loaded again if they are scrolled back to, so only a few pages are held at once.
+ *
+ * The list is only accessed on the main thread.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class PagedHistoryList {
+    /**
+     * The number of days of history in a page.
+     */
+    static final int PAGE_SIZE = 30;
+
+    /**
+     * How close to the end of the loaded history the scroll position is before the next page is
+     * loaded.
+     */
+    static final int PREFETCH_DISTANCE = PAGE_SIZE / 2;
+
+    /**
+     * The number of pages either side of the scroll position that are held.
+     */
+    static final int RETAINED_PAGES = 2;
+
+    /**
+     * Loads a single page of history.
+     */
+    interface PageLoader {
+        /**
+         * Loads the rows of at most the given number of days of history before the given date.
+         *
+         * @param beforeDate the date the history must be before
+         * @param limit the maximum number of days loaded
+         * @param callback the callback to enact on the main thread when the page is loaded
+         */
+        void loadPage(long beforeDate, int limit, PageCallback callback);
+    }
+
+    /**
+     * Interface for the callback when a page is loaded or there is no history left.
+     */
+    interface PageCallback {
+        void onPageLoaded(List<HistoryRowModel> rows);
+
+        void onDataNotAvailable();
+    }
+
+    /**
+     * Listens for changes to the items of the list.
+     */
+    interface Listener {
+        /**
+         * Called when items are added to the end of the list.
+         *
+         * @param start the position of the first item added
+         * @param count the number of items added
+         */
+        void onItemRangeInserted(int start, int count);
+
+        /**
+         * Called when released items have been loaded again.
+         *
+         * @param start the position of the first item changed
+         * @param count the number of items changed
+         */
+        void onItemRangeChanged(int start, int count);
+    }
+
+    /**
+     * The loader pages are loaded with.
+     */
+    private final PageLoader mLoader;
+
+    /**
+     * Every page loaded so far, in order. Released pages are kept without their rows.
+     */
+    private final List<Page> mPages = new ArrayList<>();
+
+    /**
+     * The total number of items in the loaded pages.
+     */
+    private int mSize;
+
+    /**
+     * Whether the last page has been loaded.
+     */
+    private boolean mEndReached;
+
+    /**
+     * Whether the next page is being loaded.
+     */
+    private boolean mAppending;
+
+    /**
+     * The listener for changes to the list.
+     */
+    private Listener mListener;
+
+
+    /**
+     * Constructs a new PagedHistoryList starting with the given first page.
+     *
+     * @param loader the loader further pages are loaded with
+     * @param firstPage the rows of the first page of history
+     */
+    PagedHistoryList(PageLoader loader, List<HistoryRowModel> firstPage) {
+        mLoader = loader;
+        addPage(Long.MAX_VALUE, firstPage);
+    }
+
+
+    /**
+     * Sets the listener for changes to the list, replacing any previous listener.
+     *
+     * @param listener the listener, or null to stop listening
+     */
+    void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Returns the number of items loaded so far, including those in released pages.
+     *
+     * @return size
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the row at the given position.
+     *
+     * @param position the position of the row
+     * @return the row, or null if its page has been released
+     */
+    HistoryRowModel get(int position) {
+        Page page = mPages.get(position / PAGE_SIZE);
+        int index = position % PAGE_SIZE;
+        if (page.rows == null || index >= page.rows.size()) {
+            return null;
+        }
+        return page.rows.get(index);
+    }
+
+    /**
+     * Returns the date of the history at the given position. The dates of released pages are
+     * kept, so the date is known even while the history is not.
+     *
+     * @param position the position of the history
+     * @return date of the history
+     */
+    long getDate(int position) {
+        return mPages.get(position / PAGE_SIZE).dates[position % PAGE_SIZE];
+    }
+
+    /**
+     * Returns the number of pages whose rows are held.
+     *
+     * @return held page count
+     */
+    int getHeldPageCount() {
+        int count = 0;
+        for (Page page : mPages) {
+            if (page.rows != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves the scroll position to the given position. Loads the next page if the position is
+     * near the end, loads released pages near the position and releases pages far from it.
+     *
+     * @param position the position being shown
+     */
+    void loadAround(int position) {
+        if (!mEndReached && !mAppending && position >= mSize - PREFETCH_DISTANCE) {
+            appendPage();
+        }
+
+        int current = position / PAGE_SIZE;
+        for (int i = 0; i < mPages.size(); i++) {
+            Page page = mPages.get(i);
+            if (Math.abs(i - current) > RETAINED_PAGES) {
+                page.rows = null;
+            } else if (page.rows == null && !page.loading) {
+                reloadPage(i);
+            }
+        }
+    }
+
+    /**
+     * Loads the page following the last loaded page.
+     */
+    private void appendPage() {
+        Page last = mPages.get(mPages.size() - 1);
+        long beforeDate = last.lastDate;
+        mAppending = true;
+        mLoader.loadPage(beforeDate, PAGE_SIZE, new PageCallback() {
+            @Override
+            public void onPageLoaded(List<HistoryRowModel> rows) {
+                mAppending = false;
+                int start = mSize;
+                addPage(beforeDate, rows);
+                if (mListener != null) {
+                    mListener.onItemRangeInserted(start, rows.size());
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                mAppending = false;
+                mEndReached = true;
+            }
+        });
+    }
+
+    /**
+     * Loads the rows of a released page again.
+     *
+     * @param index the index of the page
+     */
+    private void reloadPage(int index) {
+        Page page = mPages.get(index);
+        page.loading = true;
+        mLoader.loadPage(page.beforeDate, page.size, new PageCallback() {
+            @Override
+            public void onPageLoaded(List<HistoryRowModel> rows) {
+                page.loading = false;
+                page.rows = rows;
+                if (mListener != null) {
+                    mListener.onItemRangeChanged(index * PAGE_SIZE, page.size);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                page.loading = false;
+                page.rows = new ArrayList<>();
+            }
+        });
+    }
+
+    /**
+     * Adds a loaded page to the end of the list.
+     *
+     * @param beforeDate the date the page's history is before
+     * @param rows the rows of the page
+     */
+    private void addPage(long beforeDate, List<HistoryRowModel> rows) {
+        Page page = new Page(beforeDate, rows);
+        mPages.add(page);
+        mSize += page.size;
+        if (page.size < PAGE_SIZE) {
+            mEndReached = true;
+        }
+    }
+
+
+    /**
+     * A single page of history.
+     */
+    private static class Page {
+        /**
+         * The date the history of this page is before.
+         */
+        final long beforeDate;
+
+        /**
+         * The date of the last history of this page, which the next page is before.
+         */
+        final long lastDate;
+
+        /**
+         * The number of days of history in this page.
+         */
+        final int size;
+
+        /**
+         * The date of each day of history in this page, kept when the page is released.
+         */
+        final long[] dates;
+
+        /**
+         * The rows of this page, or null if it has been released.
+         */
+        List<HistoryRowModel> rows;
+
+        /**
+         * Whether the page is being loaded again.
+         */
+        boolean loading;
+
+        /**
+         * Constructs a new Page.
+         *
+         * @param beforeDate the date the history of the page is before
+         * @param rows the rows of the page
+         */
+        Page(long beforeDate, List<HistoryRowModel> rows) {
+            this.beforeDate = beforeDate;
+            this.rows = rows;
+            this.size = rows.size();
+            this.dates = new long[size];
+            for (int i = 0; i < size; i++) {
+                dates[i] = rows.get(i).getDate();
+            }
+            this.lastDate = size == 0 ? beforeDate : dates[size - 1];
+        }
+    }
+}
@@ -50,6 +50,16 @@ public class HomeContract {
          */
         void setCurrentPercentage(double percentage);
 
+        /**
+         * Sets the streaks of consecutive days achieved shown, of the current goal and of any goal.
+         *
+         * @param goalCurrent the current streak of the current goal
+         * @param goalLongest the longest streak of the current goal
+         * @param current the current streak of any goal
+         * @param longest the longest streak of any goal
+         */
+        void setStreaks(int goalCurrent, int goalLongest, int current, int longest);
+
         /**
          * Displays the view for adding steps to today's progress.
          */
@@ -78,6 +88,13 @@ public class HomeContract {
          * @param updates the updates to be displayed.
          */
         void showUpdates(List<Update> updates);
+
+        /**
+         * Returns whether or not the view is active.
+         *
+         * @return true if view is active, otherwise false
+         */
+        boolean isActive();
     }
 
     /**
@@ -21,11 +21,11 @@ import android.widget.TextView;
 
 import com.aidanogrady.keepfit.R;
 import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.util.AppExecutors;
 import com.google.common.base.Strings;
 
 import org.threeten.bp.LocalDate;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -70,7 +70,7 @@ public class HomeFragment extends Fragment implements HomeContract.View {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mAdapter = new UpdatesAdapter(new ArrayList<>());
+        mAdapter = new UpdatesAdapter(AppExecutors.getInstance());
     }
 
     @Override
@@ -154,6 +154,13 @@ public class HomeFragment extends Fragment implements HomeContract.View {
         }
     }
 
+    @Override
+    public void setStreaks(int goalCurrent, int goalLongest, int current, int longest) {
+        TextView streaksTextView = (TextView) mHomeCardView.findViewById(R.id.streaks);
+        streaksTextView.setText(getString(R.string.streaks, goalCurrent, goalLongest, current,
+                longest));
+    }
+
     @Override
     public void showAddSteps(String[] units) {
         LayoutInflater inflater = getActivity().getLayoutInflater();
@@ -203,6 +210,10 @@ public class HomeFragment extends Fragment implements HomeContract.View {
     @Override
     public void showUpdates(List<Update> updates) {
         mAdapter.replaceData(updates);
-        mAdapter.notifyDataSetChanged();
+    }
+
+    @Override
+    public boolean isActive() {
+        return isAdded() && mHomeCardView != null;
     }
 }
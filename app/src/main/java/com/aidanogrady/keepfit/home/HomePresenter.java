@@ -5,6 +5,7 @@ import android.support.v4.util.Pair;
 
 import com.aidanogrady.keepfit.data.model.Goal;
 import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.Streak;
 import com.aidanogrady.keepfit.data.model.Update;
 import com.aidanogrady.keepfit.data.model.units.Unit;
 import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
@@ -13,7 +14,11 @@ import com.aidanogrady.keepfit.data.source.GoalsRepository;
 import com.aidanogrady.keepfit.data.source.HistoryDataSource;
 import com.aidanogrady.keepfit.data.source.HistoryRepository;
 import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
+import com.aidanogrady.keepfit.data.source.UnitOfWork;
+import com.aidanogrady.keepfit.data.source.UpdatesDataSource.LoadUpdatesCallback;
 import com.aidanogrady.keepfit.data.source.UpdatesRepository;
+import com.aidanogrady.keepfit.metrics.Metrics;
+import com.aidanogrady.keepfit.metrics.Timer;
 
 import org.threeten.bp.LocalDate;
 import org.threeten.bp.LocalTime;
@@ -29,6 +34,11 @@ import java.util.List;
  * @since 0.5
  */
 public class HomePresenter implements HomeContract.Presenter {
+    /**
+     * Times loading today's progress, until it is ready to be shown.
+     */
+    private static final Timer LOAD_CURRENT = Metrics.timer("HomePresenter.loadCurrent");
+
     /**
      * The goals repository to retrieve goals from.
      */
@@ -44,6 +54,11 @@ public class HomePresenter implements HomeContract.Presenter {
      */
     private final UpdatesRepository mUpdatesRepository;
 
+    /**
+     * The unit of work grouping the writes made when steps are added.
+     */
+    private final UnitOfWork mUnitOfWork;
+
     /**
      * The home view.
      */
@@ -55,9 +70,26 @@ public class HomePresenter implements HomeContract.Presenter {
     private History mCurrentHistory;
 
     public HomePresenter(Context context, HomeContract.View homeView) {
-        this.mGoalsRepository = GoalsRepository.getInstance(context);
-        this.mHistoryRepository = HistoryRepository.getInstance(context);
-        this.mUpdatesRepository = UpdatesRepository.getInstance(context);
+        this(GoalsRepository.getInstance(context), HistoryRepository.getInstance(context),
+                UpdatesRepository.getInstance(context), UnitOfWork.getInstance(context), homeView);
+    }
+
+    /**
+     * Constructs a new HomePresenter with the given repositories, and loads today's progress.
+     *
+     * @param goalsRepository the goals repository
+     * @param historyRepository the history repository
+     * @param updatesRepository the updates repository
+     * @param unitOfWork the unit of work writes are grouped through
+     * @param homeView the home view
+     */
+    HomePresenter(GoalsRepository goalsRepository, HistoryRepository historyRepository,
+                  UpdatesRepository updatesRepository, UnitOfWork unitOfWork,
+                  HomeContract.View homeView) {
+        this.mGoalsRepository = goalsRepository;
+        this.mHistoryRepository = historyRepository;
+        this.mUpdatesRepository = updatesRepository;
+        this.mUnitOfWork = unitOfWork;
 
         this.mHomeView = homeView;
         this.mHomeView.setPresenter(this);
@@ -73,7 +105,7 @@ public class HomePresenter implements HomeContract.Presenter {
 
     @Override
     public void addSteps() {
-        if (mCurrentHistory.getGoal() == null) {
+        if (mCurrentHistory == null || mCurrentHistory.getGoal() == null) {
             mHomeView.showSelectGoalMessage();
         } else {
             mHomeView.showAddSteps(UnitsConverter.AVAILABLE_UNIT_NAMES);
@@ -87,30 +119,54 @@ public class HomePresenter implements HomeContract.Presenter {
 
         Unit unit = Unit.valueOf(unitStr);
         Update update = new Update(date, time, dist, unit);
-        double distance = UnitsConverter.convert(mCurrentHistory.getGoal().getUnit(), unit, dist);
 
-        mCurrentHistory.setDistance(mCurrentHistory.getDistance() + distance);
-        mCurrentHistory.addUpdate(update);
+        // The update joins the day's updates once they are loaded, without waiting on the disk
+        History history = mCurrentHistory;
+        resolveUpdates(history, () -> addUpdate(history, update));
+    }
+
+    /**
+     * Adds the given update to the given day and commits it with the history and goal.
+     *
+     * @param history the day's history, with its updates loaded
+     * @param update the update being added
+     */
+    private void addUpdate(History history, Update update) {
+        history.addUpdate(update);
+        Unit goalUnit = history.getGoal().getUnit();
+        history.setDistance(history.getTotalDistance(goalUnit));
+
+        // The update, history and goal are committed together in one transaction
+        mUnitOfWork.begin();
         mUpdatesRepository.insertUpdate(update);
-        mHistoryRepository.insertHistory(mCurrentHistory);
+        mHistoryRepository.insertHistory(history);
 
-        Goal goal = mCurrentHistory.getGoal();
-        if (mCurrentHistory.getDistance() > goal.getDistance() &&
-                mCurrentHistory.getDate() > goal.getLastAchieved()) {
-            goal.setLastAchieved(mCurrentHistory.getDate());
-            mCurrentHistory.setGoal(goal);
+        // Streaks are extended here as the goal is achieved, rather than counted from the history
+        Goal goal = history.getGoal();
+        if (history.getDistance() >= goal.getDistance() &&
+                history.getDate() > goal.getLastAchieved()) {
+            goal.setStreak(goal.getStreak().extend(history.getDate()));
+            history.setGoal(goal);
             mGoalsRepository.updateGoal(goal, goal.getId());
+            mHistoryRepository.extendStreak(history.getDate());
         }
+        mUnitOfWork.commit();
 
         loadProgress();
     }
 
     @Override
     public void loadProgress() {
+        if (mCurrentHistory == null || !mHomeView.isActive()) {
+            // Progress is shown once both today's history and the view are ready
+            return;
+        }
         Goal goal = mCurrentHistory.getGoal();
 
         mHomeView.setCurrentDate(mCurrentHistory.getDate());
-        mHomeView.showUpdates(mCurrentHistory.getUpdates());
+        if (mCurrentHistory.isUpdatesLoaded()) {
+            mHomeView.showUpdates(mCurrentHistory.getUpdates());
+        }
         if (goal == null) {
             mHomeView.setCurrentGoal("No goal selected");
             mHomeView.setCurrentProgress(0, 0, "");
@@ -122,6 +178,15 @@ public class HomePresenter implements HomeContract.Presenter {
             mHomeView.setCurrentProgress(current, target, goal.getUnit().toString());
             mHomeView.setCurrentPercentage(mCurrentHistory.getPercentage());
         }
+
+        long today = mCurrentHistory.getDate();
+        Streak goalStreak = goal == null ? Streak.NONE : goal.getStreak();
+        mHistoryRepository.getStreak(streak -> {
+            if (mHomeView.isActive()) {
+                mHomeView.setStreaks(goalStreak.getCurrent(today), goalStreak.getLongest(),
+                        streak.getCurrent(today), streak.getLongest());
+            }
+        });
     }
 
     @Override
@@ -129,13 +194,11 @@ public class HomePresenter implements HomeContract.Presenter {
         mGoalsRepository.getGoal(id, false, new GoalsDataSource.GetGoalCallback() {
             @Override
             public void onGoalLoaded(Goal goal) {
-                mCurrentHistory.setGoal(goal);
-                double newDist = 0.0;
-                Unit unit = goal.getUnit();
-                for (Update update: mCurrentHistory.getUpdates()) {
-                    newDist += UnitsConverter.convert(unit, update.getUnit(), update.getDistance());
+                if (mCurrentHistory == null) {
+                    return;
                 }
-                mCurrentHistory.setDistance(newDist);
+                mCurrentHistory.setGoal(goal);
+                mCurrentHistory.setDistance(mCurrentHistory.getTotalDistance(goal.getUnit()));
                 mHistoryRepository.insertHistory(mCurrentHistory);
                 SharedPreferencesRepository.setActiveGoal(goal.getId());
                 loadProgress();
@@ -175,6 +238,7 @@ public class HomePresenter implements HomeContract.Presenter {
 
     @Override
     public void loadCurrent() {
+        long start = LOAD_CURRENT.start();
         LocalDate epoch = LocalDate.ofEpochDay(0);
         LocalDate now = LocalDate.now();
         long today = ChronoUnit.DAYS.between(epoch, now);
@@ -185,12 +249,15 @@ public class HomePresenter implements HomeContract.Presenter {
         } else {
             date = today;
         }
-        System.out.println(date);
 
         mHistoryRepository.getHistory(date, new HistoryDataSource.GetHistoryCallback() {
             @Override
             public void onHistoryLoaded(History history) {
                 mCurrentHistory = history;
+                resolveUpdates(history, () -> {
+                    LOAD_CURRENT.stop(start);
+                    loadProgress();
+                });
             }
 
             @Override
@@ -200,6 +267,42 @@ public class HomePresenter implements HomeContract.Presenter {
                 } else {
                     mCurrentHistory.setDate(date);
                 }
+                LOAD_CURRENT.stop(start);
+                loadProgress();
+            }
+        });
+    }
+
+    /**
+     * Runs the given action once the updates of the given history are loaded. A summary's updates
+     * are loaded through the updates repository, which reads them on the disk executor, so the
+     * action runs later on the main thread rather than waiting here.
+     *
+     * @param history the history whose updates are needed
+     * @param action the action run once they are loaded
+     */
+    private void resolveUpdates(History history, Runnable action) {
+        if (history.isUpdatesLoaded()) {
+            action.run();
+            return;
+        }
+
+        mUpdatesRepository.getUpdatesForDate(history.getDate(), new LoadUpdatesCallback() {
+            @Override
+            public void onUpdatesLoaded(List<Update> updates) {
+                // Another action may have loaded them first, and added updates since
+                if (!history.isUpdatesLoaded()) {
+                    history.setUpdates(updates);
+                }
+                action.run();
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                if (!history.isUpdatesLoaded()) {
+                    history.setUpdates(new ArrayList<>());
+                }
+                action.run();
             }
         });
     }
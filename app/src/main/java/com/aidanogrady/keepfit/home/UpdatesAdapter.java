@@ -13,15 +13,19 @@ import android.widget.TextView;
 
 import com.aidanogrady.keepfit.R;
 import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.util.AppExecutors;
+import com.aidanogrady.keepfit.util.ListDiffer;
 
 import org.threeten.bp.LocalTime;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
 /**
  * The UpdatesAdapter is an adapter for the update recycler view, which displays the check-ins the
- * user has made during this day.
+ * user has made during this day. Each update keeps a stable ID from its time, so adding an update
+ * binds only its own row.
  *
  * @author Aidan O'Grady
  * @since 0.6
@@ -30,36 +34,39 @@ class UpdatesAdapter extends RecyclerView.Adapter<UpdatesAdapter.UpdateViewHolde
     /**
      * The list of updates to be displayed.
      */
-    private List<Update> mUpdates;
+    private final ListDiffer<Update> mUpdates;
 
 
     /**
-     * Constricts a mew UpdateAdapter for the given list of history.
+     * Constricts a mew UpdateAdapter, with no updates until replaceData is called.
      *
-     * @param updates the updates to be adapted
+     * @param appExecutors the executors changes to the list are diffed through
      */
-    UpdatesAdapter(List<Update> updates) {
-        setList(updates);
+    UpdatesAdapter(AppExecutors appExecutors) {
+        mUpdates = new ListDiffer<>(this, new ListDiffer.ItemCallback<Update>() {
+            @Override
+            public long getItemId(Update update) {
+                return update.getTime();
+            }
+
+            @Override
+            public Object getContents(Update update) {
+                return Arrays.asList(update.getTime(), update.getDistance(), update.getUnit());
+            }
+        }, appExecutors);
+        setHasStableIds(true);
     }
 
 
     /**
-     * Replaces the current list of updates with the given list of history.
+     * Replaces the current list of updates with the given list of updates, notifying only the
+     * updates that changed.
      *
      * @param updates the list of updates to replace existing
      */
     void replaceData(List<Update> updates) {
-        setList(updates);
-    }
-
-    /**
-     * Sets the list of history to the given list of history.
-     *
-     * @param updates list of updates
-     */
-    private void setList(List<Update> updates) {
         if (updates != null) {
-            mUpdates = updates;
+            mUpdates.submitList(updates);
         }
     }
 
@@ -98,6 +105,11 @@ class UpdatesAdapter extends RecyclerView.Adapter<UpdatesAdapter.UpdateViewHolde
         return mUpdates.size();
     }
 
+    @Override
+    public long getItemId(int position) {
+        return mUpdates.getItemId(position);
+    }
+
     class UpdateViewHolder extends RecyclerView.ViewHolder {
         /**
          * The text view displaying the update.
@@ -0,0 +1,67 @@
+package com.aidanogrady.keepfit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Counter counts events, such as cache hits. Counting is a single check of whether metrics are
+ * enabled when they are not.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class Counter {
+    /**
+     * The name of the counter.
+     */
+    private final String mName;
+
+    /**
+     * The number of events counted.
+     */
+    private final AtomicLong mCount = new AtomicLong();
+
+
+    /**
+     * Constructs a new Counter. Counters are created through Metrics.counter.
+     *
+     * @param name the name of the counter
+     */
+    Counter(String name) {
+        this.mName = name;
+    }
+
+
+    /**
+     * Counts an event, if metrics are enabled.
+     */
+    public void increment() {
+        if (Metrics.isEnabled()) {
+            mCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the name of the counter.
+     *
+     * @return name
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Returns the number of events counted.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Resets the count to zero.
+     */
+    void reset() {
+        mCount.set(0);
+    }
+}
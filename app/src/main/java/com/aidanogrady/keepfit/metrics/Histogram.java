@@ -0,0 +1,159 @@
+package com.aidanogrady.keepfit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Histogram records the distribution of non-negative values in buckets of powers of two, so
+ * recording never allocates and percentiles are estimated to within a factor of two. Recording
+ * is a single check of whether metrics are enabled when they are not.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class Histogram {
+    /**
+     * The number of buckets. Bucket i holds values below 2^i, and the last holds every larger
+     * value.
+     */
+    private static final int BUCKETS = 48;
+
+    /**
+     * The name of the histogram.
+     */
+    private final String mName;
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The number of values recorded.
+     */
+    private final AtomicLong mCount = new AtomicLong();
+
+    /**
+     * The sum of the values recorded.
+     */
+    private final AtomicLong mSum = new AtomicLong();
+
+    /**
+     * The largest value recorded.
+     */
+    private final AtomicLong mMax = new AtomicLong();
+
+
+    /**
+     * Constructs a new Histogram. Histograms are created through Metrics.histogram.
+     *
+     * @param name the name of the histogram
+     */
+    Histogram(String name) {
+        this.mName = name;
+    }
+
+
+    /**
+     * Records a value, if metrics are enabled. Negative values are recorded as zero.
+     *
+     * @param value the value recorded
+     */
+    public void record(long value) {
+        if (!Metrics.isEnabled()) {
+            return;
+        }
+        value = Math.max(value, 0);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+        mBuckets.incrementAndGet(bucket);
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * Returns the name of the histogram.
+     *
+     * @return name
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     *
+     * @return sum
+     */
+    public long getSum() {
+        return mSum.get();
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return max, or 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return mean, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long count = mCount.get();
+        return count == 0 ? 0 : (double) mSum.get() / count;
+    }
+
+    /**
+     * Estimates the value below which the given fraction of the values recorded lie. The estimate
+     * is the upper bound of the bucket holding that value, capped at the largest value recorded.
+     *
+     * @param fraction the fraction, between 0 and 1
+     * @return estimated percentile, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double fraction) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= rank) {
+                long upper = i == 0 ? 0 : (1L << i) - 1;
+                return Math.min(upper, mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    /**
+     * Resets the histogram, discarding every value recorded.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+}
@@ -0,0 +1,262 @@
+package com.aidanogrady.keepfit.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metrics holds the counters, timers and histograms recording the app's hot paths, such as cache
+ * hits in the repositories and how long screens take to load. Metrics are disabled by default, and
+ * are enabled from the debug section of the settings, where they can be dumped as text or JSON.
+ * While disabled, recording is a single volatile read.
+ *
+ * Metrics are created by name the first time they are asked for, and should be kept in a static
+ * field rather than looked up on every use.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public final class Metrics {
+    /**
+     * Whether metrics are recorded.
+     */
+    private static volatile boolean sEnabled;
+
+    /**
+     * The counters, by name.
+     */
+    private static final ConcurrentMap<String, Counter> sCounters = new ConcurrentHashMap<>();
+
+    /**
+     * The timers, by name.
+     */
+    private static final ConcurrentMap<String, Timer> sTimers = new ConcurrentHashMap<>();
+
+    /**
+     * The histograms, by name.
+     */
+    private static final ConcurrentMap<String, Histogram> sHistograms = new ConcurrentHashMap<>();
+
+
+    /**
+     * Metrics is never instantiated.
+     */
+    private Metrics() {
+    }
+
+
+    /**
+     * Returns whether metrics are recorded.
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Sets whether metrics are recorded. Values recorded before metrics were disabled are kept.
+     *
+     * @param enabled true to record metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if there is none.
+     *
+     * @param name the name of the counter
+     * @return counter
+     */
+    public static Counter counter(String name) {
+        Counter metric = sCounters.get(name);
+        if (metric == null) {
+            Counter created = new Counter(name);
+            metric = sCounters.putIfAbsent(name, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Returns the timer with the given name, creating it if there is none.
+     *
+     * @param name the name of the timer
+     * @return timer
+     */
+    public static Timer timer(String name) {
+        Timer metric = sTimers.get(name);
+        if (metric == null) {
+            Timer created = new Timer(name);
+            metric = sTimers.putIfAbsent(name, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if there is none.
+     *
+     * @param name the name of the histogram
+     * @return histogram
+     */
+    public static Histogram histogram(String name) {
+        Histogram metric = sHistograms.get(name);
+        if (metric == null) {
+            Histogram created = new Histogram(name);
+            metric = sHistograms.putIfAbsent(name, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Resets every metric, discarding everything recorded.
+     */
+    public static void reset() {
+        for (Counter counter : sCounters.values()) {
+            counter.reset();
+        }
+        for (Timer timer : sTimers.values()) {
+            timer.getHistogram().reset();
+        }
+        for (Histogram histogram : sHistograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Dumps every metric as human readable text, one metric per line in order of name. Timers are
+     * in microseconds.
+     *
+     * @return text dump
+     */
+    public static String dumpText() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Counters\n");
+        for (String name : sorted(sCounters)) {
+            builder.append(String.format(Locale.US, "  %s: %d\n", name,
+                    sCounters.get(name).getCount()));
+        }
+        builder.append("Timers (us)\n");
+        for (String name : sorted(sTimers)) {
+            appendText(builder, sTimers.get(name).getHistogram());
+        }
+        builder.append("Histograms\n");
+        for (String name : sorted(sHistograms)) {
+            appendText(builder, sHistograms.get(name));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Dumps every metric as a JSON object, with counters, timers and histograms keyed by name.
+     * Timers are in microseconds.
+     *
+     * @return JSON dump
+     */
+    public static String dumpJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"enabled\":").append(sEnabled);
+
+        builder.append(",\"counters\":{");
+        String separator = "";
+        for (String name : sorted(sCounters)) {
+            builder.append(separator);
+            appendJsonString(builder, name);
+            builder.append(':').append(sCounters.get(name).getCount());
+            separator = ",";
+        }
+
+        builder.append("},\"timers\":{");
+        separator = "";
+        for (String name : sorted(sTimers)) {
+            builder.append(separator);
+            appendJson(builder, sTimers.get(name).getHistogram());
+            separator = ",";
+        }
+
+        builder.append("},\"histograms\":{");
+        separator = "";
+        for (String name : sorted(sHistograms)) {
+            builder.append(separator);
+            appendJson(builder, sHistograms.get(name));
+            separator = ",";
+        }
+        return builder.append("}}").toString();
+    }
+
+    /**
+     * Returns the names of the given metrics in order.
+     *
+     * @param metrics the metrics, by name
+     * @return sorted names
+     */
+    private static List<String> sorted(Map<String, ?> metrics) {
+        List<String> names = new ArrayList<>(metrics.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Appends a line of text summarising the given histogram.
+     *
+     * @param builder the builder appended to
+     * @param histogram the histogram
+     */
+    private static void appendText(StringBuilder builder, Histogram histogram) {
+        builder.append(String.format(Locale.US,
+                "  %s: count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d\n",
+                histogram.getName(), histogram.getCount(), histogram.getMean(),
+                histogram.getPercentile(0.5), histogram.getPercentile(0.9),
+                histogram.getPercentile(0.99), histogram.getMax()));
+    }
+
+    /**
+     * Appends a JSON member summarising the given histogram.
+     *
+     * @param builder the builder appended to
+     * @param histogram the histogram
+     */
+    private static void appendJson(StringBuilder builder, Histogram histogram) {
+        appendJsonString(builder, histogram.getName());
+        builder.append(String.format(Locale.US,
+                ":{\"count\":%d,\"sum\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,"
+                        + "\"max\":%d}",
+                histogram.getCount(), histogram.getSum(), histogram.getMean(),
+                histogram.getPercentile(0.5), histogram.getPercentile(0.9),
+                histogram.getPercentile(0.99), histogram.getMax()));
+    }
+
+    /**
+     * Appends the given string as a quoted JSON string.
+     *
+     * @param builder the builder appended to
+     * @param value the string
+     */
+    private static void appendJsonString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
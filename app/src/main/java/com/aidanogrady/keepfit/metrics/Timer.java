@@ -0,0 +1,83 @@
+package com.aidanogrady.keepfit.metrics;
+
+/**
+ * A Timer records how long an operation takes, in microseconds, into a histogram. An operation
+ * is timed by passing the value returned by start() to stop() once it has finished, which may be
+ * on another thread:
+ *
+ * <pre>
+ * long start = TIMER.start();
+ * ...
+ * TIMER.stop(start);
+ * </pre>
+ *
+ * When metrics are disabled, start() does not read the clock and stop() does nothing.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class Timer {
+    /**
+     * The value returned by start() when metrics are disabled.
+     */
+    static final long NOT_STARTED = Long.MIN_VALUE;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final long NANOS_PER_MICRO = 1000;
+
+    /**
+     * The durations recorded, in microseconds.
+     */
+    private final Histogram mHistogram;
+
+
+    /**
+     * Constructs a new Timer. Timers are created through Metrics.timer.
+     *
+     * @param name the name of the timer
+     */
+    Timer(String name) {
+        this.mHistogram = new Histogram(name);
+    }
+
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time to be passed to stop()
+     */
+    public long start() {
+        return Metrics.isEnabled() ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Stops timing an operation, recording its duration.
+     *
+     * @param start the value returned by start()
+     */
+    public void stop(long start) {
+        if (start != NOT_STARTED) {
+            mHistogram.record((System.nanoTime() - start) / NANOS_PER_MICRO);
+        }
+    }
+
+    /**
+     * Returns the name of the timer.
+     *
+     * @return name
+     */
+    public String getName() {
+        return mHistogram.getName();
+    }
+
+    /**
+     * Returns the durations recorded, in microseconds.
+     *
+     * @return histogram of durations
+     */
+    public Histogram getHistogram() {
+        return mHistogram;
+    }
+}
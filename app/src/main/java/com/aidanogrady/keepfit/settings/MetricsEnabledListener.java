@@ -0,0 +1,22 @@
+package com.aidanogrady.keepfit.settings;
+
+import android.content.SharedPreferences;
+
+import com.aidanogrady.keepfit.metrics.Metrics;
+
+/**
+ * The listener for detecting when metrics are enabled or disabled from the debug settings.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class MetricsEnabledListener implements SharedPreferences.OnSharedPreferenceChangeListener {
+    private static final String KEY = "metricsEnabled";
+
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String s) {
+        if (s.equals(KEY)) {
+            Metrics.setEnabled(sharedPreferences.getBoolean(KEY, false));
+        }
+    }
+}
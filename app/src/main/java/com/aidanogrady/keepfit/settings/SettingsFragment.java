@@ -1,18 +1,22 @@
 package com.aidanogrady.keepfit.settings;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.support.v4.app.DialogFragment;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.preference.ListPreference;
 import android.support.v7.preference.Preference;
 import android.support.v7.preference.PreferenceFragmentCompat;
 
 import com.aidanogrady.keepfit.R;
 import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.GoalsRepository;
 import com.aidanogrady.keepfit.data.source.HistoryRepository;
 import com.aidanogrady.keepfit.data.source.SharedPreferencesRepository;
 import com.aidanogrady.keepfit.data.source.UpdatesRepository;
 import com.aidanogrady.keepfit.date.DateDialogPreference;
 import com.aidanogrady.keepfit.date.DateDialogPreferenceFragment;
+import com.aidanogrady.keepfit.metrics.Metrics;
 
 import java.util.Arrays;
 
@@ -38,6 +42,46 @@ public class SettingsFragment extends PreferenceFragmentCompat {
 
         ListPreference displayUnit = (ListPreference) findPreference("historyDisplayUnit");
         setHistoryDisplayUnitPreferenceData(displayUnit);
+
+        Preference dumpMetrics = findPreference("dumpMetrics");
+        dumpMetrics.setOnPreferenceClickListener(preference -> {
+            showMetrics();
+            return true;
+        });
+
+        Preference rebuildRollups = findPreference("rebuildRollups");
+        rebuildRollups.setOnPreferenceClickListener(preference -> {
+            historyRepository.rebuildRollups();
+            return true;
+        });
+
+        Preference rebuildStreaks = findPreference("rebuildStreaks");
+        rebuildStreaks.setOnPreferenceClickListener(preference -> {
+            historyRepository.rebuildStreaks();
+            // The streaks are kept with the goals, so cached goals are stale once rebuilt
+            GoalsRepository.getInstance(getContext()).refreshGoals();
+            return true;
+        });
+    }
+
+    /**
+     * Shows the metrics recorded as text in a dialog, from which they can be shared as JSON or
+     * reset.
+     */
+    private void showMetrics() {
+        new AlertDialog.Builder(getActivity())
+                .setTitle(R.string.dump_metrics_title)
+                .setMessage(Metrics.dumpText())
+                .setPositiveButton(R.string.share_metrics, (dialog, i) -> {
+                    Intent intent = new Intent(Intent.ACTION_SEND);
+                    intent.setType("text/plain");
+                    intent.putExtra(Intent.EXTRA_TEXT, Metrics.dumpJson());
+                    startActivity(Intent.createChooser(intent,
+                            getString(R.string.share_metrics)));
+                })
+                .setNeutralButton(R.string.reset_metrics, (dialog, i) -> Metrics.reset())
+                .setNegativeButton(R.string.ok, (dialog, i) -> dialog.dismiss())
+                .show();
     }
 
     /**
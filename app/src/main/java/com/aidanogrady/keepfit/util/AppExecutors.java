@@ -0,0 +1,72 @@
+package com.aidanogrady.keepfit.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The AppExecutors are the executors shared across the app. Disk I/O is run on a single background
+ * thread, so reads and writes happen in the order they are submitted, and results are delivered
+ * back on the main thread.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class AppExecutors {
+    /**
+     * The shared instance used by the repositories.
+     */
+    private static AppExecutors sInstance;
+
+    /**
+     * The executor for disk I/O.
+     */
+    private final Executor mDiskIO;
+
+    /**
+     * The executor for the main thread.
+     */
+    private final Executor mMainThread;
+
+
+    /**
+     * Constructs a new AppExecutors with the given executors. Tests should use this to run tasks
+     * synchronously.
+     *
+     * @param diskIO the executor for disk I/O
+     * @param mainThread the executor for the main thread
+     */
+    public AppExecutors(Executor diskIO, Executor mainThread) {
+        this.mDiskIO = diskIO;
+        this.mMainThread = mainThread;
+    }
+
+
+    /**
+     * Returns the shared AppExecutors, creating the disk and main thread executors if required.
+     *
+     * @return shared instance
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (sInstance == null) {
+            sInstance = new AppExecutors(new DiskIOThreadExecutor(), new MainThreadExecutor());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the executor for disk I/O.
+     *
+     * @return disk executor
+     */
+    public Executor diskIO() {
+        return mDiskIO;
+    }
+
+    /**
+     * Returns the executor for the main thread.
+     *
+     * @return main thread executor
+     */
+    public Executor mainThread() {
+        return mMainThread;
+    }
+}
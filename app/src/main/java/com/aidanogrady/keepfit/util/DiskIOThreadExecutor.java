@@ -0,0 +1,34 @@
+package com.aidanogrady.keepfit.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor that runs each task in order on a single background thread.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class DiskIOThreadExecutor implements Executor {
+    /**
+     * The single thread tasks are run on.
+     */
+    private final ExecutorService mDiskIO;
+
+
+    /**
+     * Constructs a new DiskIOThreadExecutor.
+     */
+    DiskIOThreadExecutor() {
+        mDiskIO = Executors.newSingleThreadExecutor();
+    }
+
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        mDiskIO.execute(command);
+    }
+}
@@ -0,0 +1,178 @@
+package com.aidanogrady.keepfit.util;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds the list shown by a RecyclerView adapter and replaces it with the fewest changes. Each new
+ * list is diffed against the shown list on the disk executor, then the shown list is swapped and
+ * the changes are dispatched to the adapter on the main thread as granular notifications, so only
+ * the rows that changed are bound again.
+ *
+ * The differ is only accessed on the main thread.
+ *
+ * @param <T> the type of the items in the list
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class ListDiffer<T> {
+    /**
+     * Describes the items of the list to the differ.
+     *
+     * @param <T> the type of the items
+     */
+    public interface ItemCallback<T> {
+        /**
+         * Returns the stable ID of the given item.
+         *
+         * @param item the item
+         * @return item ID
+         */
+        long getItemId(T item);
+
+        /**
+         * Returns the contents shown for the given item, compared by equals to decide whether
+         * its row must be bound again.
+         *
+         * @param item the item
+         * @return contents of the item
+         */
+        Object getContents(T item);
+    }
+
+    /**
+     * The adapter the changes are dispatched to.
+     */
+    private final RecyclerView.Adapter<?> mAdapter;
+
+    /**
+     * Describes the items of the list.
+     */
+    private final ItemCallback<T> mItemCallback;
+
+    /**
+     * The executors the diff is calculated and dispatched through.
+     */
+    private final AppExecutors mAppExecutors;
+
+    /**
+     * The list being shown.
+     */
+    private List<T> mList = Collections.emptyList();
+
+    /**
+     * The snapshot of the list being shown.
+     */
+    private ListSnapshot mSnapshot = ListSnapshot.EMPTY;
+
+    /**
+     * Incremented for every list submitted, so a diff finished after a newer list was submitted
+     * is dropped.
+     */
+    private int mGeneration;
+
+
+    /**
+     * Constructs a new ListDiffer with an empty list.
+     *
+     * @param adapter the adapter the changes are dispatched to
+     * @param itemCallback describes the items of the list
+     * @param appExecutors the executors the diff is calculated and dispatched through
+     */
+    public ListDiffer(RecyclerView.Adapter<?> adapter, ItemCallback<T> itemCallback,
+                      AppExecutors appExecutors) {
+        mAdapter = adapter;
+        mItemCallback = itemCallback;
+        mAppExecutors = appExecutors;
+    }
+
+
+    /**
+     * Returns the number of items shown.
+     *
+     * @return size
+     */
+    public int size() {
+        return mList.size();
+    }
+
+    /**
+     * Returns the item shown at the given position.
+     *
+     * @param position the position of the item
+     * @return item
+     */
+    public T get(int position) {
+        return mList.get(position);
+    }
+
+    /**
+     * Returns the stable ID of the item shown at the given position.
+     *
+     * @param position the position of the item
+     * @return item ID
+     */
+    public long getItemId(int position) {
+        return mSnapshot.getItemId(position);
+    }
+
+    /**
+     * Replaces the list shown with the given list. The list is copied, so later changes to it are
+     * only shown once it is submitted again. Showing the first list or clearing the list is
+     * dispatched at once, as there is nothing to diff.
+     *
+     * @param list the list to be shown
+     */
+    public void submitList(List<T> list) {
+        List<T> newList = new ArrayList<>(list);
+        ListSnapshot newSnapshot = snapshot(newList);
+        int generation = ++mGeneration;
+
+        int oldSize = mList.size();
+        if (oldSize == 0 || newList.isEmpty()) {
+            mList = newList;
+            mSnapshot = newSnapshot;
+            if (oldSize > 0) {
+                mAdapter.notifyItemRangeRemoved(0, oldSize);
+            }
+            if (!newList.isEmpty()) {
+                mAdapter.notifyItemRangeInserted(0, newList.size());
+            }
+            return;
+        }
+
+        ListSnapshot oldSnapshot = mSnapshot;
+        mAppExecutors.diskIO().execute(() -> {
+            DiffUtil.DiffResult result = ListSnapshot.diff(oldSnapshot, newSnapshot);
+            mAppExecutors.mainThread().execute(() -> {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mList = newList;
+                mSnapshot = newSnapshot;
+                result.dispatchUpdatesTo(mAdapter);
+            });
+        });
+    }
+
+    /**
+     * Takes a snapshot of the IDs and contents of the given list.
+     *
+     * @param list the list
+     * @return snapshot of the list
+     */
+    private ListSnapshot snapshot(List<T> list) {
+        long[] ids = new long[list.size()];
+        Object[] contents = new Object[list.size()];
+        for (int i = 0; i < ids.length; i++) {
+            T item = list.get(i);
+            ids[i] = mItemCallback.getItemId(item);
+            contents[i] = mItemCallback.getContents(item);
+        }
+        return new ListSnapshot(ids, contents);
+    }
+}
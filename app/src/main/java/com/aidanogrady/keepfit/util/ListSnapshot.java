@@ -0,0 +1,132 @@
+package com.aidanogrady.keepfit.util;
+
+import android.support.v7.util.DiffUtil;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A snapshot of the rows shown by a list: the stable ID of each row and the contents it shows.
+ * Two snapshots are diffed to find the fewest changes turning one into the other. The contents are
+ * captured when the snapshot is taken, so items changed in place after being shown are still seen
+ * as changed. A row whose contents are null is never the same as another, so it is always bound.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class ListSnapshot {
+    /**
+     * The snapshot of an empty list.
+     */
+    public static final ListSnapshot EMPTY = new ListSnapshot(new long[0], new Object[0]);
+
+    /**
+     * The stable ID of each row.
+     */
+    private final long[] mIds;
+
+    /**
+     * The contents shown by each row.
+     */
+    private final Object[] mContents;
+
+
+    /**
+     * Constructs a new ListSnapshot. A repeated ID is made unique from the ID itself and how many
+     * rows before it share that ID, so rows keep their IDs as other rows are added around them.
+     *
+     * @param ids the ID of each row, which the snapshot takes ownership of
+     * @param contents the contents shown by each row, compared by equals
+     */
+    public ListSnapshot(long[] ids, Object[] contents) {
+        if (ids.length != contents.length) {
+            throw new IllegalArgumentException(
+                    "Row count mismatch: " + ids.length + " != " + contents.length);
+        }
+        Set<Long> seen = new HashSet<>();
+        Map<Long, Integer> repeats = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            long id = ids[i];
+            if (!seen.add(id)) {
+                int repeat = repeats.containsKey(id) ? repeats.get(id) : 0;
+                do {
+                    ids[i] = repeatId(id, ++repeat);
+                } while (!seen.add(ids[i]));
+                repeats.put(id, repeat);
+            }
+        }
+        mIds = ids;
+        mContents = contents;
+    }
+
+    /**
+     * Returns the ID given to the given repeat of an ID. The bits of the ID and the repeat are
+     * mixed, so the result is unlikely to be the ID of any other row.
+     *
+     * @param id the repeated ID
+     * @param repeat how many times the ID has been seen before
+     * @return ID of the repeat
+     */
+    private static long repeatId(long id, int repeat) {
+        long h = id * 0x9E3779B97F4A7C15L + repeat;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return size
+     */
+    public int size() {
+        return mIds.length;
+    }
+
+    /**
+     * Returns the stable ID of the row at the given position.
+     *
+     * @param position the position of the row
+     * @return item ID
+     */
+    public long getItemId(int position) {
+        return mIds[position];
+    }
+
+    /**
+     * Calculates the changes turning the given old snapshot into the given new snapshot. Moves are
+     * not detected, as every list is kept in a fixed order. This may take a while for long lists,
+     * so it is called off the main thread.
+     *
+     * @param oldSnapshot the snapshot of the rows being shown
+     * @param newSnapshot the snapshot of the rows to be shown
+     * @return the changes between the snapshots
+     */
+    public static DiffUtil.DiffResult diff(ListSnapshot oldSnapshot, ListSnapshot newSnapshot) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldSnapshot.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newSnapshot.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return oldSnapshot.mIds[oldPosition] == newSnapshot.mIds[newPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                Object contents = oldSnapshot.mContents[oldPosition];
+                return contents != null && contents.equals(newSnapshot.mContents[newPosition]);
+            }
+        }, false);
+    }
+}
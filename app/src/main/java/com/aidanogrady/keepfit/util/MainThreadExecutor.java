@@ -0,0 +1,26 @@
+package com.aidanogrady.keepfit.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that posts each task to the main thread.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class MainThreadExecutor implements Executor {
+    /**
+     * The handler of the main looper.
+     */
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        mMainThreadHandler.post(command);
+    }
+}
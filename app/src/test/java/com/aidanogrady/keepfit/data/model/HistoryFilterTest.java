@@ -0,0 +1,45 @@
+package com.aidanogrady.keepfit.data.model;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for matching history against a HistoryFilter.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryFilterTest {
+    @Test
+    public void all_matchesEverything() {
+        assertTrue(HistoryFilter.ALL.isUnfiltered());
+        assertTrue(HistoryFilter.ALL.matches(new History(Long.MIN_VALUE)));
+        assertTrue(HistoryFilter.ALL.matches(new History(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void matches_dateRangeIsInclusive() {
+        HistoryFilter filter = new HistoryFilter(10, 20, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+
+        assertFalse(filter.matches(new History(9)));
+        assertTrue(filter.matches(new History(10)));
+        assertTrue(filter.matches(new History(20)));
+        assertFalse(filter.matches(new History(21)));
+    }
+
+    @Test
+    public void matches_percentageUsesGoal() {
+        Goal goal = new Goal("Walk", 1000, Unit.METRES);
+        HistoryFilter completed = new HistoryFilter(Long.MIN_VALUE, Long.MAX_VALUE, 100,
+                Double.POSITIVE_INFINITY);
+
+        assertTrue(completed.matches(new History(0, goal, 1000, null)));
+        assertFalse(completed.matches(new History(0, goal, 999, null)));
+        assertFalse(completed.matches(new History(0)));
+    }
+}
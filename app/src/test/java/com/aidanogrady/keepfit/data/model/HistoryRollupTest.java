@@ -0,0 +1,53 @@
+package com.aidanogrady.keepfit.data.model;
+
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+
+import org.junit.Test;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.temporal.IsoFields;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the periods history is rolled up by.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryRollupTest {
+    @Test
+    public void week_runsMondayToSunday() {
+        for (long date = -30; date < 800; date++) {
+            LocalDate start = LocalDate.ofEpochDay(Period.WEEK.getStartDate(date));
+            LocalDate end = LocalDate.ofEpochDay(Period.WEEK.getEndDate(date));
+            LocalDate day = LocalDate.ofEpochDay(date);
+
+            assertEquals(DayOfWeek.MONDAY, start.getDayOfWeek());
+            assertEquals(DayOfWeek.SUNDAY, end.getDayOfWeek());
+            assertEquals(day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR),
+                    start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        }
+    }
+
+    @Test
+    public void month_coversCalendarMonth() {
+        long leapDay = LocalDate.of(2016, 2, 29).toEpochDay();
+
+        assertEquals(LocalDate.of(2016, 2, 1).toEpochDay(), Period.MONTH.getStartDate(leapDay));
+        assertEquals(leapDay, Period.MONTH.getEndDate(leapDay));
+        assertEquals(LocalDate.of(2016, 12, 31).toEpochDay(),
+                Period.MONTH.getEndDate(LocalDate.of(2016, 12, 1).toEpochDay()));
+    }
+
+    @Test
+    public void getEndDate_isEndOfPeriod() {
+        long date = LocalDate.of(2017, 1, 1).toEpochDay();
+        HistoryRollup week = new HistoryRollup(Period.WEEK, Period.WEEK.getStartDate(date), 0, 0,
+                0, date, 0);
+
+        // 1 January 2017 was a Sunday, the end of the last ISO week of 2016
+        assertEquals(date, week.getEndDate());
+        assertEquals(LocalDate.of(2016, 12, 26).toEpochDay(), week.getStartDate());
+    }
+}
@@ -0,0 +1,81 @@
+package com.aidanogrady.keepfit.data.model;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the daily totals and updates of summaries of History.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryTest {
+    private static final double DELTA = 1e-9;
+
+    @Before
+    public void setUp() {
+        UnitsConverter.setSteps(2);
+    }
+
+    @Test
+    public void addUpdate_incrementsTotals() {
+        History history = new History(0);
+        history.addUpdate(new Update(0, 0, 1, Unit.KILOMETRES));
+        history.addUpdate(new Update(0, 1, 500, Unit.METRES));
+
+        assertEquals(1500, history.getTotalMetres(), DELTA);
+        assertEquals(2, history.getUpdateCount());
+        assertEquals(1.5, history.getTotalDistance(Unit.KILOMETRES), DELTA);
+        assertEquals(3000, history.getTotalDistance(Unit.STEPS), DELTA);
+    }
+
+    @Test
+    public void constructor_totalsGivenUpdates() {
+        List<Update> updates = new ArrayList<>();
+        updates.add(new Update(0, 0, 1000, Unit.STEPS));
+        updates.add(new Update(0, 1, 1, Unit.MILES));
+
+        History history = new History(0, null, 0, updates);
+
+        assertEquals(500 + UnitsConverter.MILES, history.getTotalMetres(), DELTA);
+        assertEquals(2, history.getUpdateCount());
+    }
+
+    @Test
+    public void setUpdates_resolvesSummaryKeepingTotals() {
+        History summary = History.summary(3, null, 0, 200, 2);
+        assertFalse(summary.isUpdatesLoaded());
+        assertEquals(0, summary.getUpdates().size());
+
+        List<Update> updates = new ArrayList<>();
+        updates.add(new Update(3, 0, 100, Unit.METRES));
+        updates.add(new Update(3, 1, 100, Unit.METRES));
+        summary.setUpdates(updates);
+
+        assertTrue(summary.isUpdatesLoaded());
+        assertEquals(2, summary.getUpdates().size());
+        assertEquals(200, summary.getTotalMetres(), DELTA);
+        assertFalse(summary.withoutUpdates().isUpdatesLoaded());
+    }
+
+    @Test
+    public void addUpdate_countsSummaryUpdateWithoutLoading() {
+        History summary = History.summary(3, null, 0, 100, 1);
+
+        summary.addUpdate(new Update(3, 1, 100, Unit.METRES));
+
+        assertFalse(summary.isUpdatesLoaded());
+        assertEquals(2, summary.getUpdateCount());
+        assertEquals(200, summary.getTotalMetres(), DELTA);
+    }
+}
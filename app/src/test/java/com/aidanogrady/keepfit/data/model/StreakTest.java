@@ -0,0 +1,60 @@
+package com.aidanogrady.keepfit.data.model;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for extending streaks as goals are achieved.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class StreakTest {
+    @Test
+    public void extend_countsConsecutiveDays() {
+        Streak streak = Streak.NONE.extend(10).extend(11).extend(12);
+
+        assertEquals(new Streak(12, 3, 3), streak);
+    }
+
+    @Test
+    public void extend_startsAgainAfterGapKeepingLongest() {
+        Streak streak = Streak.NONE.extend(10).extend(11).extend(13);
+
+        assertEquals(new Streak(13, 1, 2), streak);
+        assertEquals(new Streak(15, 3, 3), streak.extend(14).extend(15));
+    }
+
+    @Test
+    public void extend_ignoresDaysAlreadyCounted() {
+        Streak streak = Streak.NONE.extend(10).extend(11);
+
+        assertSame(streak, streak.extend(11));
+        assertSame(streak, streak.extend(5));
+    }
+
+    @Test
+    public void getCurrent_brokenOnceADayIsMissed() {
+        Streak streak = Streak.NONE.extend(10).extend(11);
+
+        assertEquals(2, streak.getCurrent(11));
+        assertEquals(2, streak.getCurrent(12));
+        assertEquals(0, streak.getCurrent(13));
+        assertEquals(0, Streak.NONE.getCurrent(0));
+    }
+
+    @Test
+    public void goal_keepsStreakWithLastAchieved() {
+        Goal goal = new Goal("Walk", 1000, Unit.STEPS);
+        assertEquals(Streak.NONE, goal.getStreak());
+
+        goal.setStreak(goal.getStreak().extend(20).extend(21));
+
+        assertEquals(21, goal.getLastAchieved());
+        assertEquals(new Streak(21, 2, 2), goal.getStreak());
+    }
+}
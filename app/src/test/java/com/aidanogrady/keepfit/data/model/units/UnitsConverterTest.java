@@ -0,0 +1,150 @@
+package com.aidanogrady.keepfit.data.model.units;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the conversion factors of UnitsConverter.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class UnitsConverterTest {
+    private static final double DELTA = 1e-9;
+
+    private static final int READERS = 4;
+
+    private static final long STRESS_MILLIS = 500;
+
+    @After
+    public void tearDown() {
+        UnitsConverter.setSteps(UnitsConverter.DEFAULT_STEPS);
+    }
+
+    @Test
+    public void convert_usesDefaultStepsUntilSet() {
+        assertEquals(3, UnitsConverter.convert(Unit.STEPS, Unit.METRES, 2), DELTA);
+    }
+
+    @Test
+    public void convert_goesViaMetres() {
+        UnitsConverter.setSteps(2);
+
+        assertEquals(2, UnitsConverter.getSteps(), 0);
+        assertEquals(1.5, UnitsConverter.convert(Unit.KILOMETRES, Unit.METRES, 1500), DELTA);
+        assertEquals(UnitsConverter.MILES / UnitsConverter.YARDS,
+                UnitsConverter.convert(Unit.YARDS, Unit.MILES, 1), DELTA);
+        assertEquals(2000, UnitsConverter.convert(Unit.STEPS, Unit.KILOMETRES, 1), DELTA);
+        assertEquals(7.25, UnitsConverter.convert(Unit.MILES, Unit.MILES, 7.25), 0);
+    }
+
+    @Test
+    public void convertAll_matchesConvert() {
+        UnitsConverter.setSteps(1.3);
+        double[] in = {0, 1, 2.5, 10000};
+        double[] out = new double[in.length];
+
+        UnitsConverter.convertAll(in, Unit.STEPS, Unit.MILES, out);
+
+        double[] expected = new double[in.length];
+        for (int i = 0; i < in.length; i++) {
+            expected[i] = UnitsConverter.convert(Unit.MILES, Unit.STEPS, in[i]);
+        }
+        assertArrayEquals(expected, out, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void convertAll_rejectsShortOutput() {
+        UnitsConverter.convertAll(new double[2], Unit.METRES, Unit.YARDS, new double[1]);
+    }
+
+    @Test
+    public void convert_seesOneStepLengthWhileStepsChange() throws Exception {
+        double[] steps = {1.25, 2.5};
+        double[] stepsInMetres = new double[steps.length];
+        double[] stepsInKilometres = new double[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            UnitsConverter.setSteps(steps[i]);
+            stepsInMetres[i] = UnitsConverter.convert(Unit.METRES, Unit.STEPS, 1000);
+            stepsInKilometres[i] = UnitsConverter.convert(Unit.KILOMETRES, Unit.STEPS, 1000);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Long>> readers = new ArrayList<>();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                start.await();
+                for (int i = 0; running.get(); i++) {
+                    UnitsConverter.setSteps(steps[i % steps.length]);
+                }
+                return null;
+            });
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    long conversions = 0;
+                    while (running.get()) {
+                        double metres = UnitsConverter.convert(Unit.METRES, Unit.STEPS, 1000);
+                        assertTrue("Torn factor " + metres,
+                                indexOf(stepsInMetres, metres) >= 0);
+                        double kilometres =
+                                UnitsConverter.convert(Unit.KILOMETRES, Unit.STEPS, 1000);
+                        assertTrue("Torn factor " + kilometres,
+                                indexOf(stepsInKilometres, kilometres) >= 0);
+                        assertEquals(1000, UnitsConverter.convert(Unit.STEPS, Unit.STEPS, 1000),
+                                0);
+                        assertEquals(1, UnitsConverter.convert(Unit.KILOMETRES, Unit.METRES,
+                                1000), 0);
+                        conversions++;
+                    }
+                    return conversions;
+                }));
+            }
+
+            start.countDown();
+            Thread.sleep(STRESS_MILLIS);
+            running.set(false);
+
+            writer.get();
+            for (Future<Long> reader : readers) {
+                // Rethrows any failed assertion of the reader
+                assertTrue(reader.get() > 0);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns the index of the given value in the given array.
+     *
+     * @param values the array searched
+     * @param value the value searched for
+     * @return index of the value, or -1 if it is not found
+     */
+    private static int indexOf(double[] values, double value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
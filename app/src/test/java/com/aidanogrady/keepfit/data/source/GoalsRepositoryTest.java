@@ -0,0 +1,199 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.util.SingleExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the GoalsRepository, run synchronously through SingleExecutors.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class GoalsRepositoryTest {
+    private FakeGoalsDataSource mLocalDataSource;
+
+    private GoalsRepository mRepository;
+
+    @Before
+    public void setUp() {
+        mLocalDataSource = new FakeGoalsDataSource();
+        SingleExecutors executors = new SingleExecutors();
+        UnitOfWork unitOfWork = new UnitOfWork(Runnable::run, executors, 0);
+        // Dropped writes are checked through the cache, not the log
+        unitOfWork.setFailureListener(e -> {});
+        mRepository = GoalsRepository.getInstance(mLocalDataSource, executors, unitOfWork);
+    }
+
+    @After
+    public void tearDown() {
+        GoalsRepository.destroyInstance();
+    }
+
+    @Test
+    public void getGoals_loadsFromDataSourceOnce() {
+        mLocalDataSource.mGoals.add(new Goal("Walk", 1000, Unit.STEPS));
+        List<Goal> loaded = new ArrayList<>();
+
+        mRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                loaded.addAll(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        mRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                loaded.addAll(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+
+        assertEquals(2, loaded.size());
+        assertEquals(1, mLocalDataSource.mLoads);
+    }
+
+    @Test
+    public void insertGoal_writesThroughToDataSource() {
+        mRepository.insertGoal(new Goal("Run", 5, Unit.KILOMETRES));
+        assertEquals(1, mLocalDataSource.mGoals.size());
+    }
+
+
+    @Test
+    public void getGoals_writesKeepCacheWithoutReload() {
+        mLocalDataSource.mGoals.add(new Goal("Walk", 1000, Unit.STEPS));
+        List<Goal> loaded = new ArrayList<>();
+        GoalsDataSource.LoadGoalsCallback callback = new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                loaded.clear();
+                loaded.addAll(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        };
+
+        mRepository.getGoals(callback);
+        mRepository.insertGoal(new Goal("Run", 5, Unit.KILOMETRES));
+        mRepository.getGoals(callback);
+
+        assertEquals(2, loaded.size());
+        assertEquals("Run", loaded.get(0).getName());
+        assertEquals(1, mLocalDataSource.mLoads);
+    }
+
+    @Test
+    public void invalidateGoal_reloadsOnNextGet() {
+        Goal goal = new Goal("Walk", 1000, Unit.STEPS);
+        mLocalDataSource.mGoals.add(goal);
+        GoalsDataSource.LoadGoalsCallback callback = new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {}
+
+            @Override
+            public void onDataNotAvailable() {}
+        };
+
+        mRepository.getGoals(callback);
+        mRepository.invalidateGoal(goal.getId());
+        mRepository.getGoals(callback);
+
+        assertEquals(2, mLocalDataSource.mLoads);
+    }
+
+    @Test
+    public void insertGoal_droppedWriteReloadsOnNextGet() {
+        mLocalDataSource.mGoals.add(new Goal("Walk", 1000, Unit.STEPS));
+        List<Goal> loaded = new ArrayList<>();
+        GoalsDataSource.LoadGoalsCallback callback = new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                loaded.clear();
+                loaded.addAll(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        };
+
+        mRepository.getGoals(callback);
+        mLocalDataSource.mFailWrites = true;
+        mRepository.insertGoal(new Goal("Run", 5, Unit.KILOMETRES));
+        mRepository.getGoals(callback);
+
+        assertEquals(1, loaded.size());
+        assertEquals("Walk", loaded.get(0).getName());
+        assertEquals(2, mLocalDataSource.mLoads);
+    }
+
+    /**
+     * A GoalsDataSource backed by a list, counting the number of loads. Inserts throw while
+     * mFailWrites is set.
+     */
+    private static class FakeGoalsDataSource implements GoalsDataSource {
+        final List<Goal> mGoals = new ArrayList<>();
+
+        int mLoads;
+
+        boolean mFailWrites;
+
+        @Override
+        public void getGoals(LoadGoalsCallback callback) {
+            mLoads++;
+            if (mGoals.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                callback.onGoalsLoaded(new ArrayList<>(mGoals));
+            }
+        }
+
+        @Override
+        public void getGoal(String id, boolean deleted, GetGoalCallback callback) {
+            for (Goal goal : mGoals) {
+                if (goal.getId().equals(id)) {
+                    callback.onGoalLoaded(goal);
+                    return;
+                }
+            }
+            callback.onDataNotAvailable();
+        }
+
+        @Override
+        public void insertGoal(Goal goal) {
+            if (mFailWrites) {
+                throw new IllegalStateException("Write failed");
+            }
+            mGoals.add(goal);
+        }
+
+        @Override
+        public void updateGoal(Goal goal, String oldId) {}
+
+        @Override
+        public void refreshGoals() {}
+
+        @Override
+        public void deleteAllGoals() {
+            mGoals.clear();
+        }
+
+        @Override
+        public void deleteGoal(String id) {}
+    }
+}
@@ -0,0 +1,190 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the weight bounded LRU HistoryCache.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryCacheTest {
+    @Test
+    public void get_countsHitsAndMisses() {
+        HistoryCache cache = new HistoryCache(10);
+        History history = createHistory(1, 2);
+        cache.put(history);
+
+        assertSame(history, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getWeight());
+    }
+
+    @Test
+    public void put_releasesUpdatesOfLeastRecentlyUsedFirst() {
+        HistoryCache cache = new HistoryCache(7);
+        History first = createHistory(1, 2);
+        cache.put(first);
+        cache.put(createHistory(2, 2));
+        cache.get(1);
+        cache.put(createHistory(3, 2));
+
+        // Day 2 was used least recently, so its updates go first
+        assertEquals(3, cache.size());
+        assertEquals(7, cache.getWeight());
+        assertEquals(1, cache.getReleaseCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertNull(cache.getWithUpdates(2));
+        assertEquals(2, cache.get(2).getUpdateCount());
+        assertSame(first, cache.getWithUpdates(1));
+        assertEquals(2, first.getUpdates().size());
+    }
+
+    @Test
+    public void put_evictsOnceOnlySummariesRemain() {
+        HistoryCache cache = new HistoryCache(2);
+        cache.put(createHistory(1, 0));
+        cache.put(createHistory(2, 0));
+        cache.put(createHistory(3, 0));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    public void replaceAll_isCompleteOnlyIfEverythingFits() {
+        HistoryCache cache = new HistoryCache(3);
+        List<History> histories = new ArrayList<>();
+        histories.add(createHistory(1, 0));
+        histories.add(createHistory(2, 0));
+
+        cache.replaceAll(histories);
+        assertTrue(cache.isComplete());
+        assertEquals(2, cache.getAll().get(0).getDate());
+
+        histories.add(createHistory(3, 0));
+        histories.add(createHistory(4, 0));
+        cache.replaceAll(histories);
+        assertFalse(cache.isComplete());
+    }
+
+    @Test
+    public void releaseUpdates_keepsSummaries() {
+        HistoryCache cache = new HistoryCache(100);
+        cache.put(createHistory(1, 5));
+        cache.releaseUpdates();
+
+        History summary = cache.get(1);
+        assertFalse(summary.isUpdatesLoaded());
+        assertEquals(5, summary.getUpdateCount());
+        assertEquals(500, summary.getTotalMetres(), 1e-9);
+        assertEquals(1, cache.getWeight());
+    }
+
+    @Test
+    public void put_weighsSummaryWithoutLoadingUpdates() {
+        HistoryCache cache = new HistoryCache(100);
+        History summary = History.summary(1, null, 0, 500, 5);
+
+        cache.put(summary);
+
+        assertEquals(1, cache.getWeight());
+        assertSame(summary, cache.get(1));
+    }
+
+    @Test
+    public void invalidate_removesOnlyGivenDays() {
+        HistoryCache cache = new HistoryCache(100);
+        List<History> histories = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            histories.add(createHistory(day, 1));
+        }
+        cache.replaceAll(histories);
+
+        cache.invalidate(9);
+        cache.removeRange(2, 4);
+
+        assertFalse(cache.isComplete());
+        assertEquals(6, cache.size());
+        assertEquals(12, cache.getWeight());
+        assertNull(cache.get(3));
+        assertNotNull(cache.get(5));
+    }
+
+    @Test
+    public void removeGoal_removesDaysAttemptingGoal() {
+        HistoryCache cache = new HistoryCache(100);
+        Goal goal = new Goal("Walk", 1000, Unit.METRES);
+        cache.put(new History(1, goal));
+        cache.put(new History(2, new Goal("Run", 5, Unit.KILOMETRES)));
+
+        cache.removeGoal(goal.getId());
+
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+    }
+
+    @Test
+    public void getPage_readsMostRecentDaysBeforeDate() {
+        HistoryCache cache = new HistoryCache(100);
+        for (long date = 1; date <= 10; date++) {
+            cache.put(createHistory(date, 0));
+        }
+        cache.remove(7);
+
+        List<History> page = cache.getPage(HistoryFilter.ALL.before(9), 3);
+        assertEquals(3, page.size());
+        assertEquals(8, page.get(0).getDate());
+        assertEquals(6, page.get(1).getDate());
+        assertEquals(5, page.get(2).getDate());
+        assertEquals(0, cache.getPage(HistoryFilter.ALL.before(1), 3).size());
+    }
+
+    @Test
+    public void getPage_skipsEvictedDays() {
+        HistoryCache cache = new HistoryCache(2);
+        for (long date = 1; date <= 3; date++) {
+            cache.put(createHistory(date, 0));
+        }
+
+        List<History> page = cache.getPage(HistoryFilter.ALL, 10);
+        assertEquals(2, page.size());
+        assertEquals(3, page.get(0).getDate());
+        assertEquals(2, page.get(1).getDate());
+    }
+
+    /**
+     * Creates a day of history with the given number of 100 metre updates.
+     *
+     * @param date the date of the history
+     * @param updateCount the number of updates
+     * @return history
+     */
+    private static History createHistory(long date, int updateCount) {
+        List<Update> updates = new ArrayList<>();
+        for (int i = 0; i < updateCount; i++) {
+            updates.add(new Update(date, i, 100, Unit.METRES));
+        }
+        return new History(date, null, 100 * updateCount, updates);
+    }
+}
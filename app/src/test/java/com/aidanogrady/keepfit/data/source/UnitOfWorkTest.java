@@ -0,0 +1,134 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the UnitOfWork committing and recovering from failed writes. Tasks given to the
+ * disk executor are held until run, so several writes can share a commit.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class UnitOfWorkTest {
+    private final List<Runnable> mDiskTasks = new ArrayList<>();
+
+    private final List<String> mCommitted = new ArrayList<>();
+
+    private final List<RuntimeException> mFailures = new ArrayList<>();
+
+    private List<String> mStaged;
+
+    private UnitOfWork mUnitOfWork;
+
+    @Before
+    public void setUp() {
+        AppExecutors executors = new AppExecutors(mDiskTasks::add, Runnable::run);
+        // Writes are staged and only kept once the whole transaction has run
+        TransactionRunner runner = work -> {
+            mStaged = new ArrayList<>();
+            work.run();
+            mCommitted.addAll(mStaged);
+        };
+        mUnitOfWork = new UnitOfWork(runner, executors, 0);
+        mUnitOfWork.setFailureListener(mFailures::add);
+    }
+
+    @Test
+    public void flush_commitsWritesTogether() {
+        mUnitOfWork.enqueue(() -> mStaged.add("a"));
+        mUnitOfWork.enqueue(() -> mStaged.add("b"));
+        runDiskTasks();
+
+        assertEquals(2, mCommitted.size());
+        assertEquals(1, mUnitOfWork.getCommitCount());
+        assertEquals(2, mUnitOfWork.getWriteCount());
+    }
+
+    @Test
+    public void flush_dropsOnlyFailingWrite() {
+        mUnitOfWork.enqueue(() -> mStaged.add("a"));
+        mUnitOfWork.enqueue(() -> {
+            throw new IllegalStateException();
+        });
+        mUnitOfWork.enqueue(() -> mStaged.add("c"));
+        runDiskTasks();
+
+        assertEquals(2, mCommitted.size());
+        assertEquals("c", mCommitted.get(1));
+        assertEquals(1, mFailures.size());
+        assertEquals(1, mUnitOfWork.getFailureCount());
+    }
+
+    @Test
+    public void flush_countsOnlyCommittedWrites() {
+        mUnitOfWork.enqueue(() -> mStaged.add("a"));
+        mUnitOfWork.enqueue(() -> {
+            throw new IllegalStateException();
+        });
+        mUnitOfWork.begin();
+        mUnitOfWork.enqueue(() -> mStaged.add("b"));
+        mUnitOfWork.enqueue(() -> mStaged.add("c"));
+        mUnitOfWork.commit();
+        runDiskTasks();
+
+        assertEquals(0, mUnitOfWork.getCommitCount());
+        assertEquals(2, mUnitOfWork.getRetryCount());
+        assertEquals(3, mUnitOfWork.getWriteCount());
+        assertEquals(1, mUnitOfWork.getFailureCount());
+    }
+
+    @Test
+    public void flush_runsCallbackOfDroppedWriteOnly() {
+        List<String> dropped = new ArrayList<>();
+        mUnitOfWork.enqueue(() -> mStaged.add("a"), () -> dropped.add("a"));
+        mUnitOfWork.enqueue(() -> {
+            throw new IllegalStateException();
+        }, () -> dropped.add("b"));
+        runDiskTasks();
+
+        assertEquals(1, dropped.size());
+        assertEquals("b", dropped.get(0));
+    }
+
+    @Test
+    public void flush_dropsFailingUnitAsWhole() {
+        mUnitOfWork.enqueue(() -> mStaged.add("a"));
+        mUnitOfWork.begin();
+        mUnitOfWork.enqueue(() -> mStaged.add("b"));
+        mUnitOfWork.enqueue(() -> {
+            throw new IllegalStateException();
+        });
+        mUnitOfWork.commit();
+        runDiskTasks();
+
+        assertEquals(1, mCommitted.size());
+        assertEquals("a", mCommitted.get(0));
+        assertEquals(1, mFailures.size());
+    }
+
+    @Test
+    public void flush_holdsOpenUnitUntilCommitted() {
+        mUnitOfWork.begin();
+        mUnitOfWork.enqueue(() -> mStaged.add("a"));
+        mUnitOfWork.flush();
+        assertEquals(0, mCommitted.size());
+
+        mUnitOfWork.commit();
+        runDiskTasks();
+        assertEquals(1, mCommitted.size());
+    }
+
+    private void runDiskTasks() {
+        while (!mDiskTasks.isEmpty()) {
+            mDiskTasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the columnar UpdatesCache.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class UpdatesCacheTest {
+    @Test
+    public void add_keepsDaysSortedAndUpdatesInOrderAdded() {
+        UpdatesCache cache = new UpdatesCache(2);
+        cache.add(new Update(5, 10, 1, Unit.STEPS));
+        cache.add(new Update(3, 20, 2, Unit.METRES));
+        cache.add(new Update(5, 5, 3, Unit.MILES));
+        cache.add(new Update(4, 30, 4, Unit.KILOMETRES));
+
+        assertEquals(Arrays.asList("3:20:2.0:METRES", "4:30:4.0:KILOMETRES",
+                "5:10:1.0:STEPS", "5:5:3.0:MILES"), describe(cache.getAll()));
+        assertEquals(4, cache.getCapacity());
+    }
+
+    @Test
+    public void addAll_keepsTimeOfImportedUpdate() {
+        long millis = 1488326400123L;
+        UpdatesCache cache = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+        cache.add(new Update(17226, 60, 1, Unit.STEPS));
+        cache.addAll(Collections.singletonList(new Update(17226, millis, 2, Unit.STEPS)));
+
+        assertEquals(Arrays.asList("17226:60:1.0:STEPS", "17226:" + millis + ":2.0:STEPS"),
+                describe(cache.get(17226)));
+    }
+
+    @Test
+    public void getRange_findsDaysByBinarySearch() {
+        UpdatesCache cache = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+        for (long date = 0; date < 100; date += 2) {
+            cache.add(date, 0, date, Unit.STEPS);
+            cache.add(date, 1, date, Unit.STEPS);
+        }
+
+        assertEquals(6, cache.getRange(9, 14).size());
+        assertEquals(10, cache.getRange(9, 14).get(0).getDate());
+        assertEquals(2, cache.get(50).size());
+        assertTrue(cache.get(51).isEmpty());
+        assertTrue(cache.getRange(200, 300).isEmpty());
+    }
+
+    @Test
+    public void replaceDate_replacesOnlyThatDay() {
+        UpdatesCache cache = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+        cache.addAll(createUpdates(1, 3));
+        cache.addAll(createUpdates(2, 3));
+        cache.addAll(createUpdates(3, 3));
+
+        cache.replaceDate(2, createUpdates(2, 1));
+        assertEquals(7, cache.size());
+        assertEquals(1, cache.get(2).size());
+
+        cache.removeDate(1);
+        assertEquals(4, cache.size());
+        assertEquals(2, cache.getAll().get(0).getDate());
+    }
+
+    @Test
+    public void addAll_mergesUnsortedUpdates() {
+        UpdatesCache cache = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+        cache.add(new Update(2, 0, 0, Unit.STEPS));
+        List<Update> updates = new ArrayList<>();
+        updates.add(new Update(3, 0, 1, Unit.STEPS));
+        updates.add(new Update(1, 0, 2, Unit.STEPS));
+        updates.add(new Update(2, 0, 3, Unit.STEPS));
+        cache.addAll(updates);
+
+        assertEquals(Arrays.asList("1:0:2.0:STEPS", "2:0:0.0:STEPS", "2:0:3.0:STEPS",
+                "3:0:1.0:STEPS"), describe(cache.getAll()));
+    }
+
+    @Test
+    public void views_stayValidAfterCacheChanges() {
+        UpdatesCache cache = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+        cache.addAll(createUpdates(1, 2));
+        cache.addAll(createUpdates(2, 2));
+        List<Update> views = cache.getAll();
+        List<String> before = describe(views);
+
+        cache.add(new Update(0, 9, 9, Unit.MILES));
+        cache.add(new Update(3, 9, 9, Unit.MILES));
+        cache.removeDate(1);
+        cache.replaceAll(Collections.<Update>emptyList());
+
+        assertEquals(before, describe(views));
+    }
+
+    /**
+     * Creates the given number of updates of a day.
+     *
+     * @param date the day
+     * @param count the number of updates
+     * @return updates
+     */
+    private static List<Update> createUpdates(long date, int count) {
+        List<Update> updates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            updates.add(new Update(date, i, 100, Unit.METRES));
+        }
+        return updates;
+    }
+
+    /**
+     * Describes each of the given updates by its values, for comparing views with updates.
+     *
+     * @param updates the updates
+     * @return descriptions
+     */
+    private static List<String> describe(List<Update> updates) {
+        List<String> descriptions = new ArrayList<>();
+        for (Update update : updates) {
+            descriptions.add(update.getDate() + ":" + update.getTime() + ":" +
+                    update.getDistance() + ":" + update.getUnit().name());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,108 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for appending to and recovering the memory-mapped UpdateJournal.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class UpdateJournalTest {
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void open_recoversRecordsAppendedBeforeClosing() throws IOException {
+        File file = mFolder.newFile();
+        try (UpdateJournal journal = UpdateJournal.open(file, 16)) {
+            journal.append(new Update(5, 60, 1.5, Unit.METRES));
+            journal.append(new Update(6, 120, 2, Unit.MILES));
+        }
+
+        try (UpdateJournal journal = UpdateJournal.open(file, 16)) {
+            List<Update> updates = journal.read(0);
+            assertEquals(2, updates.size());
+            assertEquals(5, updates.get(0).getDate());
+            assertEquals(60, updates.get(0).getTime());
+            assertEquals(1.5, updates.get(0).getDistance(), 0);
+            assertEquals(Unit.MILES, updates.get(1).getUnit());
+        }
+    }
+
+    @Test
+    public void open_stopsAtTornRecord() throws IOException {
+        File file = mFolder.newFile();
+        try (UpdateJournal journal = UpdateJournal.open(file, 16)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(i, i, i, Unit.STEPS);
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(UpdateJournal.HEADER_SIZE + 2 * UpdateJournal.RECORD_SIZE + 3);
+            raf.write(0x7f);
+        }
+
+        try (UpdateJournal journal = UpdateJournal.open(file, 16)) {
+            assertEquals(2, journal.size());
+            journal.append(9, 9, 9, Unit.STEPS);
+            assertEquals(9, journal.read(2).get(0).getDate());
+        }
+    }
+
+    @Test
+    public void reset_dropsRecordsOfEarlierGenerations() throws IOException {
+        File file = mFolder.newFile();
+        try (UpdateJournal journal = UpdateJournal.open(file, 16)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(i, i, i, Unit.STEPS);
+            }
+            journal.reset();
+            journal.append(7, 7, 7, Unit.STEPS);
+        }
+
+        try (UpdateJournal journal = UpdateJournal.open(file, 16)) {
+            assertEquals(2, journal.getGeneration());
+            assertEquals(1, journal.size());
+            assertEquals(7, journal.read(0).get(0).getDate());
+        }
+    }
+
+    @Test
+    public void append_failsOnceFull() throws IOException {
+        try (UpdateJournal journal = UpdateJournal.open(mFolder.newFile(), 2)) {
+            assertTrue(journal.append(1, 0, 1, Unit.STEPS));
+            assertTrue(journal.append(2, 0, 1, Unit.STEPS));
+            assertFalse(journal.append(3, 0, 1, Unit.STEPS));
+            assertEquals(2, journal.size());
+        }
+    }
+
+    @Test
+    public void readDate_returnsOnlyThatDay() throws IOException {
+        try (UpdateJournal journal = UpdateJournal.open(mFolder.newFile(), 16)) {
+            journal.append(1, 0, 1, Unit.STEPS);
+            journal.append(2, 0, 2, Unit.STEPS);
+            journal.append(1, 10, 3, Unit.STEPS);
+
+            List<Update> updates = journal.readDate(0, 1);
+            assertEquals(2, updates.size());
+            assertEquals(3, updates.get(1).getDistance(), 0);
+            assertEquals(1, journal.readDate(1, 1).size());
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.aidanogrady.keepfit.data.source.memory;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.HistoryRollup;
+import com.aidanogrady.keepfit.data.model.HistoryRollup.Period;
+import com.aidanogrady.keepfit.data.model.Streak;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.GoalsDataSource;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+import com.aidanogrady.keepfit.data.source.UpdatesDataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the InMemoryStorageEngine answering as the SQLite engine does.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class InMemoryStorageEngineTest {
+    /**
+     * A Monday, the first day of its week.
+     */
+    private static final long MONDAY = 17000;
+
+    private InMemoryStorageEngine mEngine;
+
+    private Goal mGoal;
+
+    @Before
+    public void setUp() {
+        mEngine = new InMemoryStorageEngine();
+        mGoal = new Goal("Walk", 1000, Unit.METRES);
+        mEngine.insertGoal(mGoal);
+    }
+
+    @Test
+    public void getGoals_sortsByNameAndHidesDeleted() {
+        Goal run = new Goal("Run", 5, Unit.KILOMETRES);
+        mEngine.insertGoal(run);
+        mEngine.insertGoal(new Goal("Swim", 1, Unit.MILES));
+        mEngine.deleteGoal(run.getId());
+
+        List<Goal> goals = loadGoals();
+        assertEquals(2, goals.size());
+        assertEquals("Swim", goals.get(0).getName());
+        assertEquals("Walk", goals.get(1).getName());
+        assertEquals(run.getId(), loadGoal(run.getId(), true).getId());
+        assertNull(loadGoal(run.getId(), false));
+    }
+
+    @Test
+    public void getHistory_filtersAndLimitsMostRecentFirst() {
+        for (int i = 0; i < 5; i++) {
+            mEngine.insertHistory(day(MONDAY + i, 250 * i));
+        }
+
+        HistoryFilter filter = new HistoryFilter(MONDAY + 1, Long.MAX_VALUE, 50, Double.MAX_VALUE);
+        List<History> histories = loadHistory(filter, 2);
+        assertEquals(2, histories.size());
+        assertEquals(MONDAY + 4, histories.get(0).getDate());
+        assertEquals(MONDAY + 3, histories.get(1).getDate());
+        assertEquals(0, loadHistory(filter.before(MONDAY + 1), 0).size());
+    }
+
+    @Test
+    public void insertHistory_refreshesRollups() {
+        mEngine.insertHistory(day(MONDAY, 1000));
+        mEngine.insertHistory(day(MONDAY + 2, 1500));
+        mEngine.insertHistory(day(MONDAY + 7, 400));
+        mEngine.deleteHistory(MONDAY + 2);
+
+        HistoryRollup week = loadRollup(Period.WEEK, MONDAY + 3);
+        assertEquals(MONDAY, week.getStartDate());
+        assertEquals(1000, week.getTotalMetres(), 0);
+        assertEquals(1, week.getDaysActive());
+        assertEquals(1, week.getDaysCompleted());
+        assertEquals(MONDAY, week.getBestDate());
+        assertEquals(400, loadRollup(Period.WEEK, MONDAY + 7).getTotalMetres(), 0);
+    }
+
+    @Test
+    public void rebuildStreaks_countsDaysGoalWasAchieved() {
+        mEngine.insertHistory(day(MONDAY, 1000));
+        mEngine.insertHistory(day(MONDAY + 1, 1200));
+        mEngine.insertHistory(day(MONDAY + 2, 10));
+        mEngine.insertHistory(day(MONDAY + 3, 1000));
+        mEngine.rebuildStreaks();
+
+        Streak[] streak = new Streak[1];
+        mEngine.getStreak(loaded -> streak[0] = loaded);
+        assertEquals(new Streak(MONDAY + 3, 1, 2), streak[0]);
+        assertEquals(2, loadGoal(mGoal.getId(), false).getStreak().getLongest());
+    }
+
+    @Test
+    public void rebuildStreaks_keepsLaterDayLastAchieved() {
+        Goal goal = loadGoal(mGoal.getId(), false);
+        goal.setStreak(new Streak(MONDAY + 10, 1, 1));
+        mEngine.updateGoal(goal, goal.getId());
+        mEngine.insertHistory(day(MONDAY, 1000));
+        mEngine.rebuildStreaks();
+
+        Goal rebuilt = loadGoal(mGoal.getId(), false);
+        assertEquals(MONDAY + 10, rebuilt.getLastAchieved());
+        assertEquals(1, rebuilt.getStreak().getLongest());
+    }
+
+    @Test
+    public void runInTransaction_undoesChangesWhenWorkThrows() {
+        mEngine.insertHistory(day(MONDAY, 1000));
+        try {
+            mEngine.runInTransaction(() -> {
+                mEngine.deleteAllGoals();
+                mEngine.insertHistory(day(MONDAY + 1, 500));
+                mEngine.insertUpdate(new Update(MONDAY + 1, 60, 500, Unit.METRES));
+                mEngine.runInTransaction(() -> mEngine.deleteHistory(MONDAY));
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            // The transaction is rolled back
+        }
+
+        assertEquals(1, loadGoals().size());
+        List<History> histories = loadHistory(HistoryFilter.ALL, 0);
+        assertEquals(1, histories.size());
+        assertEquals(MONDAY, histories.get(0).getDate());
+        assertEquals(1000, loadRollup(Period.MONTH, MONDAY).getTotalMetres(), 0);
+        assertEquals(0, loadUpdates().size());
+    }
+
+    @Test
+    public void getUpdates_returnsCopiesInDateOrder() {
+        mEngine.insertUpdate(new Update(MONDAY + 1, 60, 2, Unit.MILES));
+        mEngine.insertUpdate(new Update(MONDAY, 120, 300, Unit.METRES));
+        mEngine.insertUpdate(new Update(MONDAY + 1, 30, 1, Unit.MILES));
+
+        List<Update> updates = loadUpdates();
+        assertEquals(3, updates.size());
+        assertEquals(MONDAY, updates.get(0).getDate());
+        assertEquals(60, updates.get(1).getTime());
+        assertEquals(30, updates.get(2).getTime());
+
+        mEngine.deleteAllUpdates();
+        assertEquals(3, updates.size());
+        assertEquals(0, loadUpdates().size());
+    }
+
+    @Test
+    public void insertUpdates_setsTotalsOfHistory() {
+        mEngine.insertHistory(day(MONDAY, 0));
+        mEngine.insertUpdates(Arrays.asList(new Update(MONDAY, 60, 300, Unit.METRES),
+                new Update(MONDAY, 120, 1, Unit.KILOMETRES),
+                new Update(MONDAY + 1, 60, 500, Unit.METRES)));
+
+        List<History> histories = loadHistory(HistoryFilter.ALL, 0);
+        assertEquals(1, histories.size());
+        assertEquals(1300, histories.get(0).getTotalMetres(), 1e-9);
+        assertEquals(2, histories.get(0).getUpdateCount());
+        assertEquals(1300, loadRollup(Period.WEEK, MONDAY).getTotalMetres(), 1e-9);
+    }
+
+    /**
+     * Returns the history of the given day towards the goal, in metres.
+     *
+     * @param date the day
+     * @param metres the distance walked
+     * @return history
+     */
+    private History day(long date, double metres) {
+        return new History(date, mGoal, metres, metres, 1, null);
+    }
+
+    private List<Goal> loadGoals() {
+        List<Goal> loaded = new ArrayList<>();
+        mEngine.getGoals(new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                loaded.addAll(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        return loaded;
+    }
+
+    private Goal loadGoal(String id, boolean deleted) {
+        Goal[] loaded = new Goal[1];
+        mEngine.getGoal(id, deleted, new GoalsDataSource.GetGoalCallback() {
+            @Override
+            public void onGoalLoaded(Goal goal) {
+                loaded[0] = goal;
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        return loaded[0];
+    }
+
+    private List<History> loadHistory(HistoryFilter filter, int limit) {
+        List<History> loaded = new ArrayList<>();
+        mEngine.getHistory(filter, limit, new HistoryDataSource.LoadHistoryCallback() {
+            @Override
+            public void onHistoryLoaded(List<History> histories) {
+                loaded.addAll(histories);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        return loaded;
+    }
+
+    private HistoryRollup loadRollup(Period period, long date) {
+        HistoryRollup[] loaded = new HistoryRollup[1];
+        mEngine.getRollup(period, date, new HistoryDataSource.GetRollupCallback() {
+            @Override
+            public void onRollupLoaded(HistoryRollup rollup) {
+                loaded[0] = rollup;
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        return loaded[0];
+    }
+
+    private List<Update> loadUpdates() {
+        List<Update> loaded = new ArrayList<>();
+        mEngine.getUpdates(new UpdatesDataSource.LoadUpdatesCallback() {
+            @Override
+            public void onUpdatesLoaded(List<Update> updates) {
+                loaded.addAll(updates);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        return loaded;
+    }
+}
@@ -0,0 +1,88 @@
+package com.aidanogrady.keepfit.history;
+
+import com.aidanogrady.keepfit.BuildConfig;
+import com.aidanogrady.keepfit.load.LatencyBudget;
+import com.aidanogrady.keepfit.load.LoadConfig;
+import com.aidanogrady.keepfit.load.LoadEnvironment;
+import com.aidanogrady.keepfit.load.SyntheticUser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Load test of opening the History tab against a real database holding years of a synthetic
+ * user's history. Fails if the first page is not shown within the latency budget set in
+ * load-test.properties.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class HistoryLoadTest {
+    private LoadConfig mConfig;
+
+    private LoadEnvironment mEnvironment;
+
+    private RecordingHistoryView mView;
+
+    @Before
+    public void setUp() {
+        mConfig = LoadConfig.load();
+        mEnvironment = LoadEnvironment.create(RuntimeEnvironment.application, mConfig.getUser());
+        mView = new RecordingHistoryView();
+    }
+
+    @After
+    public void tearDown() {
+        LoadEnvironment.destroyInstances();
+    }
+
+    @Test
+    public void historyOpen_showsFirstPageWithinBudget() {
+        new LatencyBudget(mConfig, "historyOpen").assertWithinBudget(
+                mEnvironment::coldStart,
+                () -> new HistoryPresenter(mEnvironment.getHistoryRepository(),
+                        mEnvironment.getAppExecutors(), mView).start());
+
+        assertEquals(PagedHistoryList.PAGE_SIZE, mView.mHistory.size());
+        assertEquals(SyntheticUser.LAST_DATE, mView.mHistory.getDate(0));
+    }
+
+
+    /**
+     * A history view recording the list last shown.
+     */
+    private static class RecordingHistoryView implements HistoryContract.View {
+        PagedHistoryList mHistory;
+
+        @Override
+        public void setPresenter(HistoryContract.Presenter presenter) {}
+
+        @Override
+        public void showHistory(PagedHistoryList history) {
+            mHistory = history;
+        }
+
+        @Override
+        public void showHistoryFilter() {}
+
+        @Override
+        public void showNoHistory() {}
+
+        @Override
+        public void showLoadingHistoryError() {}
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+    }
+}
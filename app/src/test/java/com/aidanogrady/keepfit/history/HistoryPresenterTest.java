@@ -0,0 +1,48 @@
+package com.aidanogrady.keepfit.history;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the conversion of history to the unit shown by HistoryPresenter.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryPresenterTest {
+    private static final double DELTA = 1e-9;
+
+    @Before
+    public void setUp() {
+        UnitsConverter.setSteps(2);
+    }
+
+    @Test
+    public void convertHistory_convertsDistanceOfImportedRow() {
+        // Imported rows have a distance but no total in metres, as their updates were not read
+        Goal goal = new Goal("Run", 5, Unit.KILOMETRES);
+        History imported = History.summary(17000, goal, 2, 0, 0);
+
+        History converted = HistoryPresenter.convertHistory(imported, Unit.METRES);
+
+        assertEquals(2000, converted.getDistance(), DELTA);
+        assertEquals(5000, converted.getGoal().getDistance(), DELTA);
+        assertEquals(Unit.METRES, converted.getGoal().getUnit());
+    }
+
+    @Test
+    public void convertHistory_showsTotalOfDayWithoutGoal() {
+        History history = History.summary(17000, null, 0, 1500, 2);
+
+        History converted = HistoryPresenter.convertHistory(history, Unit.KILOMETRES);
+
+        assertEquals(1.5, converted.getDistance(), DELTA);
+    }
+}
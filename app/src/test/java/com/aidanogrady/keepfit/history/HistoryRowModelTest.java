@@ -0,0 +1,73 @@
+package com.aidanogrady.keepfit.history;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the text formatted by HistoryRowModel.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class HistoryRowModelTest {
+    private Locale mDefaultLocale;
+
+    @Before
+    public void setUp() {
+        mDefaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.UK);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(mDefaultLocale);
+    }
+
+    @Test
+    public void from_formatsDayWithGoal() {
+        History history = new History(17000, new Goal("Walk", 2000, Unit.STEPS));
+        history.setDistance(500);
+
+        HistoryRowModel row = HistoryRowModel.from(history);
+
+        assertEquals("W", row.getIconText());
+        assertEquals("2016-07-18", row.getDateText());
+        assertEquals("Walk", row.getGoalText());
+        assertEquals("500.00 / 2000.00 steps", row.getProgressText());
+        assertEquals("25.00 %", row.getPercentageText());
+    }
+
+    @Test
+    public void from_formatsDayWithoutGoal() {
+        History history = new History(0);
+        history.setDistance(1.5);
+
+        HistoryRowModel row = HistoryRowModel.from(history);
+
+        assertEquals("", row.getIconText());
+        assertNull(row.getGoalText());
+        assertEquals("1.50", row.getProgressText());
+        assertEquals(HistoryRowModel.UNKNOWN_PERCENTAGE, row.getPercentageText());
+    }
+
+    @Test
+    public void equals_comparesShownText() {
+        History history = new History(1);
+        HistoryRowModel row = HistoryRowModel.from(history);
+
+        assertEquals(row, HistoryRowModel.from(history));
+        history.setDistance(10);
+        assertNotEquals(row, HistoryRowModel.from(history));
+    }
+}
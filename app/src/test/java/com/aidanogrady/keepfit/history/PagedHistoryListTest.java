@@ -0,0 +1,101 @@
+package com.aidanogrady.keepfit.history;
+
+import com.aidanogrady.keepfit.data.model.History;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.aidanogrady.keepfit.history.PagedHistoryList.PAGE_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for PagedHistoryList, paging synchronously through ten years of history.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class PagedHistoryListTest {
+    private static final int DAYS = 3650;
+
+    private int mLoads;
+
+    private PagedHistoryList.PageLoader mLoader;
+
+    @Before
+    public void setUp() {
+        mLoads = 0;
+        mLoader = (beforeDate, limit, callback) -> {
+            mLoads++;
+            List<HistoryRowModel> page = new ArrayList<>();
+            long date = Math.min(beforeDate - 1, DAYS - 1);
+            while (date >= 0 && page.size() < limit) {
+                page.add(HistoryRowModel.from(new History(date--)));
+            }
+            if (page.isEmpty()) {
+                callback.onDataNotAvailable();
+            } else {
+                callback.onPageLoaded(page);
+            }
+        };
+    }
+
+    @Test
+    public void firstPage_isOnlyPageLoaded() {
+        PagedHistoryList list = createList();
+
+        assertEquals(PAGE_SIZE, list.size());
+        assertEquals(DAYS - 1, list.get(0).getDate());
+        assertEquals(1, mLoads);
+    }
+
+    @Test
+    public void loadAround_prefetchesNextPageByDate() {
+        PagedHistoryList list = createList();
+        list.loadAround(PAGE_SIZE - PagedHistoryList.PREFETCH_DISTANCE);
+
+        assertEquals(2 * PAGE_SIZE, list.size());
+        assertEquals(DAYS - 1 - PAGE_SIZE, list.get(PAGE_SIZE).getDate());
+    }
+
+    @Test
+    public void loadAround_holdsBoundedPagesAndReloadsReleased() {
+        PagedHistoryList list = createList();
+        for (int position = 0; position < DAYS; position++) {
+            list.loadAround(position);
+            assertNotNull(list.get(position));
+            assertTrue(list.getHeldPageCount() <= 2 * PagedHistoryList.RETAINED_PAGES + 1);
+        }
+        assertEquals(DAYS, list.size());
+        assertEquals(0, list.get(DAYS - 1).getDate());
+        assertNull(list.get(0));
+        assertEquals(DAYS - 1, list.getDate(0));
+
+        list.loadAround(0);
+        assertEquals(DAYS - 1, list.get(0).getDate());
+    }
+
+    /**
+     * Creates a list with the first page loaded.
+     *
+     * @return paged list
+     */
+    private PagedHistoryList createList() {
+        List<PagedHistoryList> lists = new ArrayList<>();
+        mLoader.loadPage(Long.MAX_VALUE, PAGE_SIZE, new PagedHistoryList.PageCallback() {
+            @Override
+            public void onPageLoaded(List<HistoryRowModel> rows) {
+                lists.add(new PagedHistoryList(mLoader, rows));
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        return lists.get(0);
+    }
+}
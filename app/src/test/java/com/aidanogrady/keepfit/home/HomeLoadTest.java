@@ -0,0 +1,164 @@
+package com.aidanogrady.keepfit.home;
+
+import android.support.v4.util.Pair;
+
+import com.aidanogrady.keepfit.BuildConfig;
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.load.LatencyBudget;
+import com.aidanogrady.keepfit.load.LoadConfig;
+import com.aidanogrady.keepfit.load.LoadEnvironment;
+import com.aidanogrady.keepfit.load.SyntheticUser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Load tests of the home screen's operations against a real database holding years of a
+ * synthetic user's history. Each test fails if its operation exceeds the latency budget set in
+ * load-test.properties.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class HomeLoadTest {
+    private LoadConfig mConfig;
+
+    private SyntheticUser mUser;
+
+    private LoadEnvironment mEnvironment;
+
+    private RecordingHomeView mView;
+
+    @Before
+    public void setUp() {
+        mConfig = LoadConfig.load();
+        mUser = mConfig.getUser();
+        mEnvironment = LoadEnvironment.create(RuntimeEnvironment.application, mUser);
+        mView = new RecordingHomeView();
+    }
+
+    @After
+    public void tearDown() {
+        LoadEnvironment.destroyInstances();
+    }
+
+    @Test
+    public void appStart_loadsTodayWithinBudget() {
+        new LatencyBudget(mConfig, "appStart").assertWithinBudget(
+                mEnvironment::coldStart,
+                () -> createPresenter().start());
+
+        assertEquals(SyntheticUser.LAST_DATE, mView.mDate);
+        assertEquals(mUser.getUpdatesPerDay(), mView.mUpdates.size());
+    }
+
+    @Test
+    public void goalSwitch_withinBudget() {
+        HomePresenter presenter = createPresenter();
+        List<Goal> goals = mEnvironment.getGoals();
+        int[] switches = new int[1];
+
+        new LatencyBudget(mConfig, "goalSwitch").assertWithinBudget(
+                () -> {},
+                () -> presenter.setCurrentGoal(goals.get(switches[0]++ % goals.size()).getId()));
+
+        Goal last = goals.get((switches[0] - 1) % goals.size());
+        assertEquals(last.getName(), mView.mGoalName);
+    }
+
+    @Test
+    public void addSteps_withinBudget() {
+        HomePresenter presenter = createPresenter();
+        int[] added = new int[1];
+
+        new LatencyBudget(mConfig, "addSteps").assertWithinBudget(
+                () -> {},
+                () -> {
+                    presenter.addSteps(100, Unit.STEPS.name());
+                    added[0]++;
+                });
+
+        assertEquals(mUser.getUpdatesPerDay() + added[0], mView.mUpdates.size());
+    }
+
+    /**
+     * Creates a presenter over the environment's repositories, which loads today's progress.
+     *
+     * @return the presenter
+     */
+    private HomePresenter createPresenter() {
+        return new HomePresenter(mEnvironment.getGoalsRepository(),
+                mEnvironment.getHistoryRepository(), mEnvironment.getUpdatesRepository(),
+                mEnvironment.getUnitOfWork(), mView);
+    }
+
+
+    /**
+     * A home view recording the progress last shown.
+     */
+    private static class RecordingHomeView implements HomeContract.View {
+        long mDate;
+
+        String mGoalName;
+
+        List<Update> mUpdates;
+
+        @Override
+        public void setPresenter(HomeContract.Presenter presenter) {}
+
+        @Override
+        public void setCurrentDate(long days) {
+            mDate = days;
+        }
+
+        @Override
+        public void setCurrentGoal(String goalName) {
+            mGoalName = goalName;
+        }
+
+        @Override
+        public void setCurrentProgress(double currentSteps, double targetSteps,
+                                       String unitName) {}
+
+        @Override
+        public void setCurrentPercentage(double percentage) {}
+
+        @Override
+        public void setStreaks(int goalCurrent, int goalLongest, int current, int longest) {}
+
+        @Override
+        public void showAddSteps(String[] units) {}
+
+        @Override
+        public void showNoGoalsMessage() {}
+
+        @Override
+        public void showSetGoal(Pair<List<String>, List<String>> goals) {}
+
+        @Override
+        public void showSelectGoalMessage() {}
+
+        @Override
+        public void showUpdates(List<Update> updates) {
+            mUpdates = updates;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.aidanogrady.keepfit.load;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Times an operation of the data layer and fails if its median latency exceeds the budget
+ * configured for it. The operation is run untimed first, so the JIT and SQLite's page cache are
+ * warm for the timed runs.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class LatencyBudget {
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The name of the operation, as used in the configuration.
+     */
+    private final String mOperation;
+
+    /**
+     * The configuration of the load tests.
+     */
+    private final LoadConfig mConfig;
+
+
+    /**
+     * Constructs a new LatencyBudget.
+     *
+     * @param config the configuration of the load tests
+     * @param operation the name of the operation
+     */
+    public LatencyBudget(LoadConfig config, String operation) {
+        this.mConfig = config;
+        this.mOperation = operation;
+    }
+
+
+    /**
+     * Runs the operation the configured number of times and asserts that its median latency is
+     * within budget. The preparation is run before every run of the operation and is not timed.
+     *
+     * @param prepare puts the data layer in the state the operation starts from
+     * @param operation the operation timed
+     * @throws AssertionError if the median latency exceeds the budget
+     */
+    public void assertWithinBudget(Runnable prepare, Runnable operation) {
+        for (int i = 0; i < mConfig.getInt("warmups"); i++) {
+            prepare.run();
+            operation.run();
+        }
+
+        long[] nanos = new long[mConfig.getInt("runs")];
+        for (int i = 0; i < nanos.length; i++) {
+            prepare.run();
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double median = nanos[nanos.length / 2] / NANOS_PER_MILLI;
+        double max = nanos[nanos.length - 1] / NANOS_PER_MILLI;
+
+        long budget = mConfig.getBudgetMillis(mOperation);
+        String summary = String.format(Locale.US, "%s: median %.2f ms, max %.2f ms, budget %d ms",
+                mOperation, median, max, budget);
+        if (median > budget) {
+            throw new AssertionError("Latency budget exceeded. " + summary);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.aidanogrady.keepfit.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * The configuration of the load tests, read from load-test.properties. Every key can be
+ * overridden by a system property of the same name prefixed with keepfit.load.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class LoadConfig {
+    /**
+     * The resource the configuration is read from.
+     */
+    private static final String RESOURCE = "/load-test.properties";
+
+    /**
+     * The prefix of system properties overriding the configuration.
+     */
+    private static final String PROPERTY_PREFIX = "keepfit.load.";
+
+    /**
+     * The configuration read from the resource.
+     */
+    private final Properties mProperties;
+
+
+    /**
+     * Constructs a new LoadConfig.
+     *
+     * @param properties the configuration read from the resource
+     */
+    private LoadConfig(Properties properties) {
+        this.mProperties = properties;
+    }
+
+
+    /**
+     * Reads the configuration.
+     *
+     * @return the configuration
+     */
+    public static LoadConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = LoadConfig.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + " was not found");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + RESOURCE, e);
+        }
+        return new LoadConfig(properties);
+    }
+
+    /**
+     * Returns the value of the given key, overridden by its system property if set.
+     *
+     * @param key the key
+     * @return value of the key
+     */
+    public long getLong(String key) {
+        String value = System.getProperty(PROPERTY_PREFIX + key, mProperties.getProperty(key));
+        if (value == null) {
+            throw new IllegalStateException("No value is configured for " + key);
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    /**
+     * Returns the value of the given key as an int.
+     *
+     * @param key the key
+     * @return value of the key
+     */
+    public int getInt(String key) {
+        return (int) getLong(key);
+    }
+
+    /**
+     * Returns the synthetic user configured.
+     *
+     * @return synthetic user
+     */
+    public SyntheticUser getUser() {
+        return new SyntheticUser(getLong("user.seed"), getInt("user.goals"),
+                getInt("user.years"), getInt("user.updatesPerDay"));
+    }
+
+    /**
+     * Returns the latency budget of the given operation.
+     *
+     * @param operation the name of the operation
+     * @return budget in milliseconds
+     */
+    public long getBudgetMillis(String operation) {
+        return getLong("budget." + operation);
+    }
+}
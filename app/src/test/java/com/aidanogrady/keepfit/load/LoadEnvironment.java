@@ -0,0 +1,166 @@
+package com.aidanogrady.keepfit.load;
+
+import android.content.Context;
+import android.preference.PreferenceManager;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.source.GoalsRepository;
+import com.aidanogrady.keepfit.data.source.HistoryRepository;
+import com.aidanogrady.keepfit.data.source.StorageEngines;
+import com.aidanogrady.keepfit.data.source.UnitOfWork;
+import com.aidanogrady.keepfit.data.source.UpdatesRepository;
+import com.aidanogrady.keepfit.data.source.local.DbConnectionManager;
+import com.aidanogrady.keepfit.data.source.local.GoalsLocalDataSource;
+import com.aidanogrady.keepfit.data.source.local.HistoryLocalDataSource;
+import com.aidanogrady.keepfit.data.source.local.UpdatesLocalDataSource;
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import java.util.List;
+
+/**
+ * A real database loaded with a synthetic user, and the repositories reading it. The repositories
+ * run synchronously, so an operation has finished when the call that started it returns and can
+ * be timed directly. The app is put in test mode on the user's last day, so today's progress is
+ * read from the generated history.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class LoadEnvironment {
+    /**
+     * The context the database is opened in.
+     */
+    private final Context mContext;
+
+    /**
+     * The executors the repositories run through, both running inline.
+     */
+    private final AppExecutors mAppExecutors;
+
+    /**
+     * The unit of work the repositories commit through.
+     */
+    private final UnitOfWork mUnitOfWork;
+
+    /**
+     * The user's goals.
+     */
+    private final List<Goal> mGoals;
+
+
+    /**
+     * Constructs a new LoadEnvironment.
+     *
+     * @param context the context the database is opened in
+     * @param goals the user's goals
+     */
+    private LoadEnvironment(Context context, List<Goal> goals) {
+        this.mContext = context;
+        this.mAppExecutors = new AppExecutors(Runnable::run, Runnable::run);
+        this.mUnitOfWork = new UnitOfWork(DbConnectionManager.getInstance(context), mAppExecutors,
+                0);
+        this.mGoals = goals;
+    }
+
+
+    /**
+     * Creates a new database in the given context and loads the given user into it.
+     *
+     * @param context the context the database is opened in
+     * @param user the user loaded
+     * @return the environment
+     */
+    public static LoadEnvironment create(Context context, SyntheticUser user) {
+        destroyInstances();
+
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putBoolean("testModeEnabled", true)
+                .putLong("testModeDate", SyntheticUser.LAST_DATE)
+                .commit();
+
+        return new LoadEnvironment(context, user.load(context));
+    }
+
+    /**
+     * Destroys every repository, data source, the storage engine and the connection, so nothing
+     * leaks between tests.
+     */
+    public static void destroyInstances() {
+        GoalsRepository.destroyInstance();
+        HistoryRepository.destroyInstance();
+        UpdatesRepository.destroyInstance();
+        StorageEngines.destroyInstance();
+        GoalsLocalDataSource.destroyInstance();
+        HistoryLocalDataSource.destroyInstance();
+        UpdatesLocalDataSource.destroyInstance();
+        DbConnectionManager.destroyInstance();
+    }
+
+    /**
+     * Puts the data layer back in the state it is in when the app starts: the repositories are
+     * destroyed, so their caches are empty, and the connection is closed.
+     */
+    public void coldStart() {
+        GoalsRepository.destroyInstance();
+        HistoryRepository.destroyInstance();
+        UpdatesRepository.destroyInstance();
+        DbConnectionManager.getInstance(mContext).close();
+    }
+
+    /**
+     * Returns the goals repository, creating it if required.
+     *
+     * @return goals repository
+     */
+    public GoalsRepository getGoalsRepository() {
+        return GoalsRepository.getInstance(GoalsLocalDataSource.getInstance(mContext),
+                mAppExecutors, mUnitOfWork);
+    }
+
+    /**
+     * Returns the history repository, creating it if required.
+     *
+     * @return history repository
+     */
+    public HistoryRepository getHistoryRepository() {
+        return HistoryRepository.getInstance(HistoryLocalDataSource.getInstance(mContext),
+                mAppExecutors, mUnitOfWork);
+    }
+
+    /**
+     * Returns the updates repository, creating it if required.
+     *
+     * @return updates repository
+     */
+    public UpdatesRepository getUpdatesRepository() {
+        return UpdatesRepository.getInstance(UpdatesLocalDataSource.getInstance(mContext),
+                mAppExecutors, mUnitOfWork);
+    }
+
+    /**
+     * Returns the executors the repositories run through.
+     *
+     * @return executors
+     */
+    public AppExecutors getAppExecutors() {
+        return mAppExecutors;
+    }
+
+    /**
+     * Returns the unit of work the repositories commit through.
+     *
+     * @return unit of work
+     */
+    public UnitOfWork getUnitOfWork() {
+        return mUnitOfWork;
+    }
+
+    /**
+     * Returns the user's goals.
+     *
+     * @return goals
+     */
+    public List<Goal> getGoals() {
+        return mGoals;
+    }
+}
@@ -0,0 +1,179 @@
+package com.aidanogrady.keepfit.load;
+
+import android.content.Context;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.local.DbConnectionManager;
+import com.aidanogrady.keepfit.data.source.local.GoalsLocalDataSource;
+import com.aidanogrady.keepfit.data.source.local.HistoryLocalDataSource;
+import com.aidanogrady.keepfit.data.source.local.UpdatesLocalDataSource;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A user of the app with years of generated history. The user works towards one of their goals
+ * each day, changed weekly, and logs the same number of updates each day. Everything is generated
+ * from the seed, so a user is loaded identically on every run.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class SyntheticUser {
+    /**
+     * The last day of the user's history, fixed so runs on different days are comparable.
+     */
+    public static final long LAST_DATE = LocalDate.of(2017, 3, 1).toEpochDay();
+
+    /**
+     * The number of seconds in a day, as update times are seconds of the day.
+     */
+    private static final int DAY_SECONDS = 24 * 60 * 60;
+
+    /**
+     * The seed everything is generated from.
+     */
+    private final long mSeed;
+
+    /**
+     * The number of goals.
+     */
+    private final int mGoalCount;
+
+    /**
+     * The number of years of history.
+     */
+    private final int mYears;
+
+    /**
+     * The number of updates of each day.
+     */
+    private final int mUpdatesPerDay;
+
+
+    /**
+     * Constructs a new SyntheticUser.
+     *
+     * @param seed the seed everything is generated from
+     * @param goalCount the number of goals
+     * @param years the number of years of history
+     * @param updatesPerDay the number of updates of each day
+     */
+    public SyntheticUser(long seed, int goalCount, int years, int updatesPerDay) {
+        if (goalCount <= 0 || years <= 0 || updatesPerDay <= 0) {
+            throw new IllegalArgumentException("A user needs goals, history and updates");
+        }
+        this.mSeed = seed;
+        this.mGoalCount = goalCount;
+        this.mYears = years;
+        this.mUpdatesPerDay = updatesPerDay;
+    }
+
+
+    /**
+     * Writes the user's goals, history and updates to the database through the local data
+     * sources, in a single transaction.
+     *
+     * @param context the context the database is opened in
+     * @return the user's goals
+     */
+    public List<Goal> load(Context context) {
+        Random random = new Random(mSeed);
+        Unit[] units = Unit.values();
+        List<Goal> goals = new ArrayList<>(mGoalCount);
+        for (int i = 0; i < mGoalCount; i++) {
+            Unit unit = units[i % units.length];
+            double distance = Math.ceil(getDayDistance(unit) * (0.5 + random.nextDouble()));
+            goals.add(new Goal(String.format("goal-%03d", i), "Goal " + i, distance, unit, 0));
+        }
+
+        List<History> histories = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        for (long date = getFirstDate(); date <= LAST_DATE; date++) {
+            Goal goal = goals.get((int) (date / 7 % goals.size()));
+            List<Update> day = new ArrayList<>(mUpdatesPerDay);
+            for (int i = 0; i < mUpdatesPerDay; i++) {
+                // Between nothing and half again the goal over the day
+                double distance = random.nextDouble() * 1.5 * goal.getDistance() / mUpdatesPerDay;
+                long time = (i + 1) * DAY_SECONDS / (mUpdatesPerDay + 1);
+                day.add(new Update(date, time, distance, goal.getUnit()));
+            }
+            History history = new History(date, goal, 0, day);
+            history.setDistance(history.getTotalDistance(goal.getUnit()));
+            histories.add(history);
+            updates.addAll(day);
+        }
+
+        DbConnectionManager.getInstance(context).runInTransaction(() -> {
+            GoalsLocalDataSource goalsDataSource = GoalsLocalDataSource.getInstance(context);
+            for (Goal goal : goals) {
+                goalsDataSource.insertGoal(goal);
+            }
+            HistoryLocalDataSource.getInstance(context).insertHistories(histories);
+            UpdatesLocalDataSource.getInstance(context).insertUpdates(updates);
+        });
+        return goals;
+    }
+
+    /**
+     * Returns the distance of a typical day's walk in the given unit.
+     *
+     * @param unit the unit
+     * @return distance of a day's walk
+     */
+    private static double getDayDistance(Unit unit) {
+        switch (unit) {
+            case STEPS:
+                return 10000;
+            case METRES:
+                return 7500;
+            case KILOMETRES:
+                return 7.5;
+            case YARDS:
+                return 8000;
+            case MILES:
+                return 4.5;
+            default:
+                throw new IllegalArgumentException("Unknown unit " + unit);
+        }
+    }
+
+    /**
+     * Returns the first day of the user's history.
+     *
+     * @return first date
+     */
+    public long getFirstDate() {
+        return LAST_DATE - mYears * 365 + 1;
+    }
+
+    /**
+     * Returns the number of days of history.
+     *
+     * @return number of days
+     */
+    public int getDays() {
+        return mYears * 365;
+    }
+
+    /**
+     * Returns the number of updates of each day.
+     *
+     * @return updates per day
+     */
+    public int getUpdatesPerDay() {
+        return mUpdatesPerDay;
+    }
+
+    @Override
+    public String toString() {
+        return mGoalCount + " goals, " + mYears + " years of history and " + mUpdatesPerDay +
+                " updates per day (seed " + mSeed + ")";
+    }
+}
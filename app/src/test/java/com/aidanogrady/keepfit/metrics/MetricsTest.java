@@ -0,0 +1,109 @@
+package com.aidanogrady.keepfit.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for recording and dumping Metrics.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class MetricsTest {
+    @Before
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void counter_returnsSameCounterForName() {
+        assertSame(Metrics.counter("test.same"), Metrics.counter("test.same"));
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        Counter counter = Metrics.counter("test.disabled");
+        Histogram histogram = Metrics.histogram("test.disabled");
+        Timer timer = Metrics.timer("test.disabled");
+
+        Metrics.setEnabled(false);
+        counter.increment();
+        histogram.record(10);
+        timer.stop(timer.start());
+
+        assertEquals(0, counter.getCount());
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, timer.getHistogram().getCount());
+    }
+
+    @Test
+    public void timer_startedWhileDisabled_recordsNothing() {
+        Timer timer = Metrics.timer("test.started");
+
+        Metrics.setEnabled(false);
+        long start = timer.start();
+        Metrics.setEnabled(true);
+        timer.stop(start);
+
+        assertEquals(0, timer.getHistogram().getCount());
+    }
+
+    @Test
+    public void histogram_estimatesPercentilesWithinBucket() {
+        Histogram histogram = Metrics.histogram("test.percentiles");
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0);
+        // 50 lies in [32, 63], and 99 in [64, 127] capped at the largest value
+        assertEquals(63, histogram.getPercentile(0.5));
+        assertEquals(100, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void reset_discardsEverything() {
+        Counter counter = Metrics.counter("test.reset");
+        Histogram histogram = Metrics.histogram("test.reset");
+        counter.increment();
+        histogram.record(7);
+
+        Metrics.reset();
+
+        assertEquals(0, counter.getCount());
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void dump_includesEveryMetric() {
+        Metrics.counter("test.dump\"hits").increment();
+        Metrics.histogram("test.dump").record(3);
+
+        String text = Metrics.dumpText();
+        assertTrue(text.contains("  test.dump\"hits: 1\n"));
+        assertTrue(text.contains("  test.dump: count=1 mean=3.0 p50=3 p90=3 p99=3 max=3\n"));
+
+        String json = Metrics.dumpJson();
+        assertTrue(json.startsWith("{\"enabled\":true,\"counters\":{"));
+        assertTrue(json.contains("\"test.dump\\\"hits\":1"));
+        assertTrue(json.contains("\"test.dump\":{\"count\":1,\"sum\":3,\"mean\":3.0,\"p50\":3,"
+                + "\"p90\":3,\"p99\":3,\"max\":3}"));
+        assertTrue(json.endsWith("}}"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.aidanogrady.keepfit.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Unit tests for the stable IDs given to the rows of a ListSnapshot.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class ListSnapshotTest {
+    @Test
+    public void constructor_keepsIdOfNeighbourOfRepeatedId() {
+        ListSnapshot snapshot = new ListSnapshot(new long[] {5, 5, 6}, new Object[3]);
+
+        assertEquals(5, snapshot.getItemId(0));
+        assertNotEquals(6, snapshot.getItemId(1));
+        assertNotEquals(5, snapshot.getItemId(1));
+        assertEquals(6, snapshot.getItemId(2));
+    }
+
+    @Test
+    public void constructor_givesRepeatSameIdWhateverItsNeighbours() {
+        ListSnapshot before = new ListSnapshot(new long[] {5, 5}, new Object[2]);
+        ListSnapshot after = new ListSnapshot(new long[] {4, 5, 5, 6}, new Object[4]);
+
+        assertEquals(before.getItemId(1), after.getItemId(2));
+    }
+
+    @Test
+    public void constructor_makesEveryRepeatUnique() {
+        ListSnapshot snapshot = new ListSnapshot(new long[] {7, 7, 7}, new Object[3]);
+
+        assertNotEquals(snapshot.getItemId(0), snapshot.getItemId(1));
+        assertNotEquals(snapshot.getItemId(0), snapshot.getItemId(2));
+        assertNotEquals(snapshot.getItemId(1), snapshot.getItemId(2));
+    }
+}
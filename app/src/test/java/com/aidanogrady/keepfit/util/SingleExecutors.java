@@ -0,0 +1,25 @@
+package com.aidanogrady.keepfit.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * AppExecutors that run every task immediately on the calling thread, so that unit tests are
+ * deterministic.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class SingleExecutors extends AppExecutors {
+    /**
+     * Executor running tasks on the calling thread.
+     */
+    private static final Executor INSTANT = Runnable::run;
+
+
+    /**
+     * Constructs a new SingleExecutors.
+     */
+    public SingleExecutors() {
+        super(INSTANT, INSTANT);
+    }
+}
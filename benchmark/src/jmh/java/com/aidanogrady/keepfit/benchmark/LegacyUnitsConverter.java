@@ -0,0 +1,56 @@
+package com.aidanogrady.keepfit.benchmark;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The UnitsConverter as it was before its factors were precomputed, kept as the baseline the
+ * current converter is benchmarked against. Every conversion looks up two boxed factors.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+class LegacyUnitsConverter {
+    /**
+     * The mapping of units to the base value of 1 metre.
+     */
+    private static final Map<Unit, Double> UNITS;
+
+    /*
+      Initialises the Units map.
+     */
+    static {
+        UNITS = new HashMap<>();
+        UNITS.put(Unit.METRES, UnitsConverter.METRES);
+        UNITS.put(Unit.KILOMETRES, UnitsConverter.KILOMETRES);
+        UNITS.put(Unit.YARDS, UnitsConverter.YARDS);
+        UNITS.put(Unit.MILES, UnitsConverter.MILES);
+        UNITS.put(Unit.STEPS, 1 / UnitsConverter.DEFAULT_STEPS);
+    }
+
+
+    /**
+     * Changes the mapping of steps to metres.
+     *
+     * @param steps the new mapping.
+     */
+    static void setSteps(double steps) {
+        UNITS.put(Unit.STEPS, 1 / steps);
+    }
+
+    /**
+     * Performs a conversion of distance from a source unit to a destination unit.
+     *
+     * @param to The unit being converted to
+     * @param from The unit being converted from
+     * @param distance The distance being converted
+     * @return converted distance
+     */
+    static double convert(Unit to, Unit from, double distance) {
+        double metres = distance * UNITS.get(from);
+        return metres / UNITS.get(to);
+    }
+}
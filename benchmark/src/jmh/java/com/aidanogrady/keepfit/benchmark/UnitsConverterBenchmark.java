@@ -0,0 +1,122 @@
+package com.aidanogrady.keepfit.benchmark;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.model.units.UnitsConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares converting a batch of distances through the legacy map backed converter with the
+ * factor matrix of UnitsConverter, one at a time and in bulk through convertAll. The units are
+ * mixed as they are when converting the updates of a day.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UnitsConverterBenchmark {
+    /**
+     * The number of distances converted per invocation.
+     */
+    @Param({"16", "1024"})
+    public int size;
+
+    /**
+     * The distances being converted.
+     */
+    private double[] mDistances;
+
+    /**
+     * The unit of each distance.
+     */
+    private Unit[] mUnits;
+
+    /**
+     * The converted distances.
+     */
+    private double[] mOut;
+
+
+    /**
+     * Creates distances in random units, with a fixed seed so every run converts the same.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Unit[] units = Unit.values();
+        mDistances = new double[size];
+        mUnits = new Unit[size];
+        mOut = new double[size];
+        for (int i = 0; i < size; i++) {
+            mDistances[i] = random.nextDouble() * 10000;
+            mUnits[i] = units[random.nextInt(units.length)];
+        }
+        LegacyUnitsConverter.setSteps(1.3);
+        UnitsConverter.setSteps(1.3);
+    }
+
+    /**
+     * Converts each distance to metres through the legacy converter.
+     *
+     * @return total of the converted distances
+     */
+    @Benchmark
+    public double legacyConvert() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += LegacyUnitsConverter.convert(Unit.METRES, mUnits[i], mDistances[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Converts each distance to metres through the factor matrix.
+     *
+     * @return total of the converted distances
+     */
+    @Benchmark
+    public double convert() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += UnitsConverter.convert(Unit.METRES, mUnits[i], mDistances[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Converts every distance from steps to kilometres through the legacy converter, the bulk
+     * case convertAll replaces.
+     *
+     * @return the converted distances
+     */
+    @Benchmark
+    public double[] legacyConvertSameUnit() {
+        for (int i = 0; i < size; i++) {
+            mOut[i] = LegacyUnitsConverter.convert(Unit.KILOMETRES, Unit.STEPS, mDistances[i]);
+        }
+        return mOut;
+    }
+
+    /**
+     * Converts every distance from steps to kilometres in one call.
+     *
+     * @return the converted distances
+     */
+    @Benchmark
+    public double[] convertAll() {
+        UnitsConverter.convertAll(mDistances, Unit.STEPS, Unit.KILOMETRES, mOut);
+        return mOut;
+    }
+}
@@ -0,0 +1,101 @@
+package com.aidanogrady.keepfit.data.model;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times building the model objects created for every row read from the database: updates, days
+ * of history totalled from their updates, and the summaries the history list is built from.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModelConstructionBenchmark {
+    /**
+     * The number of updates of the day of history built.
+     */
+    private static final int UPDATES_PER_DAY = 8;
+
+    /**
+     * The goal of the day of history built.
+     */
+    private Goal mGoal;
+
+    /**
+     * The updates of the day of history built, in mixed units.
+     */
+    private List<Update> mUpdates;
+
+    /**
+     * The distance of the next update built, changed every call so it is never constant folded.
+     */
+    private double mDistance;
+
+
+    /**
+     * Creates the goal and updates days of history are built with.
+     */
+    @Setup
+    public void setUp() {
+        mGoal = new Goal("goal-walk", "Walk", 10000, Unit.STEPS, 0);
+        Unit[] units = Unit.values();
+        mUpdates = new ArrayList<>(UPDATES_PER_DAY);
+        for (int i = 0; i < UPDATES_PER_DAY; i++) {
+            mUpdates.add(new Update(17000, i, 100 * i, units[i % units.length]));
+        }
+    }
+
+    /**
+     * Builds an update.
+     *
+     * @return the update
+     */
+    @Benchmark
+    public Update update() {
+        return new Update(17000, 0, mDistance++, Unit.STEPS);
+    }
+
+    /**
+     * Builds a day of history from its updates, converting each to metres for the totals.
+     *
+     * @return the day of history
+     */
+    @Benchmark
+    public History historyWithUpdates() {
+        return new History(17000, mGoal, 0, mUpdates);
+    }
+
+    /**
+     * Builds a summary of a day of history, as the history list loads them.
+     *
+     * @return the summary
+     */
+    @Benchmark
+    public History historySummary() {
+        return History.summary(17000, mGoal, mDistance++, 800, UPDATES_PER_DAY);
+    }
+
+    /**
+     * Builds a goal with a known ID, as goals are read from the database.
+     *
+     * @return the goal
+     */
+    @Benchmark
+    public Goal goal() {
+        return new Goal("goal-walk", "Walk", mDistance++, Unit.STEPS, 0);
+    }
+}
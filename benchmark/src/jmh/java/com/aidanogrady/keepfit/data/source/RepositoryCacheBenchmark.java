@@ -0,0 +1,215 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.source.memory.InMemoryStorageEngine;
+import com.aidanogrady.keepfit.data.source.memory.SyntheticHistory;
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the paths of the repositories that are answered from their caches, which is how the
+ * screens read once the app has started. The repositories are warmed from a year of synthetic
+ * history in an InMemoryStorageEngine and run synchronously, so each benchmark only measures the
+ * cache lookup.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RepositoryCacheBenchmark {
+    /**
+     * The number of days in a page of the history list.
+     */
+    private static final int PAGE_SIZE = 30;
+
+    /**
+     * The goals repository, with every goal cached.
+     */
+    private GoalsRepository mGoalsRepository;
+
+    /**
+     * The history repository, with all history cached.
+     */
+    private HistoryRepository mHistoryRepository;
+
+    /**
+     * The updates repository, with the updates of the looked up day cached.
+     */
+    private UpdatesRepository mUpdatesRepository;
+
+    /**
+     * The filter of days on which the goal was completed.
+     */
+    private HistoryFilter mCompletedFilter;
+
+    /**
+     * The day looked up, in the middle of the history.
+     */
+    private long mDate;
+
+
+    /**
+     * Creates the repositories and loads everything read by the benchmarks into their caches.
+     */
+    @Setup
+    public void setUp() {
+        InMemoryStorageEngine dataSource = SyntheticHistory.create(1, 8);
+        AppExecutors executors = new AppExecutors(Runnable::run, Runnable::run);
+        UnitOfWork unitOfWork = new UnitOfWork(dataSource, executors, 0);
+
+        destroyRepositories();
+        mGoalsRepository = GoalsRepository.getInstance(dataSource, executors, unitOfWork);
+        mHistoryRepository = HistoryRepository.getInstance(dataSource, executors, unitOfWork);
+        mUpdatesRepository = UpdatesRepository.getInstance(dataSource, executors, unitOfWork);
+
+        mCompletedFilter = new HistoryFilter(Long.MIN_VALUE, Long.MAX_VALUE, 100,
+                Double.POSITIVE_INFINITY);
+        mDate = (SyntheticHistory.getFirstDate(1) + SyntheticHistory.LAST_DATE) / 2;
+
+        // Warm every cache read by the benchmarks
+        mGoalsRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {}
+
+            @Override
+            public void onDataNotAvailable() {
+                throw new IllegalStateException("No goals were generated");
+            }
+        });
+        mHistoryRepository.getHistory(new HistoryDataSource.LoadHistoryCallback() {
+            @Override
+            public void onHistoryLoaded(List<History> histories) {}
+
+            @Override
+            public void onDataNotAvailable() {
+                throw new IllegalStateException("No history was generated");
+            }
+        });
+        mUpdatesRepository.getUpdatesForDate(mDate, new UpdatesDataSource.LoadUpdatesCallback() {
+            @Override
+            public void onUpdatesLoaded(List<Update> updates) {}
+
+            @Override
+            public void onDataNotAvailable() {
+                throw new IllegalStateException("No updates were generated");
+            }
+        });
+    }
+
+    /**
+     * Destroys the repositories.
+     */
+    @TearDown
+    public void tearDown() {
+        destroyRepositories();
+    }
+
+    /**
+     * Destroys the singleton repositories, so each trial starts with empty caches.
+     */
+    private static void destroyRepositories() {
+        GoalsRepository.destroyInstance();
+        HistoryRepository.destroyInstance();
+        UpdatesRepository.destroyInstance();
+    }
+
+    /**
+     * Looks up a day directly in the history cache.
+     *
+     * @return cached day
+     */
+    @Benchmark
+    public History historyCacheGet() {
+        return mHistoryRepository.getCache().get(mDate);
+    }
+
+    /**
+     * Loads a day of history through the repository.
+     *
+     * @param blackhole consumes the loaded day
+     */
+    @Benchmark
+    public void historyForDate(Blackhole blackhole) {
+        mHistoryRepository.getHistory(mDate, new HistoryDataSource.GetHistoryCallback() {
+            @Override
+            public void onHistoryLoaded(History history) {
+                blackhole.consume(history);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+    }
+
+    /**
+     * Loads the first page of completed days, filtered from the complete cache.
+     *
+     * @param blackhole consumes the loaded page
+     */
+    @Benchmark
+    public void historyFilteredPage(Blackhole blackhole) {
+        mHistoryRepository.getHistory(mCompletedFilter, PAGE_SIZE,
+                new HistoryDataSource.LoadHistoryCallback() {
+                    @Override
+                    public void onHistoryLoaded(List<History> histories) {
+                        blackhole.consume(histories);
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {}
+                });
+    }
+
+    /**
+     * Loads every goal through the repository.
+     *
+     * @param blackhole consumes the loaded goals
+     */
+    @Benchmark
+    public void goals(Blackhole blackhole) {
+        mGoalsRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                blackhole.consume(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+    }
+
+    /**
+     * Loads the updates of a day through the repository.
+     *
+     * @param blackhole consumes the loaded updates
+     */
+    @Benchmark
+    public void updatesForDate(Blackhole blackhole) {
+        mUpdatesRepository.getUpdatesForDate(mDate, new UpdatesDataSource.LoadUpdatesCallback() {
+            @Override
+            public void onUpdatesLoaded(List<Update> updates) {
+                blackhole.consume(updates);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package com.aidanogrady.keepfit.data.source;
+
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the heap held by a million cached updates in the columnar UpdatesCache against the
+ * LinkedHashMultimap of Update objects the UpdatesRepository used to cache them in. Each benchmark
+ * builds one cache and keeps it until the end of the iteration, when the heap it retains is
+ * measured after a full collection and reported as the bytesPerUpdate counter. The time taken to
+ * build each cache is reported as the score.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UpdatesCacheFootprintBenchmark {
+    /**
+     * The number of updates of each day.
+     */
+    private static final int UPDATES_PER_DAY = 10;
+
+    /**
+     * The number of seconds in a day.
+     */
+    private static final int DAY_SECONDS = 24 * 60 * 60;
+
+    /**
+     * The number of updates cached.
+     */
+    @Param({"1000000"})
+    public int records;
+
+    /**
+     * The dates of the updates, in order.
+     */
+    private long[] mDates;
+
+    /**
+     * The times of the updates, as seconds of the day.
+     */
+    private int[] mTimes;
+
+    /**
+     * The distances of the updates.
+     */
+    private double[] mDistances;
+
+    /**
+     * The units of the updates.
+     */
+    private Unit[] mUnits;
+
+
+    /**
+     * Generates the values of every update from a fixed seed.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Unit[] units = Unit.values();
+        mDates = new long[records];
+        mTimes = new int[records];
+        mDistances = new double[records];
+        mUnits = new Unit[records];
+        for (int i = 0; i < records; i++) {
+            mDates[i] = i / UPDATES_PER_DAY;
+            mTimes[i] = (i % UPDATES_PER_DAY + 1) * DAY_SECONDS / (UPDATES_PER_DAY + 1);
+            mDistances[i] = random.nextDouble() * 1000;
+            mUnits[i] = units[random.nextInt(units.length)];
+        }
+    }
+
+    /**
+     * Caches every update as an Update object keyed by its boxed date, as the repository did.
+     *
+     * @param footprint the footprint the cache is measured in
+     * @return the cache
+     */
+    @Benchmark
+    public Object multimap(Footprint footprint) {
+        Multimap<Long, Update> cache = LinkedHashMultimap.create();
+        for (int i = 0; i < records; i++) {
+            cache.put(mDates[i], new Update(mDates[i], mTimes[i], mDistances[i], mUnits[i]));
+        }
+        return footprint.keep(cache, records);
+    }
+
+    /**
+     * Caches every update in the columns of an UpdatesCache.
+     *
+     * @param footprint the footprint the cache is measured in
+     * @return the cache
+     */
+    @Benchmark
+    public Object columnar(Footprint footprint) {
+        UpdatesCache cache = new UpdatesCache(UpdatesCache.DEFAULT_CAPACITY);
+        for (int i = 0; i < records; i++) {
+            cache.add(mDates[i], mTimes[i], mDistances[i], mUnits[i]);
+        }
+        return footprint.keep(cache, records);
+    }
+
+    /**
+     * The heap retained by the cache built in an iteration, reported by JMH alongside the score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        /**
+         * The heap retained by the cache built, in bytes per update.
+         */
+        public double bytesPerUpdate;
+
+        /**
+         * The cache built, kept so its heap can be measured.
+         */
+        private Object mCache;
+
+        /**
+         * The number of updates in the cache built.
+         */
+        private int mRecords;
+
+        /**
+         * The heap in use before the cache was built.
+         */
+        private long mUsedBefore;
+
+
+        /**
+         * Measures the heap in use before a cache is built.
+         */
+        @Setup(Level.Iteration)
+        public void measureBefore() {
+            mCache = null;
+            bytesPerUpdate = 0;
+            mUsedBefore = usedHeap();
+        }
+
+        /**
+         * Measures the heap retained by the cache built, then releases it.
+         */
+        @TearDown(Level.Iteration)
+        public void measureAfter() {
+            if (mRecords > 0) {
+                bytesPerUpdate = (double) (usedHeap() - mUsedBefore) / mRecords;
+            }
+            mCache = null;
+        }
+
+        /**
+         * Keeps the given cache until the end of the iteration.
+         *
+         * @param cache the cache
+         * @param records the number of updates in the cache
+         * @return the cache
+         */
+        Object keep(Object cache, int records) {
+            mCache = cache;
+            mRecords = records;
+            return cache;
+        }
+
+        /**
+         * Returns the heap in use once garbage has been collected.
+         *
+         * @return used heap in bytes
+         */
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 4; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
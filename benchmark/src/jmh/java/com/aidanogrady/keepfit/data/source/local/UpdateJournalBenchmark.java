@@ -0,0 +1,138 @@
+package com.aidanogrady.keepfit.data.source.local;
+
+import com.aidanogrady.keepfit.data.model.units.Unit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the rate updates are appended to the memory-mapped UpdateJournal against the rate they
+ * are inserted one at a time into the updates table of a SQLite database on disk, as the
+ * UpdatesLocalDataSource does for each step entry. Appends should reach well over 100,000 a
+ * second. The journal is emptied whenever it fills, as compaction would.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UpdateJournalBenchmark {
+    /**
+     * The number of seconds in a day.
+     */
+    private static final int DAY_SECONDS = 24 * 60 * 60;
+
+    /**
+     * The file the journal is mapped from.
+     */
+    private File mJournalFile;
+
+    /**
+     * The journal appended to.
+     */
+    private UpdateJournal mJournal;
+
+    /**
+     * The file of the SQLite database inserted into.
+     */
+    private File mDatabaseFile;
+
+    /**
+     * The connection to the SQLite database, committing each insert.
+     */
+    private Connection mConnection;
+
+    /**
+     * The statement inserting an update.
+     */
+    private PreparedStatement mInsert;
+
+    /**
+     * The number of updates written, which sets the date and time of the next.
+     */
+    private long mCount;
+
+
+    /**
+     * Creates the journal and the database in temporary files.
+     *
+     * @throws IOException if the journal could not be created
+     * @throws SQLException if the database could not be created
+     */
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        mJournalFile = File.createTempFile("updates", ".journal");
+        mJournal = UpdateJournal.open(mJournalFile, JournaledUpdatesDataSource.CAPACITY);
+
+        mDatabaseFile = File.createTempFile("updates", ".db");
+        mConnection = DriverManager.getConnection("jdbc:sqlite:" + mDatabaseFile.getPath());
+        try (Statement statement = mConnection.createStatement()) {
+            statement.execute(UpdatesPersistenceContract.getCreateTable());
+            statement.execute(UpdatesPersistenceContract.getCreateDateIndex());
+        }
+        mInsert = mConnection.prepareStatement(UpdatesPersistenceContract.getInsertStatement());
+    }
+
+    /**
+     * Closes and deletes the journal and the database.
+     *
+     * @throws IOException if the journal could not be closed
+     * @throws SQLException if the database could not be closed
+     */
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        mJournal.close();
+        mInsert.close();
+        mConnection.close();
+        if (!mJournalFile.delete() || !mDatabaseFile.delete()) {
+            throw new IOException("Could not delete the benchmark files");
+        }
+    }
+
+    /**
+     * Appends an update to the journal, emptying it first if it is full.
+     *
+     * @return true once appended
+     * @throws IOException if the journal could not be emptied
+     */
+    @Benchmark
+    public boolean journalAppend() throws IOException {
+        long count = mCount++;
+        if (mJournal.size() == mJournal.getCapacity()) {
+            mJournal.reset();
+        }
+        return mJournal.append(count / 100, (int) (count % DAY_SECONDS), count % 1000, Unit.STEPS);
+    }
+
+    /**
+     * Inserts an update into the updates table in its own transaction.
+     *
+     * @return the number of rows inserted
+     * @throws SQLException if the update could not be inserted
+     */
+    @Benchmark
+    public int sqliteInsert() throws SQLException {
+        long count = mCount++;
+        mInsert.setLong(1, count / 100);
+        mInsert.setLong(2, count % DAY_SECONDS);
+        mInsert.setDouble(3, count % 1000);
+        mInsert.setInt(4, Unit.STEPS.ordinal());
+        return mInsert.executeUpdate();
+    }
+}
@@ -0,0 +1,149 @@
+package com.aidanogrady.keepfit.data.source.memory;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.GoalsDataSource;
+import com.aidanogrady.keepfit.data.source.GoalsRepository;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+import com.aidanogrady.keepfit.data.source.HistoryRepository;
+import com.aidanogrady.keepfit.data.source.UnitOfWork;
+import com.aidanogrady.keepfit.data.source.UpdatesRepository;
+import com.aidanogrady.keepfit.util.AppExecutors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times whole scenarios run through the repositories on a fresh InMemoryStorageEngine, as a
+ * presenter test would: a goal is added, a week of walks is recorded, then the goals, a page of
+ * history and the streak are read back. Each scenario starts from empty repositories and storage,
+ * and should take well under a millisecond, so thousands can run a second.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InMemoryScenarioBenchmark {
+    /**
+     * The first day recorded, a Monday.
+     */
+    private static final long FIRST_DATE = 17000;
+
+    /**
+     * The number of days recorded in each scenario.
+     */
+    private static final int DAYS = 7;
+
+    /**
+     * The number of walks recorded each day.
+     */
+    private static final int WALKS_PER_DAY = 4;
+
+    /**
+     * The number of days in a page of the history list.
+     */
+    private static final int PAGE_SIZE = 30;
+
+    /**
+     * The executors the repositories run through, both running inline.
+     */
+    private AppExecutors mAppExecutors;
+
+
+    /**
+     * Creates the executors shared by every scenario.
+     */
+    @Setup
+    public void setUp() {
+        mAppExecutors = new AppExecutors(Runnable::run, Runnable::run);
+    }
+
+    /**
+     * Destroys the repositories of the last scenario.
+     */
+    @TearDown
+    public void tearDown() {
+        destroyRepositories();
+    }
+
+    /**
+     * Runs one scenario from empty storage.
+     *
+     * @param blackhole consumes everything read back
+     */
+    @Benchmark
+    public void weekOfWalks(Blackhole blackhole) {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        UnitOfWork unitOfWork = new UnitOfWork(engine, mAppExecutors, 0);
+        destroyRepositories();
+        GoalsRepository goalsRepository =
+                GoalsRepository.getInstance(engine, mAppExecutors, unitOfWork);
+        HistoryRepository historyRepository =
+                HistoryRepository.getInstance(engine, mAppExecutors, unitOfWork);
+        UpdatesRepository updatesRepository =
+                UpdatesRepository.getInstance(engine, mAppExecutors, unitOfWork);
+
+        Goal goal = new Goal("Walk", 2, Unit.KILOMETRES);
+        goalsRepository.insertGoal(goal);
+        for (long date = FIRST_DATE; date < FIRST_DATE + DAYS; date++) {
+            List<Update> updates = new ArrayList<>(WALKS_PER_DAY);
+            for (int i = 0; i < WALKS_PER_DAY; i++) {
+                Update update = new Update(date, i * 3600, 0.5 + (date % 3) * 0.1, Unit.KILOMETRES);
+                updatesRepository.insertUpdate(update);
+                updates.add(update);
+            }
+            double distance = 0;
+            for (Update update : updates) {
+                distance += update.getDistance();
+            }
+            historyRepository.insertHistory(new History(date, goal, distance, updates));
+        }
+        historyRepository.rebuildStreaks();
+
+        goalsRepository.getGoals(new GoalsDataSource.LoadGoalsCallback() {
+            @Override
+            public void onGoalsLoaded(List<Goal> goals) {
+                blackhole.consume(goals);
+            }
+
+            @Override
+            public void onDataNotAvailable() {}
+        });
+        historyRepository.getHistory(HistoryFilter.ALL, PAGE_SIZE,
+                new HistoryDataSource.LoadHistoryCallback() {
+                    @Override
+                    public void onHistoryLoaded(List<History> histories) {
+                        blackhole.consume(histories);
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {}
+                });
+        historyRepository.getStreak(blackhole::consume);
+    }
+
+    /**
+     * Destroys the singleton repositories, so each scenario starts with empty caches.
+     */
+    private static void destroyRepositories() {
+        GoalsRepository.destroyInstance();
+        HistoryRepository.destroyInstance();
+        UpdatesRepository.destroyInstance();
+    }
+}
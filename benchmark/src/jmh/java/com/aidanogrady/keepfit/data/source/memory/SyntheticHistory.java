@@ -0,0 +1,121 @@
+package com.aidanogrady.keepfit.data.source.memory;
+
+import com.aidanogrady.keepfit.data.model.Goal;
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.Update;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.StorageEngine;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills a storage engine with years of generated history through its own write methods, so the
+ * rollups, streaks and totals are those the engine computes. The history is generated from a fixed
+ * seed so every run benchmarks the same days.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+public class SyntheticHistory {
+    /**
+     * The last day of generated history, fixed so runs on different days are comparable.
+     */
+    public static final long LAST_DATE = LocalDate.of(2017, 3, 1).toEpochDay();
+
+    /**
+     * The number of seconds in a day.
+     */
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+
+    /**
+     * One in this many days has no goal.
+     */
+    private static final int DAYS_PER_DAY_WITHOUT_GOAL = 10;
+
+
+    /**
+     * Private construct to prevent accidental instantiating of the utility class.
+     */
+    private SyntheticHistory() {}
+
+
+    /**
+     * Creates an InMemoryStorageEngine filled with the given years of history.
+     *
+     * @param years the number of years of history
+     * @param updatesPerDay the number of updates of each day
+     * @return the filled engine
+     */
+    public static InMemoryStorageEngine create(int years, int updatesPerDay) {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        fill(engine, years, updatesPerDay);
+        return engine;
+    }
+
+    /**
+     * Writes the given years of history ending on LAST_DATE to the engine in one transaction. Each
+     * day works towards one of a handful of goals, changed weekly, and has the given number of
+     * updates. The streaks are rebuilt once the history is written.
+     *
+     * @param engine the engine written to
+     * @param years the number of years of history
+     * @param updatesPerDay the number of updates of each day
+     * @return the goals days work towards
+     */
+    public static List<Goal> fill(StorageEngine engine, int years, int updatesPerDay) {
+        List<Goal> goals = new ArrayList<>();
+        goals.add(new Goal("goal-walk", "Walk", 10000, Unit.STEPS, -1));
+        goals.add(new Goal("goal-run", "Run", 5, Unit.KILOMETRES, -1));
+        goals.add(new Goal("goal-hike", "Hike", 3, Unit.MILES, -1));
+        goals.add(new Goal("goal-stroll", "Stroll", 2000, Unit.YARDS, -1));
+
+        Random random = new Random(42);
+        List<History> histories = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        for (long date = getFirstDate(years); date <= LAST_DATE; date++) {
+            Goal goal = null;
+            if (random.nextInt(DAYS_PER_DAY_WITHOUT_GOAL) != 0) {
+                goal = goals.get((int) (date / 7 % goals.size()));
+            }
+            Unit unit = goal == null ? Unit.STEPS : goal.getUnit();
+            double target = goal == null ? 10000 : goal.getDistance();
+
+            List<Update> day = new ArrayList<>(updatesPerDay);
+            for (int i = 0; i < updatesPerDay; i++) {
+                // Between nothing and half again the goal over the day
+                double distance = random.nextDouble() * 1.5 * target / updatesPerDay;
+                // Stored as the second of the day, as HomePresenter records it
+                long time = (i + 1) * DAY_SECONDS / (updatesPerDay + 1);
+                day.add(new Update(date, time, distance, unit));
+            }
+            History history = new History(date, goal, 0, day);
+            histories.add(new History(date, goal, history.getTotalDistance(unit), day));
+            updates.addAll(day);
+        }
+
+        engine.runInTransaction(() -> {
+            for (Goal goal : goals) {
+                engine.insertGoal(goal);
+            }
+            engine.insertHistories(histories);
+            engine.insertUpdates(updates);
+            engine.rebuildStreaks();
+        });
+        return Collections.unmodifiableList(goals);
+    }
+
+    /**
+     * Returns the first day of the given years of history.
+     *
+     * @param years the number of years of history
+     * @return first date
+     */
+    public static long getFirstDate(int years) {
+        return LAST_DATE - years * 365 + 1;
+    }
+}
@@ -0,0 +1,142 @@
+package com.aidanogrady.keepfit.history;
+
+import com.aidanogrady.keepfit.data.model.History;
+import com.aidanogrady.keepfit.data.model.HistoryFilter;
+import com.aidanogrady.keepfit.data.model.units.Unit;
+import com.aidanogrady.keepfit.data.source.HistoryDataSource;
+import com.aidanogrady.keepfit.data.source.memory.InMemoryStorageEngine;
+import com.aidanogrady.keepfit.data.source.memory.SyntheticHistory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the pipeline the HistoryPresenter runs for each page of the history list: the filtered
+ * query, the conversion to the display unit and the formatting of the rows. The history is read
+ * from an InMemoryStorageEngine, so the conversion and formatting are not hidden by the time spent
+ * in SQLite, which the instrumented HistoryQueryBenchmark measures.
+ *
+ * @author Aidan O'Grady
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryPipelineBenchmark {
+    /**
+     * The display unit, or NONE to show each day in its goal's unit.
+     */
+    @Param({"NONE", "KILOMETRES"})
+    public String displayUnit;
+
+    /**
+     * The engine holding the history queried.
+     */
+    private InMemoryStorageEngine mDataSource;
+
+    /**
+     * The filter of days on which the goal was completed.
+     */
+    private HistoryFilter mCompletedFilter;
+
+    /**
+     * The display unit, or null if there is none.
+     */
+    private Unit mUnit;
+
+    /**
+     * A page of history already loaded.
+     */
+    private List<History> mPage;
+
+
+    /**
+     * Creates and fills the engine.
+     */
+    @Setup
+    public void setUp() {
+        mDataSource = SyntheticHistory.create(1, 8);
+        mCompletedFilter = new HistoryFilter(Long.MIN_VALUE, Long.MAX_VALUE, 100,
+                Double.POSITIVE_INFINITY);
+        mUnit = "NONE".equals(displayUnit) ? null : Unit.valueOf(displayUnit);
+        mPage = query(HistoryFilter.ALL);
+    }
+
+    /**
+     * Builds the rows of a page already loaded.
+     *
+     * @return rows of the page
+     */
+    @Benchmark
+    public List<HistoryRowModel> rows() {
+        return toRows(mPage);
+    }
+
+    /**
+     * Queries and builds the first page of unfiltered history.
+     *
+     * @return rows of the page
+     */
+    @Benchmark
+    public List<HistoryRowModel> firstPage() {
+        return toRows(query(HistoryFilter.ALL));
+    }
+
+    /**
+     * Queries and builds the first page of completed days.
+     *
+     * @return rows of the page
+     */
+    @Benchmark
+    public List<HistoryRowModel> firstPageCompleted() {
+        return toRows(query(mCompletedFilter));
+    }
+
+    /**
+     * Queries the first page of history matched by the given filter.
+     *
+     * @param filter the filter history must match
+     * @return matched history
+     */
+    private List<History> query(HistoryFilter filter) {
+        List<History> page = new ArrayList<>();
+        mDataSource.getHistory(filter.before(Long.MAX_VALUE), PagedHistoryList.PAGE_SIZE,
+                new HistoryDataSource.LoadHistoryCallback() {
+                    @Override
+                    public void onHistoryLoaded(List<History> histories) {
+                        page.addAll(histories);
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {}
+                });
+        return page;
+    }
+
+    /**
+     * Builds the rows of the given history as HistoryPresenter does.
+     *
+     * @param histories the history of the page
+     * @return rows of the page
+     */
+    private List<HistoryRowModel> toRows(List<History> histories) {
+        List<HistoryRowModel> rows = new ArrayList<>(histories.size());
+        for (History history : histories) {
+            if (mUnit != null) {
+                history = HistoryPresenter.convertHistory(history, mUnit);
+            }
+            rows.add(HistoryRowModel.from(history));
+        }
+        return rows;
+    }
+}